@@ -0,0 +1,132 @@
+package expressionsolver;
+
+import java.util.Arrays;
+
+/**
+ * Floating-point expression compiled into a flat postfix program.
+ *
+ * Variables are bound to slots when compiling, so that evaluation takes
+ * their values from a {@code double[]} indexed by slot (see {@link #getSlot(String)}).
+ * Evaluation allocates no objects, which makes it suitable for solving
+ * the same formula for a large number of configurations.
+ *
+ * Instances are immutable and can be evaluated concurrently.
+ *
+ * @author thiago
+ */
+public final class CompiledExpression {
+
+    static final int PUSH_CONSTANT = 0;
+    static final int PUSH_VARIABLE = 1;
+    static final int ADD = 2;
+    static final int SUBTRACT = 3;
+    static final int MULTIPLY = 4;
+    static final int DIVIDE = 5;
+    static final int POWER = 6;
+    static final int NEGATE = 7;
+
+    static final int OPCODE_BITS = 3;
+    static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+    private static final ThreadLocal<double[]> STACK = ThreadLocal.withInitial(() -> new double[16]);
+
+    private final int[] code;
+    private final double[] constants;
+    private final String[] variables;
+    private final int stackSize;
+
+    CompiledExpression(int[] code, double[] constants, String[] variables, int stackSize) {
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.stackSize = stackSize;
+    }
+
+    /**
+     * Compiles a floating-point expression using the operators +, -, *, / and ^.
+     *
+     * @param expression
+     * @return the compiled expression.
+     * @throws IllegalArgumentException if the expression is malformed or uses
+     *          constructs other than those above (e.g., functions).
+     */
+    public static CompiledExpression compile(String expression) {
+        return new ExpressionCompiler(expression).compile();
+    }
+
+    /**
+     * @return the names of the variables in this expression, in slot order.
+     */
+    public String[] getVariables() {
+        return Arrays.copyOf(variables, variables.length);
+    }
+
+    public int getNumberOfVariables() {
+        return variables.length;
+    }
+
+    /**
+     * @param variable
+     * @return the slot at which the value of {@code variable} is expected,
+     *          or -1 if it does not occur in this expression.
+     */
+    public int getSlot(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Evaluates this expression.
+     *
+     * @param values Values of the variables, indexed by slot.
+     * @return
+     */
+    public double evaluate(double[] values) {
+        double[] stack = STACK.get();
+        if (stack.length < stackSize) {
+            stack = new double[stackSize];
+            STACK.set(stack);
+        }
+        int top = -1;
+        for (int instruction : code) {
+            switch (instruction & OPCODE_MASK) {
+            case PUSH_CONSTANT:
+                stack[++top] = constants[instruction >>> OPCODE_BITS];
+                break;
+            case PUSH_VARIABLE:
+                stack[++top] = values[instruction >>> OPCODE_BITS];
+                break;
+            case ADD:
+                top--;
+                stack[top] += stack[top + 1];
+                break;
+            case SUBTRACT:
+                top--;
+                stack[top] -= stack[top + 1];
+                break;
+            case MULTIPLY:
+                top--;
+                stack[top] *= stack[top + 1];
+                break;
+            case DIVIDE:
+                top--;
+                stack[top] /= stack[top + 1];
+                break;
+            case POWER:
+                top--;
+                stack[top] = Math.pow(stack[top], stack[top + 1]);
+                break;
+            case NEGATE:
+            default:
+                stack[top] = -stack[top];
+                break;
+            }
+        }
+        return stack[0];
+    }
+
+}
@@ -1,5 +1,8 @@
 package expressionsolver;
 
+import jadd.ADD;
+import jadd.ADDScope;
+
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -10,6 +13,7 @@ public class Expression<T> {
     private static final Logger LOGGER = Logger.getLogger(Expression.class.getName());
 
     private JEP parser;
+    private CompiledExpression compiled;
     private Class<? extends T> type;
 
     /**
@@ -22,6 +26,29 @@ public class Expression<T> {
         this.type = type;
     }
 
+    /**
+     * Creates a new floating-point Expression backed by a compiled program
+     * instead of a JEP parser.
+     * @param compiled
+     */
+    static Expression<Double> of(CompiledExpression compiled) {
+        Expression<Double> expression = new Expression<Double>(null, Double.class);
+        expression.compiled = compiled;
+        return expression;
+    }
+
+    /**
+     * Returns the compiled form of this expression, which should be preferred
+     * when it is to be solved many times: variables can be bound to slots once
+     * and evaluation does not allocate.
+     *
+     * @return the compiled expression or {@code null} if this expression could
+     *          not be compiled (e.g., it is not a floating-point expression).
+     */
+    public CompiledExpression compile() {
+        return compiled;
+    }
+
     /**
      * Solves an expression with respect to the given interpretation of variables.
      * Here, variables are interpreted in the algebraic sense, not as boolean ADD-variables.
@@ -31,9 +58,13 @@ public class Expression<T> {
      * @param interpretation A map from variable names to the respective values
      *          to be considered during evaluation.
      * @return the result of applying the operations in the expression as defined
-     *          for type {@code T}.
+     *          for type {@code T}. For ADDs, intermediate results are released
+     *          before returning.
      */
     public T solve(Map<String, T> interpretation) {
+        if (compiled != null) {
+            return type.cast(solveCompiled(interpretation));
+        }
         SymbolTable symbolTable = parser.getSymbolTable();
         for (Object var: symbolTable.keySet()) {
             String varName = (String)var;
@@ -43,7 +74,26 @@ public class Expression<T> {
                 LOGGER.warning("No interpretation for variable <"+varName+"> was provided");
             }
         }
+        if (ADD.class.isAssignableFrom(type)) {
+            try (ADDScope scope = ADDScope.open()) {
+                return type.cast(scope.keep((ADD) parser.getValueAsObject()));
+            }
+        }
         Object result = parser.getValueAsObject();
         return type.cast(result);
     }
+
+    private Double solveCompiled(Map<String, T> interpretation) {
+        String[] variables = compiled.getVariables();
+        double[] values = new double[variables.length];
+        for (int slot = 0; slot < variables.length; slot++) {
+            T value = interpretation.get(variables[slot]);
+            if (value == null) {
+                LOGGER.warning("No interpretation for variable <"+variables[slot]+"> was provided");
+                return null;
+            }
+            values[slot] = ((Number) value).doubleValue();
+        }
+        return compiled.evaluate(values);
+    }
 }
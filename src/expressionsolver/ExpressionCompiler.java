@@ -0,0 +1,256 @@
+package expressionsolver;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recursive-descent compiler from floating-point expressions to
+ * {@link CompiledExpression} programs.
+ *
+ * Operator precedence and associativity follow JEP's: unary minus binds
+ * looser than ^, which is right-associative (i.e., -2^2 = -4 and
+ * 2^3^2 = 2^9). Constant sub-expressions are folded.
+ *
+ * @author thiago
+ */
+class ExpressionCompiler {
+
+    private final String expression;
+    private int position;
+
+    private int[] code = new int[64];
+    private int codeLength;
+    private double[] constants = new double[16];
+    private int constantsLength;
+    private Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+
+    private int depth;
+    private int maxDepth;
+
+    ExpressionCompiler(String expression) {
+        this.expression = expression;
+    }
+
+    CompiledExpression compile() {
+        parseAdditive();
+        skipSpaces();
+        if (position != expression.length()) {
+            throw error("Unexpected character");
+        }
+        return new CompiledExpression(Arrays.copyOf(code, codeLength),
+                                      Arrays.copyOf(constants, constantsLength),
+                                      slots.keySet().toArray(new String[slots.size()]),
+                                      maxDepth);
+    }
+
+    /*
+     * Each parse method emits the code for the sub-expression it recognizes
+     * and returns whether that code is a single constant push.
+     */
+
+    private boolean parseAdditive() {
+        boolean constant = parseMultiplicative();
+        while (true) {
+            char operator = peek();
+            if (operator == '+') {
+                position++;
+                constant = emitBinary(CompiledExpression.ADD, constant, parseMultiplicative());
+            } else if (operator == '-') {
+                position++;
+                constant = emitBinary(CompiledExpression.SUBTRACT, constant, parseMultiplicative());
+            } else {
+                return constant;
+            }
+        }
+    }
+
+    private boolean parseMultiplicative() {
+        boolean constant = parseUnary();
+        while (true) {
+            char operator = peek();
+            if (operator == '*') {
+                position++;
+                constant = emitBinary(CompiledExpression.MULTIPLY, constant, parseUnary());
+            } else if (operator == '/') {
+                position++;
+                constant = emitBinary(CompiledExpression.DIVIDE, constant, parseUnary());
+            } else {
+                return constant;
+            }
+        }
+    }
+
+    private boolean parseUnary() {
+        char operator = peek();
+        if (operator == '+') {
+            position++;
+            return parseUnary();
+        } else if (operator == '-') {
+            position++;
+            boolean constant = parseUnary();
+            if (constant) {
+                constants[constantsLength - 1] = -constants[constantsLength - 1];
+            } else {
+                emit(CompiledExpression.NEGATE, 0);
+            }
+            return constant;
+        }
+        return parsePower();
+    }
+
+    private boolean parsePower() {
+        boolean constant = parsePrimary();
+        if (peek() == '^') {
+            position++;
+            constant = emitBinary(CompiledExpression.POWER, constant, parseUnary());
+        }
+        return constant;
+    }
+
+    private boolean parsePrimary() {
+        char next = peek();
+        if (next == '(') {
+            position++;
+            boolean constant = parseAdditive();
+            if (peek() != ')') {
+                throw error("Expected ')'");
+            }
+            position++;
+            return constant;
+        } else if (Character.isDigit(next) || next == '.') {
+            pushConstant(parseNumber());
+            return true;
+        } else if (Character.isLetter(next) || next == '_') {
+            pushVariable(parseIdentifier());
+            return false;
+        }
+        throw error("Unexpected " + (next == 0 ? "end of expression" : "character"));
+    }
+
+    private double parseNumber() {
+        int start = position;
+        while (position < expression.length()
+                && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < expression.length()
+                && (expression.charAt(position) == 'e' || expression.charAt(position) == 'E')) {
+            int mantissaEnd = position;
+            position++;
+            if (position < expression.length()
+                    && (expression.charAt(position) == '+' || expression.charAt(position) == '-')) {
+                position++;
+            }
+            if (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                    position++;
+                }
+            } else {
+                // Not an exponent after all.
+                position = mantissaEnd;
+            }
+        }
+        try {
+            return Double.parseDouble(expression.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Malformed number");
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = position;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        return expression.substring(start, position);
+    }
+
+    private boolean emitBinary(int opcode, boolean leftConstant, boolean rightConstant) {
+        if (leftConstant && rightConstant) {
+            double right = constants[--constantsLength];
+            double left = constants[constantsLength - 1];
+            constants[constantsLength - 1] = fold(opcode, left, right);
+            codeLength--;
+            depth--;
+            return true;
+        }
+        emit(opcode, 0);
+        depth--;
+        return false;
+    }
+
+    private static double fold(int opcode, double left, double right) {
+        switch (opcode) {
+        case CompiledExpression.ADD:
+            return left + right;
+        case CompiledExpression.SUBTRACT:
+            return left - right;
+        case CompiledExpression.MULTIPLY:
+            return left * right;
+        case CompiledExpression.DIVIDE:
+            return left / right;
+        case CompiledExpression.POWER:
+        default:
+            return Math.pow(left, right);
+        }
+    }
+
+    private void pushConstant(double value) {
+        if (constantsLength == constants.length) {
+            constants = Arrays.copyOf(constants, 2 * constantsLength);
+        }
+        constants[constantsLength] = value;
+        emit(CompiledExpression.PUSH_CONSTANT, constantsLength);
+        constantsLength++;
+        push();
+    }
+
+    private void pushVariable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        emit(CompiledExpression.PUSH_VARIABLE, slot);
+        push();
+    }
+
+    private void push() {
+        depth++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void emit(int opcode, int operand) {
+        if (codeLength == code.length) {
+            code = Arrays.copyOf(code, 2 * codeLength);
+        }
+        code[codeLength++] = (operand << CompiledExpression.OPCODE_BITS) | opcode;
+    }
+
+    /**
+     * @return the next non-blank character, without consuming it,
+     *          or 0 at the end of the expression.
+     */
+    private char peek() {
+        skipSpaces();
+        return position < expression.length() ? expression.charAt(position) : 0;
+    }
+
+    private void skipSpaces() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of expression");
+    }
+
+}
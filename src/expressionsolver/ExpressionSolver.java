@@ -1,13 +1,22 @@
 package expressionsolver;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.nfunk.jep.JEP;
 import org.nfunk.jep.SymbolTable;
@@ -30,13 +39,43 @@ import expressionsolver.functions.UnaryMinus;
 public class ExpressionSolver {
     private static final Logger LOGGER = Logger.getLogger(ExpressionSolver.class.getName());
 
+    /**
+     * Maximum number of encoded formulas kept by each solver. Presence conditions
+     * are usually a handful of short strings, so this is rarely reached.
+     */
+    static final int FORMULA_CACHE_SIZE = 1024;
+    /**
+     * Maximum number of compiled floating-point expressions kept by each solver.
+     * Reliability expressions can be tens of kilobytes long, hence the smaller bound.
+     */
+    static final int EXPRESSION_CACHE_SIZE = 256;
+
+    private static final Pattern SPACES_AROUND_OPERATORS = Pattern.compile("\\s*([^\\w\\s.])\\s*");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern CNF_LITERAL = Pattern.compile("(!*)([A-Za-z_][\\w.]*)");
+
+    private static final Map<String, Boolean> BOOLEAN_CONSTANTS = new HashMap<String, Boolean>();
+    static {
+        BOOLEAN_CONSTANTS.put("true", true);
+        BOOLEAN_CONSTANTS.put("True", true);
+        BOOLEAN_CONSTANTS.put("false", false);
+        BOOLEAN_CONSTANTS.put("False", false);
+    }
+
     private JADD jadd;
+    private Map<String, ADD> encodedFormulas;
+    private Map<String, ADD> encodedCNFs;
+    private Map<String, CompiledExpression> compiledExpressions;
 
     /**
      * Solves expressions using the provided ADD manager.
      */
     public ExpressionSolver(JADD jadd) {
         this.jadd = jadd;
+        // Evicted ADDs are not released, since callers may still hold them.
+        this.encodedFormulas = makeBoundedCache(FORMULA_CACHE_SIZE);
+        this.encodedCNFs = makeBoundedCache(FORMULA_CACHE_SIZE);
+        this.compiledExpressions = makeBoundedCache(EXPRESSION_CACHE_SIZE);
     }
 
     /**
@@ -106,12 +145,136 @@ public class ExpressionSolver {
      * variables. These are internally indexed by name, so that multiple
      * references in (possibly multiple) expressions are taken to be the same.
      *
+     * Encodings are memoized by formula text (disregarding white space),
+     * so the returned ADD is shared and must not be released by the caller.
+     *
      * @param formula
      *            Propositional logic formula to be encoded. The valid boolean
      *            operators are && (AND), || (OR) and !(NOT).
      * @return
      */
     public ADD encodeFormula(String formula) {
+        ADD encoded = encodedFormulas.computeIfAbsent(normalizeFormula(formula),
+                                                      this::encodeFormulaUncached);
+        // The formula may have been encoded while some scope was open.
+        if (encoded != null) {
+            ADDScope.unregister(encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes a propositional formula in conjunctive normal form, such as a
+     * feature model, as a 0,1-ADD. Large formulas are encoded much faster
+     * than by {@link #encodeFormula(String)} (see {@link JADD#encodeCNF(List)}).
+     *
+     * The formula must be a conjunction (&&) of clauses, each of which is a
+     * disjunction (||) of possibly negated variables or boolean constants.
+     * Disjunctions must be enclosed in parentheses, unless the formula is
+     * a single clause. Other formulas are encoded by {@link #encodeFormula(String)}.
+     *
+     * Encodings are memoized separately from those of {@link #encodeFormula(String)},
+     * but are shared as well, so the returned ADD must not be released by the caller.
+     *
+     * @param formula
+     * @return
+     */
+    public ADD encodeCNF(String formula) {
+        ADD encoded = encodedCNFs.computeIfAbsent(normalizeFormula(formula),
+                                                  this::encodeCNFUncached);
+        if (encoded != null) {
+            ADDScope.unregister(encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * Removes white space which is not significant to the parser, so that
+     * formulas differing only in spacing share the same encoding.
+     */
+    static String normalizeFormula(String formula) {
+        String compacted = SPACES_AROUND_OPERATORS.matcher(formula.trim()).replaceAll("$1");
+        return SPACES.matcher(compacted).replaceAll(" ");
+    }
+
+    private ADD encodeFormulaUncached(String formula) {
+        try (ADDScope scope = ADDScope.open()) {
+            return scope.keep(parseAndEncodeFormula(formula));
+        }
+    }
+
+    private ADD encodeCNFUncached(String formula) {
+        Map<String, String> symbols = new Hashtable<String, String>();
+        List<List<String>> clauses = parseCNF(formula, symbols);
+        if (clauses == null) {
+            return encodeFormulaUncached(formula);
+        }
+        // Variables are created in the same order as when the formula is
+        // encoded by JEP, since the initial variable order depends on it.
+        // That is the order of a HashSet copy of JEP's symbol table (a Hashtable
+        // to which variables are added as found, and then the boolean constants).
+        for (String constant : new String[] {"true", "True", "false", "False"}) {
+            symbols.put(constant, constant);
+        }
+        Set<String> variables = new HashSet<String>(symbols.keySet());
+        variables.removeAll(BOOLEAN_CONSTANTS.keySet());
+        for (String varName : variables) {
+            jadd.getVariable(varName);
+        }
+        try (ADDScope scope = ADDScope.open()) {
+            return scope.keep(jadd.encodeCNF(clauses));
+        }
+    }
+
+    /**
+     * Splits a (normalized) CNF formula into clauses. Clauses which contain
+     * a true literal are left out, and so are false literals.
+     *
+     * Since && binds tighter than ||, a disjunction which is not enclosed
+     * in parentheses is only a clause if it is the whole formula
+     * (e.g., {@code a||b&&c} means {@code a||(b&&c)}).
+     *
+     * @param symbols Map to which the names of variables and constants
+     *          are added (as both key and value) in order of appearance.
+     * @return the clauses, as lists of literals, or null if the formula is not in CNF.
+     */
+    private static List<List<String>> parseCNF(String formula, Map<String, String> symbols) {
+        List<List<String>> clauses = new ArrayList<List<String>>();
+        String[] conjuncts = formula.split("&&", -1);
+        for (String clause : conjuncts) {
+            boolean parenthesized = clause.startsWith("(") && clause.endsWith(")");
+            if (parenthesized) {
+                clause = clause.substring(1, clause.length() - 1);
+            }
+            String[] disjuncts = clause.split("\\|\\|", -1);
+            if (disjuncts.length > 1 && conjuncts.length > 1 && !parenthesized) {
+                return null;
+            }
+            List<String> literals = new ArrayList<String>();
+            boolean satisfied = false;
+            for (String literal : disjuncts) {
+                Matcher matcher = CNF_LITERAL.matcher(literal);
+                if (!matcher.matches()) {
+                    return null;
+                }
+                boolean negated = matcher.group(1).length() % 2 == 1;
+                String name = matcher.group(2);
+                symbols.putIfAbsent(name, name);
+                Boolean constant = BOOLEAN_CONSTANTS.get(name);
+                if (constant == null) {
+                    literals.add(negated ? "!" + name : name);
+                } else if (constant != negated) {
+                    satisfied = true;
+                }
+            }
+            if (!satisfied) {
+                clauses.add(literals);
+            }
+        }
+        return clauses;
+    }
+
+    private ADD parseAndEncodeFormula(String formula) {
         JEP parser = makeADDParser(jadd);
         parser.parseExpression(formula);
         if (parser.hasError()) {
@@ -143,13 +306,26 @@ public class ExpressionSolver {
      * Lower level alternative for {@link solveExpression(String)}.
      *
      * It returns a handle to an already parsed expression, in case it
-     * must be evaluated more than once.
+     * must be evaluated more than once. Whenever possible, the expression
+     * is compiled (see {@link Expression#compile()}) and the compiled form
+     * is memoized by expression text.
      *
      * @param expression
      * @return A handle to the parsed expression or {@code null} if there
      *      is a parsing error.
      */
     public Expression<Double> parseExpression(String expression) {
+        // Compiling outside of the cache's lock lets parallel strategies compile concurrently.
+        CompiledExpression compiled = compiledExpressions.get(expression);
+        if (compiled == null) {
+            compiled = compileExpression(expression);
+            if (compiled != null) {
+                compiledExpressions.put(expression, compiled);
+            }
+        }
+        if (compiled != null) {
+            return Expression.of(compiled);
+        }
         JEP parser = makeFloatingPointParser();
         parser.parseExpression(expression);
         if (parser.hasError()) {
@@ -178,6 +354,36 @@ public class ExpressionSolver {
         return new Expression<ADD>(parser, ADD.class);
     }
 
+    /**
+     * Compiles a floating-point expression, if it only uses constructs
+     * supported by {@link CompiledExpression}.
+     *
+     * @return the compiled expression or {@code null}, in which case
+     *      the expression must be handled by JEP.
+     */
+    private CompiledExpression compileExpression(String expression) {
+        try {
+            return CompiledExpression.compile(expression);
+        } catch (IllegalArgumentException e) {
+            LOGGER.fine("Falling back to JEP: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Makes a synchronized LRU map holding at most {@code capacity} entries.
+     */
+    private static <V> Map<String, V> makeBoundedCache(int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
     /**
      * @param jadd
      */
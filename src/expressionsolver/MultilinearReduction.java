@@ -0,0 +1,481 @@
+package expressionsolver;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Algebraic simplification of expressions whose variables only take the
+ * values 0 and 1, such as those which are lifted over presence conditions.
+ *
+ * Over such variables x^n = x (for n > 0) and, hence, x*(1-x) = 0, so any
+ * polynomial has an equivalent multilinear form: a sum of products of
+ * distinct variables. Rewriting an expression this way before solving it
+ * as an ADD saves the apply operations of expanding powers (x^n takes n-1
+ * multiplications) and of terms which cancel out or can be merged.
+ *
+ * Divisions by non-constant sub-expressions are not rewritten. If an
+ * expression has one, if expanding its products would produce too many
+ * terms, or if its multilinear form is not cheaper to evaluate, it is
+ * left as is.
+ *
+ * @author thiago
+ */
+public final class MultilinearReduction {
+
+    /**
+     * Maximum number of terms the expansion of a product may have
+     * before the reduction is given up.
+     */
+    private static final long MAX_PRODUCT_TERMS = 1 << 16;
+
+    private final String expression;
+    private final long originalOperations;
+    private final long reducedOperations;
+
+    private MultilinearReduction(String expression, long originalOperations, long reducedOperations) {
+        this.expression = expression;
+        this.originalOperations = originalOperations;
+        this.reducedOperations = reducedOperations;
+    }
+
+    /**
+     * @param expression Expression whose variables are all 0/1-valued.
+     * @return the reduction of {@code expression}, which is the expression
+     *      itself if it cannot be reduced.
+     */
+    public static MultilinearReduction reduce(String expression) {
+        Reducer reducer = new Reducer(expression);
+        Map<BitSet, Double> polynomial;
+        try {
+            polynomial = reducer.reduce();
+        } catch (IllegalArgumentException e) {
+            // Malformed or unsupported (e.g., function calls). Whatever the
+            // problem, it is up to the expression solver to report it.
+            return new MultilinearReduction(expression, 0, 0);
+        }
+        long originalOperations = reducer.getOperations();
+        if (polynomial != null) {
+            StringBuilder builder = new StringBuilder();
+            long reducedOperations = format(polynomial, reducer.getVariables(), builder);
+            if (reducedOperations < originalOperations) {
+                return new MultilinearReduction(builder.toString(), originalOperations, reducedOperations);
+            }
+        }
+        return new MultilinearReduction(expression, originalOperations, originalOperations);
+    }
+
+    /**
+     * @return the reduced expression, equivalent to the original one
+     *      for every 0/1 assignment to its variables.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return the number of arithmetic operations (i.e., ADD applications)
+     *      needed to solve the original expression.
+     */
+    public long getOriginalOperations() {
+        return originalOperations;
+    }
+
+    /**
+     * @return the number of arithmetic operations needed to solve the reduced expression.
+     */
+    public long getReducedOperations() {
+        return reducedOperations;
+    }
+
+    /**
+     * Formats a polynomial as a sum of products.
+     * @return the number of operations in the resulting expression.
+     */
+    private static long format(Map<BitSet, Double> polynomial, List<String> variables, StringBuilder builder) {
+        if (polynomial.isEmpty()) {
+            builder.append('0');
+            return 0;
+        }
+        long operations = 0;
+        for (Map.Entry<BitSet, Double> term : polynomial.entrySet()) {
+            BitSet monomial = term.getKey();
+            double coefficient = term.getValue();
+            if (coefficient < 0) {
+                // Either a unary minus or a subtraction.
+                builder.append('-');
+                operations++;
+                coefficient = -coefficient;
+            } else if (builder.length() > 0) {
+                builder.append('+');
+                operations++;
+            }
+
+            if (monomial.isEmpty()) {
+                builder.append(formatNumber(coefficient));
+                continue;
+            }
+            if (coefficient != 1) {
+                builder.append(formatNumber(coefficient)).append('*');
+                operations++;
+            }
+            String separator = "";
+            for (int i = monomial.nextSetBit(0); i >= 0; i = monomial.nextSetBit(i + 1)) {
+                builder.append(separator).append(variables.get(i));
+                separator = "*";
+            }
+            operations += monomial.cardinality() - 1;
+        }
+        return operations;
+    }
+
+    /**
+     * Plain decimal notation, since the expression parser does not
+     * understand the scientific one.
+     */
+    private static String formatNumber(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1E15) {
+            return Long.toString((long) number);
+        }
+        return BigDecimal.valueOf(number).toPlainString();
+    }
+
+    /**
+     * Recursive-descent parser which expands an expression into a multilinear
+     * polynomial, mapping monomials (sets of variable indices) to coefficients,
+     * while counting the operations the original expression takes to solve.
+     *
+     * Operator precedence and associativity follow JEP's, as in
+     * {@link ExpressionCompiler}. Once reduction is given up, parsing goes on
+     * only to count operations, and polynomials are null.
+     */
+    private static class Reducer {
+
+        private static final BitSet CONSTANT_MONOMIAL = new BitSet();
+
+        private final String expression;
+        private int position;
+
+        private long operations;
+        private List<String> variables = new ArrayList<String>();
+        private Map<String, Integer> indices = new HashMap<String, Integer>();
+
+        Reducer(String expression) {
+            this.expression = expression;
+        }
+
+        /**
+         * @return the multilinear form of the expression, or null if it cannot be reduced.
+         */
+        Map<BitSet, Double> reduce() {
+            Map<BitSet, Double> polynomial = parseAdditive();
+            skipSpaces();
+            if (position != expression.length()) {
+                throw error("Unexpected character");
+            }
+            return polynomial;
+        }
+
+        long getOperations() {
+            return operations;
+        }
+
+        List<String> getVariables() {
+            return variables;
+        }
+
+        /*
+         * Each parse method returns a fresh polynomial, so that
+         * callers are free to update it in place.
+         */
+
+        private Map<BitSet, Double> parseAdditive() {
+            Map<BitSet, Double> sum = parseMultiplicative();
+            while (true) {
+                char operator = peek();
+                if (operator == '+' || operator == '-') {
+                    position++;
+                    Map<BitSet, Double> term = parseMultiplicative();
+                    operations++;
+                    sum = add(sum, term, (operator == '+') ? 1 : -1);
+                } else {
+                    return sum;
+                }
+            }
+        }
+
+        private Map<BitSet, Double> parseMultiplicative() {
+            Map<BitSet, Double> product = parseUnary();
+            while (true) {
+                char operator = peek();
+                if (operator == '*') {
+                    position++;
+                    Map<BitSet, Double> factor = parseUnary();
+                    operations++;
+                    product = times(product, factor);
+                } else if (operator == '/') {
+                    position++;
+                    Map<BitSet, Double> divisor = parseUnary();
+                    operations++;
+                    product = dividedBy(product, divisor);
+                } else {
+                    return product;
+                }
+            }
+        }
+
+        private Map<BitSet, Double> parseUnary() {
+            char operator = peek();
+            if (operator == '+') {
+                position++;
+                return parseUnary();
+            } else if (operator == '-') {
+                position++;
+                Map<BitSet, Double> operand = parseUnary();
+                operations++;
+                return scale(operand, -1);
+            }
+            return parsePower();
+        }
+
+        private Map<BitSet, Double> parsePower() {
+            Map<BitSet, Double> base = parsePrimary();
+            if (peek() == '^') {
+                position++;
+                Map<BitSet, Double> exponent = parseUnary();
+                if (exponent == null || !isConstant(exponent)) {
+                    // Only constant exponents are supported by the solver.
+                    throw error("Non-constant exponent");
+                }
+                return power(base, getConstantValue(exponent));
+            }
+            return base;
+        }
+
+        private Map<BitSet, Double> parsePrimary() {
+            char next = peek();
+            if (next == '(') {
+                position++;
+                Map<BitSet, Double> polynomial = parseAdditive();
+                if (peek() != ')') {
+                    throw error("Expected ')'");
+                }
+                position++;
+                return polynomial;
+            } else if (Character.isDigit(next) || next == '.') {
+                return constant(parseNumber());
+            } else if (Character.isLetter(next) || next == '_') {
+                return variable(parseIdentifier());
+            }
+            throw error("Unexpected " + (next == 0 ? "end of expression" : "character"));
+        }
+
+        private double parseNumber() {
+            int start = position;
+            while (position < expression.length()
+                    && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+                position++;
+            }
+            if (position < expression.length()
+                    && (expression.charAt(position) == 'e' || expression.charAt(position) == 'E')) {
+                int mantissaEnd = position;
+                position++;
+                if (position < expression.length()
+                        && (expression.charAt(position) == '+' || expression.charAt(position) == '-')) {
+                    position++;
+                }
+                if (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                    while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                        position++;
+                    }
+                } else {
+                    // Not an exponent after all.
+                    position = mantissaEnd;
+                }
+            }
+            try {
+                return Double.parseDouble(expression.substring(start, position));
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("Malformed number");
+            }
+        }
+
+        private String parseIdentifier() {
+            int start = position;
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            return expression.substring(start, position);
+        }
+
+        private Map<BitSet, Double> constant(double value) {
+            Map<BitSet, Double> polynomial = new LinkedHashMap<BitSet, Double>();
+            if (value != 0) {
+                polynomial.put(CONSTANT_MONOMIAL, value);
+            }
+            return polynomial;
+        }
+
+        private Map<BitSet, Double> variable(String name) {
+            Integer index = indices.get(name);
+            if (index == null) {
+                index = variables.size();
+                indices.put(name, index);
+                variables.add(name);
+            }
+            BitSet monomial = new BitSet();
+            monomial.set(index);
+            Map<BitSet, Double> polynomial = new LinkedHashMap<BitSet, Double>();
+            polynomial.put(monomial, 1.0);
+            return polynomial;
+        }
+
+        private static Map<BitSet, Double> add(Map<BitSet, Double> sum, Map<BitSet, Double> term, double sign) {
+            if (sum == null || term == null) {
+                return null;
+            }
+            for (Map.Entry<BitSet, Double> entry : term.entrySet()) {
+                addTerm(sum, entry.getKey(), sign * entry.getValue());
+            }
+            return sum;
+        }
+
+        private static Map<BitSet, Double> times(Map<BitSet, Double> first, Map<BitSet, Double> second) {
+            if (first == null || second == null) {
+                return null;
+            } else if (isConstant(first)) {
+                return scale(second, getConstantValue(first));
+            } else if (isConstant(second)) {
+                return scale(first, getConstantValue(second));
+            } else if ((long) first.size() * second.size() > MAX_PRODUCT_TERMS) {
+                return null;
+            }
+            Map<BitSet, Double> product = new LinkedHashMap<BitSet, Double>();
+            for (Map.Entry<BitSet, Double> term : first.entrySet()) {
+                for (Map.Entry<BitSet, Double> otherTerm : second.entrySet()) {
+                    // x*x = x, so the product of monomials is the union of their variables.
+                    BitSet monomial = (BitSet) term.getKey().clone();
+                    monomial.or(otherTerm.getKey());
+                    addTerm(product, monomial, term.getValue() * otherTerm.getValue());
+                }
+            }
+            return product;
+        }
+
+        private static Map<BitSet, Double> dividedBy(Map<BitSet, Double> dividend, Map<BitSet, Double> divisor) {
+            if (dividend == null || divisor == null || !isConstant(divisor)) {
+                return null;
+            }
+            double value = getConstantValue(divisor);
+            for (Map.Entry<BitSet, Double> term : dividend.entrySet()) {
+                term.setValue(term.getValue() / value);
+            }
+            return dividend;
+        }
+
+        /**
+         * Mimics the solver's powers, which are repeated multiplications
+         * except for 0, in which case the result is 1 wherever the base
+         * is not 0 (and 0 elsewhere).
+         */
+        private Map<BitSet, Double> power(Map<BitSet, Double> base, double exponent) {
+            if (exponent != Math.rint(exponent) || exponent < 0) {
+                operations++;
+                return null;
+            }
+            long n = (long) exponent;
+            operations += (n == 0) ? 1 : n - 1;
+            if (base == null) {
+                return null;
+            } else if (n == 0) {
+                if (isConstant(base)) {
+                    return constant(getConstantValue(base) != 0 ? 1 : 0);
+                } else if (base.size() == 1) {
+                    // A nonzero coefficient times a product of 0/1 variables.
+                    base.replaceAll((monomial, coefficient) -> 1.0);
+                    return base;
+                }
+                return null;
+            } else if (base.size() <= 1) {
+                // (c*m)^n = c^n*m
+                for (Map.Entry<BitSet, Double> term : base.entrySet()) {
+                    term.setValue(Math.pow(term.getValue(), n));
+                }
+                return base;
+            }
+            Map<BitSet, Double> result = base;
+            for (long i = 1; i < n && result != null; i++) {
+                Map<BitSet, Double> next = times(result, new LinkedHashMap<BitSet, Double>(base));
+                if (next != null && next.equals(result)) {
+                    // Idempotent from here on.
+                    break;
+                }
+                result = next;
+            }
+            return result;
+        }
+
+        private static Map<BitSet, Double> scale(Map<BitSet, Double> polynomial, double factor) {
+            if (polynomial == null) {
+                return null;
+            } else if (factor == 0) {
+                polynomial.clear();
+            }
+            for (Map.Entry<BitSet, Double> term : polynomial.entrySet()) {
+                term.setValue(term.getValue() * factor);
+            }
+            return polynomial;
+        }
+
+        private static void addTerm(Map<BitSet, Double> polynomial, BitSet monomial, double coefficient) {
+            Double current = polynomial.get(monomial);
+            double sum = (current == null) ? coefficient : current + coefficient;
+            if (sum == 0) {
+                polynomial.remove(monomial);
+            } else {
+                polynomial.put(monomial, sum);
+            }
+        }
+
+        private static boolean isConstant(Map<BitSet, Double> polynomial) {
+            return polynomial.isEmpty()
+                    || (polynomial.size() == 1 && polynomial.containsKey(CONSTANT_MONOMIAL));
+        }
+
+        private static double getConstantValue(Map<BitSet, Double> polynomial) {
+            Double value = polynomial.get(CONSTANT_MONOMIAL);
+            return (value == null) ? 0 : value;
+        }
+
+        /**
+         * @return the next non-blank character, without consuming it,
+         *          or 0 at the end of the expression.
+         */
+        private char peek() {
+            skipSpaces();
+            return position < expression.length() ? expression.charAt(position) : 0;
+        }
+
+        private void skipSpaces() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of expression");
+        }
+
+    }
+
+}
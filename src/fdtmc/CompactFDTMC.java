@@ -0,0 +1,761 @@
+package fdtmc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, array-based representation of an FDTMC.
+ *
+ * States are plain int ids (0 to {@link #getNumberOfStates()} - 1), and
+ * transitions are laid out in compressed sparse row form: the transitions
+ * leaving state {@code s} are those with ids from {@link #getTransitionsBegin(int)}
+ * (inclusive) to {@link #getTransitionsEnd(int)} (exclusive), in the order
+ * in which they were added. Probabilities and action names are interned
+ * symbols, and each symbol which is a number literal has its value parsed
+ * once and for all.
+ *
+ * Instances are created by means of a {@link Builder}.
+ *
+ * @author thiago
+ */
+public final class CompactFDTMC {
+    /**
+     * Stands for a missing state, transition or symbol.
+     */
+    public static final int NONE = -1;
+
+    private final String variableName;
+    private final String[] labels;
+    private final int initialState;
+    private final int successState;
+    private final int errorState;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] probabilities;
+    private final int[] actions;
+
+    private final String[] symbols;
+    private final double[] numericValues;
+
+    private final String[] interfaceIds;
+    // Initial, success and error states of each interface.
+    private final int[] interfaceStates;
+    // Success and error transitions of each interface.
+    private final int[] interfaceTransitions;
+
+    // Lazily computed (see canonical()). Racy initialization is harmless,
+    // since any thread computes an equal value.
+    private CompactFDTMC canonical;
+    private long fingerprint;
+
+    private CompactFDTMC(Builder builder, int[] offsets, int[] targets, int[] probabilities, int[] actions,
+                         String[] interfaceIds, int[] interfaceStates, int[] interfaceTransitions) {
+        this.variableName = builder.variableName;
+        this.labels = Arrays.copyOf(builder.labels, builder.numberOfStates);
+        this.initialState = builder.initialState;
+        this.successState = builder.successState;
+        this.errorState = builder.errorState;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.probabilities = probabilities;
+        this.actions = actions;
+        this.symbols = builder.symbols.toArray(new String[builder.symbols.size()]);
+        this.numericValues = new double[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            numericValues[i] = parseNumber(symbols[i]);
+        }
+        this.interfaceIds = interfaceIds;
+        this.interfaceStates = interfaceStates;
+        this.interfaceTransitions = interfaceTransitions;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public int getNumberOfStates() {
+        return labels.length;
+    }
+
+    public String getLabel(int state) {
+        return labels[state];
+    }
+
+    public int getInitialState() {
+        return initialState;
+    }
+
+    public int getSuccessState() {
+        return successState;
+    }
+
+    public int getErrorState() {
+        return errorState;
+    }
+
+    public int getNumberOfTransitions() {
+        return targets.length;
+    }
+
+    /**
+     * @return the id of the first transition leaving {@code state}.
+     */
+    public int getTransitionsBegin(int state) {
+        return offsets[state];
+    }
+
+    /**
+     * @return one past the id of the last transition leaving {@code state}.
+     */
+    public int getTransitionsEnd(int state) {
+        return offsets[state + 1];
+    }
+
+    public int getTarget(int transition) {
+        return targets[transition];
+    }
+
+    public String getProbability(int transition) {
+        return getSymbol(probabilities[transition]);
+    }
+
+    /**
+     * @return the interned symbol of the transition's probability. Equal
+     *      probabilities always have equal symbols within an FDTMC.
+     */
+    public int getProbabilitySymbol(int transition) {
+        return probabilities[transition];
+    }
+
+    /**
+     * @return the value of the transition's probability, or NaN if it
+     *      is not a number literal (e.g., a parameter).
+     */
+    public double getNumericProbability(int transition) {
+        int symbol = probabilities[transition];
+        return symbol == NONE ? Double.NaN : numericValues[symbol];
+    }
+
+    public String getAction(int transition) {
+        return getSymbol(actions[transition]);
+    }
+
+    public int getNumberOfSymbols() {
+        return symbols.length;
+    }
+
+    public String getSymbol(int symbol) {
+        return symbol == NONE ? null : symbols[symbol];
+    }
+
+    /**
+     * Interfaces are numbered grouped by abstracted id, in the order
+     * in which each id first occurred.
+     */
+    public int getNumberOfInterfaces() {
+        return interfaceIds.length;
+    }
+
+    public String getInterfaceId(int iface) {
+        return interfaceIds[iface];
+    }
+
+    public int getInterfaceInitial(int iface) {
+        return interfaceStates[3*iface];
+    }
+
+    public int getInterfaceSuccess(int iface) {
+        return interfaceStates[3*iface + 1];
+    }
+
+    public int getInterfaceError(int iface) {
+        return interfaceStates[3*iface + 2];
+    }
+
+    public int getInterfaceSuccessTransition(int iface) {
+        return interfaceTransitions[2*iface];
+    }
+
+    public int getInterfaceErrorTransition(int iface) {
+        return interfaceTransitions[2*iface + 1];
+    }
+
+    /**
+     * Flags the transitions which are part of interfaces, as well as those
+     * deemed equal to them (see {@link #areEqualTransitions(CompactFDTMC, int, int, CompactFDTMC, int, int)}).
+     */
+    boolean[] getInterfaceTransitionsMask() {
+        boolean[] mask = new boolean[targets.length];
+        for (int iface = 0; iface < interfaceIds.length; iface++) {
+            int source = getInterfaceInitial(iface);
+            for (int k = 0; k < 2; k++) {
+                int interfaceTransition = interfaceTransitions[2*iface + k];
+                if (interfaceTransition == NONE) {
+                    continue;
+                }
+                mask[interfaceTransition] = true;
+                for (int t = offsets[source]; t < offsets[source + 1]; t++) {
+                    if (areEqualTransitions(this, source, t, this, source, interfaceTransition)) {
+                        mask[t] = true;
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Two FDTMCs are deemed equal whenever:
+     *     - they have the same number of states;
+     *     - their initial, success, and error states are equal;
+     *     - the transitions with concrete values are equal;
+     *     - the transitions with variable names have equal source and target states; and
+     *     - the abstracted interfaces are equal, disregarding their ids.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || !(obj instanceof CompactFDTMC)) {
+            return false;
+        }
+        CompactFDTMC other = (CompactFDTMC) obj;
+        if (labels.length != other.labels.length
+                || initialState != other.initialState
+                || successState != other.successState
+                || errorState != other.errorState
+                || !Arrays.equals(offsets, other.offsets)
+                || interfaceIds.length != other.interfaceIds.length
+                || !Arrays.equals(interfaceStates, other.interfaceStates)) {
+            return false;
+        }
+        for (int state = 0; state < labels.length; state++) {
+            for (int t = offsets[state]; t < offsets[state + 1]; t++) {
+                if (!areEqualTransitions(this, state, t, other, state, t)) {
+                    return false;
+                }
+            }
+        }
+        for (int iface = 0; iface < interfaceIds.length; iface++) {
+            // Interfaces for the same id must be grouped alike.
+            if (iface > 0 && interfaceIds[iface].equals(interfaceIds[iface - 1])
+                    != other.interfaceIds[iface].equals(other.interfaceIds[iface - 1])) {
+                return false;
+            }
+            int source = getInterfaceInitial(iface);
+            for (int k = 0; k < 2; k++) {
+                int thisTransition = interfaceTransitions[2*iface + k];
+                int otherTransition = other.interfaceTransitions[2*iface + k];
+                if (thisTransition == NONE || otherTransition == NONE) {
+                    if (thisTransition != otherTransition) {
+                        return false;
+                    }
+                } else if (!areEqualTransitions(this, source, thisTransition, other, source, otherTransition)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Yields the same value as hashing the equivalent object graph of
+     * {@link State}s, {@link Transition}s and {@link Interface}s, so that
+     * iteration orders of hash-based collections of models are unchanged.
+     */
+    @Override
+    public int hashCode() {
+        int statesHash = 0;
+        int transitionsHash = 0;
+        for (int state = 0; state < labels.length; state++) {
+            statesHash += stateHash(state);
+            int begin = offsets[state];
+            int end = offsets[state + 1];
+            // States without transitions map to null lists, which hash to 0.
+            int listHash = 0;
+            if (begin != end) {
+                listHash = 1;
+                for (int t = begin; t < end; t++) {
+                    listHash = 31*listHash + transitionHash(state, t);
+                }
+            }
+            transitionsHash += stateHash(state) ^ listHash;
+        }
+
+        int interfacesHash = 0;
+        int iface = 0;
+        while (iface < interfaceIds.length) {
+            String id = interfaceIds[iface];
+            int listHash = 1;
+            for (; iface < interfaceIds.length && interfaceIds[iface].equals(id); iface++) {
+                int initial = getInterfaceInitial(iface);
+                int interfaceHash = stateHash(initial)
+                        + stateHash(getInterfaceSuccess(iface))
+                        + stateHash(getInterfaceError(iface))
+                        + transitionHash(initial, getInterfaceSuccessTransition(iface))
+                        + transitionHash(initial, getInterfaceErrorTransition(iface));
+                listHash = 31*listHash + interfaceHash;
+            }
+            interfacesHash += id.hashCode() ^ listHash;
+        }
+        return statesHash + transitionsHash + interfacesHash;
+    }
+
+    private static int stateHash(int state) {
+        return (state == NONE) ? 0 : state + 1;
+    }
+
+    private int transitionHash(int source, int transition) {
+        return (transition == NONE) ? 0 : stateHash(source) + stateHash(targets[transition]);
+    }
+
+    /**
+     * Two transitions are equal if they have equal source and target states.
+     * Moreover, their transition probabilities must be equal numbers or
+     * be both (not necessarily equal) variable names. A variable name is
+     * taken as equal to zero, just like in {@link Transition#equals(Object)}.
+     */
+    static boolean areEqualTransitions(CompactFDTMC fdtmc1, int source1, int transition1,
+                                       CompactFDTMC fdtmc2, int source2, int transition2) {
+        if (source1 != source2 || fdtmc1.targets[transition1] != fdtmc2.targets[transition2]) {
+            return false;
+        }
+        double probability1 = fdtmc1.getNumericProbability(transition1);
+        double probability2 = fdtmc2.getNumericProbability(transition2);
+        boolean isVariable1 = Double.isNaN(probability1);
+        boolean isVariable2 = Double.isNaN(probability2);
+        if (isVariable1 && isVariable2) {
+            return true;
+        }
+        return (isVariable1 ? 0 : probability1) == (isVariable2 ? 0 : probability2);
+    }
+
+    /**
+     * Returns an isomorphic copy of this FDTMC, with states renumbered in a
+     * canonical way. Hence, FDTMCs which differ only in the order in which
+     * their states, transitions or interfaces were created have equal
+     * canonical forms (see {@link #equals(Object)}).
+     *
+     * States are numbered in breadth-first order from the initial state,
+     * following the transitions of each state in ascending order of
+     * probability. Transitions with equal probabilities are followed in their
+     * original order, so this is a canonical form up to such ties. States
+     * which are not reachable from the initial one keep their relative order.
+     */
+    public CompactFDTMC canonical() {
+        if (canonical == null) {
+            canonical = buildCanonical();
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns a structural hash of the canonical form of this FDTMC.
+     * Isomorphic FDTMCs (i.e., whose canonical forms are equal) always
+     * have the same fingerprint.
+     */
+    public long getFingerprint() {
+        CompactFDTMC canonicalForm = canonical();
+        if (canonicalForm.fingerprint == 0) {
+            canonicalForm.fingerprint = canonicalForm.structuralHash();
+        }
+        return canonicalForm.fingerprint;
+    }
+
+    /**
+     * @return whether {@code other} is equal to this FDTMC up to the
+     *      numbering of states (see {@link #canonical()}).
+     */
+    public boolean isIsomorphicTo(CompactFDTMC other) {
+        return getFingerprint() == other.getFingerprint()
+                && canonical().equals(other.canonical());
+    }
+
+    private CompactFDTMC buildCanonical() {
+        int numberOfStates = labels.length;
+        int[] newIds = new int[numberOfStates];
+        Arrays.fill(newIds, NONE);
+        int[] order = new int[numberOfStates];
+        int numbered = 0;
+        int[] seeds = new int[numberOfStates + 3];
+        seeds[0] = initialState;
+        seeds[1] = successState;
+        seeds[2] = errorState;
+        for (int state = 0; state < numberOfStates; state++) {
+            seeds[state + 3] = state;
+        }
+        for (int seed : seeds) {
+            if (seed == NONE || newIds[seed] != NONE) {
+                continue;
+            }
+            newIds[seed] = numbered;
+            order[numbered++] = seed;
+            // Breadth-first search, using the numbering order as the queue.
+            for (int head = numbered - 1; head < numbered; head++) {
+                for (int t : transitionsByProbability(order[head], null)) {
+                    int target = targets[t];
+                    if (target != NONE && newIds[target] == NONE) {
+                        newIds[target] = numbered;
+                        order[numbered++] = target;
+                    }
+                }
+            }
+        }
+
+        Builder builder = new Builder(variableName);
+        for (int state : order) {
+            builder.addState(labels[state]);
+        }
+        builder.setSpecialStates(renumber(initialState, newIds),
+                                 renumber(successState, newIds),
+                                 renumber(errorState, newIds));
+        int[] newTransitionIds = new int[targets.length];
+        for (int state : order) {
+            for (int t : transitionsByProbability(state, newIds)) {
+                newTransitionIds[t] = builder.addTransition(newIds[state],
+                                                            renumber(targets[t], newIds),
+                                                            getAction(t),
+                                                            getProbability(t));
+            }
+        }
+
+        // Interface groups are ordered by their first interface, and
+        // interfaces by their initial states.
+        Map<String, List<Integer>> groups = new HashMap<String, List<Integer>>();
+        for (int iface = 0; iface < interfaceIds.length; iface++) {
+            groups.computeIfAbsent(interfaceIds[iface], id -> new ArrayList<Integer>()).add(iface);
+        }
+        Comparator<Integer> byInitialState = Comparator.comparingInt(iface -> renumber(getInterfaceInitial(iface), newIds));
+        List<List<Integer>> sortedGroups = new ArrayList<List<Integer>>(groups.values());
+        for (List<Integer> group : sortedGroups) {
+            group.sort(byInitialState);
+        }
+        sortedGroups.sort(Comparator.comparing(group -> group.get(0), byInitialState));
+        for (List<Integer> group : sortedGroups) {
+            for (int iface : group) {
+                int successTransition = getInterfaceSuccessTransition(iface);
+                int errorTransition = getInterfaceErrorTransition(iface);
+                builder.addInterface(interfaceIds[iface],
+                                     renumber(getInterfaceInitial(iface), newIds),
+                                     renumber(getInterfaceSuccess(iface), newIds),
+                                     renumber(getInterfaceError(iface), newIds),
+                                     (successTransition == NONE) ? NONE : newTransitionIds[successTransition],
+                                     (errorTransition == NONE) ? NONE : newTransitionIds[errorTransition]);
+            }
+        }
+        CompactFDTMC canonicalForm = builder.build();
+        canonicalForm.canonical = canonicalForm;
+        return canonicalForm;
+    }
+
+    /**
+     * Sorts the transitions leaving {@code state} by probability (as compared
+     * by {@link #areEqualTransitions(CompactFDTMC, int, int, CompactFDTMC, int, int)})
+     * and then by renumbered target, if {@code newIds} is given.
+     * The sort is stable.
+     */
+    private Integer[] transitionsByProbability(int state, int[] newIds) {
+        Integer[] transitions = new Integer[offsets[state + 1] - offsets[state]];
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = offsets[state] + i;
+        }
+        Comparator<Integer> order = Comparator.comparingDouble(this::probabilityKey);
+        if (newIds != null) {
+            order = order.thenComparingInt(t -> renumber(targets[t], newIds));
+        }
+        Arrays.sort(transitions, order);
+        return transitions;
+    }
+
+    /**
+     * Probability of a transition as taken by {@link #areEqualTransitions(CompactFDTMC, int, int, CompactFDTMC, int, int)},
+     * i.e., with variable names as zero.
+     */
+    private double probabilityKey(int transition) {
+        double probability = getNumericProbability(transition);
+        // Adding 0.0 turns -0.0 into 0.0, which are equal numbers.
+        return Double.isNaN(probability) ? 0.0 : probability + 0.0;
+    }
+
+    private static int renumber(int state, int[] newIds) {
+        return (state == NONE) ? NONE : newIds[state];
+    }
+
+    /**
+     * Hashes everything {@link #equals(Object)} compares, so that equal
+     * FDTMCs hash alike.
+     */
+    private long structuralHash() {
+        long hash = labels.length;
+        hash = combine(hash, initialState);
+        hash = combine(hash, successState);
+        hash = combine(hash, errorState);
+        for (int state = 0; state < labels.length; state++) {
+            hash = combine(hash, offsets[state + 1]);
+            for (int t = offsets[state]; t < offsets[state + 1]; t++) {
+                hash = combine(hash, structuralHash(t));
+            }
+        }
+        hash = combine(hash, interfaceIds.length);
+        for (int iface = 0; iface < interfaceIds.length; iface++) {
+            boolean sameGroup = iface > 0 && interfaceIds[iface].equals(interfaceIds[iface - 1]);
+            hash = combine(hash, sameGroup ? 1 : 0);
+            for (int k = 0; k < 3; k++) {
+                hash = combine(hash, interfaceStates[3*iface + k]);
+            }
+            for (int k = 0; k < 2; k++) {
+                int transition = interfaceTransitions[2*iface + k];
+                hash = combine(hash, (transition == NONE) ? NONE : structuralHash(transition));
+            }
+        }
+        // MurmurHash3's 64-bit finalizer, which also keeps 0 (i.e., not yet
+        // computed) unlikely.
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (hash == 0) ? 1 : hash;
+    }
+
+    private long structuralHash(int transition) {
+        return 31 * Double.doubleToLongBits(probabilityKey(transition)) + targets[transition];
+    }
+
+    private static long combine(long hash, long value) {
+        return hash * 0x9E3779B97F4A7C15L + value;
+    }
+
+    private static double parseNumber(String symbol) {
+        try {
+            return Double.parseDouble(symbol);
+        } catch (NumberFormatException | NullPointerException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Accumulates states, transitions and interfaces, which may be added in
+     * any order, and lays them out compactly upon {@link #build()}.
+     *
+     * Labels follow the conventions of {@link FDTMC}: the first state added
+     * is the initial one (but unlabeled), and setting the initial, success or
+     * error state labels it accordingly.
+     */
+    public static final class Builder {
+        private String variableName;
+
+        private int numberOfStates;
+        private String[] labels = new String[16];
+        private int initialState = NONE;
+        private int successState = NONE;
+        private int errorState = NONE;
+
+        private int numberOfTransitions;
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int[] probabilities = new int[16];
+        private int[] actions = new int[16];
+
+        private Map<String, Integer> symbolIds = new HashMap<String, Integer>();
+        private List<String> symbols = new ArrayList<String>();
+
+        private List<String> interfaceIds = new ArrayList<String>();
+        private int[] interfaceStates = new int[12];
+        private int[] interfaceTransitions = new int[8];
+
+        public Builder(String variableName) {
+            this.variableName = variableName;
+        }
+
+        public String getVariableName() {
+            return variableName;
+        }
+
+        public int getNumberOfStates() {
+            return numberOfStates;
+        }
+
+        public int addState() {
+            return addState(null);
+        }
+
+        public int addState(String label) {
+            if (numberOfStates == labels.length) {
+                labels = Arrays.copyOf(labels, 2*numberOfStates);
+            }
+            labels[numberOfStates] = label;
+            if (numberOfStates == 0) {
+                initialState = 0;
+            }
+            return numberOfStates++;
+        }
+
+        /**
+         * Adds {@code count} unlabeled states.
+         * @return the id of the first one. The others follow consecutively.
+         */
+        public int addStates(int count) {
+            int first = numberOfStates;
+            for (int i = 0; i < count; i++) {
+                addState();
+            }
+            return first;
+        }
+
+        public void setInitialState(int state) {
+            if (initialState != NONE) {
+                labels[initialState] = null;
+            }
+            initialState = state;
+            setLabel(state, FDTMC.INITIAL_LABEL);
+        }
+
+        public void setSuccessState(int state) {
+            successState = state;
+            setLabel(state, FDTMC.SUCCESS_LABEL);
+        }
+
+        public void setErrorState(int state) {
+            errorState = state;
+            setLabel(state, FDTMC.ERROR_LABEL);
+        }
+
+        public int getInitialState() {
+            return initialState;
+        }
+
+        public int getSuccessState() {
+            return successState;
+        }
+
+        public int getErrorState() {
+            return errorState;
+        }
+
+        /**
+         * Sets the initial, success and error states, leaving labels untouched.
+         */
+        void setSpecialStates(int initial, int success, int error) {
+            initialState = initial;
+            successState = success;
+            errorState = error;
+        }
+
+        private void setLabel(int state, String label) {
+            if (state != NONE) {
+                labels[state] = label;
+            }
+        }
+
+        /**
+         * @return a provisional transition id, only meaningful for {@link #addInterface},
+         *      or {@link CompactFDTMC#NONE} if there is no source state.
+         */
+        public int addTransition(int source, int target, String action, String probability) {
+            if (source == NONE) {
+                return NONE;
+            }
+            if (numberOfTransitions == sources.length) {
+                int capacity = 2*numberOfTransitions;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                probabilities = Arrays.copyOf(probabilities, capacity);
+                actions = Arrays.copyOf(actions, capacity);
+            }
+            sources[numberOfTransitions] = source;
+            targets[numberOfTransitions] = target;
+            actions[numberOfTransitions] = intern(action);
+            probabilities[numberOfTransitions] = intern(probability);
+            return numberOfTransitions++;
+        }
+
+        /**
+         * @param successTransition Provisional id returned by {@link #addTransition}.
+         * @param errorTransition Provisional id returned by {@link #addTransition}.
+         */
+        public void addInterface(String id, int initial, int success, int error, int successTransition, int errorTransition) {
+            int index = interfaceIds.size();
+            if (3*index == interfaceStates.length) {
+                interfaceStates = Arrays.copyOf(interfaceStates, 2*interfaceStates.length);
+                interfaceTransitions = Arrays.copyOf(interfaceTransitions, 2*interfaceTransitions.length);
+            }
+            interfaceIds.add(id);
+            interfaceStates[3*index] = initial;
+            interfaceStates[3*index + 1] = success;
+            interfaceStates[3*index + 2] = error;
+            interfaceTransitions[2*index] = successTransition;
+            interfaceTransitions[2*index + 1] = errorTransition;
+        }
+
+        private int intern(String symbol) {
+            if (symbol == null) {
+                return NONE;
+            }
+            Integer id = symbolIds.get(symbol);
+            if (id == null) {
+                id = symbols.size();
+                symbolIds.put(symbol, id);
+                symbols.add(symbol);
+            }
+            return id;
+        }
+
+        public CompactFDTMC build() {
+            // Counting sort of transitions by source, which keeps the
+            // relative order of transitions leaving the same state.
+            int[] offsets = new int[numberOfStates + 1];
+            for (int t = 0; t < numberOfTransitions; t++) {
+                offsets[sources[t] + 1]++;
+            }
+            for (int s = 0; s < numberOfStates; s++) {
+                offsets[s + 1] += offsets[s];
+            }
+            int[] next = Arrays.copyOf(offsets, numberOfStates);
+            int[] sortedIds = new int[numberOfTransitions];
+            int[] sortedTargets = new int[numberOfTransitions];
+            int[] sortedProbabilities = new int[numberOfTransitions];
+            int[] sortedActions = new int[numberOfTransitions];
+            for (int t = 0; t < numberOfTransitions; t++) {
+                int position = next[sources[t]]++;
+                sortedIds[t] = position;
+                sortedTargets[position] = targets[t];
+                sortedProbabilities[position] = probabilities[t];
+                sortedActions[position] = actions[t];
+            }
+
+            // Interfaces are grouped by abstracted id.
+            Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+            for (int i = 0; i < interfaceIds.size(); i++) {
+                groups.computeIfAbsent(interfaceIds.get(i), id -> new ArrayList<Integer>()).add(i);
+            }
+            int numberOfInterfaces = interfaceIds.size();
+            String[] groupedIds = new String[numberOfInterfaces];
+            int[] groupedStates = new int[3*numberOfInterfaces];
+            int[] groupedTransitions = new int[2*numberOfInterfaces];
+            int position = 0;
+            for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+                for (int i : group.getValue()) {
+                    groupedIds[position] = group.getKey();
+                    System.arraycopy(interfaceStates, 3*i, groupedStates, 3*position, 3);
+                    for (int k = 0; k < 2; k++) {
+                        int transition = interfaceTransitions[2*i + k];
+                        groupedTransitions[2*position + k] = (transition == NONE) ? NONE : sortedIds[transition];
+                    }
+                    position++;
+                }
+            }
+
+            return new CompactFDTMC(this, offsets, sortedTargets, sortedProbabilities, sortedActions,
+                                    groupedIds, groupedStates, groupedTransitions);
+        }
+    }
+
+}
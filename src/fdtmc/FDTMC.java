@@ -2,7 +2,7 @@ package fdtmc;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -25,6 +25,25 @@ public class FDTMC {
 	private int index;
 	private Map<State, List<Transition>> transitionSystem;
 	private Map<String, List<Interface>> interfaces;
+	/**
+	 * While not null, this is the only representation of this FDTMC, and the
+	 * fields above are not initialized. They are only expanded from it on
+	 * demand, i.e., when states or transitions are requested as objects.
+	 */
+	private CompactFDTMC compact;
+	/**
+	 * Number of structural changes so far, which tells whether the cached
+	 * canonical form is still up to date.
+	 */
+	private int version;
+	private CompactFDTMC canonical;
+	private int canonicalVersion;
+	/**
+	 * Compact form of the expanded representation, which is cached
+	 * (like the canonical form) until the next structural change.
+	 */
+	private CompactFDTMC compacted;
+	private int compactedVersion;
 
 
 	public FDTMC() {
@@ -36,12 +55,23 @@ public class FDTMC {
 		interfaces = new LinkedHashMap<String, List<Interface>>();
 	}
 
+	/**
+	 * Creates an FDTMC backed by the given compact representation.
+	 */
+	public FDTMC(CompactFDTMC compact) {
+		this.compact = compact;
+		this.variableName = compact.getVariableName();
+	}
+
 	public Collection<State> getStates() {
+		expand();
 		return states;
 	}
 
 	public void setVariableName(String name) {
+		expand();
 		variableName = name;
+		version++;
 	}
 
 	public String getVariableName() {
@@ -49,10 +79,15 @@ public class FDTMC {
 	}
 
 	public int getVariableIndex() {
+		if (compact != null) {
+			return compact.getNumberOfStates();
+		}
 		return index;
 	}
 
 	public State createState() {
+		expand();
+		version++;
 		State temp = new State();
 		temp.setVariableName(variableName);
 		temp.setIndex(index);
@@ -77,6 +112,7 @@ public class FDTMC {
     }
 
     private void setInitialState(State initialState) {
+        version++;
         if (this.initialState != null) {
             this.initialState.setLabel(null);
         }
@@ -85,6 +121,7 @@ public class FDTMC {
     }
 
     public State getInitialState() {
+        expand();
         return initialState;
     }
 
@@ -95,11 +132,13 @@ public class FDTMC {
     }
 
     private void setSuccessState(State successState) {
+        version++;
         this.successState = successState;
         successState.setLabel(SUCCESS_LABEL);
     }
 
     public State getSuccessState() {
+        expand();
         return successState;
     }
 
@@ -110,11 +149,13 @@ public class FDTMC {
     }
 
     private void setErrorState(State errorState) {
+        version++;
         this.errorState = errorState;
         errorState.setLabel(ERROR_LABEL);
     }
 
     public State getErrorState() {
+        expand();
         return errorState;
     }
 
@@ -122,6 +163,8 @@ public class FDTMC {
 	    if (source == null) {
 	        return null;
 	    }
+	    expand();
+	    version++;
 
 	    List<Transition> l = transitionSystem.get(source);
 		if (l == null) {
@@ -147,6 +190,8 @@ public class FDTMC {
 	 * @param error Error state of the interface.
 	 */
 	public Interface createInterface(String id, State initial, State success, State error) {
+	    expand();
+	    version++;
 	    Transition successTransition = createTransition(initial, success, "", id);
 	    Transition errorTransition = createTransition(initial, error, "", "1 - " + id);
 	    Interface newInterface = new Interface(id,
@@ -168,6 +213,7 @@ public class FDTMC {
 	}
 
 	public State getStateByLabel(String label) {
+		expand();
 		Iterator <State> it = states.iterator();
 		while (it.hasNext()){
 			State s = it.next();
@@ -178,6 +224,7 @@ public class FDTMC {
 	}
 
 	public Transition getTransitionByActionName(String action) {
+		expand();
 		//para cada Lista de adjacencias de cada nodo
 		Collection<List<Transition>> stateAdjacencies = transitionSystem.values();
 		Iterator<List<Transition>> iteratorStateAdjacencies = stateAdjacencies.iterator();
@@ -198,7 +245,11 @@ public class FDTMC {
 
 	@Override
 	public String toString() {
-		String msg = new String();
+		StringBuilder msg = new StringBuilder();
+		if (compact != null) {
+			appendCompact(msg, compact);
+			return msg.toString();
+		}
 
 		Set<State> tmpStates = this.transitionSystem.keySet();
 		Iterator <State> itStates = tmpStates.iterator();
@@ -209,45 +260,98 @@ public class FDTMC {
 				Iterator <Transition> itTransitions = transitionList.iterator();
 				while (itTransitions.hasNext()) {
 					Transition t = itTransitions.next();
-					msg += temp.getVariableName() + "=" + temp.getIndex() + ((temp.getLabel() != null) ? "(" + temp.getLabel() + ")" : "") +
-							" --- " + t.getActionName() + " / " + t.getProbability() +
-							" ---> " + t.getTarget().getVariableName() + "=" + t.getTarget().getIndex() + ((t.getTarget().getLabel() != null) ? "(" + t.getTarget().getLabel() + ")" : "") + "\n";
+					appendState(msg, temp);
+					msg.append(" --- ").append(t.getActionName()).append(" / ").append(t.getProbability()).append(" ---> ");
+					appendState(msg, t.getTarget());
+					msg.append("\n");
 				}
 			}
 		}
-		return msg;
+		return msg.toString();
+	}
+
+	private static void appendState(StringBuilder msg, State state) {
+		msg.append(state.getVariableName()).append("=").append(state.getIndex());
+		if (state.getLabel() != null) {
+			msg.append("(").append(state.getLabel()).append(")");
+		}
+	}
+
+	private static void appendCompact(StringBuilder msg, CompactFDTMC fdtmc) {
+		for (int state = 0; state < fdtmc.getNumberOfStates(); state++) {
+			for (int t = fdtmc.getTransitionsBegin(state); t < fdtmc.getTransitionsEnd(state); t++) {
+				appendState(msg, fdtmc, state);
+				msg.append(" --- ").append(fdtmc.getAction(t)).append(" / ").append(fdtmc.getProbability(t)).append(" ---> ");
+				appendState(msg, fdtmc, fdtmc.getTarget(t));
+				msg.append("\n");
+			}
+		}
+	}
+
+	private static void appendState(StringBuilder msg, CompactFDTMC fdtmc, int state) {
+		msg.append(fdtmc.getVariableName()).append("=").append(state);
+		if (fdtmc.getLabel(state) != null) {
+			msg.append("(").append(fdtmc.getLabel(state)).append(")");
+		}
 	}
 
 	/**
-	 * Two FDTMCs are deemed equal whenever:
-	 *     - their states are equal;
-	 *     - their initial, success, and error states are equal;
-	 *     - the transitions with concrete values are equal;
-	 *     - the transitions with variable names have equal source and target states; and
-	 *     - the abstracted interfaces are equal.
+	 * Two FDTMCs are deemed equal whenever their compact representations are.
+	 * @see CompactFDTMC#equals(Object)
 	 */
 	@Override
 	public boolean equals(Object obj) {
 	    if (obj != null && obj instanceof FDTMC) {
 	        FDTMC other = (FDTMC) obj;
-	        LinkedList<List<Interface>> thisInterfaces = new LinkedList<List<Interface>>(interfaces.values());
-            LinkedList<List<Interface>> otherInterfaces = new LinkedList<List<Interface>>(other.interfaces.values());
-            return states.equals(other.states)
-	                && getInitialState().equals(other.getInitialState())
-	                && getSuccessState().equals(other.getSuccessState())
-	                && getErrorState().equals(other.getErrorState())
-	                && transitionSystem.equals(other.transitionSystem)
-	                && thisInterfaces.equals(otherInterfaces);
+	        return compact().equals(other.compact());
 	    }
 	    return false;
 	}
 
 	@Override
     public int hashCode() {
-        return states.hashCode() + transitionSystem.hashCode() + interfaces.hashCode();
+        return compact().hashCode();
+    }
+
+    /**
+     * @return a number which changes whenever states, transitions or
+     *      interfaces are created, so that data derived from this FDTMC
+     *      can be cached until then.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a structural hash of this FDTMC which does not depend on
+     * the numbering of states (see {@link CompactFDTMC#getFingerprint()}).
+     */
+    public long getFingerprint() {
+        return canonical().getFingerprint();
+    }
+
+    /**
+     * @return whether {@code other} is equal to this FDTMC up to the
+     *      numbering of states (see {@link CompactFDTMC#canonical()}).
+     */
+    public boolean isIsomorphicTo(FDTMC other) {
+        return canonical().isIsomorphicTo(other.canonical());
+    }
+
+    /**
+     * Returns the canonical form of this FDTMC, which is cached until
+     * it changes.
+     */
+    private CompactFDTMC canonical() {
+        if (canonical == null || canonicalVersion != version) {
+            canonical = compact().canonical();
+            canonicalVersion = version;
+        }
+        return canonical;
     }
 
     public Map<State, List<Transition>> getTransitions() {
+        expand();
 		return transitionSystem;
 	}
 
@@ -260,21 +364,21 @@ public class FDTMC {
 	 *         in {@code indexedModels} inlined.
 	 */
     public FDTMC inline(Map<String, FDTMC> indexedModels) {
-        FDTMC inlined = new FDTMC();
-        Map<State, State> statesMapping = copyForInlining(inlined);
-
-        for (Map.Entry<String, List<Interface>> entry: interfaces.entrySet()) {
-            String dependencyId = entry.getKey();
+        CompactFDTMC source = compact();
+        CompactFDTMC.Builder inlined = new CompactFDTMC.Builder(source.getVariableName());
+        copyStates(source, inlined);
+        copyTransitions(source, 0, inlined);
+
+        Map<String, CompactFDTMC> fragments = new HashMap<String, CompactFDTMC>();
+        for (int iface = 0; iface < source.getNumberOfInterfaces(); iface++) {
+            String dependencyId = source.getInterfaceId(iface);
             if (indexedModels.containsKey(dependencyId)) {
-                FDTMC fragment = indexedModels.get(dependencyId);
-                for (Interface iface: entry.getValue()) {
-                    inlined.inlineInInterface(iface,
-                                              fragment,
-                                              statesMapping);
-                }
+                CompactFDTMC fragment = fragments.computeIfAbsent(dependencyId,
+                                                                  id -> indexedModels.get(id).compact());
+                inlineInInterface(source, iface, fragment, inlined);
             }
         }
-        return inlined;
+        return new FDTMC(inlined.build());
     }
 
     /**
@@ -288,21 +392,26 @@ public class FDTMC {
      * @return
      */
     public FDTMC decoratedWithPresence(String presenceVariable) {
-        FDTMC decorated = copy();
-
-        State oldInitial = decorated.getInitialState();
-        State newInitial = decorated.createInitialState();
+        CompactFDTMC source = compact();
+        CompactFDTMC.Builder decorated = new CompactFDTMC.Builder(source.getVariableName());
+        copyStates(source, decorated);
+        copyTransitions(source, 0, decorated);
+        copyInterfaces(source, decorated);
+
+        int oldInitial = decorated.getInitialState();
+        int newInitial = decorated.addState();
+        decorated.setInitialState(newInitial);
         // Enter the original chain in case of presence
-        decorated.createTransition(newInitial,
-                                   oldInitial,
-                                   "",
-                                   presenceVariable);
+        decorated.addTransition(newInitial,
+                                oldInitial,
+                                "",
+                                presenceVariable);
         // Short-circuit in case of absence
-        decorated.createTransition(newInitial,
-                                   decorated.getSuccessState(),
-                                   "",
-                                   "1-"+presenceVariable);
-        return decorated;
+        decorated.addTransition(newInitial,
+                                decorated.getSuccessState(),
+                                "",
+                                "1-"+presenceVariable);
+        return new FDTMC(decorated.build());
     }
 
     /**
@@ -325,144 +434,206 @@ public class FDTMC {
     }
 
     /**
-     * Prepares {@code destination} FDTMC to be an inlined version of this one.
-     * @param destination
-     * @return a mapping from states in this FDTMC to the corresponding states
-     *      in the copied one ({@code destination}).
+     * Returns the compact representation of this FDTMC. Once this FDTMC has
+     * been expanded into objects, it is built from them and cached until
+     * they change.
      */
-    private Map<State, State> copyForInlining(FDTMC destination) {
-        destination.variableName = this.getVariableName();
+    public CompactFDTMC compact() {
+        if (compact != null) {
+            return compact;
+        }
+        if (compacted == null || compactedVersion != version) {
+            compacted = buildCompact();
+            compactedVersion = version;
+        }
+        return compacted;
+    }
 
-        Map<State, State> statesMapping = destination.inlineStates(this);
-        destination.setInitialState(statesMapping.get(this.getInitialState()));
-        destination.setSuccessState(statesMapping.get(this.getSuccessState()));
-        destination.setErrorState(statesMapping.get(this.getErrorState()));
+    private CompactFDTMC buildCompact() {
+        CompactFDTMC.Builder builder = new CompactFDTMC.Builder(variableName);
+        for (State state : states) {
+            builder.addState(state.getLabel());
+        }
+        builder.setSpecialStates(indexOf(initialState), indexOf(successState), indexOf(errorState));
+
+        Map<Transition, Integer> transitionIds = new IdentityHashMap<Transition, Integer>();
+        for (Map.Entry<State, List<Transition>> entry : transitionSystem.entrySet()) {
+            if (entry.getValue() != null) {
+                int source = entry.getKey().getIndex();
+                for (Transition transition : entry.getValue()) {
+                    int id = builder.addTransition(source,
+                                                   indexOf(transition.getTarget()),
+                                                   transition.getActionName(),
+                                                   transition.getProbability());
+                    transitionIds.put(transition, id);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Interface>> entry : interfaces.entrySet()) {
+            for (Interface iface : entry.getValue()) {
+                builder.addInterface(entry.getKey(),
+                                     indexOf(iface.getInitial()),
+                                     indexOf(iface.getSuccess()),
+                                     indexOf(iface.getError()),
+                                     transitionIds.getOrDefault(iface.getSuccessTransition(), CompactFDTMC.NONE),
+                                     transitionIds.getOrDefault(iface.getErrorTransition(), CompactFDTMC.NONE));
+            }
+        }
+        return builder.build();
+    }
 
-        destination.inlineTransitions(this, statesMapping);
-        return statesMapping;
+    private static int indexOf(State state) {
+        return (state == null) ? CompactFDTMC.NONE : state.getIndex();
     }
 
     /**
-     * Copies this FDTMC.
-     * @return a new FDTMC which is a copy of this one.
+     * Turns the compact representation (if any) into objects, so that they
+     * can be handed out or modified.
      */
-    private FDTMC copy() {
-        FDTMC copied = new FDTMC();
-        copied.variableName = this.getVariableName();
-
-        Map<State, State> statesMapping = copied.inlineStates(this);
-        copied.setInitialState(statesMapping.get(this.getInitialState()));
-        copied.setSuccessState(statesMapping.get(this.getSuccessState()));
-        copied.setErrorState(statesMapping.get(this.getErrorState()));
-
-        copied.inlineTransitions(this, statesMapping);
-        copied.inlineInterfaces(this, statesMapping);
-        return copied;
+    private void expand() {
+        if (compact == null) {
+            return;
+        }
+        CompactFDTMC source = compact;
+        compact = null;
+        // Up to date until the expanded objects change.
+        compacted = source;
+        compactedVersion = version;
+        states = new LinkedHashSet<State>();
+        transitionSystem = new LinkedHashMap<State, List<Transition>>();
+        interfaces = new LinkedHashMap<String, List<Interface>>();
+
+        State[] stateObjects = new State[source.getNumberOfStates()];
+        for (int s = 0; s < stateObjects.length; s++) {
+            State state = new State();
+            state.setVariableName(source.getVariableName());
+            state.setIndex(s);
+            state.setLabel(source.getLabel(s));
+            states.add(state);
+            transitionSystem.put(state, null);
+            stateObjects[s] = state;
+        }
+        index = stateObjects.length;
+        initialState = stateAt(stateObjects, source.getInitialState());
+        successState = stateAt(stateObjects, source.getSuccessState());
+        errorState = stateAt(stateObjects, source.getErrorState());
+
+        Transition[] transitionObjects = new Transition[source.getNumberOfTransitions()];
+        for (int s = 0; s < stateObjects.length; s++) {
+            int begin = source.getTransitionsBegin(s);
+            int end = source.getTransitionsEnd(s);
+            if (begin == end) {
+                continue;
+            }
+            List<Transition> transitions = new LinkedList<Transition>();
+            for (int t = begin; t < end; t++) {
+                transitionObjects[t] = new Transition(stateObjects[s],
+                                                      stateAt(stateObjects, source.getTarget(t)),
+                                                      source.getAction(t),
+                                                      source.getProbability(t));
+                transitions.add(transitionObjects[t]);
+            }
+            transitionSystem.put(stateObjects[s], transitions);
+        }
+
+        for (int i = 0; i < source.getNumberOfInterfaces(); i++) {
+            int successTransition = source.getInterfaceSuccessTransition(i);
+            int errorTransition = source.getInterfaceErrorTransition(i);
+            Interface iface = new Interface(source.getInterfaceId(i),
+                                            stateAt(stateObjects, source.getInterfaceInitial(i)),
+                                            stateAt(stateObjects, source.getInterfaceSuccess(i)),
+                                            stateAt(stateObjects, source.getInterfaceError(i)),
+                                            successTransition == CompactFDTMC.NONE ? null : transitionObjects[successTransition],
+                                            errorTransition == CompactFDTMC.NONE ? null : transitionObjects[errorTransition]);
+            interfaces.computeIfAbsent(iface.getAbstractedId(), id -> new LinkedList<Interface>()).add(iface);
+        }
+    }
+
+    private static State stateAt(State[] stateObjects, int state) {
+        return (state == CompactFDTMC.NONE) ? null : stateObjects[state];
     }
 
     /**
-     * Inlines all states from {@code fdtmc} stripped of their labels.
-     * @param fdtmc
-     * @return
+     * Copies all states from {@code source} into the (empty) {@code destination},
+     * stripped of their labels, except for the initial, success and error ones.
      */
-    private Map<State, State> inlineStates(FDTMC fdtmc) {
-        Map<State, State> statesOldToNew = new HashMap<State, State>();
-        for (State state: fdtmc.getStates()) {
-            State newState = this.createState();
-            statesOldToNew.put(state, newState);
-        }
-        return statesOldToNew;
+    private static void copyStates(CompactFDTMC source, CompactFDTMC.Builder destination) {
+        destination.addStates(source.getNumberOfStates());
+        destination.setInitialState(source.getInitialState());
+        destination.setSuccessState(source.getSuccessState());
+        destination.setErrorState(source.getErrorState());
     }
 
     /**
-     * Inlines all transitions from {@code fdtmc} that are not part of an interface.
-     *
-     * @param fdtmc
-     * @param statesOldToNew
+     * Copies all transitions from {@code source} that are not part of an interface,
+     * shifting their states by {@code offset}.
      */
-    private void inlineTransitions(FDTMC fdtmc, Map<State, State> statesOldToNew) {
-        Set<Transition> interfaceTransitions = fdtmc.getInterfaceTransitions();
-        for (Map.Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
-            List<Transition> transitions = entry.getValue();
-            if (transitions != null) {
-                for (Transition transition : transitions) {
-                    if (!interfaceTransitions.contains(transition)) {
-                        inlineTransition(transition, statesOldToNew);
-                    }
+    private static void copyTransitions(CompactFDTMC source, int offset, CompactFDTMC.Builder destination) {
+        boolean[] interfaceTransitions = source.getInterfaceTransitionsMask();
+        for (int s = 0; s < source.getNumberOfStates(); s++) {
+            for (int t = source.getTransitionsBegin(s); t < source.getTransitionsEnd(s); t++) {
+                if (!interfaceTransitions[t]) {
+                    destination.addTransition(s + offset,
+                                              shift(source.getTarget(t), offset),
+                                              source.getAction(t),
+                                              source.getProbability(t));
                 }
             }
         }
     }
 
-    private Transition inlineTransition(Transition transition, Map<State, State> statesOldToNew) {
-        State newSource = statesOldToNew.get(transition.getSource());
-        State newTarget = statesOldToNew.get(transition.getTarget());
-        return createTransition(newSource,
-                                newTarget,
-                                transition.getActionName(),
-                                transition.getProbability());
-    }
-
     /**
-     * Inlines all interfaces (and respective transitions) from {@code fdtmc}
-     * into this one.
-     *
-     * @param fdtmc
-     * @param statesOldToNew
+     * Copies all interfaces (and respective transitions) from {@code source}
+     * into {@code destination}, whose states must match those of {@code source}.
      */
-    private void inlineInterfaces(FDTMC fdtmc, Map<State, State> statesOldToNew) {
-        for (Map.Entry<String, List<Interface>> entry : fdtmc.interfaces.entrySet()) {
-            List<Interface> newInterfaces = new LinkedList<Interface>();
-            this.interfaces.put(entry.getKey(), newInterfaces);
-            for (Interface iface : entry.getValue()) {
-                Transition successTransition = inlineTransition(iface.getSuccessTransition(), statesOldToNew);
-                Transition errorTransition = inlineTransition(iface.getErrorTransition(), statesOldToNew);
-                Interface newInterface = new Interface(iface.getAbstractedId(),
-                                                       statesOldToNew.get(iface.getInitial()),
-                                                       statesOldToNew.get(iface.getSuccess()),
-                                                       statesOldToNew.get(iface.getError()),
-                                                       successTransition,
-                                                       errorTransition);
-                newInterfaces.add(newInterface);
-            }
+    private static void copyInterfaces(CompactFDTMC source, CompactFDTMC.Builder destination) {
+        for (int i = 0; i < source.getNumberOfInterfaces(); i++) {
+            int initial = source.getInterfaceInitial(i);
+            int successTransition = copyTransition(source, initial, source.getInterfaceSuccessTransition(i), destination);
+            int errorTransition = copyTransition(source, initial, source.getInterfaceErrorTransition(i), destination);
+            destination.addInterface(source.getInterfaceId(i),
+                                     initial,
+                                     source.getInterfaceSuccess(i),
+                                     source.getInterfaceError(i),
+                                     successTransition,
+                                     errorTransition);
+        }
+    }
+
+    private static int copyTransition(CompactFDTMC source, int sourceState, int transition, CompactFDTMC.Builder destination) {
+        if (transition == CompactFDTMC.NONE) {
+            return CompactFDTMC.NONE;
         }
+        return destination.addTransition(sourceState,
+                                          source.getTarget(transition),
+                                          source.getAction(transition),
+                                          source.getProbability(transition));
     }
 
-    private void inlineInInterface(Interface iface, FDTMC fragment, Map<State, State> statesMapping) {
-        Map<State, State> fragmentStatesMapping = this.inlineStates(fragment);
-        this.inlineTransitions(fragment, fragmentStatesMapping);
+    private static void inlineInInterface(CompactFDTMC source, int iface, CompactFDTMC fragment, CompactFDTMC.Builder inlined) {
+        int offset = inlined.addStates(fragment.getNumberOfStates());
+        copyTransitions(fragment, offset, inlined);
 
-        State initialInlined = iface.getInitial();
-        State initialFragment = fragment.getInitialState();
-        State successInlined = iface.getSuccess();
-        State successFragment = fragment.getSuccessState();
-        State errorInlined = iface.getError();
-        State errorFragment = fragment.getErrorState();
+        int errorFragment = fragment.getErrorState();
 
-        this.createTransition(statesMapping.get(initialInlined),
-                              fragmentStatesMapping.get(initialFragment),
+        inlined.addTransition(source.getInterfaceInitial(iface),
+                              shift(fragment.getInitialState(), offset),
                               "",
                               "1");
-        this.createTransition(fragmentStatesMapping.get(successFragment),
-                              statesMapping.get(successInlined),
+        inlined.addTransition(shift(fragment.getSuccessState(), offset),
+                              source.getInterfaceSuccess(iface),
                               "",
                               "1");
-        if (errorFragment != null) {
-            this.createTransition(fragmentStatesMapping.get(errorFragment),
-                                  statesMapping.get(errorInlined),
+        if (errorFragment != CompactFDTMC.NONE) {
+            inlined.addTransition(shift(errorFragment, offset),
+                                  source.getInterfaceError(iface),
                                   "",
                                   "1");
         }
     }
 
-    private Set<Transition> getInterfaceTransitions() {
-        Set<Transition> transitions = new HashSet<Transition>();
-        interfaces.values().stream().flatMap(List<Interface>::stream)
-                .forEach(iface -> {
-                    transitions.add(iface.getSuccessTransition());
-                    transitions.add(iface.getErrorTransition());
-                });
-        return transitions;
+    private static int shift(int state, int offset) {
+        return (state == CompactFDTMC.NONE) ? CompactFDTMC.NONE : state + offset;
     }
 
 }
@@ -3,13 +3,10 @@ package jadd;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators.AbstractSpliterator;
-import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -18,12 +15,15 @@ import org.bridj.Pointer;
 import tool.UnknownFeatureException;
 import bigcudd.BigcuddLibrary;
 import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
-import bigcudd.BigcuddLibrary.DdGen;
 import bigcudd.BigcuddLibrary.DdManager;
 import bigcudd.DdNode;
 
 /**
  * ADD - constant, variable or function alike.
+ *
+ * ADDs can be used from multiple threads: operations on ADDs of the same
+ * manager are serialized, except for evaluation, which can run concurrently.
+ *
  * @author thiago
  *
  */
@@ -33,71 +33,90 @@ public class ADD {
     private Pointer<DdNode> function;
     private Pointer<DdManager> dd;
     private VariableStore variableStore;
+    private NodeReclaimer reclaimer;
+    private NodeReclaimer.NodeReference reference;
+    private boolean nativeOperators;
 
-    ADD(Pointer<DdManager> dd, Pointer<DdNode> function, VariableStore variableStore) {
+    /**
+     * Must be called with the manager's write lock held.
+     */
+    ADD(Pointer<DdManager> dd, Pointer<DdNode> function, VariableStore variableStore, NodeReclaimer reclaimer, boolean nativeOperators) {
         this.dd = dd;
         this.function = function;
         this.variableStore = variableStore;
+        this.reclaimer = reclaimer;
+        this.nativeOperators = nativeOperators;
         BigcuddLibrary.Cudd_Ref(this.function);
+        this.reference = reclaimer.track(this, function);
+        ADDScope.register(this);
     }
 
     /**
-     * Overriding finalize in order to free CUDD allocated memory.
+     * Gives this ADD's nodes back to CUDD, so that they can be garbage-collected.
+     * This handle must not be used afterwards.
+     *
+     * Calling this method is optional, since the nodes are also released some
+     * time after this handle becomes unreachable, but it keeps native memory
+     * bounded during long computations. See {@link ADDScope}.
      */
-    @Override
-    protected void finalize() throws Throwable {
-//        BigcuddLibrary.Cudd_Deref(function);
-        super.finalize();
+    public void release() {
+        reference.release();
+    }
+
+    /**
+     * Returns true if {@link #release()} has already been called on this ADD.
+     * @return
+     */
+    public boolean isReleased() {
+        return reference.isReleased();
     }
 
     public ADD plus(ADD other) {
-        return apply(other, PLUS);
+        return apply(other, ApplyOperator.PLUS);
     }
 
     public ADD minus(ADD other) {
-        return apply(other, MINUS);
+        return apply(other, ApplyOperator.MINUS);
     }
 
     public ADD times(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, ApplyOperator.TIMES);
     }
 
     public ADD dividedBy(ADD other) {
-        return apply(other, DIVIDE);
+        return apply(other, ApplyOperator.DIVIDE);
     }
 
     public ADD and(ADD other) {
-        return apply(other, TIMES);
+        return apply(other, ApplyOperator.TIMES);
     }
 
     public ADD or(ADD other) {
-        return apply(other, LOGICAL_OR);
+        return apply(other, ApplyOperator.LOGICAL_OR);
     }
 
-    private ADD apply(ADD other, Cudd_addApply_arg1_callback operation) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addApply(dd,
-                                                              Pointer.getPointer(operation),
-                                                              this.function,
-                                                              other.function);
-        return new ADD(dd, result, variableStore);
+    ADD apply(ADD other, ApplyOperator operation) {
+        Pointer<Cudd_addApply_arg1_callback> applyFunction = nativeOperators
+                ? operation.getFunction()
+                : operation.getJavaCallback();
+        return makeLocked(() -> BigcuddLibrary.Cudd_addApply(dd,
+                                                             applyFunction,
+                                                             this.function,
+                                                             other.function));
     }
 
     /**
      * @return negated form (corresponding to unary minus).
      */
     public ADD negate() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addNegate(dd, this.function),
-                       variableStore);
+        return makeLocked(() -> BigcuddLibrary.Cudd_addNegate(dd, this.function));
     }
 
     /**
      * @return complemented form (corresponding to logical not).
      */
     public ADD complement() {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addCmpl(dd, this.function),
-                       variableStore);
+        return makeLocked(() -> BigcuddLibrary.Cudd_addCmpl(dd, this.function));
     }
 
     /**
@@ -105,23 +124,20 @@ public class ADD {
      * as the conditional.
      */
     public ADD ifThenElse(ADD ifTrue, ADD ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            ifFalse.function);
-        return new ADD(dd, result, variableStore);
+        return makeLocked(() -> BigcuddLibrary.Cudd_addIte(dd,
+                                                           this.function,
+                                                           ifTrue.function,
+                                                           ifFalse.function));
     }
 
     /**
      * Overloading for constant fallbacks.
      */
     public ADD ifThenElse(ADD ifTrue, double ifFalse) {
-        Pointer<DdNode> result = BigcuddLibrary.Cudd_addIte(dd,
-                                                            this.function,
-                                                            ifTrue.function,
-                                                            BigcuddLibrary.Cudd_addConst(dd,
-                                                                                         ifFalse));
-        return new ADD(dd, result, variableStore);
+        ADD constant = makeLocked(() -> BigcuddLibrary.Cudd_addConst(dd, ifFalse));
+        ADD result = ifThenElse(ifTrue, constant);
+        constant.release();
+        return result;
     }
 
     /**
@@ -132,42 +148,165 @@ public class ADD {
     }
 
     public Set<String> getVariables() {
-        Set<String> variables = new HashSet<String>();
-
-        Pointer<Integer> variablesPtr = BigcuddLibrary.Cudd_SupportIndex(dd, this.function);
-        int numVars = BigcuddLibrary.Cudd_ReadSize(dd);
-        int[] variablesPresence = variablesPtr.getInts(numVars);
-        for (short i = 0; i < numVars; i++) {
-            if (variablesPresence[i] == 1) {
-                variables.add(variableStore.getName(i));
+        // Cudd_SupportIndex temporarily marks the traversed nodes.
+        return withLock(reclaimer.writeLock(), () -> {
+            Set<String> variables = new HashSet<String>();
+
+            Pointer<Integer> variablesPtr = BigcuddLibrary.Cudd_SupportIndex(dd, this.function);
+            int numVars = BigcuddLibrary.Cudd_ReadSize(dd);
+            int[] variablesPresence = variablesPtr.getInts(numVars);
+            for (short i = 0; i < numVars; i++) {
+                if (variablesPresence[i] == 1) {
+                    variables.add(variableStore.getName(i));
+                }
             }
-        }
-        return variables;
+            return variables;
+        });
     }
 
     public List<String> getVariableOrder() {
-        List<String> variables = new ArrayList<String>();
-        for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
-            int varIndex = BigcuddLibrary.Cudd_ReadInvPerm(dd, pos);
-            String varName = variableStore.getName((short)varIndex);
-            variables.add(varName);
-        }
-        return variables;
+        return withLock(reclaimer.readLock(), () -> {
+            List<String> variables = new ArrayList<String>();
+            for (int pos = 0; pos < variableStore.getNumberOfVariables(); pos++) {
+                int varIndex = BigcuddLibrary.Cudd_ReadInvPerm(dd, pos);
+                String varName = variableStore.getName((short)varIndex);
+                variables.add(varName);
+            }
+            return variables;
+        });
     }
 
+    /**
+     * Evaluates this ADD for the given configuration. Evaluations may run
+     * concurrently with one another, but not with operations which create nodes.
+     */
     public double eval(String[] variables) throws UnrecognizedVariableException {
-        int[] presenceVector = variableStore.toPresenceVector(variables);
-        Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
-                                                            function,
-                                                            Pointer.pointerToInts(presenceVector));
-        DdNode terminalNode = terminal.get();
-        return terminalNode.type().value();
+        Lock readLock = reclaimer.readLock();
+        readLock.lock();
+        try {
+            int[] presenceVector = variableStore.toPresenceVector(variables);
+            Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
+                                                                function,
+                                                                Pointer.pointerToInts(presenceVector));
+            DdNode terminalNode = terminal.get();
+            return terminalNode.type().value();
+        } finally {
+            readLock.unlock();
+        }
     }
 
     public double eval(List<String> variables) throws UnrecognizedVariableException {
         return eval(variables.toArray(new String[variables.size()]));
     }
 
+    /**
+     * Evaluates this ADD for the given configuration, as {@link #eval(String[])}
+     * does, but without looking up variables by name (unless the configuration
+     * was made by another manager).
+     */
+    public double eval(Configuration configuration) throws UnrecognizedVariableException {
+        Configuration own = Configuration.of(configuration, variableStore);
+        Lock readLock = reclaimer.readLock();
+        readLock.lock();
+        try {
+            int[] presenceVector = new int[variableStore.getNumberOfVariables()];
+            long[] bits = own.getBits();
+            for (int word = 0; word < bits.length; word++) {
+                for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                    presenceVector[(word << 6) + Long.numberOfTrailingZeros(remaining)] = 1;
+                }
+            }
+            Pointer<DdNode> terminal = BigcuddLibrary.Cudd_Eval(dd,
+                                                                function,
+                                                                Pointer.pointerToInts(presenceVector));
+            return terminal.get().type().value();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Evaluates this ADD for many configurations at once.
+     *
+     * Instead of crossing into CUDD once per configuration, the ADD's nodes
+     * are read in a single pass, after which configurations are evaluated
+     * on the Java side. This pays off whenever there are more configurations
+     * than nodes.
+     *
+     * @param packedConfigs Configurations packed by {@link #packConfigurations(List)}.
+     * @param out Array to be filled with the value of each configuration.
+     * @throws IllegalArgumentException if the sizes of the arrays do not match.
+     */
+    public void evalAll(long[] packedConfigs, double[] out) {
+        int words = variableStore.getPackedPresenceWords();
+        if ((long) out.length * words != packedConfigs.length) {
+            throw new IllegalArgumentException("Expected " + words + " words per configuration, "
+                    + "but got " + packedConfigs.length + " for " + out.length + " configurations");
+        }
+        int[] levelIndices = new int[variableStore.getNumberOfVariables()];
+        ADDSerializer.NodeTable nodes = snapshotNodes(levelIndices);
+
+        int root = nodes.size() - 1;
+        for (int config = 0; config < out.length; config++) {
+            int offset = config * words;
+            int node = root;
+            int level;
+            while ((level = nodes.getVariable(node)) != ADDSerializer.CONSTANT) {
+                int index = levelIndices[level];
+                long children = nodes.getPayload(node);
+                boolean present = (packedConfigs[offset + (index >>> 6)] & (1L << index)) != 0;
+                node = present ? (int) (children >>> 32) : (int) children;
+            }
+            out[config] = Double.longBitsToDouble(nodes.getPayload(node));
+        }
+    }
+
+    /**
+     * Collects this ADD's nodes, so that they can be traversed without
+     * crossing into CUDD.
+     * @param levelIndices Array to be filled with the index of the variable at each level.
+     */
+    private ADDSerializer.NodeTable snapshotNodes(int[] levelIndices) {
+        return withLock(reclaimer.readLock(), () -> {
+            for (int level = 0; level < levelIndices.length; level++) {
+                levelIndices[level] = BigcuddLibrary.Cudd_ReadInvPerm(dd, level);
+            }
+            return ADDSerializer.collect(dd, function, getVariableOrder());
+        });
+    }
+
+    /**
+     * Evaluates this ADD for many configurations at once.
+     * @see #evalAll(long[], double[])
+     */
+    public double[] evalAll(List<? extends Collection<String>> configurations) throws UnrecognizedVariableException {
+        double[] values = new double[configurations.size()];
+        evalAll(packConfigurations(configurations), values);
+        return values;
+    }
+
+    /**
+     * Packs configurations as bit sets over the variables' indices, one after
+     * the other, to be evaluated by {@link #evalAll(long[], double[])}.
+     * Configurations must be packed after all of their variables are created.
+     */
+    public long[] packConfigurations(List<? extends Collection<String>> configurations) throws UnrecognizedVariableException {
+        int words = variableStore.getPackedPresenceWords();
+        long[] packed = new long[configurations.size() * words];
+        int offset = 0;
+        for (Collection<String> configuration : configurations) {
+            if (configuration instanceof Configuration
+                    && ((Configuration) configuration).getVariableStore() == variableStore) {
+                long[] bits = ((Configuration) configuration).getBits();
+                System.arraycopy(bits, 0, packed, offset, bits.length);
+            } else {
+                variableStore.toPackedPresenceVector(configuration, packed, offset);
+            }
+            offset += words;
+        }
+        return packed;
+    }
+
     /**
      * Checks if a configuration is valid (non-zero).
      * @param configuration
@@ -177,7 +316,7 @@ public class ADD {
     public boolean isValidConfiguration(Collection<String> configuration) throws UnknownFeatureException {
         double validity;
         try {
-            validity = eval(configuration.toArray(new String[configuration.size()]));
+            validity = eval(Configuration.of(configuration, variableStore));
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
         }
@@ -192,8 +331,26 @@ public class ADD {
      * two different configurations: ["A", "B", "C"] and ["A", "C"].
      * @return
      */
-    public Stream<Collection<String>> getExpandedConfigurations() {
-        return StreamSupport.stream(new CubeSpliterator(), true);
+    public Stream<Configuration> getExpandedConfigurations() {
+        return getPackedConfigurations().map(bits -> new Configuration(bits, variableStore));
+    }
+
+    /**
+     * Returns a stream of valid (non-zero) configurations for this ADD, as
+     * {@link #getExpandedConfigurations()} does, but packed as bit sets over
+     * the variables' indices (see {@link #packConfigurations(List)}).
+     *
+     * The stream works on a snapshot of this ADD, which is taken right away,
+     * and splits into independent parts for parallel processing.
+     * @return
+     */
+    public Stream<long[]> getPackedConfigurations() {
+        int[] levelIndices = new int[variableStore.getNumberOfVariables()];
+        ADDSerializer.NodeTable nodes = snapshotNodes(levelIndices);
+        return StreamSupport.stream(new ConfigurationSpliterator(nodes,
+                                                                 levelIndices,
+                                                                 variableStore.getPackedPresenceWords()),
+                                    true);
     }
 
     /**
@@ -201,7 +358,7 @@ public class ADD {
     * @return
     */
     public int getNodeCount() {
-        return BigcuddLibrary.Cudd_DagSize(function);
+        return withLock(reclaimer.writeLock(), () -> BigcuddLibrary.Cudd_DagSize(function));
     }
 
     /**
@@ -209,51 +366,7 @@ public class ADD {
      * @return
      */
     public boolean isConstant() {
-        return 1 != BigcuddLibrary.Cudd_IsNonConstant(function);
-    }
-
-    static Collection<List<String>> expandDontCares(List<String> config) {
-        return expandDontCares(config.iterator());
-    }
-
-    /**
-     * Iterates {@code cursor} expanding "don't care" variables, i.e.,
-     * doubling the configurations for each one encountered.
-     *
-     * It expands "don't care" variables in linear time.
-     * @param cursor
-     * @return
-     */
-    static Collection<List<String>> expandDontCares(Iterator<String> cursor) {
-        Set<List<String>> expanded = new HashSet<List<String>>();
-        List<String> prefix = new LinkedList<String>();
-        while (cursor.hasNext()) {
-            String variable = cursor.next();
-            if (variable.startsWith("(")) {
-                // We must generate two alternative prefixes: one with the
-                // variable in positive form and another with it in negative
-                // form (i.e., omitted).
-                List<String> complementedPrefix = new LinkedList<String>(prefix);
-                String deparenthesized = variable.substring(1, variable.length()-1);
-                prefix.add(deparenthesized);
-                // Then we must expand the rest of the configuration and append
-                // each of the expanded sub-configurations to the alternative prefixes.
-                Collection<List<String>> expandedTail = expandDontCares(cursor);
-                for (List<String> expandedSubconfig : expandedTail) {
-                    List<String> positive = new LinkedList<String>(prefix);
-                    List<String> complemented = new LinkedList<String>(complementedPrefix);
-                    positive.addAll(expandedSubconfig);
-                    complemented.addAll(expandedSubconfig);
-                    expanded.add(positive);
-                    expanded.add(complemented);
-                }
-                return expanded;
-            } else {
-                prefix.add(variable);
-            }
-        }
-        expanded.add(prefix);
-        return expanded;
+        return withLock(reclaimer.readLock(), () -> 1 != BigcuddLibrary.Cudd_IsNonConstant(function));
     }
 
     /* (non-Javadoc)
@@ -266,39 +379,49 @@ public class ADD {
         }
         ADD other = (ADD) obj;
         return this.function.equals(other.function)
-                || (BigcuddLibrary.Cudd_EqualSupNorm(dd,
-                                                     this.function,
-                                                     other.function,
-                                                     ADD.FLOATING_POINT_PRECISION,
-                                                     1) == 1);
+                || withLock(reclaimer.readLock(),
+                            () -> BigcuddLibrary.Cudd_EqualSupNorm(dd,
+                                                                   this.function,
+                                                                   other.function,
+                                                                   ADD.FLOATING_POINT_PRECISION,
+                                                                   1) == 1);
     }
 
     public int getDeadNodesCount() {
-    	return BigcuddLibrary.Cudd_ReadDead(dd);
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadDead(dd));
+    }
+
+    public long getLiveNodesCount() {
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadNodeCount(dd));
+    }
+
+    public int getPeakLiveNodesCount() {
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadPeakLiveNodeCount(dd));
     }
 
     public int getTerminalsDifferentThanZeroCount() {
-    	return BigcuddLibrary.Cudd_CountLeaves(function) - 1;
+    	return withLock(reclaimer.writeLock(), () -> BigcuddLibrary.Cudd_CountLeaves(function) - 1);
     }
 
     public double getPathsToNonZeroTerminalsCount() {
-    	return BigcuddLibrary.Cudd_CountPathsToNonZero(function);
+    	return withLock(reclaimer.writeLock(), () -> BigcuddLibrary.Cudd_CountPathsToNonZero(function));
     }
 
     public double getPathsToZeroTerminalCount() {
-    	return BigcuddLibrary.Cudd_CountPath(function) - getPathsToNonZeroTerminalsCount();
+    	return withLock(reclaimer.writeLock(), () -> BigcuddLibrary.Cudd_CountPath(function))
+    	        - getPathsToNonZeroTerminalsCount();
     }
 
     public int getReorderingsCount() {
-    	return BigcuddLibrary.Cudd_ReadReorderings(dd);
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadReorderings(dd));
     }
 
     public int getGarbageCollectionsCount() {
-    	return BigcuddLibrary.Cudd_ReadGarbageCollections(dd);
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadGarbageCollections(dd));
     }
 
     public long getAddSizeInBytes() {
-    	return BigcuddLibrary.Cudd_ReadMemoryInUse(dd);
+    	return withLock(reclaimer.readLock(), () -> BigcuddLibrary.Cudd_ReadMemoryInUse(dd));
     }
 
     @Override
@@ -310,113 +433,43 @@ public class ADD {
         return this.function;
     }
 
-    /**************************************************************
-     *** Operators definitions
-     *************************************************************/
+    /**
+     * @return whether this ADD was made by the manager which {@code reclaimer} belongs to.
+     */
+    boolean isManagedBy(NodeReclaimer reclaimer) {
+        return this.reclaimer == reclaimer;
+    }
 
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback TIMES = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback PLUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback DIVIDE = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback MINUS = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
-        }
-    };
-
-    private static final BigcuddLibrary.Cudd_addApply_arg1_callback LOGICAL_OR = new BigcuddLibrary.Cudd_addApply_arg1_callback() {
-        @Override
-        public Pointer<DdNode > apply(Pointer<BigcuddLibrary.DdManager > dd,
-                                      Pointer<Pointer<DdNode > > node1,
-                                      Pointer<Pointer<DdNode > > node2) {
-            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
-        }
-    };
-
-    private class CubeSpliterator extends AbstractSpliterator<Collection<String>> {
-
-        private Pointer<Pointer<Integer>> cubePtr;
-        private Pointer<Double> valuePtr;
-        private Pointer<DdGen> generator;
-        private int numVars;
-        private Iterator<List<String>> expandedIterator;
-
-        protected CubeSpliterator() {
-            super((long) BigcuddLibrary.Cudd_CountPathsToNonZero(function),
-                  Spliterator.SIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.ORDERED);
-
-            Pointer<Integer> dummy = Pointer.allocateInt();
-            // A pointer to a freshly allocated pointer to int.
-            // As Cudd_FirstCube and Cudd_NextCube allocate the returned cubes,
-            // allocating a whole int[] here makes no sense. Thus, we allocate
-            // only the position where the address to the generated cubes are
-            // to be stored.
-            cubePtr = Pointer.pointerToPointer(dummy);
-            // A pointer to a freshly allocated double.
-            valuePtr = Pointer.pointerToDouble(0);
-
-            // So let's start the iteration!
-            generator = BigcuddLibrary.Cudd_FirstCube(dd,
-                                                      function,
-                                                      cubePtr,
-                                                      valuePtr);
-            numVars = BigcuddLibrary.Cudd_ReadSize(dd);
+    /**
+     * Collects this ADD's nodes, along with the names of its manager's
+     * variables, so that it can be rebuilt by another manager.
+     */
+    ADDSerializer.NodeTable collectNodes() {
+        return withLock(reclaimer.readLock(),
+                        () -> ADDSerializer.collect(dd, function, getVariableOrder()));
+    }
 
+    /**
+     * Wraps the node produced by {@code operation}, which is run with
+     * the manager's write lock held.
+     */
+    private ADD makeLocked(Supplier<Pointer<DdNode>> operation) {
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            return new ADD(dd, operation.get(), variableStore, reclaimer, nativeOperators);
+        } finally {
+            writeLock.unlock();
         }
+    }
 
-        @Override
-        public boolean tryAdvance(Consumer<? super Collection<String>> action) {
-            if (expandedIterator == null || !expandedIterator.hasNext()) {
-                if (BigcuddLibrary.Cudd_IsGenEmpty(generator) == 0) {
-                    Pointer<Integer> cube = cubePtr.getPointer(Integer.class);
-                    int[] presenceVector = cube.getInts(numVars);
-                    List<String> configuration = variableStore.fromPresenceVector(presenceVector);
-
-                    Collection<List<String>> expanded = expandDontCares(configuration);
-                    expandedIterator = expanded.iterator();
-
-                    BigcuddLibrary.Cudd_NextCube(generator,
-                            cubePtr,
-                            valuePtr);
-                } else {
-                    if (generator != null) {
-                        BigcuddLibrary.Cudd_GenFree(generator);
-                        generator = null;
-                    }
-                    return false;
-                }
-            }
-
-            action.accept(expandedIterator.next());
-            return true;
+    static <T> T withLock(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
         }
-
     }
 
 }
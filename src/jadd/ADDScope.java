@@ -0,0 +1,95 @@
+package jadd;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Scope for intermediate ADDs, meant to be used with try-with-resources.
+ *
+ * Every ADD created by the current thread while a scope is open is owned
+ * by this scope and is released when it is closed, unless it is explicitly
+ * {@link #keep(ADD) kept}. Scopes can be nested, in which case kept ADDs
+ * become owned by the enclosing scope.
+ *
+ * <pre>
+ * try (ADDScope scope = ADDScope.open()) {
+ *     ADD partial = a.times(b);
+ *     return scope.keep(partial.plus(c));
+ * }
+ * </pre>
+ *
+ * @author thiago
+ */
+public final class ADDScope implements AutoCloseable {
+
+    private static final ThreadLocal<ADDScope> CURRENT = new ThreadLocal<ADDScope>();
+
+    private final ADDScope enclosing;
+    private final Set<ADD> owned = Collections.newSetFromMap(new IdentityHashMap<ADD, Boolean>());
+
+    private ADDScope(ADDScope enclosing) {
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Opens a new scope for the current thread.
+     */
+    public static ADDScope open() {
+        ADDScope scope = new ADDScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Prevents {@code add} from being released when this scope is closed.
+     * ADDs not owned by this scope (e.g., created before it was opened)
+     * are left untouched.
+     *
+     * @return {@code add} itself, for convenience.
+     */
+    public ADD keep(ADD add) {
+        if (owned.remove(add) && enclosing != null) {
+            enclosing.owned.add(add);
+        }
+        return add;
+    }
+
+    /**
+     * Releases all ADDs owned by this scope.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (enclosing != null) {
+                CURRENT.set(enclosing);
+            } else {
+                CURRENT.remove();
+            }
+        }
+        for (ADD add : owned) {
+            add.release();
+        }
+        owned.clear();
+    }
+
+    static void register(ADD add) {
+        ADDScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.owned.add(add);
+        }
+    }
+
+    /**
+     * Detaches {@code add} from the current scope, if any. Used for ADDs
+     * which are cached (e.g., variables or encoded formulas), so that they
+     * outlive the scope in which they happened to be created.
+     */
+    public static void unregister(ADD add) {
+        ADDScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.owned.remove(add);
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package jadd;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bridj.Pointer;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdChildren;
+import bigcudd.DdNode;
+
+/**
+ * Binary representation of an ADD as a table of nodes, in the spirit of
+ * CUDD's DDDMP format.
+ *
+ * The file starts with the names of all variables of the manager, from the
+ * topmost to the bottommost, followed by fixed-size node records (children
+ * always come before their parents, and the root is the last one):
+ *
+ * <pre>
+ * int     magic number ("JADD")
+ * int     format version
+ * int     number of variables
+ * (int length, byte[] UTF-8 name) for each variable
+ * int     number of nodes
+ * (int variable, long payload) for each node
+ * </pre>
+ *
+ * The variable of a node is its position in the variables table, or -1 for
+ * constants. The payload is then the constant's value (as raw double bits),
+ * or the positions of the then- and else-children in the node table
+ * (high and low 32 bits, respectively).
+ *
+ * Since records have fixed size, files are read through a memory mapping,
+ * without copying them to the heap first.
+ *
+ * @author thiago
+ */
+final class ADDSerializer {
+
+    private static final int MAGIC = 0x4A414444;
+    private static final int VERSION = 1;
+    static final int CONSTANT = -1;
+
+    private ADDSerializer() {
+        // Static methods only.
+    }
+
+    /**
+     * Node table of an ADD, as read from (or to be written to) a file.
+     */
+    abstract static class NodeTable {
+        private final List<String> variables;
+
+        private NodeTable(List<String> variables) {
+            this.variables = variables;
+        }
+
+        /**
+         * @return names of all variables, from the topmost to the bottommost.
+         */
+        List<String> getVariables() {
+            return variables;
+        }
+
+        abstract int size();
+
+        abstract int getVariable(int node);
+
+        abstract long getPayload(int node);
+    }
+
+    /**
+     * Node table which is filled as an ADD is traversed.
+     */
+    private static final class CollectedNodeTable extends NodeTable {
+        private int size = 0;
+        private int[] nodeVariables = new int[1024];
+        private long[] payloads = new long[1024];
+
+        private CollectedNodeTable(List<String> variables) {
+            super(variables);
+        }
+
+        private int add(int variable, long payload) {
+            if (size == nodeVariables.length) {
+                nodeVariables = Arrays.copyOf(nodeVariables, 2 * size);
+                payloads = Arrays.copyOf(payloads, 2 * size);
+            }
+            nodeVariables[size] = variable;
+            payloads[size] = payload;
+            return size++;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int getVariable(int node) {
+            return nodeVariables[node];
+        }
+
+        @Override
+        long getPayload(int node) {
+            return payloads[node];
+        }
+    }
+
+    /**
+     * Collects the nodes of {@code root}. Must be called with (at least)
+     * the manager's read lock held.
+     *
+     * @param variables Names of all variables, from the topmost to the bottommost.
+     */
+    static NodeTable collect(Pointer<DdManager> dd, Pointer<DdNode> root, List<String> variables) {
+        CollectedNodeTable table = new CollectedNodeTable(variables);
+        collect(dd, root, table, new HashMap<Long, Integer>());
+        return table;
+    }
+
+    private static int collect(Pointer<DdManager> dd, Pointer<DdNode> node, CollectedNodeTable table, Map<Long, Integer> visited) {
+        Integer position = visited.get(node.getPeer());
+        if (position != null) {
+            return position;
+        }
+        int added;
+        if (BigcuddLibrary.Cudd_IsNonConstant(node) == 0) {
+            double value = node.get().type().value();
+            added = table.add(CONSTANT, Double.doubleToRawLongBits(value));
+        } else {
+            DdNode internal = node.get();
+            DdChildren children = internal.type().kids();
+            int thenChild = collect(dd, children.T(), table, visited);
+            int elseChild = collect(dd, children.E(), table, visited);
+            int level = BigcuddLibrary.Cudd_ReadPerm(dd, internal.index());
+            added = table.add(level, ((long) thenChild << 32) | (elseChild & 0xFFFFFFFFL));
+        }
+        visited.put(node.getPeer(), added);
+        return added;
+    }
+
+    static void write(NodeTable table, Path file) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(table.getVariables().size());
+            for (String variable : table.getVariables()) {
+                byte[] name = variable.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name.length);
+                output.write(name);
+            }
+            output.writeInt(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                output.writeInt(table.getVariable(i));
+                output.writeLong(table.getPayload(i));
+            }
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write(NodeTable, Path)}.
+     */
+    static NodeTable read(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an ADD file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported ADD file version " + version + ": " + file);
+        }
+        try {
+            int numVariables = buffer.getInt();
+            List<String> variables = new ArrayList<String>(numVariables);
+            for (int i = 0; i < numVariables; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                variables.add(new String(name, StandardCharsets.UTF_8));
+            }
+            int numNodes = buffer.getInt();
+            return new MappedNodeTable(variables, numNodes, buffer.slice());
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt ADD file: truncated header in " + file, e);
+        }
+    }
+
+    /**
+     * Rebuilds the nodes of a table in a manager. Must be called with the
+     * manager's write lock held.
+     *
+     * @param variableNodes Projection functions of the table's variables, in the same order.
+     * @return the (referenced) root node.
+     */
+    static Pointer<DdNode> build(Pointer<DdManager> dd, NodeTable table, List<Pointer<DdNode>> variableNodes) throws IOException {
+        int numNodes = table.size();
+        if (numNodes == 0) {
+            throw new IOException("Empty ADD file");
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Pointer<DdNode>[] nodes = (Pointer<DdNode>[]) new Pointer[numNodes];
+        try {
+            for (int i = 0; i < numNodes; i++) {
+                int variable = table.getVariable(i);
+                long payload = table.getPayload(i);
+                Pointer<DdNode> node;
+                if (variable == CONSTANT) {
+                    node = BigcuddLibrary.Cudd_addConst(dd, Double.longBitsToDouble(payload));
+                } else {
+                    int thenChild = (int) (payload >>> 32);
+                    int elseChild = (int) payload;
+                    if (variable < 0 || variable >= variableNodes.size()
+                            || thenChild < 0 || thenChild >= i
+                            || elseChild < 0 || elseChild >= i) {
+                        throw new IOException("Corrupt ADD file: bad node record " + i);
+                    }
+                    // With the children below the variable (as in the original order),
+                    // this amounts to a unique table lookup.
+                    node = BigcuddLibrary.Cudd_addIte(dd,
+                                                      variableNodes.get(variable),
+                                                      nodes[thenChild],
+                                                      nodes[elseChild]);
+                }
+                BigcuddLibrary.Cudd_Ref(node);
+                nodes[i] = node;
+            }
+            Pointer<DdNode> root = nodes[numNodes - 1];
+            BigcuddLibrary.Cudd_Ref(root);
+            return root;
+        } finally {
+            for (Pointer<DdNode> node : nodes) {
+                if (node != null) {
+                    BigcuddLibrary.Cudd_RecursiveDeref(dd, node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Node table backed by a (memory-mapped) buffer of node records.
+     */
+    private static final class MappedNodeTable extends NodeTable {
+        private static final int RECORD_SIZE = 12;
+
+        private final int size;
+        private final ByteBuffer records;
+
+        private MappedNodeTable(List<String> variables, int size, ByteBuffer records) throws IOException {
+            super(variables);
+            if (size < 0 || (long) size * RECORD_SIZE > records.remaining()) {
+                throw new IOException("Corrupt ADD file: truncated node table");
+            }
+            this.size = size;
+            this.records = records;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int getVariable(int node) {
+            return records.getInt(node * RECORD_SIZE);
+        }
+
+        @Override
+        long getPayload(int node) {
+            return records.getLong(node * RECORD_SIZE + 4);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package jadd;
+
+import java.util.logging.Logger;
+
+import org.bridj.BridJ;
+import org.bridj.NativeLibrary;
+import org.bridj.Pointer;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.Cudd_addApply_arg1_callback;
+import bigcudd.DdNode;
+
+/**
+ * Binary operators for {@code Cudd_addApply}.
+ *
+ * Each operator is bound to the address of the corresponding native CUDD
+ * function (e.g., {@code Cudd_addTimes}), so that the whole apply recursion
+ * stays in C. Wrapping these functions in Java callbacks would cost one
+ * native-to-JVM upcall for every pair of nodes visited by CUDD. Thus, such
+ * callbacks are only used if the native symbols cannot be resolved.
+ *
+ * @author thiago
+ */
+enum ApplyOperator {
+    TIMES("Cudd_addTimes") {
+        @Override
+        Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                 Pointer<Pointer<DdNode>> node1,
+                                 Pointer<Pointer<DdNode>> node2) {
+            return BigcuddLibrary.Cudd_addTimes(dd, node1, node2);
+        }
+    },
+    PLUS("Cudd_addPlus") {
+        @Override
+        Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                 Pointer<Pointer<DdNode>> node1,
+                                 Pointer<Pointer<DdNode>> node2) {
+            return BigcuddLibrary.Cudd_addPlus(dd, node1, node2);
+        }
+    },
+    MINUS("Cudd_addMinus") {
+        @Override
+        Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                 Pointer<Pointer<DdNode>> node1,
+                                 Pointer<Pointer<DdNode>> node2) {
+            return BigcuddLibrary.Cudd_addMinus(dd, node1, node2);
+        }
+    },
+    DIVIDE("Cudd_addDivide") {
+        @Override
+        Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                 Pointer<Pointer<DdNode>> node1,
+                                 Pointer<Pointer<DdNode>> node2) {
+            return BigcuddLibrary.Cudd_addDivide(dd, node1, node2);
+        }
+    },
+    LOGICAL_OR("Cudd_addOr") {
+        @Override
+        Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                 Pointer<Pointer<DdNode>> node1,
+                                 Pointer<Pointer<DdNode>> node2) {
+            return BigcuddLibrary.Cudd_addOr(dd, node1, node2);
+        }
+    };
+
+    /**
+     * Resolved once, when the operators are initialized, or null if the
+     * symbol is not available.
+     */
+    private final Pointer<Cudd_addApply_arg1_callback> nativeFunction;
+    private Pointer<Cudd_addApply_arg1_callback> javaCallback;
+    // Strong reference, so that the callback's native thunk is not collected.
+    private Cudd_addApply_arg1_callback javaCallbackObject;
+
+    private ApplyOperator(String nativeName) {
+        this.nativeFunction = resolveNativeFunction(nativeName);
+    }
+
+    abstract Pointer<DdNode> callback(Pointer<BigcuddLibrary.DdManager> dd,
+                                      Pointer<Pointer<DdNode>> node1,
+                                      Pointer<Pointer<DdNode>> node2);
+
+    /**
+     * @return a pointer to the function to be passed to {@code Cudd_addApply}.
+     */
+    Pointer<Cudd_addApply_arg1_callback> getFunction() {
+        if (nativeFunction != null) {
+            return nativeFunction;
+        }
+        return getJavaCallback();
+    }
+
+    /**
+     * Called from the constructors, i.e., before the enum's static fields
+     * are initialized. Hence the local logger.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Pointer<Cudd_addApply_arg1_callback> resolveNativeFunction(String nativeName) {
+        Pointer function = null;
+        String reason = "symbol not found";
+        try {
+            NativeLibrary cudd = BridJ.getNativeLibrary(BigcuddLibrary.class);
+            function = cudd.getSymbolPointer(nativeName);
+        } catch (Exception e) {
+            reason = e.toString();
+        }
+        if (function == null) {
+            Logger.getLogger(ApplyOperator.class.getName())
+                    .warning("Could not resolve native " + nativeName + ". Falling back to Java callbacks: " + reason);
+        }
+        return function;
+    }
+
+    /**
+     * @return whether the native CUDD operator could be resolved.
+     */
+    boolean hasNativeFunction() {
+        return nativeFunction != null;
+    }
+
+    /**
+     * @return a pointer to a Java callback wrapping the CUDD operator,
+     *      regardless of whether the native function is available.
+     */
+    synchronized Pointer<Cudd_addApply_arg1_callback> getJavaCallback() {
+        if (javaCallback == null) {
+            final ApplyOperator operator = this;
+            javaCallbackObject = new Cudd_addApply_arg1_callback() {
+                @Override
+                public Pointer<DdNode> apply(Pointer<BigcuddLibrary.DdManager> dd,
+                                             Pointer<Pointer<DdNode>> node1,
+                                             Pointer<Pointer<DdNode>> node2) {
+                    return operator.callback(dd, node1, node2);
+                }
+            };
+            javaCallback = Pointer.getPointer(javaCallbackObject);
+        }
+        return javaCallback;
+    }
+
+}
@@ -0,0 +1,97 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bridj.Pointer;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdNode;
+
+/**
+ * Builds the BDD of a formula in conjunctive normal form.
+ *
+ * Conjoining clauses one at a time (i.e., as a left-deep tree, which is
+ * what evaluating the formula amounts to) makes every step operate on an
+ * ever-growing partial result. Instead, clauses are conjoined pairwise as
+ * a balanced tree, so that most conjunctions involve small BDDs over a
+ * few related variables. Clauses are kept in the order they are given,
+ * since feature models are translated to CNF one feature at a time, and
+ * thus neighboring clauses already share most of their variables. BDDs
+ * (with complement edges) are used throughout, since conjunction and
+ * negation are cheaper on them than on 0,1-ADDs.
+ *
+ * Must be used with the manager's write lock held.
+ *
+ * @author thiago
+ */
+final class CNFEncoder {
+
+    private final Pointer<DdManager> dd;
+
+    CNFEncoder(Pointer<DdManager> dd) {
+        this.dd = dd;
+    }
+
+    /**
+     * @param clauses Clauses as arrays of DIMACS-style literals, i.e., variable
+     *          indices plus one, negated for negative literals.
+     * @return the (referenced) BDD of the conjunction of {@code clauses}.
+     */
+    Pointer<DdNode> encode(List<int[]> clauses) {
+        List<Pointer<DdNode>> conjuncts = new ArrayList<Pointer<DdNode>>(clauses.size());
+        for (int[] clause : clauses) {
+            conjuncts.add(encodeClause(clause));
+        }
+        if (conjuncts.isEmpty()) {
+            return ref(BigcuddLibrary.Cudd_ReadOne(dd));
+        }
+        while (conjuncts.size() > 1) {
+            List<Pointer<DdNode>> next = new ArrayList<Pointer<DdNode>>((conjuncts.size() + 1) / 2);
+            for (int i = 0; i + 1 < conjuncts.size(); i += 2) {
+                next.add(and(conjuncts.get(i), conjuncts.get(i + 1)));
+            }
+            if (conjuncts.size() % 2 == 1) {
+                next.add(conjuncts.get(conjuncts.size() - 1));
+            }
+            conjuncts = next;
+        }
+        return conjuncts.get(0);
+    }
+
+    private Pointer<DdNode> encodeClause(int[] clause) {
+        Pointer<DdNode> disjunction = ref(BigcuddLibrary.Cudd_ReadLogicZero(dd));
+        for (int literal : clause) {
+            Pointer<DdNode> result = ref(BigcuddLibrary.Cudd_bddOr(dd, disjunction, getLiteral(literal)));
+            BigcuddLibrary.Cudd_IterDerefBdd(dd, disjunction);
+            disjunction = result;
+        }
+        return disjunction;
+    }
+
+    /**
+     * Conjoins two referenced BDDs, which are dereferenced.
+     */
+    private Pointer<DdNode> and(Pointer<DdNode> first, Pointer<DdNode> second) {
+        Pointer<DdNode> result = ref(BigcuddLibrary.Cudd_bddAnd(dd, first, second));
+        BigcuddLibrary.Cudd_IterDerefBdd(dd, first);
+        BigcuddLibrary.Cudd_IterDerefBdd(dd, second);
+        return result;
+    }
+
+    private Pointer<DdNode> getLiteral(int literal) {
+        Pointer<DdNode> variable = BigcuddLibrary.Cudd_bddIthVar(dd, Math.abs(literal) - 1);
+        if (literal > 0) {
+            return variable;
+        }
+        // Cudd_Not is a macro: complemented edges are tagged in the pointer's lowest bit.
+        return Pointer.pointerToAddress(variable.getPeer() ^ 1, DdNode.class, null);
+    }
+
+    private static Pointer<DdNode> ref(Pointer<DdNode> node) {
+        BigcuddLibrary.Cudd_Ref(node);
+        return node;
+    }
+
+}
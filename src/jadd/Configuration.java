@@ -0,0 +1,150 @@
+package jadd;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable configuration (i.e., set of present variables), represented as
+ * a bit set over the indices of a {@link VariableStore}.
+ *
+ * Equality and hashing work on the bits alone, so configurations are cheap
+ * map keys. Configurations from different stores are never equal.
+ *
+ * It is still a collection of variable names, which are iterated in index
+ * order, so that it can be used wherever a plain collection is expected.
+ *
+ * @author thiago
+ */
+public final class Configuration extends AbstractCollection<String> {
+
+    private final long[] bits;
+    private final VariableStore variableStore;
+    private final int hash;
+
+    /**
+     * @param bits Packed presence vector (see {@link VariableStore#toPackedPresenceVector}),
+     *          which must not be modified afterwards.
+     */
+    Configuration(long[] bits, VariableStore variableStore) {
+        int length = bits.length;
+        while (length > 0 && bits[length - 1] == 0) {
+            length--;
+        }
+        // Trailing zeros are dropped, so that configurations stay equal
+        // regardless of variables created in the meantime.
+        this.bits = (length == bits.length) ? bits : Arrays.copyOf(bits, length);
+        this.variableStore = variableStore;
+        this.hash = Arrays.hashCode(this.bits);
+    }
+
+    static Configuration of(Collection<String> variables, VariableStore variableStore) throws UnrecognizedVariableException {
+        if (variables instanceof Configuration
+                && ((Configuration) variables).variableStore == variableStore) {
+            return (Configuration) variables;
+        }
+        long[] bits = new long[variableStore.getPackedPresenceWords()];
+        variableStore.toPackedPresenceVector(variables, bits, 0);
+        return new Configuration(bits, variableStore);
+    }
+
+    /**
+     * @return whether the variable with the given index is present.
+     */
+    public boolean isPresent(int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return the number of 64-bit words needed to hold this configuration's
+     *          bits, i.e., up to its present variable with the highest index.
+     */
+    public int getWordCount() {
+        return bits.length;
+    }
+
+    /**
+     * @return the {@code word}-th 64-bit word of this configuration's bits
+     *          (see {@link VariableStore#toPackedPresenceVector}), which is
+     *          zero from {@link #getWordCount()} on.
+     */
+    public long getWord(int word) {
+        return (word < bits.length) ? bits[word] : 0;
+    }
+
+    /**
+     * @return the packed presence vector, which must not be modified.
+     */
+    long[] getBits() {
+        return bits;
+    }
+
+    VariableStore getVariableStore() {
+        return variableStore;
+    }
+
+    @Override
+    public boolean contains(Object variable) {
+        return variable instanceof String
+                && variableStore.contains((String) variable)
+                && isPresent(variableStore.getIndex((String) variable));
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : bits) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int word = 0;
+            private long remaining = (bits.length > 0) ? bits[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (remaining == 0 && word < bits.length - 1) {
+                    remaining = bits[++word];
+                }
+                return remaining != 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                short index = (short) ((word << 6) + Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+                return variableStore.getName(index);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Configuration)) {
+            return false;
+        }
+        Configuration other = (Configuration) obj;
+        return hash == other.hash
+                && variableStore == other.variableStore
+                && Arrays.equals(bits, other.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
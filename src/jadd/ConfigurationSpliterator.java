@@ -0,0 +1,290 @@
+package jadd;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the configurations (i.e., variable assignments) for which
+ * an ADD is non-zero, as packed presence vectors (see
+ * {@link VariableStore#toPackedPresenceVector}).
+ *
+ * Enumeration works on a snapshot of the ADD's nodes, so it needs no lock
+ * and no CUDD generator. Paths to non-zero terminals are followed depth-first;
+ * the variables which a path skips are "don't cares", whose assignments are
+ * generated lazily in Gray-code order (i.e., flipping a single bit from one
+ * configuration to the next).
+ *
+ * Splitting hands over the pending subtrees closest to the root, which are
+ * the largest ones (top-level variables are split first, if need be), or
+ * else half of the don't-care assignments of the current path.
+ *
+ * @author thiago
+ */
+final class ConfigurationSpliterator implements Spliterator<long[]> {
+
+    private final ADDSerializer.NodeTable nodes;
+    private final int[] levelIndices;
+    /**
+     * Number of assignments of the variables from each node's level down
+     * for which the node is non-zero.
+     */
+    private final double[] minterms;
+
+    /**
+     * Subtrees yet to be enumerated; the first ones are the largest.
+     */
+    private final Deque<Path> pending = new ArrayDeque<Path>();
+
+    // Path whose don't cares are being enumerated.
+    private long[] current;
+    private int[] dontCares;
+    private long next;
+    private long end;
+
+    /**
+     * @param nodes Node table, as collected by {@link ADDSerializer#collect}.
+     * @param levelIndices Index of the variable at each level.
+     * @param words Number of words in a packed presence vector.
+     */
+    ConfigurationSpliterator(ADDSerializer.NodeTable nodes, int[] levelIndices, int words) {
+        this(nodes, levelIndices, countMinterms(nodes, levelIndices.length));
+        int root = nodes.size() - 1;
+        if (!isZero(root)) {
+            pending.add(new Path(root, 0, new long[words], new int[0]));
+        }
+    }
+
+    private ConfigurationSpliterator(ADDSerializer.NodeTable nodes, int[] levelIndices, double[] minterms) {
+        this.nodes = nodes;
+        this.levelIndices = levelIndices;
+        this.minterms = minterms;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super long[]> action) {
+        while (current == null || next >= end) {
+            current = null;
+            Path path = pending.pollLast();
+            if (path == null) {
+                return false;
+            }
+            descend(path);
+        }
+        long[] configuration = current.clone();
+        next++;
+        if (next < end) {
+            int flipped = levelIndices[dontCares[Long.numberOfTrailingZeros(next)]];
+            current[flipped >>> 6] ^= 1L << flipped;
+        }
+        action.accept(configuration);
+        return true;
+    }
+
+    /**
+     * Follows a path down to a non-zero terminal, leaving the alternative
+     * branches pending, and starts enumerating its don't cares.
+     */
+    private void descend(Path path) {
+        int node = path.node;
+        int level = path.level;
+        long[] bits = path.bits;
+        int[] skipped = path.dontCares;
+        while (!isConstant(node)) {
+            int nodeLevel = nodes.getVariable(node);
+            skipped = skip(skipped, level, nodeLevel);
+            int thenChild = getThen(node);
+            int elseChild = getElse(node);
+            if (isZero(thenChild)) {
+                node = elseChild;
+            } else {
+                if (!isZero(elseChild)) {
+                    pending.addLast(new Path(elseChild, nodeLevel + 1, bits.clone(), skipped));
+                }
+                int index = levelIndices[nodeLevel];
+                bits[index >>> 6] |= 1L << index;
+                node = thenChild;
+            }
+            level = nodeLevel + 1;
+        }
+        skipped = skip(skipped, level, levelIndices.length);
+        if (skipped.length > Long.SIZE - 2) {
+            throw new IllegalStateException("Too many configurations to enumerate: 2^" + skipped.length);
+        }
+        current = bits;
+        dontCares = skipped;
+        next = 0;
+        end = 1L << skipped.length;
+    }
+
+    @Override
+    public Spliterator<long[]> trySplit() {
+        if (pending.isEmpty() && current != null && end - next >= 2) {
+            return splitDontCares();
+        }
+        if (pending.size() == 1 && (current == null || next >= end)) {
+            // Nothing else to do, so we split the single pending subtree at its top.
+            Path path = pending.poll();
+            if (!expand(path)) {
+                return trySplit();
+            }
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        ConfigurationSpliterator prefix = new ConfigurationSpliterator(nodes, levelIndices, minterms);
+        int handedOver = Math.max(1, pending.size() / 2);
+        for (int i = 0; i < handedOver; i++) {
+            prefix.pending.addLast(pending.pollFirst());
+        }
+        return prefix;
+    }
+
+    /**
+     * Replaces a pending path by the two paths which branch at its topmost level.
+     * @return false if the path leads to a terminal, in which case it is made
+     *          the current one instead.
+     */
+    private boolean expand(Path path) {
+        if (isConstant(path.node) && path.level == levelIndices.length) {
+            descend(path);
+            return false;
+        }
+        int nodeLevel = isConstant(path.node) ? levelIndices.length : nodes.getVariable(path.node);
+        int index = levelIndices[path.level];
+        long[] withVariable = path.bits.clone();
+        withVariable[index >>> 6] |= 1L << index;
+        if (nodeLevel > path.level) {
+            // The topmost variable is a don't care, so we assign it both ways.
+            pending.addLast(new Path(path.node, path.level + 1, withVariable, path.dontCares));
+            pending.addLast(new Path(path.node, path.level + 1, path.bits, path.dontCares));
+        } else {
+            int thenChild = getThen(path.node);
+            int elseChild = getElse(path.node);
+            if (!isZero(thenChild)) {
+                pending.addLast(new Path(thenChild, nodeLevel + 1, withVariable, path.dontCares));
+            }
+            if (!isZero(elseChild)) {
+                pending.addLast(new Path(elseChild, nodeLevel + 1, path.bits, path.dontCares));
+            }
+        }
+        return true;
+    }
+
+    private ConfigurationSpliterator splitDontCares() {
+        long mid = next + (end - next) / 2;
+        ConfigurationSpliterator suffix = new ConfigurationSpliterator(nodes, levelIndices, minterms);
+        suffix.current = current.clone();
+        long changed = gray(next) ^ gray(mid);
+        for (int i = 0; changed != 0; i++, changed >>>= 1) {
+            if ((changed & 1) != 0) {
+                int index = levelIndices[dontCares[i]];
+                suffix.current[index >>> 6] ^= 1L << index;
+            }
+        }
+        suffix.dontCares = dontCares;
+        suffix.next = mid;
+        suffix.end = end;
+        end = mid;
+        return suffix;
+    }
+
+    @Override
+    public long estimateSize() {
+        double size = (current != null) ? end - next : 0;
+        for (Path path : pending) {
+            // Levels skipped above the path's node are don't cares as well.
+            int dontCares = path.dontCares.length + getLevel(path.node) - path.level;
+            size += minterms[path.node] * Math.pow(2, dontCares);
+        }
+        return (size >= Long.MAX_VALUE) ? Long.MAX_VALUE : (long) size;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    private static long gray(long n) {
+        return n ^ (n >>> 1);
+    }
+
+    /**
+     * @return {@code dontCares} followed by the levels from {@code from}
+     *          (inclusive) to {@code to} (exclusive).
+     */
+    private static int[] skip(int[] dontCares, int from, int to) {
+        if (from >= to) {
+            return dontCares;
+        }
+        int[] skipped = Arrays.copyOf(dontCares, dontCares.length + to - from);
+        for (int level = from; level < to; level++) {
+            skipped[dontCares.length + level - from] = level;
+        }
+        return skipped;
+    }
+
+    private boolean isConstant(int node) {
+        return nodes.getVariable(node) == ADDSerializer.CONSTANT;
+    }
+
+    private boolean isZero(int node) {
+        return isConstant(node) && nodes.getPayload(node) == 0;
+    }
+
+    private int getLevel(int node) {
+        return isConstant(node) ? levelIndices.length : nodes.getVariable(node);
+    }
+
+    private int getThen(int node) {
+        return (int) (nodes.getPayload(node) >>> 32);
+    }
+
+    private int getElse(int node) {
+        return (int) nodes.getPayload(node);
+    }
+
+    private static double[] countMinterms(ADDSerializer.NodeTable nodes, int numLevels) {
+        double[] minterms = new double[nodes.size()];
+        for (int node = 0; node < nodes.size(); node++) {
+            int level = nodes.getVariable(node);
+            long payload = nodes.getPayload(node);
+            if (level == ADDSerializer.CONSTANT) {
+                minterms[node] = (payload == 0) ? 0 : 1;
+            } else {
+                // Children always precede their parents in the table.
+                int thenChild = (int) (payload >>> 32);
+                int elseChild = (int) payload;
+                minterms[node] = minterms[thenChild] * Math.pow(2, levelOf(nodes, thenChild, numLevels) - level - 1)
+                        + minterms[elseChild] * Math.pow(2, levelOf(nodes, elseChild, numLevels) - level - 1);
+            }
+        }
+        return minterms;
+    }
+
+    private static int levelOf(ADDSerializer.NodeTable nodes, int node, int numLevels) {
+        int level = nodes.getVariable(node);
+        return (level == ADDSerializer.CONSTANT) ? numLevels : level;
+    }
+
+    /**
+     * Partial assignment of the variables above {@code level}, whose
+     * continuation is given by {@code node}.
+     */
+    private static final class Path {
+        private final int node;
+        private final int level;
+        private final long[] bits;
+        private final int[] dontCares;
+
+        Path(int node, int level, long[] bits, int[] dontCares) {
+            this.node = node;
+            this.level = level;
+            this.bits = bits;
+            this.dontCares = dontCares;
+        }
+    }
+
+}
@@ -1,6 +1,14 @@
 package jadd;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.bridj.IntValuedEnum;
 import org.bridj.Pointer;
@@ -12,38 +20,140 @@ import bigcudd.DdNode;
 /**
  * Interface to basic ADD operations.
  *
+ * A JADD instance (and the ADDs it creates) can be shared among threads.
+ * Since the underlying CUDD manager is not thread-safe, node-creating
+ * operations are serialized by a per-manager lock, while ADD evaluations
+ * proceed concurrently. Threads which do many ADD operations should rather
+ * work on their own {@link #replicate() replicas}, transferring ADDs in and
+ * out of them.
+ *
  * @author thiago
  *
  */
 public class JADD {
+    private static final Logger LOGGER = Logger.getLogger(JADD.class.getName());
+
+    /**
+     * Variable group which can be reordered internally (from CUDD's mtr.h).
+     */
+    private static final int MTR_DEFAULT = 0;
+
+    /**
+     * Operator binding of managers made by {@link #JADD()}. Native operators
+     * are used unless the {@code jadd.nativeOperators} system property is false.
+     */
+    private static final boolean NATIVE_OPERATORS_BY_DEFAULT =
+            Boolean.parseBoolean(System.getProperty("jadd.nativeOperators", "true"));
 
     private Pointer<BigcuddLibrary.DdManager> dd;
     private VariableStore variableStore = new VariableStore();
+    private NodeReclaimer reclaimer;
+    private final boolean nativeOperators;
 
     public JADD() {
+        this(NATIVE_OPERATORS_BY_DEFAULT);
+    }
+
+    /**
+     * @param nativeOperators Whether {@code Cudd_addApply} should be given
+     *          native CUDD operators (see {@link ApplyOperator}). Otherwise,
+     *          Java callbacks are used, which is only useful for comparison.
+     */
+    JADD(boolean nativeOperators) {
+        this.nativeOperators = nativeOperators;
         dd = BigcuddLibrary.Cudd_Init(0,
                                       0,
                                       BigcuddLibrary.CUDD_UNIQUE_SLOTS,
                                       BigcuddLibrary.CUDD_CACHE_SLOTS,
                                       0);
+        reclaimer = new NodeReclaimer(dd);
         IntValuedEnum<Cudd_ReorderingType> method = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
 //        BigcuddLibrary.Cudd_AutodynEnable(dd, method);
     }
 
     public ADD makeConstant(double constant) {
-        return new ADD(dd,
-                       BigcuddLibrary.Cudd_addConst(dd,  constant),
-                       variableStore);
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            return new ADD(dd,
+                           BigcuddLibrary.Cudd_addConst(dd,  constant),
+                           variableStore,
+                           reclaimer,
+                           nativeOperators);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     public ADD getVariable(String varName) {
-        if (variableStore.contains(varName)) {
-            return variableStore.get(varName);
-        } else {
-            Pointer<DdNode> var = BigcuddLibrary.Cudd_addNewVar(dd);
-            ADD varADD = new ADD(dd, var, variableStore);
-            variableStore.put(var.get().index(), varName, varADD);
-            return varADD;
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            if (variableStore.contains(varName)) {
+                return variableStore.get(varName);
+            } else {
+                Pointer<DdNode> var = BigcuddLibrary.Cudd_addNewVar(dd);
+                ADD varADD = new ADD(dd, var, variableStore, reclaimer, nativeOperators);
+                // Variables are cached, so they must outlive any scope.
+                ADDScope.unregister(varADD);
+                variableStore.put(var.get().index(), varName, varADD);
+                return varADD;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Makes a configuration (i.e., a set of present variables) which can be
+     * evaluated by the ADDs of this manager without looking up variables by name.
+     *
+     * @param variables Names of the present variables, which must already exist.
+     * @throws UnrecognizedVariableException
+     */
+    public Configuration makeConfiguration(Collection<String> variables) throws UnrecognizedVariableException {
+        return Configuration.of(variables, variableStore);
+    }
+
+    /**
+     * Encodes a propositional formula in conjunctive normal form as a 0,1-ADD.
+     *
+     * The formula is built as a BDD, conjoining clauses as a balanced tree
+     * to keep intermediate results small (see {@link CNFEncoder}), and only
+     * then converted to an ADD. This is much cheaper than conjoining 0,1-ADDs
+     * for large formulas, such as feature models.
+     *
+     * @param clauses Each clause is a list of literals, i.e., variable
+     *          names, possibly preceded by "!" (negation).
+     */
+    public ADD encodeCNF(List<List<String>> clauses) {
+        List<int[]> encodedClauses = new ArrayList<int[]>(clauses.size());
+        for (List<String> clause : clauses) {
+            int[] literals = new int[clause.size()];
+            for (int i = 0; i < literals.length; i++) {
+                String literal = clause.get(i);
+                boolean negated = literal.startsWith("!");
+                String varName = negated ? literal.substring(1) : literal;
+                getVariable(varName);
+                int index = variableStore.getIndex(varName) + 1;
+                literals[i] = negated ? -index : index;
+            }
+            encodedClauses.add(literals);
+        }
+
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            Pointer<DdNode> bdd = new CNFEncoder(dd).encode(encodedClauses);
+            ADD encoded = new ADD(dd,
+                                  BigcuddLibrary.Cudd_BddToAdd(dd, bdd),
+                                  variableStore,
+                                  reclaimer,
+                                  nativeOperators);
+            BigcuddLibrary.Cudd_IterDerefBdd(dd, bdd);
+            return encoded;
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -53,7 +163,91 @@ public class JADD {
     */
     public void reorderVariables() {
         IntValuedEnum<Cudd_ReorderingType> heuristic = Cudd_ReorderingType.CUDD_REORDER_SYMM_SIFT;
-        BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1);
+        ADD.withLock(reclaimer.writeLock(), () -> BigcuddLibrary.Cudd_ReduceHeap(dd, heuristic, 1));
+    }
+
+    /**
+     * Keeps the given variables adjacent whenever variables are reordered,
+     * although they may be reordered among themselves.
+     *
+     * @param variables Names of variables which are currently adjacent in the order.
+     * @throws UnrecognizedVariableException
+     * @throws IllegalArgumentException if the variables are not adjacent.
+     */
+    public void makeVariableGroup(List<String> variables) throws UnrecognizedVariableException {
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            int topLevel = Integer.MAX_VALUE;
+            int bottomLevel = -1;
+            for (String variable : variables) {
+                if (!variableStore.contains(variable)) {
+                    throw new UnrecognizedVariableException(variable);
+                }
+                int level = BigcuddLibrary.Cudd_ReadPerm(dd, variableStore.getIndex(variable));
+                topLevel = Math.min(topLevel, level);
+                bottomLevel = Math.max(bottomLevel, level);
+            }
+            if (bottomLevel - topLevel + 1 != variables.size()) {
+                throw new IllegalArgumentException("Variables are not adjacent: " + variables);
+            }
+            // Groups are identified by the index of their topmost variable.
+            BigcuddLibrary.Cudd_MakeTreeNode(dd,
+                                             BigcuddLibrary.Cudd_ReadInvPerm(dd, topLevel),
+                                             variables.size(),
+                                             MTR_DEFAULT);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Enables automatic reordering of variables (by group sifting) whenever
+     * the number of nodes grows past CUDD's threshold. This is worthwhile
+     * during long computations, but makes them less predictable.
+     */
+    public void enableDynamicReordering() {
+        ADD.withLock(reclaimer.writeLock(), () -> {
+            BigcuddLibrary.Cudd_AutodynEnable(dd, Cudd_ReorderingType.CUDD_REORDER_GROUP_SIFT);
+            return null;
+        });
+    }
+
+    public void disableDynamicReordering() {
+        ADD.withLock(reclaimer.writeLock(), () -> {
+            BigcuddLibrary.Cudd_AutodynDisable(dd);
+            return null;
+        });
+    }
+
+    /**
+     * Frees the CUDD manager, along with all of its nodes.
+     *
+     * Neither this manager nor its ADDs may be used afterwards, except for
+     * releasing ADDs (explicitly or not), which then has no effect. Calling
+     * this method more than once has no effect either.
+     */
+    public void close() {
+        ADD.withLock(reclaimer.writeLock(), () -> {
+            if (reclaimer.close()) {
+                BigcuddLibrary.Cudd_Quit(dd);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the names of all variables, from the topmost to the bottommost.
+     */
+    public List<String> getVariableOrder() {
+        return ADD.withLock(reclaimer.readLock(), () -> {
+            List<String> variables = new ArrayList<String>();
+            for (int level = 0; level < variableStore.getNumberOfVariables(); level++) {
+                int index = BigcuddLibrary.Cudd_ReadInvPerm(dd, level);
+                variables.add(variableStore.getName((short) index));
+            }
+            return variables;
+        });
     }
 
     /**
@@ -63,8 +257,114 @@ public class JADD {
      * @throws UnrecognizedVariableException
      */
     public void setVariableOrder(String[] orderedVariables) throws UnrecognizedVariableException {
-        int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
-        BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutationVector));
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            int[] permutationVector = variableStore.toPermutationVector(orderedVariables);
+            BigcuddLibrary.Cudd_ShuffleHeap(dd, Pointer.pointerToInts(permutationVector));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Saves an ADD in a compact binary format (see {@link ADDSerializer}),
+     * along with the names of its variables, so that it can be loaded later,
+     * possibly by another manager.
+     *
+     * @param function
+     * @param fileName
+     * @throws IOException
+     */
+    public void saveADD(ADD function, String fileName) throws IOException {
+        ADDSerializer.NodeTable table = ADD.withLock(reclaimer.readLock(),
+                () -> ADDSerializer.collect(dd, function.getUnderlyingNode(), getVariableOrder()));
+        ADDSerializer.write(table, Paths.get(fileName));
+    }
+
+    /**
+     * Loads an ADD saved by {@link #saveADD(ADD, String)}. Variables are
+     * matched by name, and those which do not exist yet are created in
+     * the order in which they were saved.
+     *
+     * @param fileName
+     * @return
+     * @throws IOException if the file could not be read or is not a saved ADD.
+     */
+    public ADD loadADD(String fileName) throws IOException {
+        return rebuild(ADDSerializer.read(Paths.get(fileName)));
+    }
+
+    /**
+     * Makes a new manager with the same variables as this one (with the same
+     * indices and in the same order), so that another thread can operate on
+     * its own ADDs without contending for this manager's lock. ADDs are then
+     * moved between managers by {@link #transfer(ADD)}.
+     *
+     * The managers are independent from then on: a variable created by one of
+     * them is only created by the other one when an ADD which depends on it
+     * is transferred. The replica must be closed by the caller.
+     */
+    public JADD replicate() {
+        JADD replica = new JADD(nativeOperators);
+        for (String variable : variableStore.getOrderedNames()) {
+            replica.getVariable(variable);
+        }
+        List<String> order = getVariableOrder();
+        try {
+            if (!order.isEmpty()) {
+                replica.setVariableOrder(order.toArray(new String[order.size()]));
+            }
+        } catch (UnrecognizedVariableException e) {
+            // Variables created in the meantime are appended to the replica's order.
+            LOGGER.log(Level.FINE, "Variables were created while replicating the manager", e);
+        }
+        return replica;
+    }
+
+    /**
+     * Copies an ADD made by another manager (e.g., a replica) into this one.
+     * Variables are matched by name, and those which do not exist here yet
+     * are created in the other manager's order.
+     *
+     * @param function ADD of any manager, which is left untouched.
+     * @return an ADD of this manager, which is to be released independently
+     *          of {@code function} (even if both belong to this manager).
+     */
+    public ADD transfer(ADD function) {
+        if (function.isManagedBy(reclaimer)) {
+            Lock writeLock = reclaimer.writeLock();
+            writeLock.lock();
+            try {
+                return new ADD(dd, function.getUnderlyingNode(), variableStore, reclaimer, nativeOperators);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        try {
+            return rebuild(function.collectNodes());
+        } catch (IOException e) {
+            // Only tables read from files can be malformed.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ADD rebuild(ADDSerializer.NodeTable table) throws IOException {
+        List<Pointer<DdNode>> variableNodes = new ArrayList<Pointer<DdNode>>();
+        for (String variable : table.getVariables()) {
+            variableNodes.add(getVariable(variable).getUnderlyingNode());
+        }
+
+        Lock writeLock = reclaimer.writeLock();
+        writeLock.lock();
+        try {
+            Pointer<DdNode> root = ADDSerializer.build(dd, table, variableNodes);
+            ADD loaded = new ADD(dd, root, variableStore, reclaimer, nativeOperators);
+            BigcuddLibrary.Cudd_RecursiveDeref(dd, root);
+            return loaded;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     public void dumpDot(String[] functionNames, ADD[] functions, String fileName) {
@@ -78,13 +378,15 @@ public class JADD {
             i++;
         }
 
-        String[] orderedVariableNames = variableStore.getOrderedNames();
-        BigcuddLibrary.Cudd_DumpDot(dd,
-                                    functions.length,
-                                    Pointer.pointerToPointers(nodes),
-                                    Pointer.pointerToCStrings(orderedVariableNames),
-                                    Pointer.pointerToCStrings(functionNames),
-                                    output);
+        ADD.withLock(reclaimer.writeLock(), () -> {
+            String[] orderedVariableNames = variableStore.getOrderedNames();
+            return BigcuddLibrary.Cudd_DumpDot(dd,
+                                               functions.length,
+                                               Pointer.pointerToPointers(nodes),
+                                               Pointer.pointerToCStrings(orderedVariableNames),
+                                               Pointer.pointerToCStrings(functionNames),
+                                               output);
+        });
 
         CUtils.fclose(output);
     }
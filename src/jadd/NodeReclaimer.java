@@ -0,0 +1,122 @@
+package jadd;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.bridj.Pointer;
+
+import bigcudd.BigcuddLibrary;
+import bigcudd.BigcuddLibrary.DdManager;
+import bigcudd.DdNode;
+
+/**
+ * Per-manager bookkeeping of the CUDD references held by ADD handles, so that
+ * each one is given back exactly once: either explicitly (see {@link ADD#release()}
+ * and {@link ADDScope}) or after the handle becomes unreachable.
+ *
+ * Since CUDD managers are not thread-safe, this is also where the manager's
+ * lock lives. Operations which only traverse existing nodes (e.g., evaluation)
+ * may share the read lock, while those which create, mark or free nodes must
+ * hold the write lock. Unreachable handles are thus not dereferenced by a
+ * background thread, but whenever a new ADD is created (under the write lock).
+ *
+ * @author thiago
+ */
+final class NodeReclaimer {
+
+    private final Pointer<DdManager> dd;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReferenceQueue<ADD> unreachable = new ReferenceQueue<ADD>();
+    // Phantom references must be strongly reachable until they are enqueued.
+    private final Set<NodeReference> pending = ConcurrentHashMap.newKeySet();
+    // Set once the manager is freed, after which there is nothing left to
+    // dereference. Guarded by the write lock.
+    private boolean closed = false;
+
+    NodeReclaimer(Pointer<DdManager> dd) {
+        this.dd = dd;
+    }
+
+    Lock readLock() {
+        return lock.readLock();
+    }
+
+    Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    /**
+     * Must be called with the write lock held.
+     */
+    NodeReference track(ADD add, Pointer<DdNode> node) {
+        reclaimUnreachable();
+        NodeReference reference = new NodeReference(add, node);
+        pending.add(reference);
+        return reference;
+    }
+
+    /**
+     * Marks the manager as freed. Must be called with the write lock held.
+     * @return whether the manager was still open.
+     */
+    boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        pending.clear();
+        return true;
+    }
+
+    /**
+     * Dereferences the nodes of all ADD handles which have been garbage-collected
+     * by the JVM since the last call. Must be called with the write lock held.
+     */
+    void reclaimUnreachable() {
+        Reference<? extends ADD> reference;
+        while ((reference = unreachable.poll()) != null) {
+            ((NodeReference) reference).release();
+        }
+    }
+
+    final class NodeReference extends PhantomReference<ADD> {
+        private final Pointer<DdNode> node;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private NodeReference(ADD add, Pointer<DdNode> node) {
+            super(add, unreachable);
+            this.node = node;
+        }
+
+        boolean isReleased() {
+            return released.get();
+        }
+
+        /**
+         * Gives the CUDD reference back. Subsequent calls have no effect.
+         */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                pending.remove(this);
+                clear();
+                Lock writeLock = lock.writeLock();
+                writeLock.lock();
+                try {
+                    if (!closed) {
+                        BigcuddLibrary.Cudd_RecursiveDeref(dd, node);
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        }
+    }
+
+}
@@ -2,22 +2,28 @@ package jadd;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Mapping between variable names, indices and projection functions.
+ *
+ * Lookups are safe while variables are being added, since {@link Configuration}s
+ * resolve their variables' names without holding the manager's lock.
+ */
 public class VariableStore {
     private Map<String, ADD> variables;
     private SortedMap<Short, String> variableNames;
     private Map<String, Short> variableIndices;
 
     public VariableStore() {
-        variables = new HashMap<String, ADD>();
-        variableNames = new TreeMap<Short, String>();
-        variableIndices = new HashMap<String, Short>();
+        variables = new ConcurrentHashMap<String, ADD>();
+        variableNames = new ConcurrentSkipListMap<Short, String>();
+        variableIndices = new ConcurrentHashMap<String, Short>();
     }
 
     public int getNumberOfVariables() {
@@ -32,6 +38,10 @@ public class VariableStore {
         return variables.get(varName);
     }
 
+    public short getIndex(String varName) {
+        return variableIndices.get(varName);
+    }
+
     public String getName(short varIndex) {
         return variableNames.get(varIndex);
     }
@@ -69,6 +79,31 @@ public class VariableStore {
         return presenceVector;
     }
 
+    /**
+     * @return the number of 64-bit words in a packed presence vector.
+     */
+    public int getPackedPresenceWords() {
+        return (variableIndices.size() + 63) >>> 6;
+    }
+
+    /**
+     * Packs a presence vector as a bit set, i.e., sets the bit of each present
+     * variable's index in the {@link #getPackedPresenceWords()} words of
+     * {@code packed} starting at {@code offset}.
+     * @param variables Names of the variables to be included.
+     * @param packed
+     * @param offset
+     */
+    public void toPackedPresenceVector(Collection<String> variables, long[] packed, int offset) throws UnrecognizedVariableException {
+        for (String var: variables) {
+            Short index = variableIndices.get(var);
+            if (index == null) {
+                throw new UnrecognizedVariableException(var);
+            }
+            packed[offset + (index >>> 6)] |= 1L << index;
+        }
+    }
+
     /**
      * Returns a list of variable names from a corresponding presence vector.
      *
@@ -1,6 +1,8 @@
 package modeling;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -8,6 +10,7 @@ import java.util.Map;
 
 import org.w3c.dom.DOMException;
 
+import parsing.XMIDocument;
 import parsing.activitydiagrams.ADReader;
 import parsing.activitydiagrams.Activity;
 import parsing.exceptions.InvalidNodeClassException;
@@ -18,6 +21,7 @@ import parsing.exceptions.UnsupportedFragmentTypeException;
 import parsing.sequencediagrams.Fragment;
 import parsing.sequencediagrams.SDReader;
 import tool.RDGNode;
+import tool.RdgContext;
 import transformation.Transformer;
 import fdtmc.FDTMC;
 
@@ -28,6 +32,7 @@ public class DiagramAPI implements IModelerAPI {
 		private List<SDReader> sdParsers;
 		private ADReader adParser;
 		private Map<String, Fragment> sdByID;
+		// Set by transform(), on which the other transformation methods depend
 		private Transformer transformer;
 
 	// Constructors
@@ -37,7 +42,6 @@ public class DiagramAPI implements IModelerAPI {
 			adParser = null;
 			sdParsers = new ArrayList<SDReader>();
 			sdByID = new HashMap<String, Fragment>();
-			transformer = new Transformer();
 
 			initialize();
 		}
@@ -46,9 +50,10 @@ public class DiagramAPI implements IModelerAPI {
 
 
 		/* (non-Javadoc)
-		 * @see modeling.IModelerAPI#transform()
+		 * @see modeling.IModelerAPI#transform(tool.RdgContext)
 		 */
-		public RDGNode transform() throws InvalidNumberOfOperandsException, InvalidNodeClassException, InvalidNodeType {
+		public RDGNode transform(RdgContext context) throws InvalidNumberOfOperandsException, InvalidNodeClassException, InvalidNodeType {
+			transformer = new Transformer(context);
 			RDGNode topLevel = transformer.transformSingleAD(adParser);
 			for (SDReader sdParser : this.sdParsers) {
 				RDGNode sdRDG = transformer.transformSingleSD(sdParser.getSD());
@@ -76,21 +81,30 @@ public class DiagramAPI implements IModelerAPI {
 		/**
 		 * Initializes the model transformation activities,
 		 * starting from parsing the XMI file and
-		 * then applying the transformation functions
+		 * then applying the transformation functions.
+		 * The file is read only once, and the result is
+		 * shared by all diagrams' readers.
 		 * @throws InvalidTagException
 		 * @throws UnsupportedFragmentTypeException
 		 * @throws InvalidGuardException
 		 * @throws DOMException
 		 */
 		private void initialize() throws UnsupportedFragmentTypeException, InvalidTagException {
-		    ADReader tmpAdParser = new ADReader(this.xmlFile, 0);
+		    XMIDocument document;
+		    try {
+		        document = XMIDocument.read(this.xmlFile);
+		    } catch (IOException e) {
+		        throw new UncheckedIOException(e);
+		    }
+
+		    ADReader tmpAdParser = new ADReader(document, 0);
 		    tmpAdParser.retrieveActivities();
 		    this.adParser = tmpAdParser;
 
 		    boolean hasNext = false;
 		    int index = 0;
 		    do {
-		        SDReader sdParser = new SDReader(this.xmlFile, index);
+		        SDReader sdParser = new SDReader(document, index);
 		        sdParser.traceDiagram();
 		        sdByID.put(sdParser.getSD().getId(), sdParser.getSD());
 		        this.sdParsers.add(sdParser);
@@ -9,16 +9,20 @@ import parsing.exceptions.InvalidNodeType;
 import parsing.exceptions.InvalidNumberOfOperandsException;
 import parsing.sequencediagrams.SDReader;
 import tool.RDGNode;
+import tool.RdgContext;
 import fdtmc.FDTMC;
 
 public interface IModelerAPI {
 
 	/**
 	 * Triggers the applicable transformations, either AD or SD based
+	 * @param context Context in which the RDG nodes are created. Each
+	 *         model should be transformed in a context of its own.
+	 * @return the root of the RDG.
 	 * @throws InvalidNumberOfOperandsException
 	 * @throws InvalidNodeClassException
 	 */
-	public abstract RDGNode transform()
+	public abstract RDGNode transform(RdgContext context)
 			throws InvalidNumberOfOperandsException, InvalidNodeClassException,
 			InvalidNodeType;
 
@@ -0,0 +1,57 @@
+package paramwrapper;
+
+import fdtmc.FDTMC;
+
+/**
+ * Decorator which looks up model checking results in a {@link FormulaCache}
+ * before delegating to the actual model checker.
+ *
+ * Models are identified by their PARAM serialization, so an unchanged
+ * FDTMC costs a hash and a file read instead of a model checker run.
+ *
+ * @author thiago
+ */
+public class CachingModelChecker implements ParametricModelChecker {
+
+    private final ParametricModelChecker modelChecker;
+    private final String checkerIdentity;
+    private final FormulaCache cache;
+    private final IModelCollector modelCollector;
+
+    /**
+     * @param modelChecker Model checker to be used upon cache misses.
+     * @param checkerIdentity Distinguishes the formulas computed by {@code modelChecker}
+     *          from those of other model checkers sharing the same cache.
+     */
+    public CachingModelChecker(ParametricModelChecker modelChecker,
+                               String checkerIdentity,
+                               FormulaCache cache,
+                               IModelCollector modelCollector) {
+        this.modelChecker = modelChecker;
+        this.checkerIdentity = checkerIdentity;
+        this.cache = cache;
+        this.modelCollector = modelCollector;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        ParamModel model = new ParamModel(fdtmc);
+        String modelString = model.toString();
+
+        String formula = cache.get(checkerIdentity, modelString);
+        if (formula != null) {
+            modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
+            modelCollector.collectCacheHit();
+            return formula;
+        }
+
+        modelCollector.collectCacheMiss();
+        formula = modelChecker.getReliability(fdtmc);
+        // An empty formula means the model checker failed, so it must not be remembered.
+        if (formula != null && !formula.isEmpty()) {
+            cache.put(checkerIdentity, modelString, formula);
+        }
+        return formula;
+    }
+
+}
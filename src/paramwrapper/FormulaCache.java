@@ -0,0 +1,204 @@
+package paramwrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Disk-backed cache of model checking results.
+ *
+ * Each formula is stored in its own file, named after the SHA-256 hash of
+ * the model checker's identity and the serialized model. Files are written
+ * to a temporary name and then atomically moved into place, so concurrent
+ * writers (threads or processes) never expose partially written entries.
+ *
+ * The cache holds at most {@code maxEntries} formulas. Hits refresh the
+ * entry's modification time, so that eviction drops the least recently
+ * used ones.
+ *
+ * @author thiago
+ */
+public class FormulaCache {
+    private static final Logger LOGGER = Logger.getLogger(FormulaCache.class.getName());
+
+    private static final String ENTRY_SUFFIX = ".formula";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final int maxEntries;
+    private final Object evictionLock = new Object();
+    private int writesSinceEviction;
+
+    /**
+     * @param directory Directory where formulas are stored. It is created if needed.
+     * @param maxEntries Maximum number of cached formulas.
+     * @throws IOException if the directory cannot be created.
+     */
+    public FormulaCache(Path directory, int maxEntries) throws IOException {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * @param checkerIdentity Identifies the model checker which produced (or would
+     *          produce) the formula, so that different checkers do not share entries.
+     * @param model Serialized model.
+     * @return the cached formula, or {@code null} if there is none.
+     */
+    public String get(String checkerIdentity, String model) {
+        Path entry = entryPath(checkerIdentity, model);
+        String formula;
+        try {
+            formula = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read cached formula " + entry, e);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // The formula is still good; the entry just ages as if it were not used.
+            LOGGER.log(Level.FINE, "Could not refresh cached formula " + entry, e);
+        }
+        return formula;
+    }
+
+    public void put(String checkerIdentity, String model, String formula) {
+        Path entry = entryPath(checkerIdentity, model);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, "entry", ".tmp");
+            Files.write(temporary, formula.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not cache formula " + entry, e);
+            return;
+        } finally {
+            deleteLeftover(temporary);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Deletes the least recently used entries beyond {@code maxEntries}.
+     * Listing the directory is only worth it once in a while, so it is done
+     * every {@code maxEntries/10} writes (but at least every 16 writes).
+     */
+    private void evictIfNeeded() {
+        synchronized (evictionLock) {
+            writesSinceEviction++;
+            if (writesSinceEviction < Math.min(16, Math.max(1, maxEntries / 10))) {
+                return;
+            }
+            writesSinceEviction = 0;
+
+            // Modification times are read once, since they may change (or the
+            // entries vanish) under concurrent hits while the list is sorted.
+            List<TimedEntry> entries = new ArrayList<TimedEntry>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+                for (Path entry : stream) {
+                    entries.add(new TimedEntry(entry, lastModified(entry)));
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not list formula cache " + directory, e);
+                return;
+            }
+            if (entries.size() <= maxEntries) {
+                return;
+            }
+            entries.sort(Comparator.comparing(TimedEntry::getLastModified));
+            for (TimedEntry entry : entries.subList(0, entries.size() - maxEntries)) {
+                try {
+                    Files.deleteIfExists(entry.getPath());
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Could not evict " + entry.getPath(), e);
+                }
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            // Probably deleted by a concurrent eviction: evict it first.
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a write, unless it was moved into place.
+     */
+    private static void deleteLeftover(Path temporary) {
+        if (temporary == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not delete temporary file " + temporary, e);
+        }
+    }
+
+    private Path entryPath(String checkerIdentity, String model) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+        digest.update(checkerIdentity.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(model.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(toHex(digest.digest()) + ENTRY_SUFFIX);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static class TimedEntry {
+        private final Path path;
+        private final FileTime lastModified;
+
+        TimedEntry(Path path, FileTime lastModified) {
+            this.path = path;
+            this.lastModified = lastModified;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        FileTime getLastModified() {
+            return lastModified;
+        }
+    }
+
+}
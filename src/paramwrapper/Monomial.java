@@ -0,0 +1,145 @@
+package paramwrapper;
+
+import java.util.Arrays;
+
+/**
+ * Immutable product of variables raised to positive integer powers.
+ *
+ * Variables are kept sorted by name, so that equal monomials always
+ * have the same representation.
+ */
+final class Monomial implements Comparable<Monomial> {
+
+    static final Monomial ONE = new Monomial(new String[0], new int[0]);
+
+    private final String[] variables;
+    private final int[] exponents;
+    private final int degree;
+    private final int hash;
+
+    private Monomial(String[] variables, int[] exponents) {
+        this.variables = variables;
+        this.exponents = exponents;
+        int tmpDegree = 0;
+        for (int exponent : exponents) {
+            tmpDegree += exponent;
+        }
+        this.degree = tmpDegree;
+        this.hash = 31 * Arrays.hashCode(variables) + Arrays.hashCode(exponents);
+    }
+
+    static Monomial of(String variable) {
+        return new Monomial(new String[]{variable}, new int[]{1});
+    }
+
+    boolean isConstant() {
+        return variables.length == 0;
+    }
+
+    int getDegree() {
+        return degree;
+    }
+
+    String[] getVariables() {
+        return variables;
+    }
+
+    /**
+     * Multiplies two monomials by merging their (sorted) variables.
+     */
+    Monomial times(Monomial other) {
+        if (this.isConstant()) {
+            return other;
+        } else if (other.isConstant()) {
+            return this;
+        }
+        String[] tmpVariables = new String[variables.length + other.variables.length];
+        int[] tmpExponents = new int[tmpVariables.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < variables.length || j < other.variables.length) {
+            int comparison;
+            if (i == variables.length) {
+                comparison = 1;
+            } else if (j == other.variables.length) {
+                comparison = -1;
+            } else {
+                comparison = variables[i].compareTo(other.variables[j]);
+            }
+
+            if (comparison < 0) {
+                tmpVariables[k] = variables[i];
+                tmpExponents[k] = exponents[i];
+                i++;
+            } else if (comparison > 0) {
+                tmpVariables[k] = other.variables[j];
+                tmpExponents[k] = other.exponents[j];
+                j++;
+            } else {
+                tmpVariables[k] = variables[i];
+                tmpExponents[k] = exponents[i] + other.exponents[j];
+                i++;
+                j++;
+            }
+            k++;
+        }
+        return new Monomial(Arrays.copyOf(tmpVariables, k), Arrays.copyOf(tmpExponents, k));
+    }
+
+    /**
+     * Higher-degree monomials come first; ties are broken lexicographically.
+     */
+    @Override
+    public int compareTo(Monomial other) {
+        if (degree != other.degree) {
+            return other.degree - degree;
+        }
+        int length = Math.min(variables.length, other.variables.length);
+        for (int i = 0; i < length; i++) {
+            int comparison = variables[i].compareTo(other.variables[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+            if (exponents[i] != other.exponents[i]) {
+                return other.exponents[i] - exponents[i];
+            }
+        }
+        return variables.length - other.variables.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof Monomial) {
+            Monomial other = (Monomial) obj;
+            return hash == other.hash
+                    && Arrays.equals(variables, other.variables)
+                    && Arrays.equals(exponents, other.exponents);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Formats this monomial as a product of variables (e.g., {@code x*y^2}).
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < variables.length; i++) {
+            if (i > 0) {
+                builder.append('*');
+            }
+            builder.append(variables[i]);
+            if (exponents[i] > 1) {
+                builder.append('^').append(exponents[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+}
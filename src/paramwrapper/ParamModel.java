@@ -1,21 +1,17 @@
 package paramwrapper;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import fdtmc.CompactFDTMC;
 import fdtmc.FDTMC;
-import fdtmc.State;
-import fdtmc.Transition;
 
 
 
@@ -26,25 +22,25 @@ class ParamModel {
 	// TODO Inferir estado inicial a partir da topologia da FDTMC.
 	private int initialState = 0;
 
+	private CompactFDTMC fdtmc;
 	private Set<String> parameters;
 	private Map<String, Set<Integer>> labels;
-	private Map<Integer, Command> commands;
 
 	private int stateRangeStart;
 	private int stateRangeEnd;
 
 	public ParamModel(FDTMC fdtmc) {
-		if (fdtmc.getVariableName() != null) {
-			stateVariable = fdtmc.getVariableName();
+		this.fdtmc = fdtmc.compact();
+		if (this.fdtmc.getVariableName() != null) {
+			stateVariable = this.fdtmc.getVariableName();
 		}
-		initialState = fdtmc.getInitialState().getIndex();
-		commands = getCommands(fdtmc);
-		labels = getLabels(fdtmc);
-		stateRangeStart = Collections.min(commands.keySet());
+		initialState = this.fdtmc.getInitialState();
+		labels = getLabels(this.fdtmc);
+		stateRangeStart = 0;
 		// PARAM não deixa declarar um intervalo com apenas um número.
 		stateRangeEnd = Math.max(stateRangeStart + 1,
-								 Collections.max(commands.keySet()));
-		parameters = getParameters(commands.values());
+								 this.fdtmc.getNumberOfStates() - 1);
+		parameters = getParameters(this.fdtmc);
 	}
 
     public int getParametersNumber() {
@@ -59,124 +55,111 @@ class ParamModel {
 	    return stateRangeEnd+1;
 	}
 
-	private Map<String, Set<Integer>> getLabels(FDTMC fdtmc) {
+	private Map<String, Set<Integer>> getLabels(CompactFDTMC fdtmc) {
 		Map<String, Set<Integer>> labeledStates = new TreeMap<String, Set<Integer>>();
-		Collection<State> states = fdtmc.getStates();
-		for (State s : states) {
-			String label = s.getLabel();
+		for (int s = 0; s < fdtmc.getNumberOfStates(); s++) {
+			String label = fdtmc.getLabel(s);
 			if (label != null && !label.isEmpty()) {
 				if (!labeledStates.containsKey(label)) {
 					labeledStates.put(label, new TreeSet<Integer>());
 				}
-				labeledStates.get(label).add(s.getIndex());
+				labeledStates.get(label).add(s);
 			}
 		}
 		return labeledStates;
 	}
 
-	private Map<Integer, Command> getCommands(FDTMC fdtmc) {
-		Map<Integer, Command> tmpCommands = new TreeMap<Integer, Command>();
-		for (Entry<State, List<Transition>> entry : fdtmc.getTransitions().entrySet()) {
-		    int initState = entry.getKey().getIndex();
-			Command command = new Command(initState);
-			if (entry.getValue() != null) {
-			    for (Transition transition : entry.getValue()) {
-			        command.addUpdate(transition.getProbability(),
-			                          transition.getTarget().getIndex());
-			    }
-			} else {
-			    // Workaround: manually adding self-loops in case no
-			    // transition was specified for a given state.
-			    command.addUpdate("1", initState);
-			}
-			tmpCommands.put(initState, command);
-		}
-		return tmpCommands;
-	}
-
-	private Set<String> getParameters(Collection<Command> commands) {
+	/**
+	 * Probabilities are interned, so each distinct one is only matched once.
+	 */
+	private Set<String> getParameters(CompactFDTMC fdtmc) {
 		Set<String> tmpParameters = new HashSet<String>();
+		boolean[] visited = new boolean[fdtmc.getNumberOfSymbols()];
 
 		Pattern validIdentifier = Pattern.compile("(^|\\d+-)([A-Za-z_][A-Za-z0-9_]*)");
-		for (Command command : commands) {
-			for (String probability : command.getUpdatesProbabilities()) {
-				Matcher m = validIdentifier.matcher(probability);
-				while (m.find()) {
-					tmpParameters.add(m.group(2));
-				}
+		for (int t = 0; t < fdtmc.getNumberOfTransitions(); t++) {
+			int symbol = fdtmc.getProbabilitySymbol(t);
+			if (symbol == CompactFDTMC.NONE || visited[symbol]) {
+				continue;
+			}
+			visited[symbol] = true;
+			Matcher m = validIdentifier.matcher(fdtmc.getSymbol(symbol));
+			while (m.find()) {
+				tmpParameters.add(m.group(2));
 			}
 		}
 		return tmpParameters;
 	}
 
-	@Override
-	public String toString() {
-		String params = "";
+	/**
+	 * Writes the PARAM program for this model straight into {@code out},
+	 * so that large models need not be held in memory as a whole.
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		out.append("dtmc\n\n");
 		for (String parameter : parameters) {
-			params += "param double "+parameter+";\n";
+			out.append("param double ").append(parameter).append(";\n");
 		}
-		String module =
-				"dtmc\n" +
-				"\n" +
-				params +
-				"\n" +
-				"module " + moduleName + "\n" +
-				"	"+stateVariable+ " : ["+stateRangeStart+".."+stateRangeEnd+"] init "+initialState+";" +
-				"\n";
-		for (Command command : commands.values()) {
-			module += "	"+command.makeString(stateVariable) + "\n";
+		out.append("\n")
+			.append("module ").append(moduleName).append("\n")
+			.append("	").append(stateVariable).append(" : [")
+			.append(Integer.toString(stateRangeStart)).append("..")
+			.append(Integer.toString(stateRangeEnd)).append("] init ")
+			.append(Integer.toString(initialState)).append(";\n");
+		for (int state = 0; state < fdtmc.getNumberOfStates(); state++) {
+			out.append("	");
+			appendCommand(out, state);
+			out.append("\n");
 		}
-		module += "endmodule\n\n";
+		out.append("endmodule\n\n");
 		for (Map.Entry<String, Set<Integer>> entry : labels.entrySet()) {
-			String label = entry.getKey();
-			module += "label \""+label+"\" = ";
-
-			Set<Integer> states = entry.getValue();
-			int count = 1;
-			for (Integer state : states) {
-				module += stateVariable+"="+state;
-				if (count < states.size()) {
-					module += " | ";
+			out.append("label \"").append(entry.getKey()).append("\" = ");
+			boolean needsSeparator = false;
+			for (Integer state : entry.getValue()) {
+				if (needsSeparator) {
+					out.append(" | ");
+				} else {
+					needsSeparator = true;
 				}
-				count++;
+				out.append(stateVariable).append("=").append(state.toString());
 			}
-			module += ";\n";
+			out.append(";\n");
 		}
-		return module;
-	}
-}
-
-class Command {
-	private int initialState;
-	private List<String> updatesProbabilities;
-	private List<Integer> updatesActions;
-
-	public Command(int initialState) {
-		this.initialState = initialState;
-        this.updatesProbabilities = new LinkedList<String>();
-        this.updatesActions = new LinkedList<Integer>();
 	}
 
-	public void addUpdate(String probability, int update) {
-		updatesProbabilities.add(probability);
-		updatesActions.add(update);
+	private void appendCommand(Appendable out, int state) throws IOException {
+		out.append("[] ").append(stateVariable).append("=")
+			.append(Integer.toString(state)).append(" -> ");
+		int begin = fdtmc.getTransitionsBegin(state);
+		int end = fdtmc.getTransitionsEnd(state);
+		if (begin == end) {
+			// Workaround: manually adding self-loops in case no
+			// transition was specified for a given state.
+			appendUpdate(out, "1", state);
+		}
+		for (int t = begin; t < end; t++) {
+			if (t > begin) {
+				out.append(" + ");
+			}
+			appendUpdate(out, fdtmc.getProbability(t), fdtmc.getTarget(t));
+		}
+		out.append(";");
 	}
 
-	public Collection<String> getUpdatesProbabilities() {
-		return updatesProbabilities;
+	private void appendUpdate(Appendable out, String probability, int target) throws IOException {
+		out.append("(").append(probability).append(") : (")
+			.append(stateVariable).append("'=").append(Integer.toString(target)).append(")");
 	}
 
-	public String makeString(String stateVariable) {
-		String command = "[] "+stateVariable+"="+initialState+" -> ";
-		boolean needsPlus = false;
-		for (int i = 0; i < updatesProbabilities.size(); i++) {
-		    if (needsPlus) {
-		        command += " + ";
-		    } else {
-		        needsPlus = true;
-		    }
-			command += "("+updatesProbabilities.get(i)+") : ("+stateVariable+"'="+updatesActions.get(i)+")";
+	@Override
+	public String toString() {
+		StringBuilder module = new StringBuilder();
+		try {
+			writeTo(module);
+		} catch (IOException e) {
+			// StringBuilder does not throw IOException.
+			throw new UncheckedIOException(e);
 		}
-		return command+";";
+		return module.toString();
 	}
-}
\ No newline at end of file
+}
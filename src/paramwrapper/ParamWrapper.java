@@ -3,9 +3,11 @@
  */
 package paramwrapper;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -48,24 +50,15 @@ public class ParamWrapper implements ParametricModelChecker {
 	public String getReliability(FDTMC fdtmc) {
 	    ParamModel model = new ParamModel(fdtmc);
         modelCollector.collectModel(model.getParametersNumber(), model.getStatesNumber());
-		String modelString = model.toString();
-
-		if (usePrism) {
-		    modelString = modelString.replace("param", "const");
-		}
 		String reliabilityProperty = "P=? [ F \"success\" ]";
 
-		return evaluate(modelString, reliabilityProperty, model);
+		return evaluate(model, reliabilityProperty);
 	}
 
-	private String evaluate(String modelString, String property, ParamModel model) {
+	private String evaluate(ParamModel model, String property) {
 		try {
-		    LOGGER.finer(modelString);
 			File modelFile = File.createTempFile("model", "param");
-			FileWriter modelWriter = new FileWriter(modelFile);
-			modelWriter.write(modelString);
-			modelWriter.flush();
-			modelWriter.close();
+			boolean hasConstants = writeModel(model, modelFile);
 
 			File propertyFile = File.createTempFile("property", "prop");
 			FileWriter propertyWriter = new FileWriter(propertyFile);
@@ -77,7 +70,7 @@ public class ParamWrapper implements ParametricModelChecker {
 
 			String formula;
 			long startTime = System.nanoTime();
-			if (usePrism && !modelString.contains("const")) {
+			if (usePrism && !hasConstants) {
 			    formula = invokeModelChecker(modelFile.getAbsolutePath(),
 			                                 propertyFile.getAbsolutePath(),
 			                                 resultsFile.getAbsolutePath());
@@ -100,6 +93,29 @@ public class ParamWrapper implements ParametricModelChecker {
 		return "";
 	}
 
+	/**
+	 * Writes the model file to be handed to the external tool. PARAM models
+	 * are streamed straight to the file, while Prism ones must have their
+	 * parameters turned into constants first.
+	 *
+	 * @return whether the written model declares constants (only meaningful for Prism).
+	 */
+	private boolean writeModel(ParamModel model, File modelFile) throws IOException {
+		try (Writer modelWriter = new BufferedWriter(new FileWriter(modelFile))) {
+			if (usePrism) {
+				String modelString = model.toString().replace("param", "const");
+				LOGGER.finer(modelString);
+				modelWriter.write(modelString);
+				return modelString.contains("const");
+			}
+			if (LOGGER.isLoggable(Level.FINER)) {
+				LOGGER.finer(model.toString());
+			}
+			model.writeTo(modelWriter);
+			return false;
+		}
+	}
+
 	private String invokeParametricModelChecker(String modelPath,
 												String propertyPath,
 												String resultsPath) throws IOException {
@@ -0,0 +1,193 @@
+package paramwrapper;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable multivariate polynomial with floating-point coefficients.
+ *
+ * Terms are kept sorted (see {@link Monomial#compareTo(Monomial)}), so that
+ * the textual representation of equal polynomials is always the same.
+ */
+final class Polynomial {
+
+    static final Polynomial ZERO = new Polynomial(new TreeMap<Monomial, Double>());
+    static final Polynomial ONE = constant(1);
+
+    private final SortedMap<Monomial, Double> terms;
+
+    private Polynomial(SortedMap<Monomial, Double> terms) {
+        this.terms = terms;
+    }
+
+    static Polynomial constant(double value) {
+        SortedMap<Monomial, Double> terms = new TreeMap<Monomial, Double>();
+        if (value != 0) {
+            terms.put(Monomial.ONE, value);
+        }
+        return new Polynomial(terms);
+    }
+
+    static Polynomial variable(String name) {
+        SortedMap<Monomial, Double> terms = new TreeMap<Monomial, Double>();
+        terms.put(Monomial.of(name), 1.0);
+        return new Polynomial(terms);
+    }
+
+    boolean isZero() {
+        return terms.isEmpty();
+    }
+
+    boolean isConstant() {
+        return terms.isEmpty()
+                || (terms.size() == 1 && terms.firstKey().isConstant());
+    }
+
+    /**
+     * Value of a constant polynomial. The result is meaningless
+     * if {@link #isConstant()} is false.
+     */
+    double getConstantValue() {
+        Double value = terms.get(Monomial.ONE);
+        return (value == null) ? 0 : value;
+    }
+
+    Set<String> getVariables() {
+        Set<String> variables = new TreeSet<String>();
+        for (Monomial monomial : terms.keySet()) {
+            for (String variable : monomial.getVariables()) {
+                variables.add(variable);
+            }
+        }
+        return variables;
+    }
+
+    Polynomial plus(Polynomial other) {
+        if (other.isZero()) {
+            return this;
+        } else if (this.isZero()) {
+            return other;
+        }
+        SortedMap<Monomial, Double> sum = new TreeMap<Monomial, Double>(terms);
+        for (Map.Entry<Monomial, Double> term : other.terms.entrySet()) {
+            addTerm(sum, term.getKey(), term.getValue());
+        }
+        return new Polynomial(sum);
+    }
+
+    Polynomial minus(Polynomial other) {
+        return plus(other.scale(-1));
+    }
+
+    Polynomial times(Polynomial other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.isConstant()) {
+            return other.scale(this.getConstantValue());
+        } else if (other.isConstant()) {
+            return this.scale(other.getConstantValue());
+        }
+        SortedMap<Monomial, Double> product = new TreeMap<Monomial, Double>();
+        for (Map.Entry<Monomial, Double> term : terms.entrySet()) {
+            for (Map.Entry<Monomial, Double> otherTerm : other.terms.entrySet()) {
+                addTerm(product,
+                        term.getKey().times(otherTerm.getKey()),
+                        term.getValue() * otherTerm.getValue());
+            }
+        }
+        return new Polynomial(product);
+    }
+
+    Polynomial scale(double factor) {
+        if (factor == 1) {
+            return this;
+        } else if (factor == 0) {
+            return ZERO;
+        }
+        SortedMap<Monomial, Double> scaled = new TreeMap<Monomial, Double>();
+        for (Map.Entry<Monomial, Double> term : terms.entrySet()) {
+            scaled.put(term.getKey(), term.getValue() * factor);
+        }
+        return new Polynomial(scaled);
+    }
+
+    Polynomial pow(int exponent) {
+        Polynomial result = ONE;
+        for (int i = 0; i < exponent; i++) {
+            result = result.times(this);
+        }
+        return result;
+    }
+
+    private static void addTerm(SortedMap<Monomial, Double> terms, Monomial monomial, double coefficient) {
+        Double current = terms.get(monomial);
+        double sum = (current == null) ? coefficient : current + coefficient;
+        if (sum == 0) {
+            terms.remove(monomial);
+        } else {
+            terms.put(monomial, sum);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof Polynomial) {
+            Polynomial other = (Polynomial) obj;
+            return terms.equals(other.terms);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return terms.hashCode();
+    }
+
+    /**
+     * Formats this polynomial as a sum of products, using only the
+     * operators understood by the expression solver (+, -, *, ^).
+     */
+    @Override
+    public String toString() {
+        if (isZero()) {
+            return "0";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Monomial, Double> term : terms.entrySet()) {
+            Monomial monomial = term.getKey();
+            double coefficient = term.getValue();
+            if (coefficient < 0) {
+                builder.append('-');
+                coefficient = -coefficient;
+            } else if (builder.length() > 0) {
+                builder.append('+');
+            }
+
+            if (monomial.isConstant()) {
+                builder.append(formatNumber(coefficient));
+            } else {
+                if (coefficient != 1) {
+                    builder.append(formatNumber(coefficient)).append('*');
+                }
+                builder.append(monomial);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Plain decimal notation, since the expression parser does not
+     * understand the scientific one.
+     */
+    private static String formatNumber(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1E15) {
+            return Long.toString((long) number);
+        }
+        return BigDecimal.valueOf(number).toPlainString();
+    }
+
+}
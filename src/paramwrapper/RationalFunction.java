@@ -0,0 +1,279 @@
+package paramwrapper;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable quotient of two polynomials.
+ *
+ * No multivariate GCD is computed, but constant denominators are always
+ * folded into the numerator and equal denominators are shared on addition.
+ * This keeps the functions arising from acyclic models denominator-free.
+ */
+final class RationalFunction {
+
+    static final RationalFunction ZERO = new RationalFunction(Polynomial.ZERO, Polynomial.ONE);
+    static final RationalFunction ONE = new RationalFunction(Polynomial.ONE, Polynomial.ONE);
+
+    private final Polynomial numerator;
+    private final Polynomial denominator;
+
+    private RationalFunction(Polynomial numerator, Polynomial denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    static RationalFunction of(Polynomial numerator, Polynomial denominator) {
+        if (denominator.isZero()) {
+            throw new ArithmeticException("Division by zero polynomial");
+        } else if (numerator.isZero()) {
+            return ZERO;
+        } else if (denominator.isConstant()) {
+            return new RationalFunction(numerator.scale(1 / denominator.getConstantValue()),
+                                        Polynomial.ONE);
+        } else if (numerator.equals(denominator)) {
+            return ONE;
+        }
+        return new RationalFunction(numerator, denominator);
+    }
+
+    static RationalFunction of(Polynomial polynomial) {
+        return new RationalFunction(polynomial, Polynomial.ONE);
+    }
+
+    /**
+     * Parses an arithmetic expression over numbers and variable names
+     * using the operators +, -, *, / and ^ (constant non-negative integer
+     * exponents only).
+     *
+     * @param expression
+     * @return the rational function denoted by {@code expression}.
+     * @throws IllegalArgumentException if the expression is malformed.
+     */
+    static RationalFunction parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    boolean isZero() {
+        return numerator.isZero();
+    }
+
+    boolean isPolynomial() {
+        return denominator.equals(Polynomial.ONE);
+    }
+
+    Set<String> getVariables() {
+        Set<String> variables = new TreeSet<String>(numerator.getVariables());
+        variables.addAll(denominator.getVariables());
+        return variables;
+    }
+
+    RationalFunction plus(RationalFunction other) {
+        if (other.isZero()) {
+            return this;
+        } else if (this.isZero()) {
+            return other;
+        } else if (denominator.equals(other.denominator)) {
+            return of(numerator.plus(other.numerator), denominator);
+        }
+        return of(numerator.times(other.denominator).plus(other.numerator.times(denominator)),
+                  denominator.times(other.denominator));
+    }
+
+    RationalFunction minus(RationalFunction other) {
+        return plus(other.negate());
+    }
+
+    RationalFunction negate() {
+        return new RationalFunction(numerator.scale(-1), denominator);
+    }
+
+    RationalFunction times(RationalFunction other) {
+        if (this.isZero() || other.isZero()) {
+            return ZERO;
+        } else if (this.equals(ONE)) {
+            return other;
+        } else if (other.equals(ONE)) {
+            return this;
+        } else if (denominator.equals(other.numerator)) {
+            return of(numerator, other.denominator);
+        } else if (numerator.equals(other.denominator)) {
+            return of(other.numerator, denominator);
+        }
+        return of(numerator.times(other.numerator),
+                  denominator.times(other.denominator));
+    }
+
+    RationalFunction dividedBy(RationalFunction other) {
+        return times(other.reciprocal());
+    }
+
+    RationalFunction reciprocal() {
+        return of(denominator, numerator);
+    }
+
+    RationalFunction pow(int exponent) {
+        return of(numerator.pow(exponent), denominator.pow(exponent));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj instanceof RationalFunction) {
+            RationalFunction other = (RationalFunction) obj;
+            return numerator.equals(other.numerator)
+                    && denominator.equals(other.denominator);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return numerator.hashCode() + 31 * denominator.hashCode();
+    }
+
+    /**
+     * Formats this function in the same shape PARAM uses for its results,
+     * i.e., either a polynomial or {@code (numerator)/(denominator)}.
+     */
+    @Override
+    public String toString() {
+        if (isPolynomial()) {
+            return numerator.toString();
+        }
+        return "(" + numerator + ")/(" + denominator + ")";
+    }
+
+    /**
+     * Recursive-descent parser for transition probabilities.
+     */
+    private static class Parser {
+        private final String input;
+        private int position = 0;
+
+        Parser(String input) {
+            this.input = input;
+        }
+
+        RationalFunction parse() {
+            RationalFunction result = parseSum();
+            skipWhitespace();
+            if (position != input.length()) {
+                throw error("Unexpected character");
+            }
+            return result;
+        }
+
+        private RationalFunction parseSum() {
+            RationalFunction result = parseProduct();
+            while (true) {
+                if (consume('+')) {
+                    result = result.plus(parseProduct());
+                } else if (consume('-')) {
+                    result = result.minus(parseProduct());
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private RationalFunction parseProduct() {
+            RationalFunction result = parseUnary();
+            while (true) {
+                if (consume('*')) {
+                    result = result.times(parseUnary());
+                } else if (consume('/')) {
+                    result = result.dividedBy(parseUnary());
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private RationalFunction parseUnary() {
+            if (consume('-')) {
+                return parseUnary().negate();
+            } else if (consume('+')) {
+                return parseUnary();
+            }
+            return parsePower();
+        }
+
+        private RationalFunction parsePower() {
+            RationalFunction base = parseAtom();
+            if (consume('^')) {
+                skipWhitespace();
+                int start = position;
+                while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+                if (start == position) {
+                    throw error("Exponent must be a non-negative integer");
+                }
+                return base.pow(Integer.parseInt(input.substring(start, position)));
+            }
+            return base;
+        }
+
+        private RationalFunction parseAtom() {
+            skipWhitespace();
+            if (consume('(')) {
+                RationalFunction inner = parseSum();
+                if (!consume(')')) {
+                    throw error("Missing closing parenthesis");
+                }
+                return inner;
+            }
+            if (position >= input.length()) {
+                throw error("Unexpected end of expression");
+            }
+            char current = input.charAt(position);
+            int start = position;
+            if (Character.isDigit(current) || current == '.') {
+                while (position < input.length()
+                        && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+                    position++;
+                }
+                if (position < input.length()
+                        && (input.charAt(position) == 'E' || input.charAt(position) == 'e')) {
+                    position++;
+                    if (position < input.length()
+                            && (input.charAt(position) == '-' || input.charAt(position) == '+')) {
+                        position++;
+                    }
+                    while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                        position++;
+                    }
+                }
+                double value = Double.parseDouble(input.substring(start, position));
+                return of(Polynomial.constant(value));
+            } else if (Character.isLetter(current) || current == '_') {
+                while (position < input.length()
+                        && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_')) {
+                    position++;
+                }
+                return of(Polynomial.variable(input.substring(start, position)));
+            }
+            throw error("Unexpected character");
+        }
+
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (position < input.length() && input.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of <" + input + ">");
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+package paramwrapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import fdtmc.CompactFDTMC;
+import fdtmc.FDTMC;
+
+/**
+ * Computes the probability of eventually reaching a state labeled "success"
+ * by means of state elimination over an FDTMC's transition graph, the same
+ * technique PARAM uses.
+ *
+ * The elimination is generic on the values of transition probabilities,
+ * which only need to support field operations: they may be rational
+ * functions (see {@link StateEliminationModelChecker}) or, for instance,
+ * ADDs mapping configurations to numbers.
+ *
+ * @param <T> Type of probability values.
+ * @author thiago
+ */
+public final class StateElimination<T> {
+
+    /**
+     * Arithmetic on probability values.
+     *
+     * @param <T> Type of probability values.
+     */
+    public interface Algebra<T> {
+        T zero();
+        T one();
+        T plus(T first, T second);
+        T minus(T first, T second);
+        T times(T first, T second);
+        T dividedBy(T first, T second);
+        T reciprocal(T value);
+    }
+
+    /**
+     * Identifier of the virtual absorbing state to which all transitions
+     * into success states are redirected.
+     */
+    private static final int TARGET = -1;
+
+    private final Algebra<T> algebra;
+
+    public StateElimination(Algebra<T> algebra) {
+        this.algebra = algebra;
+    }
+
+    /**
+     * @param fdtmc Model to be checked.
+     * @param transitionProbability Value of the probability of each transition
+     *          (given its index in {@code fdtmc}).
+     * @return the probability of eventually reaching success from the initial state.
+     */
+    public T getReliability(CompactFDTMC fdtmc, IntFunction<T> transitionProbability) {
+        Map<Integer, Map<Integer, T>> outgoing = getOutgoingTransitions(fdtmc, transitionProbability);
+        return eliminateStates(fdtmc.getInitialState(), outgoing);
+    }
+
+    /**
+     * Builds the transition graph restricted to the states which can
+     * reach success. Transitions into success states point to {@link #TARGET},
+     * and success states themselves are made absorbing.
+     */
+    private Map<Integer, Map<Integer, T>> getOutgoingTransitions(CompactFDTMC fdtmc, IntFunction<T> transitionProbability) {
+        Set<Integer> successStates = new HashSet<Integer>();
+        Map<Integer, Set<Integer>> predecessors = new HashMap<Integer, Set<Integer>>();
+        for (int source = 0; source < fdtmc.getNumberOfStates(); source++) {
+            if (FDTMC.SUCCESS_LABEL.equals(fdtmc.getLabel(source))) {
+                successStates.add(source);
+            }
+            for (int t = fdtmc.getTransitionsBegin(source); t < fdtmc.getTransitionsEnd(source); t++) {
+                int target = fdtmc.getTarget(t);
+                if (!predecessors.containsKey(target)) {
+                    predecessors.put(target, new HashSet<Integer>());
+                }
+                predecessors.get(target).add(source);
+            }
+        }
+
+        Set<Integer> relevantStates = backwardReachable(successStates, predecessors);
+
+        Map<Integer, Map<Integer, T>> outgoing = new LinkedHashMap<Integer, Map<Integer, T>>();
+        for (int source = 0; source < fdtmc.getNumberOfStates(); source++) {
+            if (!relevantStates.contains(source) || successStates.contains(source)) {
+                continue;
+            }
+            Map<Integer, T> transitions = new LinkedHashMap<Integer, T>();
+            for (int t = fdtmc.getTransitionsBegin(source); t < fdtmc.getTransitionsEnd(source); t++) {
+                int target = fdtmc.getTarget(t);
+                if (successStates.contains(target)) {
+                    target = TARGET;
+                } else if (!relevantStates.contains(target)) {
+                    continue;
+                }
+                transitions.merge(target, transitionProbability.apply(t), algebra::plus);
+            }
+            outgoing.put(source, transitions);
+        }
+        if (successStates.contains(fdtmc.getInitialState())) {
+            Map<Integer, T> transitions = new LinkedHashMap<Integer, T>();
+            transitions.put(TARGET, algebra.one());
+            outgoing.put(fdtmc.getInitialState(), transitions);
+        }
+        return outgoing;
+    }
+
+    private static Set<Integer> backwardReachable(Set<Integer> targets, Map<Integer, Set<Integer>> predecessors) {
+        Set<Integer> reachable = new HashSet<Integer>(targets);
+        Deque<Integer> pending = new ArrayDeque<Integer>(targets);
+        while (!pending.isEmpty()) {
+            Integer state = pending.pop();
+            Set<Integer> statePredecessors = predecessors.get(state);
+            if (statePredecessors != null) {
+                for (Integer predecessor : statePredecessors) {
+                    if (reachable.add(predecessor)) {
+                        pending.push(predecessor);
+                    }
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Eliminates every state but the initial one, in DFS post-order (so that
+     * acyclic models are solved by plain backward substitution), and then
+     * resolves the remaining self-loop of the initial state, if any.
+     */
+    private T eliminateStates(int initialState, Map<Integer, Map<Integer, T>> outgoing) {
+        if (!outgoing.containsKey(initialState)) {
+            return algebra.zero();
+        }
+        List<Integer> eliminationOrder = postOrder(initialState, outgoing);
+        // States unreachable from the initial one are irrelevant.
+        outgoing.keySet().retainAll(new HashSet<Integer>(eliminationOrder));
+
+        Map<Integer, Set<Integer>> incoming = new HashMap<Integer, Set<Integer>>();
+        for (Map.Entry<Integer, Map<Integer, T>> entry : outgoing.entrySet()) {
+            for (Integer target : entry.getValue().keySet()) {
+                if (!incoming.containsKey(target)) {
+                    incoming.put(target, new LinkedHashSet<Integer>());
+                }
+                incoming.get(target).add(entry.getKey());
+            }
+        }
+
+        for (Integer state : eliminationOrder) {
+            if (state != initialState) {
+                eliminate(state, outgoing, incoming);
+            }
+        }
+
+        Map<Integer, T> remaining = outgoing.get(initialState);
+        T reliability = remaining.containsKey(TARGET) ? remaining.get(TARGET) : algebra.zero();
+        T selfLoop = remaining.get(initialState);
+        if (selfLoop != null) {
+            reliability = algebra.dividedBy(reliability, algebra.minus(algebra.one(), selfLoop));
+        }
+        return reliability;
+    }
+
+    private void eliminate(Integer state,
+                           Map<Integer, Map<Integer, T>> outgoing,
+                           Map<Integer, Set<Integer>> incoming) {
+        Map<Integer, T> successors = outgoing.remove(state);
+        Set<Integer> predecessors = incoming.remove(state);
+        T selfLoop = successors.remove(state);
+        if (predecessors != null) {
+            predecessors.remove(state);
+        }
+        T stayFactor = (selfLoop == null) ? algebra.one()
+                : algebra.reciprocal(algebra.minus(algebra.one(), selfLoop));
+
+        for (Integer successor : successors.keySet()) {
+            Set<Integer> successorPredecessors = incoming.get(successor);
+            if (successorPredecessors != null) {
+                successorPredecessors.remove(state);
+            }
+        }
+        if (predecessors == null) {
+            return;
+        }
+        for (Integer predecessor : predecessors) {
+            Map<Integer, T> predecessorTransitions = outgoing.get(predecessor);
+            T toState = algebra.times(predecessorTransitions.remove(state), stayFactor);
+            for (Map.Entry<Integer, T> successor : successors.entrySet()) {
+                predecessorTransitions.merge(successor.getKey(),
+                                             algebra.times(toState, successor.getValue()),
+                                             algebra::plus);
+                if (!incoming.containsKey(successor.getKey())) {
+                    incoming.put(successor.getKey(), new LinkedHashSet<Integer>());
+                }
+                incoming.get(successor.getKey()).add(predecessor);
+            }
+        }
+    }
+
+    private static <V> List<Integer> postOrder(int initialState, Map<Integer, Map<Integer, V>> outgoing) {
+        List<Integer> order = new ArrayList<Integer>();
+        Set<Integer> visited = new HashSet<Integer>();
+        Deque<Integer> stack = new ArrayDeque<Integer>();
+        Deque<Iterator<Integer>> iterators = new ArrayDeque<Iterator<Integer>>();
+        visited.add(initialState);
+        stack.push(initialState);
+        iterators.push(outgoing.get(initialState).keySet().iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Integer> children = iterators.peek();
+            if (children.hasNext()) {
+                Integer child = children.next();
+                if (outgoing.containsKey(child) && visited.add(child)) {
+                    stack.push(child);
+                    iterators.push(outgoing.get(child).keySet().iterator());
+                }
+            } else {
+                iterators.pop();
+                order.add(stack.pop());
+            }
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,107 @@
+package paramwrapper;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import fdtmc.CompactFDTMC;
+import fdtmc.FDTMC;
+
+/**
+ * In-process parametric model checker.
+ *
+ * It computes the probability of eventually reaching a state labeled
+ * "success" by means of state elimination over the FDTMC's transition
+ * graph, the same technique PARAM uses, but without writing any files
+ * or spawning an external process.
+ *
+ * The resulting formula follows the shape of PARAM's output (a polynomial
+ * or a quotient of polynomials), so that it can be handed to the same
+ * expression solvers.
+ */
+public class StateEliminationModelChecker implements ParametricModelChecker {
+    private static final Logger LOGGER = Logger.getLogger(StateEliminationModelChecker.class.getName());
+
+    private static final StateElimination.Algebra<RationalFunction> RATIONAL_FUNCTIONS = new StateElimination.Algebra<RationalFunction>() {
+        @Override
+        public RationalFunction zero() {
+            return RationalFunction.ZERO;
+        }
+
+        @Override
+        public RationalFunction one() {
+            return RationalFunction.ONE;
+        }
+
+        @Override
+        public RationalFunction plus(RationalFunction first, RationalFunction second) {
+            return first.plus(second);
+        }
+
+        @Override
+        public RationalFunction minus(RationalFunction first, RationalFunction second) {
+            return first.minus(second);
+        }
+
+        @Override
+        public RationalFunction times(RationalFunction first, RationalFunction second) {
+            return first.times(second);
+        }
+
+        @Override
+        public RationalFunction dividedBy(RationalFunction first, RationalFunction second) {
+            return first.dividedBy(second);
+        }
+
+        @Override
+        public RationalFunction reciprocal(RationalFunction value) {
+            return value.reciprocal();
+        }
+    };
+
+    private IModelCollector modelCollector;
+
+    public StateEliminationModelChecker() {
+        this(new NoopModelCollector());
+    }
+
+    public StateEliminationModelChecker(IModelCollector modelCollector) {
+        this.modelCollector = modelCollector;
+    }
+
+    @Override
+    public String getReliability(FDTMC fdtmc) {
+        long startTime = System.nanoTime();
+        CompactFDTMC compact = fdtmc.compact();
+        Map<String, RationalFunction> parsedProbabilities = new HashMap<String, RationalFunction>();
+        RationalFunction reliability = new StateElimination<RationalFunction>(RATIONAL_FUNCTIONS)
+                .getReliability(compact, t -> parse(compact.getProbability(t), parsedProbabilities));
+        modelCollector.collectModel(countParameters(parsedProbabilities), compact.getNumberOfStates());
+
+        long elapsedTime = System.nanoTime() - startTime;
+        modelCollector.collectModelCheckingTime(elapsedTime);
+        String formula = reliability.toString();
+        LOGGER.finer(formula);
+        return formula;
+    }
+
+    private static RationalFunction parse(String probability, Map<String, RationalFunction> parsedProbabilities) {
+        RationalFunction parsed = parsedProbabilities.get(probability);
+        if (parsed == null) {
+            parsed = RationalFunction.parse(probability);
+            parsedProbabilities.put(probability, parsed);
+        }
+        return parsed;
+    }
+
+    private static int countParameters(Map<String, RationalFunction> parsedProbabilities) {
+        Set<String> parameters = new HashSet<String>();
+        for (RationalFunction probability : parsedProbabilities.values()) {
+            parameters.addAll(probability.getVariables());
+        }
+        return parameters.size();
+    }
+
+}
@@ -1,61 +1,47 @@
 package parsing;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.NodeList;
-
 import parsing.exceptions.InvalidTagException;
 
 public class ProbabilityEnergyTimeProfileReader {
 
     /**
      * Trigger for retrieveProbEnergyTimeHelper
-     * @param n
+     * @param nodeId
+     * @param doc
      * @throws InvalidTagException
      */
-    public static ProbabilityEnergyTimeProfile retrieveProbEnergyTime(String nodeId, Document doc) throws InvalidTagException {
+    public static ProbabilityEnergyTimeProfile retrieveProbEnergyTime(String nodeId, XMIDocument doc) throws InvalidTagException {
         ProbabilityEnergyTimeProfile profile = new ProbabilityEnergyTimeProfile();
 
-        retrieveProbEnergyTimeHelper(doc.getElementsByTagName("GQAM:GaStep"), nodeId, profile);
-        retrieveProbEnergyTimeHelper(doc.getElementsByTagName("PAM:PaStep"), nodeId, profile);
-        retrieveProbEnergyTimeHelper(doc.getElementsByTagName("GRM:ResourceUsage"), nodeId, profile);
-        retrieveProbEnergyTimeHelper(doc.getElementsByTagName("PAM:PaCommStep"), nodeId, profile);
+        for (String tag : XMIDocument.PROFILE_TAGS) {
+            retrieveProbEnergyTimeHelper(doc.getStereotype(tag, nodeId), profile);
+        }
 
         return profile;
     }
 
     /**
-     * Parses the xmi file in search for pertinent annotations of an behavioral diagram
-     * $nodes indicates the xmi nodes to be analyzed
-     * $n indicates the object in which the resultant data will be put
-     * @param nodes
-     * @param n
+     * Reads the pertinent annotations of an behavioral diagram element
+     * $stereotype is the xmi node applying the annotations to the element (if any)
+     * $profile indicates the object in which the resultant data will be put
+     * @param stereotype
+     * @param profile
      * @throws InvalidTagException
      */
-    private static void retrieveProbEnergyTimeHelper(NodeList nodes, String nodeId, ProbabilityEnergyTimeProfile profile)  throws InvalidTagException {
-        for (int k = 0; k < nodes.getLength(); k++) {
-            org.w3c.dom.Node tmp;
-            org.w3c.dom.Node item = nodes.item(k);
-            NamedNodeMap kAttrs = item.getAttributes();
-
-            if (kAttrs.getNamedItem("base_NamedElement").getTextContent().equals(nodeId)) {
-                if (kAttrs.getNamedItem("prob") != null) {
-                    profile.setProb(parseTag(kAttrs.getNamedItem("prob").getTextContent(), "prob").floatValue());
-                }
+    private static void retrieveProbEnergyTimeHelper(XMINode stereotype, ProbabilityEnergyTimeProfile profile)  throws InvalidTagException {
+        if (stereotype == null) {
+            return;
+        }
+        if (stereotype.getAttribute("prob") != null) {
+            profile.setProb(parseTag(stereotype.getAttribute("prob"), "prob").floatValue());
+        }
 
-                if (item.hasChildNodes()) {
-                    NodeList kChilds = item.getChildNodes();
-                    for (int i = 0; i < kChilds.getLength(); i++) {
-                        tmp = kChilds.item(i);
-                        if (tmp.getNodeName() != null && tmp.getNodeName().equals("energy")) {
-                            profile.setEnergy(parseTag(tmp.getTextContent(), "energy").floatValue());
-                        }
-                        if (tmp.getNodeName() != null && tmp.getNodeName().equals("execTime")) {
-                            profile.setExecTime(parseTag(tmp.getTextContent(), "execTime"));
-                        }
-                    }
-                }
-                break;
+        for (XMINode tmp : stereotype.getChildNodes()) {
+            if (tmp.getNodeName().equals("energy")) {
+                profile.setEnergy(parseTag(tmp.getTextContent(), "energy").floatValue());
+            }
+            if (tmp.getNodeName().equals("execTime")) {
+                profile.setExecTime(parseTag(tmp.getTextContent(), "execTime"));
             }
         }
     }
@@ -1,11 +1,21 @@
 package parsing.SplGeneratorModels;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 
 import javax.swing.JOptionPane;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
 
 public class Feature {
 
@@ -196,6 +206,73 @@ public class Feature {
 	}
 
 
+	/**
+	 * Reads the feature tree of a FeatureIDE model (the format written by
+	 * exportXml). Features are not added to the set of created features.
+	 * 
+	 * @param featureIdeXml
+	 *            - the FeatureIDE model file.
+	 * @return the root feature.
+	 * @throws IOException
+	 *             if the file cannot be read or has no feature tree.
+	 */
+	public static Feature importXml(File featureIdeXml) throws IOException {
+		Document doc;
+		try {
+			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+					.parse(featureIdeXml);
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException("Could not parse " + featureIdeXml, e);
+		}
+		NodeList structs = doc.getElementsByTagName("struct");
+		Element root = structs.getLength() > 0 ? firstChildElement(structs.item(0)) : null;
+		if (root == null) {
+			throw new IOException("No feature tree in " + featureIdeXml);
+		}
+		return importXml(root);
+	}
+
+
+	private static Feature importXml(Element element) {
+		Feature f = new Feature(element.getAttribute("name"));
+		switch (element.getTagName()) {
+		case "and":
+			f.setType(Feature.AND);
+			break;
+		case "or":
+			f.setType(Feature.OR);
+			break;
+		case "alt":
+			f.setType(Feature.ALTERNATIVE);
+			break;
+		default:
+			f.setType(Feature.LEAF);
+			break;
+		}
+		f.setMandatory("true".equals(element.getAttribute("mandatory")));
+		f.setAbstract("true".equals(element.getAttribute("abstract")));
+		f.setHidden("true".equals(element.getAttribute("hidden")));
+
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE
+					&& !"description".equals(child.getNodeName())) {
+				f.getChildren().add(importXml((Element) child));
+			}
+		}
+		return f;
+	}
+
+
+	private static Element firstChildElement(Node node) {
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+
 	
 
 }
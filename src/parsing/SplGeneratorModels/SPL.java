@@ -41,8 +41,6 @@ public class SPL implements Cloneable{
 	ConfigurationKnowledge ck;
 
 
-	private static SPL instance;
-
 	public SPL(String name) {
 		this();
 		this.name = name;
@@ -61,8 +59,7 @@ public class SPL implements Cloneable{
 	 * @return The SPL object created for the SPL.
 	 */
 	public static SPL createSPL(String name) {
-		instance = new SPL(name);
-		return instance;
+		return new SPL(name);
 	}
 
 	public String getXmlRepresentation() {
@@ -175,11 +172,16 @@ public class SPL implements Cloneable{
 	 * models of a software product line, parse its document and create the
 	 * models in memory.
 	 * 
+	 * The parsers keep the diagrams' elements in static tables, so files
+	 * are parsed one at a time, and the tables are cleared beforehand.
+	 * Afterwards, the SPL object does not depend on them.
+	 * 
 	 * @param fileName
 	 *            the path of the file to be parsed
 	 * @return the SPL object containing the behavioral models.
 	 */
-	public static SPL getSplFromXml(String fileName) {
+	public static synchronized SPL getSplFromXml(String fileName) {
+		SPL spl = null;
 
 		try {
 			File xmlFile = new File(fileName);
@@ -192,7 +194,10 @@ public class SPL implements Cloneable{
 			Element root = doc.getDocumentElement();
 			Node nSplName = root.getAttributeNode("name");
 			String splName = nSplName.getNodeValue();
-			instance = new SPL(splName);
+			spl = new SPL(splName);
+
+			SequenceDiagram.reset();
+			SequenceDiagramElement.reset();
 
 			// Call the parser of sequence diagrams elements initially, so it
 			// allows to create in memory all the objects representing the SPL's
@@ -204,13 +209,13 @@ public class SPL implements Cloneable{
 			NodeList nActivityDiagram = root
 					.getElementsByTagName("ActivityDiagram");
 			ActivityDiagram a = ActivityDiagramParser.parse(doc);
-			instance.ad = a;
+			spl.ad = a;
 
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 
-		return instance;
+		return spl;
 	}
 
 	public String getName() {
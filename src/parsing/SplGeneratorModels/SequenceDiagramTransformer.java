@@ -12,14 +12,17 @@ import parsing.SplGeneratorModels.SequenceDiagram;
 import parsing.SplGeneratorModels.SequenceDiagramElement;
 import parsing.SplGeneratorModels.SPLFilePersistence;
 import tool.RDGNode;
+import tool.RdgContext;
 import fdtmc.*;
 
 public class SequenceDiagramTransformer {
 
+	RdgContext rdgContext;
 	RDGNode root;
 	HashMap<String, fdtmc.State> fdtmcStateById;
 
-	public SequenceDiagramTransformer() {
+	public SequenceDiagramTransformer(RdgContext rdgContext) {
+		this.rdgContext = rdgContext;
 		fdtmcStateById = new HashMap<String, fdtmc.State>();
 		root = null;
 	}
@@ -27,7 +30,7 @@ public class SequenceDiagramTransformer {
 	public RDGNode transformSD(SequenceDiagram s, String id) {
 		FDTMC f = new FDTMC();
 		f.setVariableName(s.getName() + "_s");
-		RDGNode answer = new RDGNode(id, s.getGuardCondition(), f);
+		RDGNode answer = new RDGNode(rdgContext, id, s.getGuardCondition(), f);
 		root = answer;
 
 		State s0 = f.createInitialState();
@@ -78,8 +81,8 @@ public class SequenceDiagramTransformer {
 			if (fr.getType() == Fragment.OPTIONAL) {
 				SequenceDiagram onlySD = fr.getSequenceDiagrams()
 						.getFirst();
-				SequenceDiagramTransformer transformer = new SequenceDiagramTransformer();
-				RDGNode dependencyNode = transformer.transformSD(onlySD, RDGNode.getNextId());
+				SequenceDiagramTransformer transformer = new SequenceDiagramTransformer(rdgContext);
+				RDGNode dependencyNode = transformer.transformSD(onlySD, rdgContext.getNextId());
 				this.root.addDependency(dependencyNode);
 
 				String dependencyName = dependencyNode.getId();
@@ -16,13 +16,22 @@ import parsing.SplGeneratorModels.Transition;
 import parsing.SplGeneratorModels.SPLFilePersistence;
 //import splGenerator.transformation.SequenceDiagramTransformer;
 import tool.RDGNode;
+import tool.RdgContext;
 
 public class Transformer {
 
+	private RdgContext rdgContext;
 	private HashMap<String, fdtmc.State> fdtmcStateById = new HashMap<String, fdtmc.State>();
 	private RDGNode root;
 	private HashMap<ActivityDiagramElement, State> stateByAdElement = new HashMap<ActivityDiagramElement, State>();
 
+	/**
+	 * @param rdgContext Context in which RDG nodes are created.
+	 */
+	public Transformer(RdgContext rdgContext) {
+		this.rdgContext = rdgContext;
+	}
+
 	/**
 	 * This method is responsible for creating an RDG structure for a whole SPL
 	 * given an activity diagram as input.
@@ -35,7 +44,7 @@ public class Transformer {
 	public RDGNode transformAD(ActivityDiagram ad) {
 		FDTMC f = new FDTMC();
 		f.setVariableName(ad.getName() + "_s");
-		RDGNode answer = new RDGNode(ad.getName(), "true", f);
+		RDGNode answer = new RDGNode(rdgContext, ad.getName(), "true", f);
 		root = answer;
 
 		// Takes the first element (init) and transform it into its FDTMC
@@ -98,7 +107,7 @@ public class Transformer {
 				fdtmcStateById.put(adElem.getElementName(), source);
 				// TODO Throw exception if there is more than one associated SD
 				SequenceDiagram onlyAssociatedSD = a.getSequenceDiagrams().getFirst();
-				SequenceDiagramTransformer sdt = new SequenceDiagramTransformer();
+				SequenceDiagramTransformer sdt = new SequenceDiagramTransformer(rdgContext);
 				RDGNode dependencyNode = sdt.transformSD(onlyAssociatedSD, onlyAssociatedSD.getName());
 				this.root.addDependency(dependencyNode);
 
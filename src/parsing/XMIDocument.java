@@ -0,0 +1,268 @@
+package parsing;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Single-pass reader for MagicDraw XMI files.
+ *
+ * Instead of building a DOM of the whole file (once per diagram), the file
+ * is streamed once and only the fragments the diagram readers need are kept:
+ * activity diagrams ({@code packagedElement}s of type {@code uml:Activity}),
+ * sequence diagrams ({@code ownedBehavior}s) and the MARTE stereotypes which
+ * annotate their elements with probabilities, energy and execution times.
+ * MagicDraw's own {@code xmi:Extension}s (diagram layout, mostly) are skipped.
+ *
+ * Stereotypes usually come at the end of the file, so they are indexed by
+ * the annotated element's id while streaming and looked up afterwards.
+ *
+ * @author thiago
+ */
+public class XMIDocument {
+
+    /**
+     * Stereotypes holding probability, energy and execution time tags,
+     * in the order in which they are looked up.
+     */
+    static final List<String> PROFILE_TAGS = Arrays.asList("GQAM:GaStep",
+                                                           "PAM:PaStep",
+                                                           "GRM:ResourceUsage",
+                                                           "PAM:PaCommStep");
+
+    /**
+     * How much of a file is read when looking for its exporter.
+     * MagicDraw writes it in the XMI header, within the first kilobyte.
+     */
+    private static final int EXPORTER_LOOKAHEAD = 16 * 1024;
+
+    private static final String EXPORTER_TAG = "xmi:exporter";
+    private static final String EXTENSION_TAG = "xmi:Extension";
+
+    /**
+     * Placeholder in the stack of open elements for those which are not kept.
+     */
+    private static final XMINode DISCARDED = new XMINode("", Collections.<String, String>emptyMap());
+
+    private final List<XMINode> activityDiagrams = new ArrayList<XMINode>();
+    private final List<XMINode> sequenceDiagrams = new ArrayList<XMINode>();
+    private final Map<String, Map<String, XMINode>> stereotypesByTag = new HashMap<String, Map<String, XMINode>>();
+
+    private XMIDocument() {
+        for (String tag : PROFILE_TAGS) {
+            stereotypesByTag.put(tag, new HashMap<String, XMINode>());
+        }
+    }
+
+    /**
+     * Reads the diagrams of an XMI file in a single streaming pass.
+     * @param xmiFile
+     * @throws IOException if the file cannot be read or is not well-formed XML.
+     */
+    public static XMIDocument read(File xmiFile) throws IOException {
+        XMIDocument document = new XMIDocument();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(xmiFile))) {
+            XMLStreamReader reader = newInputFactory().createXMLStreamReader(input);
+            try {
+                document.parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse " + xmiFile, e);
+        }
+        return document;
+    }
+
+    /**
+     * Looks for the name of the tool which exported an XMI file
+     * (the {@code xmi:exporter} header), reading only the beginning of the file.
+     * @param xmiFile
+     * @return the exporter's name, or {@code null} if the file does not declare one.
+     * @throws IOException
+     */
+    public static String readExporter(File xmiFile) throws IOException {
+        byte[] head = new byte[EXPORTER_LOOKAHEAD];
+        int length = 0;
+        try (InputStream input = new FileInputStream(xmiFile)) {
+            int read;
+            while (length < head.length && (read = input.read(head, length, head.length - length)) > 0) {
+                length += read;
+            }
+        }
+        try {
+            XMLStreamReader reader = newInputFactory().createXMLStreamReader(new ByteArrayInputStream(head, 0, length));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && EXPORTER_TAG.equals(qualifiedName(reader.getPrefix(), reader.getLocalName()))) {
+                        return reader.getElementText();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // Most likely the document was cut at the lookahead limit
+            // before any exporter was declared.
+        }
+        return null;
+    }
+
+    /**
+     * @return the {@code uml:Activity} elements, in document order.
+     */
+    public List<XMINode> getActivityDiagrams() {
+        return Collections.unmodifiableList(activityDiagrams);
+    }
+
+    /**
+     * @return the {@code ownedBehavior} elements, in document order.
+     */
+    public List<XMINode> getSequenceDiagrams() {
+        return Collections.unmodifiableList(sequenceDiagrams);
+    }
+
+    /**
+     * @param tag One of {@link #PROFILE_TAGS}.
+     * @param elementId
+     * @return the first stereotype of the given kind applied to the element
+     *      with the given id, or {@code null} if there is none.
+     */
+    XMINode getStereotype(String tag, String elementId) {
+        return stereotypesByTag.get(tag).get(elementId);
+    }
+
+    private void parse(XMLStreamReader reader) throws XMLStreamException {
+        Deque<XMINode> open = new ArrayDeque<XMINode>();
+        // Depth inside an element whose content is skipped.
+        int skipped = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if (skipped > 0) {
+                    skipped++;
+                    break;
+                }
+                XMINode parent = open.isEmpty() ? DISCARDED : open.peek();
+                String name = qualifiedName(reader.getPrefix(), reader.getLocalName());
+                boolean isDiagramOrStereotype = isDiagramOrStereotype(name, reader);
+                if (parent == DISCARDED && !isDiagramOrStereotype) {
+                    open.push(DISCARDED);
+                    break;
+                }
+                XMINode node = new XMINode(name, readAttributes(reader));
+                if (parent != DISCARDED) {
+                    parent.addChild(node);
+                }
+                if (isDiagramOrStereotype) {
+                    indexDiagramOrStereotype(node);
+                }
+                if (EXTENSION_TAG.equals(name)) {
+                    skipped = 1;
+                } else {
+                    open.push(node);
+                }
+                break;
+
+            case XMLStreamConstants.END_ELEMENT:
+                if (skipped > 0) {
+                    skipped--;
+                } else {
+                    open.pop();
+                }
+                break;
+
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (skipped == 0 && !open.isEmpty() && open.peek() != DISCARDED) {
+                    open.peek().addText(reader.getText());
+                }
+                break;
+
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Tells whether the element the reader is at starts a fragment which must
+     * be kept on its own (i.e., even if it is not inside another kept fragment).
+     */
+    private static boolean isDiagramOrStereotype(String name, XMLStreamReader reader) {
+        if ("ownedBehavior".equals(name) || PROFILE_TAGS.contains(name)) {
+            return true;
+        }
+        return "packagedElement".equals(name) && "uml:Activity".equals(findAttribute(reader, "xmi:type"));
+    }
+
+    private void indexDiagramOrStereotype(XMINode node) {
+        String name = node.getNodeName();
+        if ("ownedBehavior".equals(name)) {
+            sequenceDiagrams.add(node);
+        } else if ("packagedElement".equals(name)) {
+            activityDiagrams.add(node);
+        } else {
+            String annotatedElement = node.getAttribute("base_NamedElement");
+            if (annotatedElement != null) {
+                stereotypesByTag.get(name).putIfAbsent(annotatedElement, node);
+            }
+        }
+    }
+
+    private static Map<String, String> readAttributes(XMLStreamReader reader) {
+        int count = reader.getAttributeCount();
+        Map<String, String> attributes = new HashMap<String, String>(Math.max(4, 2 * count));
+        for (int i = 0; i < count; i++) {
+            attributes.put(qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                           reader.getAttributeValue(i));
+        }
+        return attributes;
+    }
+
+    private static String findAttribute(XMLStreamReader reader, String qualifiedName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (qualifiedName.equals(qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Element and attribute names are referred to as in a non namespace-aware
+     * DOM, i.e., with their prefixes (e.g., "xmi:id").
+     */
+    private static String qualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.isEmpty()) {
+            return localName;
+        }
+        return prefix + ":" + localName;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+}
@@ -0,0 +1,100 @@
+package parsing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lightweight, read-only counterpart of a DOM node, holding only the
+ * XMI fragments the diagram readers actually look at (see {@link XMIDocument}).
+ *
+ * Like in the DOM, whitespace between elements is kept as "#text" children,
+ * so that sibling positions are the same as in the original document.
+ *
+ * @author thiago
+ */
+public class XMINode {
+    public static final String TEXT_NODE_NAME = "#text";
+
+    private final String name;
+    private final Map<String, String> attributes;
+    private final List<XMINode> children;
+    private final StringBuilder text;
+
+    XMINode(String name, Map<String, String> attributes) {
+        this.name = name;
+        this.attributes = attributes;
+        this.children = new ArrayList<XMINode>();
+        this.text = null;
+    }
+
+    private XMINode(String text) {
+        this.name = TEXT_NODE_NAME;
+        this.attributes = Collections.emptyMap();
+        this.children = Collections.emptyList();
+        this.text = new StringBuilder(text);
+    }
+
+    public String getNodeName() {
+        return name;
+    }
+
+    public boolean isText() {
+        return text != null;
+    }
+
+    /**
+     * @return the attribute's value, or {@code null} if it is absent.
+     */
+    public String getAttribute(String attributeName) {
+        return attributes.get(attributeName);
+    }
+
+    public List<XMINode> getChildNodes() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @return the concatenated text of this node and its descendants,
+     *      as in {@link org.w3c.dom.Node#getTextContent()}.
+     */
+    public String getTextContent() {
+        if (isText()) {
+            return text.toString();
+        }
+        StringBuilder content = new StringBuilder();
+        appendTextContent(content);
+        return content.toString();
+    }
+
+    private void appendTextContent(StringBuilder content) {
+        for (XMINode child : children) {
+            if (child.isText()) {
+                content.append(child.text);
+            } else {
+                child.appendTextContent(content);
+            }
+        }
+    }
+
+    void addChild(XMINode child) {
+        children.add(child);
+    }
+
+    /**
+     * Appends character data, merging it with a trailing text child
+     * (as the DOM does once normalized).
+     */
+    void addText(String characters) {
+        if (!children.isEmpty()) {
+            XMINode last = children.get(children.size() - 1);
+            if (last.isText()) {
+                last.text.append(characters);
+                return;
+            }
+        }
+        children.add(new XMINode(characters));
+    }
+
+}
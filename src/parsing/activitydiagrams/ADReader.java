@@ -1,6 +1,7 @@
 package parsing.activitydiagrams;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -10,14 +11,10 @@ import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-
 import parsing.ProbabilityEnergyTimeProfile;
 import parsing.ProbabilityEnergyTimeProfileReader;
+import parsing.XMIDocument;
+import parsing.XMINode;
 import parsing.exceptions.InvalidTagException;
 
 /**
@@ -32,7 +29,7 @@ public class ADReader {
 	private boolean next;
 	private Map<String, Activity> activitiesByID;
 	private Map<String, Edge> edgesByID;
-	private Document doc;
+	private XMIDocument doc;
 	private List<Activity> activities;
 	private List<Edge> edges;
 
@@ -41,15 +38,21 @@ public class ADReader {
 	public ADReader(File xmlFile, int index) {
 		this.index = index;
 		try {
-			DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			DocumentBuilder db = dbf.newDocumentBuilder();
-			this.doc = db.parse(xmlFile);
-			this.doc.getDocumentElement().normalize();
-		} catch (Exception e) {
+			this.doc = XMIDocument.read(xmlFile);
+		} catch (IOException e) {
 			LOGGER.log(Level.SEVERE, e.toString(), e);
 		}
 	}
 
+	/**
+	 * @param doc An already read XMI file, shared with the other diagrams' readers.
+	 * @param index
+	 */
+	public ADReader(XMIDocument doc, int index) {
+		this.index = index;
+		this.doc = doc;
+	}
+
 	public int getIndex() {
 		return index;
 	}
@@ -86,48 +89,23 @@ public class ADReader {
 	 * @throws InvalidTagException
 	 */
 	public void retrieveActivities() throws InvalidTagException {
-		org.w3c.dom.Node ad;
-		List<org.w3c.dom.Node> adList = new ArrayList<org.w3c.dom.Node>();
-		NodeList nodes = this.doc.getElementsByTagName("packagedElement");
-		for (int i = 0; i < nodes.getLength(); i++) {
-			if (nodes.item(i).getAttributes().getNamedItem("xmi:type") != null) {
-				String xmiType = nodes.item(i).getAttributes().getNamedItem("xmi:type")
-						.getTextContent();
-				if (xmiType != null && xmiType.equals("uml:Activity")) {
-					ad = nodes.item(i);
-					adList.add(ad);
-				}
-			}
-		}
+		List<XMINode> adList = this.doc.getActivityDiagrams();
 
 		if ((this.index + 1) == adList.size())
 			this.next = false;
 		else
 			this.next = true;
 
-		org.w3c.dom.Node node = adList.get(this.index);
-		this.name = node.getAttributes().getNamedItem("name").getTextContent();
-		NodeList elements = node.getChildNodes();
+		XMINode node = adList.get(this.index);
+		this.name = node.getAttribute("name");
 		this.activities = new ArrayList<Activity>();
 
-		for (int s = 0; s < elements.getLength(); s++) {
-			if (elements.item(s).getNodeName().equals("node")) {
-				Activity tmp;
-				if (elements.item(s).getAttributes().getNamedItem("name") != null) {
-					tmp = new Activity(elements.item(s).getAttributes().getNamedItem("xmi:id")
-							.getTextContent(), elements.item(s).getAttributes()
-							.getNamedItem("name").getTextContent(), elements.item(s)
-							.getAttributes().getNamedItem("xmi:type").getTextContent());
-				} else {
-					tmp = new Activity(elements.item(s).getAttributes().getNamedItem("xmi:id")
-							.getTextContent(), null, elements.item(s).getAttributes()
-							.getNamedItem("xmi:type").getTextContent());
-				}
-				if (elements.item(s).getAttributes().getNamedItem("behavior") != null) {
-					tmp.setSdID(elements.item(s).getAttributes().getNamedItem("behavior").getTextContent());
-				} else {
-					tmp.setSdID(null);
-				}
+		for (XMINode element : node.getChildNodes()) {
+			if (element.getNodeName().equals("node")) {
+				Activity tmp = new Activity(element.getAttribute("xmi:id"),
+						element.getAttribute("name"),
+						element.getAttribute("xmi:type"));
+				tmp.setSdID(element.getAttribute("behavior"));
 
 				this.activities.add(tmp);
 			}
@@ -155,35 +133,22 @@ public class ADReader {
 	 * @param node The XMI fragment representing a sequence diagram to be parsed.
 	 * @throws InvalidTagException
 	 */
-	public void retrieveEdges(org.w3c.dom.Node node) throws InvalidTagException {
-		NodeList elements = node.getChildNodes();
+	public void retrieveEdges(XMINode node) throws InvalidTagException {
 		this.edges = new ArrayList<Edge>();
 
-		for (int s = 0; s < elements.getLength(); s++) {
-			if (elements.item(s).getNodeName().equals("edge")) {
-				Edge tmp;
-				if (elements.item(s).getAttributes().getNamedItem("name") != null) {
-					tmp = new Edge(elements.item(s).getAttributes().getNamedItem("xmi:id")
-							.getTextContent(), elements.item(s).getAttributes()
-							.getNamedItem("name").getTextContent(), elements.item(s)
-							.getAttributes().getNamedItem("xmi:type").getTextContent());
-				} else {
-					tmp = new Edge(elements.item(s).getAttributes().getNamedItem("xmi:id")
-							.getTextContent(), null, elements.item(s).getAttributes()
-							.getNamedItem("xmi:type").getTextContent());
-				}
-				tmp.setSource(this.activitiesByID.get(elements.item(s).getAttributes()
-						.getNamedItem("source").getTextContent()));
-				tmp.setTarget(this.activitiesByID.get(elements.item(s).getAttributes()
-						.getNamedItem("target").getTextContent()));
-
-				NodeList infoNodes = elements.item(s).getChildNodes();
-				for (int i = 0; i < infoNodes.getLength(); i++) {
-					if (infoNodes.item(i).getNodeName().equals("guard")) {
-						NodeList guardNodes = infoNodes.item(i).getChildNodes();
-						for (int j = 0; j < guardNodes.getLength(); j++) {
-							if (guardNodes.item(j).getNodeName().equals("body")) {
-								tmp.setGuard(guardNodes.item(j).getTextContent());
+		for (XMINode element : node.getChildNodes()) {
+			if (element.getNodeName().equals("edge")) {
+				Edge tmp = new Edge(element.getAttribute("xmi:id"),
+						element.getAttribute("name"),
+						element.getAttribute("xmi:type"));
+				tmp.setSource(this.activitiesByID.get(element.getAttribute("source")));
+				tmp.setTarget(this.activitiesByID.get(element.getAttribute("target")));
+
+				for (XMINode info : element.getChildNodes()) {
+					if (info.getNodeName().equals("guard")) {
+						for (XMINode guard : info.getChildNodes()) {
+							if (guard.getNodeName().equals("body")) {
+								tmp.setGuard(guard.getTextContent());
 								break;
 							}
 						}
@@ -216,20 +181,15 @@ public class ADReader {
 	 * orderActivities function is called to ensure the order which the activities happen.
 	 * @param node The node object (i.e. the XMI fragment) representing the whole activity diagram.
 	 */
-	public void solveActivities(org.w3c.dom.Node node) {
-		NodeList elements = node.getChildNodes();
-		for (int s = 0; s < elements.getLength(); s++) {
-			if (elements.item(s).getNodeName().equals("node")) {
-				Activity activity = this.activitiesByID.get(elements.item(s).getAttributes()
-						.getNamedItem("xmi:id").getTextContent());
-				NodeList tmpEdges = elements.item(s).getChildNodes();
-				for (int t = 0; t < tmpEdges.getLength(); t++) {
-					if (tmpEdges.item(t).getNodeName().equals("incoming")) {
-						activity.addIncoming(this.edgesByID.get(tmpEdges.item(t).getAttributes()
-								.getNamedItem("xmi:idref").getTextContent()));
-					} else if (tmpEdges.item(t).getNodeName().equals("outgoing")) {
-						activity.addOutgoing(this.edgesByID.get(tmpEdges.item(t).getAttributes()
-								.getNamedItem("xmi:idref").getTextContent()));
+	public void solveActivities(XMINode node) {
+		for (XMINode element : node.getChildNodes()) {
+			if (element.getNodeName().equals("node")) {
+				Activity activity = this.activitiesByID.get(element.getAttribute("xmi:id"));
+				for (XMINode tmpEdge : element.getChildNodes()) {
+					if (tmpEdge.getNodeName().equals("incoming")) {
+						activity.addIncoming(this.edgesByID.get(tmpEdge.getAttribute("xmi:idref")));
+					} else if (tmpEdge.getNodeName().equals("outgoing")) {
+						activity.addOutgoing(this.edgesByID.get(tmpEdge.getAttribute("xmi:idref")));
 					}
 				}
 			}
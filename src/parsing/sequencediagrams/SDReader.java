@@ -9,18 +9,10 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
 import parsing.ProbabilityEnergyTimeProfile;
 import parsing.ProbabilityEnergyTimeProfileReader;
+import parsing.XMIDocument;
+import parsing.XMINode;
 import parsing.exceptions.InvalidTagException;
 import parsing.exceptions.UnsupportedFragmentTypeException;
 
@@ -37,7 +29,7 @@ public class SDReader {
 		private Map<Lifeline, List<String>> coverage;
 		private Map<String, Lifeline> lifelinesByID;
 		private Map<String, Message> messagesByID;
-		private Document doc;
+		private XMIDocument doc;
 		private List<Lifeline> lifelines;
 		private List<Message> messages;
 		private Fragment sd;
@@ -45,19 +37,28 @@ public class SDReader {
 	// Construtores
 
 		public SDReader(File xmiFile, int index) {
-			this.index = index;
+			this((XMIDocument) null, index);
 			try {
-				this.coverage = new HashMap<Lifeline, List<String>>();
-				this.lifelinesByID = new HashMap<String, Lifeline>();
-				this.messagesByID = new HashMap<String, Message>();
-				this.lifelines = new ArrayList<Lifeline>();
-				this.messages = new ArrayList<Message>();
 				setDoc(xmiFile);
-			} catch (Exception e) {
+			} catch (IOException e) {
 	            LOGGER.log(Level.SEVERE, e.toString(), e);
 			}
 		}
 
+		/**
+		 * @param doc An already read XMI file, shared with the other diagrams' readers.
+		 * @param index
+		 */
+		public SDReader(XMIDocument doc, int index) {
+			this.index = index;
+			this.coverage = new HashMap<Lifeline, List<String>>();
+			this.lifelinesByID = new HashMap<String, Lifeline>();
+			this.messagesByID = new HashMap<String, Message>();
+			this.lifelines = new ArrayList<Lifeline>();
+			this.messages = new ArrayList<Message>();
+			this.doc = doc;
+		}
+
 	// Public relevant methods
 
 		/**
@@ -65,45 +66,42 @@ public class SDReader {
 		 * 	retrieveLifelines() and retrieveMessages()
 		 * @throws UnsupportedFragmentTypeException
 		 * @throws InvalidTagException
-		 * @throws DOMException
 		 */
 		public void traceDiagram() throws UnsupportedFragmentTypeException, InvalidTagException {
-			NodeList nodes = this.doc.getElementsByTagName("ownedBehavior");
-			this.next = (this.index == nodes.getLength() - 1) ? false : true;
+			List<XMINode> nodes = this.doc.getSequenceDiagrams();
+			this.next = (this.index == nodes.size() - 1) ? false : true;
 
-			org.w3c.dom.Node n = nodes.item(this.index);
-			NamedNodeMap nAttrs = n.getAttributes();
+			XMINode n = nodes.get(this.index);
 			retrieveLifelines(n);
 			retrieveMessages(n);
 
 			this.sd = new Fragment(
-							extractId(nAttrs),
-							extractName(nAttrs)
+							extractId(n),
+							extractName(n)
 					  );
 
 			this.sd.setLifelines(this.lifelines);
 
-			NodeList nChilds = n.getChildNodes();
-			for (int i = 0; i < nChilds.getLength(); i++) {
+			List<XMINode> nChilds = n.getChildNodes();
+			for (int i = 0; i < nChilds.size(); i++) {
 
-				org.w3c.dom.Node child = nChilds.item(i);
+				XMINode child = nChilds.get(i);
 				if (child.getNodeName().equals("fragment")) {
 
-					String xmiType = child.getAttributes().getNamedItem("xmi:type").getTextContent();
+					String xmiType = child.getAttribute("xmi:type");
 					if ("uml:MessageOccurrenceSpecification".equals(xmiType)) {
 
-						String msgID = child.getAttributes().getNamedItem("message").getTextContent();
+						String msgID = child.getAttribute("message");
 						this.sd.addNode(this.messagesByID.get(msgID));
 						i += 2;
 
 					} else if ("uml:CombinedFragment".equals(xmiType)) {
 
-						NamedNodeMap cAttrs = child.getAttributes();
 						Fragment newFragment =
 								new Fragment(
-										extractId(cAttrs),
-										cAttrs.getNamedItem("interactionOperator").getTextContent(),
-										extractName(cAttrs)
+										extractId(child),
+										child.getAttribute("interactionOperator"),
+										extractName(child)
 								);
 
 						ProbabilityEnergyTimeProfile profile = ProbabilityEnergyTimeProfileReader.retrieveProbEnergyTime(newFragment.getId(), this.doc);
@@ -116,13 +114,13 @@ public class SDReader {
 			}
 		}
 
-        private String extractId(NamedNodeMap nAttrs) {
-            return nAttrs.getNamedItem("xmi:id").getTextContent();
+        private String extractId(XMINode node) {
+            return node.getAttribute("xmi:id");
         }
 
-        private String extractName(NamedNodeMap nAttrs) {
-            if (nAttrs.getNamedItem("name") != null) {
-                return nAttrs.getNamedItem("name").getTextContent();
+        private String extractName(XMINode node) {
+            if (node.getAttribute("name") != null) {
+                return node.getAttribute("name");
             } else {
                 return "";
             }
@@ -135,25 +133,23 @@ public class SDReader {
 		 * @throws InvalidTagException
 		 * @throws UnsupportedFragmentTypeException
 		 */
-		private void retrieveLifelines(org.w3c.dom.Node node) throws InvalidTagException, UnsupportedFragmentTypeException {
-			NodeList elements = node.getChildNodes();
+		private void retrieveLifelines(XMINode node) throws InvalidTagException, UnsupportedFragmentTypeException {
+			List<XMINode> elements = node.getChildNodes();
 
-			for (int s = 0; s < elements.getLength(); s++) {
+			for (XMINode element : elements) {
 
-				if (elements.item(s).getNodeName().equals("lifeline")) {
-					NamedNodeMap sAttrs = elements.item(s).getAttributes();
-					NodeList sChilds = elements.item(s).getChildNodes();
-					Lifeline tmp = new Lifeline(extractId(sAttrs));
+				if (element.getNodeName().equals("lifeline")) {
+					Lifeline tmp = new Lifeline(extractId(element));
 					List<String> coveredBy = new ArrayList<String>();
 
-					tmp.setLink(sAttrs.getNamedItem("represents").getTextContent());
-					if (sAttrs.getNamedItem("name") != null) {
-						tmp.setName(sAttrs.getNamedItem("name").getTextContent());
+					tmp.setLink(element.getAttribute("represents"));
+					if (element.getAttribute("name") != null) {
+						tmp.setName(element.getAttribute("name"));
 					}
 
-					for (int j = 0; j < sChilds.getLength(); j++) {
-						if (sChilds.item(j).getNodeName().equals("coveredBy"))
-							coveredBy.add(sChilds.item(j).getAttributes().getNamedItem("xmi:idref").getTextContent());
+					for (XMINode sChild : element.getChildNodes()) {
+						if (sChild.getNodeName().equals("coveredBy"))
+							coveredBy.add(sChild.getAttribute("xmi:idref"));
 					}
 
 					this.coverage.put(tmp, coveredBy);
@@ -162,14 +158,11 @@ public class SDReader {
 				}
 			}
 
-			for (int s = 0; s < elements.getLength(); s++) {
-				if (elements.item(s).getNodeName().equals("ownedAttribute")) {
+			for (XMINode element : elements) {
+				if (element.getNodeName().equals("ownedAttribute")) {
 					for (int j = 0; j < this.lifelines.size(); j++) {
-						if (this.lifelines.get(j).getLink().equals(
-								elements.item(s).getAttributes().getNamedItem("xmi:id")
-										.getTextContent())) {
-							this.lifelines.get(j).setName(elements.item(s).getAttributes()
-									.getNamedItem("name").getTextContent().replace('\n', ' '));
+						if (this.lifelines.get(j).getLink().equals(element.getAttribute("xmi:id"))) {
+							this.lifelines.get(j).setName(element.getAttribute("name").replace('\n', ' '));
 						}
 					}
 				}
@@ -180,29 +173,26 @@ public class SDReader {
 		 * Parses the xmi file in search for the SD respective message exchanges
 		 * @throws InvalidTagException
 		 */
-		private void retrieveMessages(org.w3c.dom.Node node) throws InvalidTagException {
-			NodeList elements = node.getChildNodes();
+		private void retrieveMessages(XMINode node) throws InvalidTagException {
+			for (XMINode element : node.getChildNodes()) {
+				if (element.getNodeName().equals("message")) {
+					Message message = new Message(extractId(element));
 
-			for (int s = 0; s < elements.getLength(); s++) {
-				if ((elements.item(s).getNodeValue() == null) && (elements.item(s).getNodeName() == "message")) {
-					NamedNodeMap sAttrs = elements.item(s).getAttributes();
-					Message message = new Message(extractId(sAttrs));
-
-					if (sAttrs.getNamedItem("name") != null) {
-						message.setName(sAttrs.getNamedItem("name").getTextContent().replace("\n", " "));
+					if (element.getAttribute("name") != null) {
+						message.setName(element.getAttribute("name").replace("\n", " "));
 					}
 
 					for (Lifeline l: this.lifelines) {
-						if (this.coverage.get(l).contains(sAttrs.getNamedItem("sendEvent").getTextContent())) {
+						if (this.coverage.get(l).contains(element.getAttribute("sendEvent"))) {
 							message.setSender(l);
 						}
-						if (this.coverage.get(l).contains(sAttrs.getNamedItem("receiveEvent").getTextContent())) {
+						if (this.coverage.get(l).contains(element.getAttribute("receiveEvent"))) {
 							message.setReceiver(l);
 						}
 					}
 
-					if (sAttrs.getNamedItem("messageSort") != null) {
-					    String messageSortContent = sAttrs.getNamedItem("messageSort").getTextContent();
+					if (element.getAttribute("messageSort") != null) {
+					    String messageSortContent = element.getAttribute("messageSort");
 						if ("asynchCall".equals(messageSortContent) || "asynchSignal".equals(messageSortContent)) {
 							message.setType(MessageType.ASYNCHRONOUS);
 						} else if ("reply".equals(messageSortContent)) {
@@ -225,22 +215,20 @@ public class SDReader {
 		 * @param operand
 		 * @param node
 		 * @throws UnsupportedFragmentTypeException
-		 * @throws DOMException
 		 * @throws InvalidTagException
 		 */
-		private void traceOperand(Operand operand, org.w3c.dom.Node node) throws UnsupportedFragmentTypeException, InvalidTagException {
-			NodeList oChilds = node.getChildNodes();
+		private void traceOperand(Operand operand, XMINode node) throws UnsupportedFragmentTypeException, InvalidTagException {
+			List<XMINode> oChilds = node.getChildNodes();
 
-			for (int k = 0; k < oChilds.getLength(); k++) {
+			for (int k = 0; k < oChilds.size(); k++) {
 
-				org.w3c.dom.Node itemK = oChilds.item(k);
+				XMINode itemK = oChilds.get(k);
                 if ("fragment".equals(itemK.getNodeName())) {
 
-					NamedNodeMap kAttrs = itemK.getAttributes();
-					String typeContent = kAttrs.getNamedItem("xmi:type").getTextContent();
+					String typeContent = itemK.getAttribute("xmi:type");
 					if ("uml:MessageOccurrenceSpecification".equals(typeContent)) {
 
-						String msgID = kAttrs.getNamedItem("message").getTextContent();
+						String msgID = itemK.getAttribute("message");
 						operand.addNode(this.messagesByID.get(msgID));
 						k+=2;
 
@@ -248,9 +236,9 @@ public class SDReader {
 
 						Fragment innerFragment =
 									new Fragment(
-										extractId(kAttrs),
-										kAttrs.getNamedItem("interactionOperator").getTextContent(),
-										extractName(kAttrs)
+										extractId(itemK),
+										itemK.getAttribute("interactionOperator"),
+										extractName(itemK)
 									);
 
 						ProbabilityEnergyTimeProfile profile = ProbabilityEnergyTimeProfileReader.retrieveProbEnergyTime(innerFragment.getId(), this.doc);
@@ -260,12 +248,9 @@ public class SDReader {
 					}
 
 				} else if ("guard".equals(itemK.getNodeName())) {
-					NodeList kChilds = itemK.getChildNodes();
-					for (int l = 0; l < kChilds.getLength(); l++) {
-					    org.w3c.dom.Node itemL = kChilds.item(l);
+					for (XMINode itemL : itemK.getChildNodes()) {
 						if ("specification".equals(itemL.getNodeName())) {
-							operand.setGuard(itemL.getAttributes()
-									.getNamedItem("value").getTextContent());
+							operand.setGuard(itemL.getAttribute("value"));
 
 							break;
 						}
@@ -280,18 +265,13 @@ public class SDReader {
 		 * @param node
 		 * @throws UnsupportedFragmentTypeException
 		 * @throws InvalidTagException
-		 * @throws DOMException
 		 */
-		private void traceFragment(Fragment fragment, org.w3c.dom.Node node) throws UnsupportedFragmentTypeException, InvalidTagException {
-			NodeList fChilds = node.getChildNodes();
-
-			for (int j = 0; j < fChilds.getLength(); j++) {
-				NamedNodeMap jAttrs = fChilds.item(j).getAttributes();
-				org.w3c.dom.Node item = fChilds.item(j);
+		private void traceFragment(Fragment fragment, XMINode node) throws UnsupportedFragmentTypeException, InvalidTagException {
+			for (XMINode item : node.getChildNodes()) {
 				if ("covered".equals(item.getNodeName())) {
-					fragment.addLifeline(this.lifelinesByID.get(jAttrs.getNamedItem("xmi:idref").getTextContent()));
+					fragment.addLifeline(this.lifelinesByID.get(item.getAttribute("xmi:idref")));
 				} else if ("operand".equals(item.getNodeName())) {
-					Operand newOperand = new Operand(extractId(jAttrs));
+					Operand newOperand = new Operand(extractId(item));
 					traceOperand(newOperand, item);
 					fragment.addNode(newOperand);
 				}
@@ -342,19 +322,16 @@ public class SDReader {
 			this.messagesByID = messagesByID;
 		}
 
-		public Document getDoc() {
+		public XMIDocument getDoc() {
 			return doc;
 		}
 
-		public void setDoc(Document doc) {
+		public void setDoc(XMIDocument doc) {
 			this.doc = doc;
 		}
 
-		public void setDoc(File xmiFile) throws ParserConfigurationException, SAXException, IOException {
-			DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-			DocumentBuilder db = dbf.newDocumentBuilder();
-			this.doc = db.parse(xmiFile);
-			this.doc.getDocumentElement().normalize();
+		public void setDoc(File xmiFile) throws IOException {
+			this.doc = XMIDocument.read(xmiFile);
 		}
 
 		public List<Lifeline> getLifelines() {
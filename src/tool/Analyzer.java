@@ -4,18 +4,24 @@
 package tool;
 
 import jadd.ADD;
+import jadd.Configuration;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.stream.Stream;
 
+import paramwrapper.FormulaCache;
 import paramwrapper.IModelCollector;
-import paramwrapper.ParamWrapper;
+import paramwrapper.NoopModelCollector;
 import paramwrapper.ParametricModelChecker;
+import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IPruningStrategy;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ResultsStorage;
+import tool.analyzers.buildingblocks.SymbolicModelChecker;
 import tool.analyzers.strategies.FamilyBasedAnalyzer;
 import tool.analyzers.strategies.FamilyProductBasedAnalyzer;
 import tool.analyzers.strategies.FeatureFamilyBasedAnalyzer;
@@ -44,6 +50,7 @@ public class Analyzer {
     private JADD jadd;
 
     private ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.PARALLEL;
+    private boolean dynamicReordering = false;
 
     private ITimeCollector timeCollector;
     private IFormulaCollector formulaCollector;
@@ -64,7 +71,35 @@ public class Analyzer {
      * @throws IOException if there is a problem reading the file.
      */
     public Analyzer(String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
-        this(new JADD(), featureModel, paramPath, timeCollector, formulaCollector, modelCollector);
+        this(featureModel, paramPath, ModelCheckerStrategy.PARAM, timeCollector, formulaCollector, modelCollector);
+    }
+
+    /**
+     * Creates an Analyzer which will follow the logical rules
+     * encoded in the provided feature model file and which will use the
+     * selected parametric model checker.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param modelCheckerStrategy Parametric model checker to be used.
+     */
+    public Analyzer(String featureModel, String paramPath, ModelCheckerStrategy modelCheckerStrategy, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+        this(featureModel, paramPath, modelCheckerStrategy, null, timeCollector, formulaCollector, modelCollector);
+    }
+
+    /**
+     * Creates an Analyzer which will follow the logical rules
+     * encoded in the provided feature model file and which will use the
+     * selected parametric model checker, looking up its results in
+     * {@code formulaCache} first.
+     *
+     * @param featureModel String containing a CNF view of the Feature Model
+     *          expressed using Java logical operators.
+     * @param modelCheckerStrategy Parametric model checker to be used.
+     * @param formulaCache Cache of model checking results, possibly null (no caching).
+     */
+    public Analyzer(String featureModel, String paramPath, ModelCheckerStrategy modelCheckerStrategy, FormulaCache formulaCache, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+        this(new JADD(), featureModel, paramPath, modelCheckerStrategy, formulaCache, timeCollector, formulaCollector, modelCollector);
     }
 
     /**
@@ -74,7 +109,7 @@ public class Analyzer {
      * @param featureModel
      */
     Analyzer(JADD jadd, String featureModel, String paramPath) {
-        this(jadd, featureModel, paramPath, null, null, null);
+        this(jadd, featureModel, paramPath, ModelCheckerStrategy.PARAM, null, null, null, null);
     }
 
 
@@ -83,23 +118,29 @@ public class Analyzer {
      * @param jadd
      * @param featureModel
      */
-    private Analyzer(JADD jadd, String featureModel, String paramPath, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
+    private Analyzer(JADD jadd, String featureModel, String paramPath, ModelCheckerStrategy modelCheckerStrategy, FormulaCache formulaCache, ITimeCollector timeCollector, IFormulaCollector formulaCollector, IModelCollector modelCollector) {
         this.jadd = jadd;
         this.expressionSolver = new ExpressionSolver(jadd);
-        this.featureModel = expressionSolver.encodeFormula(featureModel);
+        this.featureModel = expressionSolver.encodeCNF(featureModel);
         // The feature model contains all used variables, so we expect to
         // be able to generate an optimal ordering right after parsing it.
         jadd.reorderVariables();
 
         this.timeCollector = (timeCollector != null) ? timeCollector : new NoopTimeCollector();
         this.formulaCollector = (formulaCollector != null) ? formulaCollector : new NoopFormulaCollector();
-        this.modelChecker = (modelCollector != null) ? new ParamWrapper(paramPath, modelCollector) : new ParamWrapper(paramPath);
+        this.modelChecker = ModelCheckerFactory.createModelChecker(modelCheckerStrategy, paramPath, modelCollector, formulaCache);
 
         this.featureFamilyBasedAnalyzerImpl = new FeatureFamilyBasedAnalyzer(this.jadd,
                                                                              this.featureModel,
                                                                              this.modelChecker,
                                                                              this.timeCollector,
                                                                              this.formulaCollector);
+        if (modelCheckerStrategy == ModelCheckerStrategy.SYMBOLIC) {
+            IModelCollector collector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+            this.featureFamilyBasedAnalyzerImpl.setSymbolicModelChecker(new SymbolicModelChecker(this.jadd,
+                                                                                                 this.expressionSolver,
+                                                                                                 collector));
+        }
         this.featureProductBasedAnalyzerImpl = new FeatureProductBasedAnalyzer(this.jadd,
                                                                                this.modelChecker,
                                                                                this.timeCollector,
@@ -128,7 +169,7 @@ public class Analyzer {
      * Returns the set of all valid configurations according to the feature model.
      * @return
      */
-    public Stream<Collection<String>> getValidConfigurations() {
+    public Stream<Configuration> getValidConfigurations() {
         return featureModel.getExpandedConfigurations();
     }
 
@@ -142,6 +183,21 @@ public class Analyzer {
         return featureModel.isValidConfiguration(configuration);
     }
 
+    /**
+     * Makes a configuration out of the names of its features, which can then
+     * be evaluated without looking features up by name.
+     * @param features
+     * @return
+     * @throws UnknownFeatureException if some feature is not in the feature model.
+     */
+    public Configuration makeConfiguration(Collection<String> features) {
+        try {
+            return jadd.makeConfiguration(features);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
     /**
      * Sets the pruning strategy to be used for preventing calculation
      * of reliability values for invalid configurations.
@@ -160,6 +216,53 @@ public class Analyzer {
         this.concurrencyStrategy = concurrencyStrategy;
     }
 
+    /**
+     * Sets where product-oriented analyses (i.e., product-based, feature-product-based
+     * and family-product-based ones) keep the result of each product.
+     *
+     * @param resultsStorage
+     */
+    public void setResultsStorage(ResultsStorage resultsStorage) {
+        this.productBasedAnalyzerImpl.setResultsStorage(resultsStorage);
+        this.featureProductBasedAnalyzerImpl.setResultsStorage(resultsStorage);
+        this.familyProductBasedAnalyzerImpl.setResultsStorage(resultsStorage);
+    }
+
+    /**
+     * Reorders the variables of the feature model according to a static
+     * ordering (e.g., one derived from the feature tree) and then refines
+     * it by sifting, keeping the ordering's variable groups together.
+     *
+     * @param ordering
+     */
+    public void orderVariables(VariableOrdering ordering) {
+        ordering.applyTo(jadd);
+        jadd.reorderVariables();
+    }
+
+    /**
+     * @return the number of ADD nodes which represent the feature model,
+     *          which depends on the current variable order.
+     */
+    public int getFeatureModelNodeCount() {
+        return featureModel.getNodeCount();
+    }
+
+    /**
+     * Sets whether variables should be dynamically reordered (by group
+     * sifting) while lifting reliability functions in the feature-family-based
+     * analysis. This pays off for large models, whose intermediate ADDs
+     * may grow far beyond the feature model.
+     *
+     * Reordering is disabled once the analysis is done, since the configuration
+     * enumeration which follows must not be interleaved with reorderings.
+     *
+     * @param dynamicReordering
+     */
+    public void setDynamicReordering(boolean dynamicReordering) {
+        this.dynamicReordering = dynamicReordering;
+    }
+
     /**
      * Evaluates the feature-family-based reliability function of an RDG node, based
      * on the reliabilities of the nodes on which it depends.
@@ -173,10 +276,41 @@ public class Analyzer {
      * @throws CyclicRdgException
      */
     public IReliabilityAnalysisResults evaluateFeatureFamilyBasedReliability(RDGNode node, String dotOutput) throws CyclicRdgException {
-        return featureFamilyBasedAnalyzerImpl.evaluateReliability(node, this.concurrencyStrategy, dotOutput);
+        if (!dynamicReordering) {
+            return featureFamilyBasedAnalyzerImpl.evaluateReliability(node, this.concurrencyStrategy, dotOutput);
+        }
+        jadd.enableDynamicReordering();
+        try {
+            return featureFamilyBasedAnalyzerImpl.evaluateReliability(node, this.concurrencyStrategy, dotOutput);
+        } finally {
+            jadd.disableDynamicReordering();
+        }
     }
     
-    public IReliabilityAnalysisResults evaluateFeatureFamilyProduct(RDGNode node,  Stream<Collection<String>> configurations) throws CyclicRdgException {
+    /**
+     * Evaluates the feature-family-based reliability function of an RDG node,
+     * reusing what is left unchanged since the previous call to this method,
+     * so that re-analyzing an SPL after an edit to some of its models only
+     * costs as much as the affected part of the RDG.
+     *
+     * The reliabilities of the RDG nodes are kept by this analyzer until the
+     * next call.
+     *
+     * @see {@link Analyzer.evaluateFeatureFamilyBasedReliability(RDGNode, String)}
+     */
+    public IReliabilityAnalysisResults evaluateFeatureFamilyBasedReliabilityIncrementally(RDGNode node) throws CyclicRdgException {
+        if (!dynamicReordering) {
+            return featureFamilyBasedAnalyzerImpl.evaluateReliabilityIncrementally(node, this.concurrencyStrategy, null);
+        }
+        jadd.enableDynamicReordering();
+        try {
+            return featureFamilyBasedAnalyzerImpl.evaluateReliabilityIncrementally(node, this.concurrencyStrategy, null);
+        } finally {
+            jadd.disableDynamicReordering();
+        }
+    }
+
+    public IReliabilityAnalysisResults evaluateFeatureFamilyProduct(RDGNode node,  Stream<Configuration> configurations) throws CyclicRdgException {
     	return this.featureFamilyProductImpl.evaluateReliability(node, this.concurrencyStrategy, configurations);
     }
     
@@ -200,7 +334,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFeatureProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFeatureProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return featureProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -213,7 +347,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return productBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -226,7 +360,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFamilyBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFamilyBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return familyBasedAnalyzerImpl.evaluateReliability(node, this.concurrencyStrategy);
     }
 
@@ -239,7 +373,7 @@ public class Analyzer {
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateFamilyProductBasedReliability(RDGNode node, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateFamilyProductBasedReliability(RDGNode node, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
         return familyProductBasedAnalyzerImpl.evaluateReliability(node, configurations, this.concurrencyStrategy);
     }
 
@@ -255,4 +389,37 @@ public class Analyzer {
         featureFamilyBasedAnalyzerImpl.generateDotFile(familyReliability, outputFile);
     }
 
+    /**
+     * Saves the result of a feature-family-based analysis, so that it can
+     * be queried in later runs without analyzing the models again.
+     *
+     * @param results Result of {@link #evaluateFeatureFamilyBasedReliability(RDGNode)}.
+     * @param outputFile
+     * @throws IOException
+     */
+    public void saveFeatureFamilyBasedReliability(ADDReliabilityResults results, String outputFile) throws IOException {
+        jadd.saveADD(results.getReliabilityFunction(), outputFile);
+    }
+
+    /**
+     * Loads a family-wide reliability function saved by
+     * {@link #saveFeatureFamilyBasedReliability(ADDReliabilityResults, String)}.
+     *
+     * @param inputFile
+     * @return
+     * @throws IOException
+     */
+    public IReliabilityAnalysisResults loadFeatureFamilyBasedReliability(String inputFile) throws IOException {
+        return new ADDReliabilityResults(jadd.loadADD(inputFile));
+    }
+
+    /**
+     * Frees the decision diagrams built by this analyzer, including the
+     * feature model and any family-wide reliability function it returned.
+     * Neither this analyzer nor those results may be used afterwards.
+     */
+    public void close() {
+        jadd.close();
+    }
+
 }
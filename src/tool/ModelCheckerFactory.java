@@ -0,0 +1,77 @@
+package tool;
+
+import paramwrapper.CachingModelChecker;
+import paramwrapper.FormulaCache;
+import paramwrapper.IModelCollector;
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParamWrapper;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+
+public class ModelCheckerFactory {
+
+    private ModelCheckerFactory() {
+        // NO-OP
+    }
+
+    /**
+     * @param strategySelection Which model checker to create.
+     * @param paramPath Path to the PARAM or PRISM executable (only used by {@link ModelCheckerStrategy#PARAM}).
+     * @param modelCollector Model stats collector, possibly null.
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckerStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector) {
+        return createModelChecker(strategySelection, paramPath, modelCollector, null);
+    }
+
+    /**
+     * @param strategySelection Which model checker to create.
+     * @param paramPath Path to the PARAM or PRISM executable (only used by {@link ModelCheckerStrategy#PARAM}).
+     * @param modelCollector Model stats collector, possibly null.
+     * @param formulaCache Cache of previously computed formulas, possibly null (no caching).
+     */
+    public static ParametricModelChecker createModelChecker(ModelCheckerStrategy strategySelection,
+                                                            String paramPath,
+                                                            IModelCollector modelCollector,
+                                                            FormulaCache formulaCache) {
+        IModelCollector collector = (modelCollector != null) ? modelCollector : new NoopModelCollector();
+        ParametricModelChecker modelChecker = createUncachedModelChecker(strategySelection, paramPath, collector);
+        if (formulaCache == null) {
+            return modelChecker;
+        }
+        return new CachingModelChecker(modelChecker,
+                                       getIdentity(strategySelection, paramPath),
+                                       formulaCache,
+                                       collector);
+    }
+
+    private static ParametricModelChecker createUncachedModelChecker(ModelCheckerStrategy strategySelection,
+                                                                     String paramPath,
+                                                                     IModelCollector collector) {
+        switch (strategySelection) {
+        case STATE_ELIMINATION:
+        case SYMBOLIC:
+            return new StateEliminationModelChecker(collector);
+        case PARAM:
+        default:
+            return new ParamWrapper(paramPath, collector);
+        }
+    }
+
+    /**
+     * Formulas computed by different executables (e.g., PARAM and Prism)
+     * may differ in shape, so they are told apart by the executable's path.
+     */
+    private static String getIdentity(ModelCheckerStrategy strategySelection, String paramPath) {
+        switch (strategySelection) {
+        case STATE_ELIMINATION:
+        case SYMBOLIC:
+            return ModelCheckerStrategy.STATE_ELIMINATION.name();
+        case PARAM:
+        default:
+            return strategySelection.name() + " " + paramPath;
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package tool;
+
+public enum ModelCheckerStrategy {
+    /**
+     * External PARAM (or PRISM) process.
+     */
+    PARAM,
+    /**
+     * In-process state elimination.
+     */
+    STATE_ELIMINATION,
+    /**
+     * In-process state elimination computing reliabilities directly as ADDs.
+     * Only feature-family-based analyses take advantage of it, the other ones
+     * fall back to {@link #STATE_ELIMINATION}.
+     */
+    SYMBOLIC
+}
@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import tool.analyzers.buildingblocks.Component;
@@ -13,12 +14,8 @@ import fdtmc.FDTMC;
 
 public class RDGNode {
 
-	//This reference is used to store all the RDGnodes created during the evaluation
-	private static Map<String, RDGNode> rdgNodes = new HashMap<String, RDGNode>();
-	private static List<RDGNode> nodesInCreationOrder = new LinkedList<RDGNode>();
-
-    private static int lastNodeIndex = 0;
-
+	// Context in which this node was created
+	private RdgContext context;
 	// Node identifier
 	private String id;
 	//This attribute is used to store the FDTMC for the RDG node.
@@ -34,6 +31,14 @@ public class RDGNode {
 	 * Height of the RDGNode.
 	 */
 	private int height;
+	// Position in the context's creation order
+	int creationIndex;
+	/**
+	 * Fingerprint under which this node is filed by its context, and the
+	 * stamp of the FDTMC and dependencies it was computed from.
+	 */
+	long fingerprint;
+	long fingerprintStamp = -1;
 
 
 	/**
@@ -41,20 +46,21 @@ public class RDGNode {
 	 * be immutable, so there must be no setters for them. Hence, they
 	 * must be set at construction-time.
 	 *
+	 * @param context Context of the RDG to which the node belongs.
 	 * @param id Node's identifier. It is preferably a valid Java identifier.
 	 * @param presenceCondition Boolean expression over features (using Java operators).
 	 * @param fdtmc Stochastic model of the piece of behavioral model represented by
 	 *             this node.
 	 */
-	public RDGNode(String id, String presenceCondition, FDTMC fdtmc) {
+	public RDGNode(RdgContext context, String id, String presenceCondition, FDTMC fdtmc) {
+	    this.context = context;
 	    this.id = id;
 	    this.presenceCondition = presenceCondition;
 	    this.fdtmc = fdtmc;
 		this.dependencies = new HashSet<RDGNode>();
 		this.height = 0;
 
-		rdgNodes.put(id, this);
-		nodesInCreationOrder.add(this);
+		this.creationIndex = context.register(this);
 	}
 
     public FDTMC getFDTMC() {
@@ -62,7 +68,9 @@ public class RDGNode {
     }
 
     public void addDependency(RDGNode child) {
-        this.dependencies.add(child);
+        if (this.dependencies.add(child)) {
+            context.dependenciesChanged(this);
+        }
         height = Math.max(height, child.height + 1);
     }
 
@@ -87,12 +95,8 @@ public class RDGNode {
         return height;
     }
 
-    public static RDGNode getById(String id) {
-        return rdgNodes.get(id);
-    }
-
-    public static String getNextId() {
-        return "n" + lastNodeIndex++;
+    public RdgContext getContext() {
+        return context;
     }
 
     /**
@@ -223,21 +227,29 @@ public class RDGNode {
         return numberOfPaths;
     }
 
+    boolean isSimilarTo(RDGNode other) {
+        return this.getPresenceCondition().equals(other.getPresenceCondition())
+                && this.getDependencyIds().equals(other.getDependencyIds())
+                && this.getFDTMC().isIsomorphicTo(other.getFDTMC());
+    }
+
+    private Set<String> getDependencyIds() {
+        return dependencies.stream()
+                .map(RDGNode::getId)
+                .collect(Collectors.toSet());
+    }
+
     /**
-     * Returns the first RDG node (in crescent order of creation time) which is similar
-     * to the one provided.
-     *
-     * A similar RDG node is one for which equals() returns true.
-     * @param rdgNode
-     * @return a similar RDG node or null in case there is none.
+     * Hashes the presence condition, dependencies and FDTMC structure,
+     * so that similar nodes (see {@link RdgContext#getSimilarNode(RDGNode)})
+     * have equal fingerprints.
      */
-    public static RDGNode getSimilarNode(RDGNode target) {
-        for (RDGNode candidate: nodesInCreationOrder) {
-            if (candidate != target && candidate.equals(target)) {
-                return candidate;
-            }
+    long computeFingerprint() {
+        long dependenciesHash = 0;
+        for (RDGNode dependency: dependencies) {
+            dependenciesHash += dependency.getId().hashCode() * 0x9E3779B97F4A7C15L;
         }
-        return null;
+        return 31 * (31 * presenceCondition.hashCode() + dependenciesHash) + fdtmc.getFingerprint();
     }
 
     /**
@@ -0,0 +1,131 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the RDG nodes built for a single model.
+ *
+ * Each transformation of behavioral models into an RDG gets its own context
+ * (see {@link modeling.IModelerAPI#transform(RdgContext)}), so that several
+ * models can be transformed and analyzed at once, and so that their nodes
+ * can be garbage-collected along with the context.
+ *
+ * A context is not thread-safe. It is meant to be used by the thread
+ * which builds the RDG, while nodes are created.
+ *
+ * @author thiago
+ */
+public class RdgContext {
+
+    private Map<String, RDGNode> rdgNodes = new HashMap<String, RDGNode>();
+    private List<RDGNode> nodesInCreationOrder = new ArrayList<RDGNode>();
+    // Nodes filed by structural fingerprint, for the lookup of similar ones
+    private Map<Long, List<RDGNode>> nodesByFingerprint = new HashMap<Long, List<RDGNode>>();
+    // Nodes created or given dependencies since the last lookup (possibly
+    // repeated). Not a set, since RDG nodes are hashed by their contents.
+    private List<RDGNode> changedNodes = new ArrayList<RDGNode>();
+
+    private int lastNodeIndex = 0;
+
+    /**
+     * Registers a newly created node.
+     * @return the node's position in the creation order.
+     */
+    int register(RDGNode node) {
+        rdgNodes.put(node.getId(), node);
+        nodesInCreationOrder.add(node);
+        changedNodes.add(node);
+        return nodesInCreationOrder.size() - 1;
+    }
+
+    /**
+     * Signals that a node's dependencies changed, so that it is filed
+     * again under its fingerprint on the next lookup.
+     */
+    void dependenciesChanged(RDGNode node) {
+        changedNodes.add(node);
+    }
+
+    public RDGNode getById(String id) {
+        return rdgNodes.get(id);
+    }
+
+    public String getNextId() {
+        return "n" + lastNodeIndex++;
+    }
+
+    /**
+     * @return the nodes in this context, in crescent order of creation time.
+     */
+    public List<RDGNode> getNodes() {
+        return Collections.unmodifiableList(nodesInCreationOrder);
+    }
+
+    /**
+     * Returns the first RDG node (in crescent order of creation time) which is similar
+     * to the one provided.
+     *
+     * A similar RDG node is one with the same presence condition and
+     * dependencies, whose FDTMC is equal to the target's up to the numbering
+     * of states (see {@link fdtmc.FDTMC#isIsomorphicTo(fdtmc.FDTMC)}). Equal
+     * nodes are thus always similar.
+     *
+     * Candidates are looked up by structural fingerprint. Only the target
+     * and the nodes which were created or given dependencies since the last
+     * lookup are hashed again, and only the nodes filed under the target's
+     * fingerprint are actually compared to it. Hence, a node whose FDTMC
+     * changes after it is filed may be missed until it is itself looked up,
+     * which is why nodes should be looked up once their FDTMCs are complete
+     * (as {@link transformation.Transformer} does).
+     *
+     * @param target A node of this context.
+     * @return a similar RDG node or null in case there is none.
+     */
+    public RDGNode getSimilarNode(RDGNode target) {
+        for (RDGNode node: changedNodes) {
+            refileByFingerprint(node);
+        }
+        changedNodes.clear();
+        refileByFingerprint(target);
+
+        RDGNode similarNode = null;
+        // Copied, since stale candidates are refiled while iterating.
+        for (RDGNode candidate: new ArrayList<RDGNode>(nodesByFingerprint.get(target.fingerprint))) {
+            if (candidate != target
+                    && (similarNode == null || candidate.creationIndex < similarNode.creationIndex)
+                    && refileByFingerprint(candidate) == target.fingerprint
+                    && candidate.isSimilarTo(target)) {
+                similarNode = candidate;
+            }
+        }
+        return similarNode;
+    }
+
+    /**
+     * Files a node under its current fingerprint, unless neither its
+     * FDTMC nor its dependencies changed since it was last filed.
+     * Dependencies are only ever added, so their number tells whether
+     * they changed.
+     *
+     * @return the node's current fingerprint.
+     */
+    private long refileByFingerprint(RDGNode node) {
+        long stamp = ((long) node.getFDTMC().getVersion() << 32) | node.getDependencies().size();
+        if (stamp == node.fingerprintStamp) {
+            return node.fingerprint;
+        }
+        if (node.fingerprintStamp != -1) {
+            nodesByFingerprint.get(node.fingerprint).removeIf(filed -> filed == node);
+        }
+        node.fingerprint = node.computeFingerprint();
+        node.fingerprintStamp = stamp;
+        nodesByFingerprint.computeIfAbsent(node.fingerprint, f -> new LinkedList<RDGNode>()).add(node);
+        return node.fingerprint;
+    }
+
+}
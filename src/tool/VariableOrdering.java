@@ -0,0 +1,115 @@
+package tool;
+
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import parsing.SplGeneratorModels.Feature;
+
+/**
+ * Static variable order derived from a feature tree.
+ *
+ * Features are ordered depth-first, so that each feature is close to its
+ * ancestors and descendants, with which it shares most constraints. The
+ * children of an or- or alternative-group, which are constrained as a whole,
+ * come right after one another (and before their own subtrees). These sibling
+ * groups are kept together whenever variables are reordered later on.
+ *
+ * @author thiago
+ */
+public class VariableOrdering {
+
+    private final List<String> order = new ArrayList<String>();
+    private final List<List<String>> groups = new ArrayList<List<String>>();
+
+    private VariableOrdering() {
+        // Use fromFeatureTree().
+    }
+
+    public static VariableOrdering fromFeatureTree(Feature root) {
+        VariableOrdering ordering = new VariableOrdering();
+        ordering.visit(root);
+        return ordering;
+    }
+
+    /**
+     * @return names of all features, from the topmost to the bottommost.
+     */
+    public List<String> getOrder() {
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * @return the or- and alternative-groups of sibling features.
+     */
+    public List<List<String>> getGroups() {
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Reorders the variables of an ADD manager according to this ordering
+     * and makes each sibling group a variable group. Features unknown
+     * to the manager are ignored, and variables which are not features
+     * are kept below all features, in their current relative order.
+     *
+     * @param jadd
+     */
+    public void applyTo(JADD jadd) {
+        List<String> currentOrder = jadd.getVariableOrder();
+        Set<String> variables = new HashSet<String>(currentOrder);
+        Set<String> newOrder = new LinkedHashSet<String>();
+        for (String feature : order) {
+            if (variables.contains(feature)) {
+                newOrder.add(feature);
+            }
+        }
+        newOrder.addAll(currentOrder);
+
+        try {
+            jadd.setVariableOrder(newOrder.toArray(new String[newOrder.size()]));
+            for (List<String> group : groups) {
+                List<String> knownGroup = group.stream()
+                        .filter(variables::contains)
+                        .collect(Collectors.toList());
+                if (knownGroup.size() > 1) {
+                    jadd.makeVariableGroup(knownGroup);
+                }
+            }
+        } catch (UnrecognizedVariableException e) {
+            // Unreachable: only known variables are used.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void visit(Feature feature) {
+        order.add(feature.getName());
+        visitChildren(feature);
+    }
+
+    private void visitChildren(Feature feature) {
+        List<Feature> children = feature.getChildren();
+        if (feature.getType() == Feature.OR || feature.getType() == Feature.ALTERNATIVE) {
+            List<String> group = new ArrayList<String>(children.size());
+            for (Feature child : children) {
+                group.add(child.getName());
+            }
+            order.addAll(group);
+            groups.add(group);
+            for (Feature child : children) {
+                visitChildren(child);
+            }
+        } else {
+            for (Feature child : children) {
+                visit(child);
+            }
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package tool.analyzers;
 
 import java.io.PrintStream;
+import java.util.Collection;
+import java.util.List;
 
 import tool.UnknownFeatureException;
 import jadd.ADD;
+import jadd.Configuration;
 import jadd.UnrecognizedVariableException;
 
 public class ADDReliabilityResults implements IReliabilityAnalysisResults {
@@ -14,6 +17,13 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         this.results = results;
     }
 
+    /**
+     * @return the family-wide reliability function.
+     */
+    public ADD getReliabilityFunction() {
+        return results;
+    }
+
     @Override
     public Double getResult(String[] configuration) throws UnknownFeatureException {
         try {
@@ -23,11 +33,31 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         }
     }
 
+    @Override
+    public Double getResult(Configuration configuration) throws UnknownFeatureException {
+        try {
+            return results.eval(configuration);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    @Override
+    public double[] getResults(List<? extends Collection<String>> configurations) throws UnknownFeatureException {
+        try {
+            return results.evalAll(configurations);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
     @Override
     public void printStats(PrintStream output) {
         int numVariables = results.getVariables().size();
         int numNodes = results.getNodeCount();
         int numDeadNodes = results.getDeadNodesCount();
+        long numLiveNodes = results.getLiveNodesCount();
+        int numPeakLiveNodes = results.getPeakLiveNodesCount();
         int numTerminalsNonZero = results.getTerminalsDifferentThanZeroCount();
         double numPathsToNonZeroTerminals = results.getPathsToNonZeroTerminalsCount();
         double numPathsToZeroTerminal = results.getPathsToZeroTerminalCount();
@@ -38,6 +68,8 @@ public class ADDReliabilityResults implements IReliabilityAnalysisResults {
         output.println("# variables: " + numVariables);
         output.println("# internal nodes: " + numNodes);
         output.println("# dead nodes: " + numDeadNodes);
+        output.println("# live nodes (manager-wide): " + numLiveNodes);
+        output.println("# peak live nodes (manager-wide): " + numPeakLiveNodes);
         output.println("# terminals different than zero: " + numTerminalsNonZero);
         output.println("# paths to non-zero terminals: " + numPathsToNonZeroTerminals);
         output.println("# paths to zero terminal: " + numPathsToZeroTerminal);
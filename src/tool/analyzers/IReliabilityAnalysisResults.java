@@ -1,6 +1,10 @@
 package tool.analyzers;
 
+import jadd.Configuration;
+
 import java.io.PrintStream;
+import java.util.Collection;
+import java.util.List;
 
 import tool.UnknownFeatureException;
 
@@ -18,6 +22,43 @@ public interface IReliabilityAnalysisResults {
      */
     public Double getResult(String[] configuration) throws UnknownFeatureException;
 
+    /**
+     * Gets the specific result for the given configuration, as if by
+     * {@link #getResult(String[])}, but without converting it to names
+     * where the implementation can avoid it.
+     *
+     * @param configuration
+     * @return
+     * @throws UnknownFeatureException in case the configuration relies on an
+     *      unknown feature.
+     */
+    public default Double getResult(Configuration configuration) throws UnknownFeatureException {
+        return getResult(configuration.toArray(new String[configuration.size()]));
+    }
+
+    /**
+     * Gets the results for many configurations at once, as if by
+     * {@link #getResult(String[])}. Implementations may do that much faster
+     * than one configuration at a time.
+     *
+     * @param configurations
+     * @return
+     * @throws UnknownFeatureException in case any configuration relies on an
+     *      unknown feature.
+     */
+    public default double[] getResults(List<? extends Collection<String>> configurations) throws UnknownFeatureException {
+        double[] results = new double[configurations.size()];
+        int i = 0;
+        for (Collection<String> configuration : configurations) {
+            if (configuration instanceof Configuration) {
+                results[i++] = getResult((Configuration) configuration);
+            } else {
+                results[i++] = getResult(configuration.toArray(new String[configuration.size()]));
+            }
+        }
+        return results;
+    }
+
     public void printStats(PrintStream output);
 
 }
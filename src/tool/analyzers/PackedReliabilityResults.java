@@ -0,0 +1,338 @@
+package tool.analyzers;
+
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import tool.UnknownFeatureException;
+import tool.analyzers.buildingblocks.ResultsStorage;
+
+/**
+ * Reliability values of individual products, kept in an open-addressing
+ * hash table whose records hold the configurations' bits (see
+ * {@link Configuration#getWord(int)}) and the values as primitive doubles.
+ *
+ * Records live in a single buffer, which may be allocated outside the
+ * Java heap (see {@link ResultsStorage}). Each one takes 8 bytes per 64
+ * features, plus 8 bytes for the value and 4 for the slot's state.
+ *
+ * Results can be put concurrently. Slots are claimed by compare-and-set,
+ * so insertions only wait for one another when the table has to grow,
+ * either because it is getting full or because a configuration is wider
+ * than the records.
+ *
+ * @author thiago
+ */
+public class PackedReliabilityResults implements IReliabilityAnalysisResults {
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * Upper bound to the number of results reserved up front, since
+     * expected sizes are mere estimates.
+     */
+    private static final int MAX_RESERVED = 1 << 20;
+
+    private final JADD jadd;
+    private final ResultsStorage storage;
+
+    /**
+     * Insertions and lookups hold the read lock; growing the table
+     * holds the write lock.
+     */
+    private final ReadWriteLock resizeLock = new ReentrantReadWriteLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Table table;
+
+    /**
+     * @param jadd Manager whose variables make up the configurations.
+     * @param storage Where to keep the results.
+     */
+    public PackedReliabilityResults(JADD jadd, ResultsStorage storage) {
+        this.jadd = jadd;
+        this.storage = storage;
+        this.table = new Table(MIN_CAPACITY, 1, storage);
+    }
+
+    /**
+     * Makes room for an estimated number of further results at once,
+     * instead of growing the table step by step.
+     */
+    public void reserve(long expectedSize) {
+        long reserved = size.get() + Math.min(expectedSize, MAX_RESERVED);
+        Lock writeLock = resizeLock.writeLock();
+        writeLock.lock();
+        try {
+            Table current = table;
+            int capacity = capacityFor(reserved);
+            if (capacity > current.capacity) {
+                table = current.copyTo(new Table(capacity, current.words, storage));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the result of a configuration, replacing any previous one.
+     * Can be called concurrently.
+     */
+    public void put(Configuration configuration, double value) {
+        int hash = hash(configuration);
+        while (true) {
+            Table current;
+            Lock readLock = resizeLock.readLock();
+            readLock.lock();
+            try {
+                current = table;
+                if (configuration.getWordCount() <= current.words
+                        && size.get() < current.threshold) {
+                    int inserted = current.put(configuration, hash, value);
+                    if (inserted != Table.NO_ROOM) {
+                        size.addAndGet(inserted);
+                        return;
+                    }
+                }
+            } finally {
+                readLock.unlock();
+            }
+            grow(current, configuration.getWordCount());
+        }
+    }
+
+    /**
+     * @return the number of configurations with a result.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public Double getResult(Configuration configuration) throws UnknownFeatureException {
+        Configuration own;
+        try {
+            own = jadd.makeConfiguration(configuration);
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+        Lock readLock = resizeLock.readLock();
+        readLock.lock();
+        try {
+            return table.get(own, hash(own));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Double getResult(String[] configuration) throws UnknownFeatureException {
+        try {
+            return getResult(jadd.makeConfiguration(Arrays.asList(configuration)));
+        } catch (UnrecognizedVariableException e) {
+            throw new UnknownFeatureException(e.getVariableName());
+        }
+    }
+
+    /**
+     * Prints the size of the table, including free slots.
+     */
+    @Override
+    public void printStats(PrintStream output) {
+        Table current = table;
+        long bytes = (long) current.capacity * (current.recordSize + 4);
+        output.println("Result's size in bytes: " + bytes + " (" + size() + " results, " + storage + ")");
+    }
+
+    /**
+     * Replaces {@code full} by a table with room for more results,
+     * each of them at least {@code words} wide, unless another thread
+     * has already done so.
+     */
+    private void grow(Table full, int words) {
+        Lock writeLock = resizeLock.writeLock();
+        writeLock.lock();
+        try {
+            if (table != full) {
+                return;
+            }
+            int capacity = (size.get() < full.threshold) ? full.capacity : 2 * full.capacity;
+            table = full.copyTo(new Table(capacity, Math.max(words, full.words), storage));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static int capacityFor(long size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L / 4 <= size) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /**
+     * Hashes the non-zero words of a configuration, so that trailing
+     * zeros (as in padded records) do not matter.
+     */
+    private static int hash(Configuration configuration) {
+        long hash = 0;
+        for (int i = 0; i < configuration.getWordCount(); i++) {
+            hash += hashWord(configuration.getWord(i), i);
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static long hashWord(long word, int position) {
+        return (word == 0) ? 0 : mix(word + position * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * MurmurHash3's 64-bit finalizer.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Fixed-capacity table. Slots go from EMPTY to WRITING (while a thread
+     * fills in its record) to FULL, and are never emptied.
+     *
+     * Different threads only touch disjoint records of the buffer, using
+     * absolute accesses, which do not change the buffer's state. Records
+     * are published by the volatile write of the slot's state.
+     */
+    private static final class Table {
+        private static final int EMPTY = 0;
+        private static final int WRITING = 1;
+        private static final int FULL = 2;
+        /**
+         * Returned by {@link #put} when there is no free slot left.
+         */
+        static final int NO_ROOM = -1;
+
+        private final int capacity;
+        private final int threshold;
+        private final int words;
+        private final int recordSize;
+        private final ByteBuffer records;
+        private final AtomicIntegerArray states;
+
+        Table(int capacity, int words, ResultsStorage storage) {
+            long bytes = (long) capacity * (8 * words + 8);
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many results to keep in a single buffer: " + capacity);
+            }
+            this.capacity = capacity;
+            this.threshold = capacity / 4 * 3;
+            this.words = words;
+            this.recordSize = 8 * words + 8;
+            this.records = storage.allocate((int) bytes);
+            this.states = new AtomicIntegerArray(capacity);
+        }
+
+        /**
+         * @return 1 if the configuration is new to the table, 0 if its result
+         *          was replaced, or NO_ROOM.
+         */
+        int put(Configuration configuration, int hash, double value) {
+            int mask = capacity - 1;
+            for (int probe = 0, slot = hash & mask; probe < capacity; probe++, slot = (slot + 1) & mask) {
+                if (states.get(slot) == EMPTY && states.compareAndSet(slot, EMPTY, WRITING)) {
+                    int offset = slot * recordSize;
+                    for (int i = 0; i < words; i++) {
+                        records.putLong(offset + 8 * i, configuration.getWord(i));
+                    }
+                    records.putDouble(offset + 8 * words, value);
+                    states.set(slot, FULL);
+                    return 1;
+                }
+                if (awaitFull(slot) && holds(slot, configuration)) {
+                    records.putDouble(slot * recordSize + 8 * words, value);
+                    return 0;
+                }
+            }
+            return NO_ROOM;
+        }
+
+        double get(Configuration configuration, int hash) {
+            if (configuration.getWordCount() > words) {
+                return 0.0;
+            }
+            int mask = capacity - 1;
+            for (int probe = 0, slot = hash & mask; probe < capacity; probe++, slot = (slot + 1) & mask) {
+                if (!awaitFull(slot)) {
+                    return 0.0;
+                }
+                if (holds(slot, configuration)) {
+                    return records.getDouble(slot * recordSize + 8 * words);
+                }
+            }
+            return 0.0;
+        }
+
+        /**
+         * Waits for a slot which is being written, if that is the case.
+         * @return whether the slot is full.
+         */
+        private boolean awaitFull(int slot) {
+            int state;
+            while ((state = states.get(slot)) == WRITING) {
+                Thread.yield();
+            }
+            return state == FULL;
+        }
+
+        private boolean holds(int slot, Configuration configuration) {
+            int offset = slot * recordSize;
+            for (int i = 0; i < words; i++) {
+                if (records.getLong(offset + 8 * i) != configuration.getWord(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Rehashes all results into {@code other}, which must not be
+         * used concurrently.
+         * @return {@code other}.
+         */
+        Table copyTo(Table other) {
+            int mask = other.capacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (states.get(slot) != FULL) {
+                    continue;
+                }
+                int offset = slot * recordSize;
+                long hash = 0;
+                for (int i = 0; i < words; i++) {
+                    hash += hashWord(records.getLong(offset + 8 * i), i);
+                }
+                int target = (int) (hash ^ (hash >>> 32)) & mask;
+                while (other.states.get(target) != EMPTY) {
+                    target = (target + 1) & mask;
+                }
+                int targetOffset = target * other.recordSize;
+                for (int i = 0; i < words; i++) {
+                    other.records.putLong(targetOffset + 8 * i, records.getLong(offset + 8 * i));
+                }
+                other.records.putDouble(targetOffset + 8 * other.words, records.getDouble(offset + 8 * words));
+                other.states.set(target, FULL);
+            }
+            return other;
+        }
+    }
+
+}
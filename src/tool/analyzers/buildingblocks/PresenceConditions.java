@@ -1,9 +1,9 @@
 package tool.analyzers.buildingblocks;
 
 import jadd.ADD;
+import jadd.Configuration;
 import jadd.UnrecognizedVariableException;
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,11 +13,11 @@ import expressionsolver.ExpressionSolver;
 
 public class PresenceConditions {
 
-    public static boolean isPresent(String presenceCondition, Collection<String> configuration, ExpressionSolver expressionSolver) {
+    public static boolean isPresent(String presenceCondition, Configuration configuration, ExpressionSolver expressionSolver) {
         ADD encodedPresenceCondition = expressionSolver.encodeFormula(presenceCondition);
         Double presenceValue;
         try {
-            presenceValue = encodedPresenceCondition.eval(configuration.toArray(new String[configuration.size()]));
+            presenceValue = encodedPresenceCondition.eval(configuration);
         } catch (UnrecognizedVariableException e) {
             throw new UnknownFeatureException(e.getVariableName());
         }
@@ -1,23 +1,32 @@
 package tool.analyzers.buildingblocks;
 
-import java.util.Collection;
-import java.util.Map;
+import jadd.Configuration;
+
+import java.util.Spliterator;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import tool.analyzers.PackedReliabilityResults;
 
 public class ProductIterationHelper {
 
-    public static <T> Map<Collection<String>, Double> evaluate(Function<Collection<String>, Double> eval,
-                                                               Stream<Collection<String>> configurations,
-                                                               ConcurrencyStrategy concurrencyStrategy) {
-        Stream<Collection<String>> configs = concurrencyStrategy == ConcurrencyStrategy.PARALLEL ?
-                                                        configurations.parallel()
-                                                        : configurations.sequential();
+    /**
+     * Evaluates each configuration, putting its result in {@code results}
+     * (concurrently, if the strategy says so).
+     *
+     * @return {@code results}.
+     */
+    public static PackedReliabilityResults evaluate(Function<Configuration, Double> eval,
+                                                    Stream<Configuration> configurations,
+                                                    ConcurrencyStrategy concurrencyStrategy,
+                                                    PackedReliabilityResults results) {
+        Spliterator<Configuration> spliterator = configurations.spliterator();
+        results.reserve(spliterator.estimateSize());
+        Stream<Configuration> configs = StreamSupport.stream(spliterator,
+                                                             concurrencyStrategy == ConcurrencyStrategy.PARALLEL);
 
-        Map<Collection<String>, Double> results = configs
-                .collect(Collectors.toMap(Function.identity(),
-                                          eval));
+        configs.forEach(configuration -> results.put(configuration, eval.apply(configuration)));
         return results;
     }
 
@@ -0,0 +1,61 @@
+package tool.analyzers.buildingblocks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Where the per-product results of product-oriented analyses are kept.
+ */
+public enum ResultsStorage {
+    /**
+     * In the Java heap.
+     */
+    HEAP {
+        @Override
+        public ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocate(bytes);
+        }
+    },
+    /**
+     * In native memory, outside the Java heap (and its garbage collector's reach).
+     */
+    OFF_HEAP {
+        @Override
+        public ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes);
+        }
+    },
+    /**
+     * In a memory-mapped temporary file, which the OS can page out
+     * when results outgrow the physical memory.
+     */
+    MAPPED {
+        @Override
+        public ByteBuffer allocate(int bytes) {
+            try {
+                File file = File.createTempFile("reana-results", ".bin");
+                file.deleteOnExit();
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    // The mapping outlives the channel. New files are zero-filled.
+                    return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                } finally {
+                    // Only works where open files can be deleted, but then the
+                    // space is reclaimed as soon as the mapping is gone.
+                    file.delete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map a results file", e);
+            }
+        }
+    };
+
+    /**
+     * Allocates a zero-filled buffer.
+     */
+    public abstract ByteBuffer allocate(int bytes);
+
+}
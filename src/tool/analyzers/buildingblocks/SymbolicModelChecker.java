@@ -0,0 +1,141 @@
+package tool.analyzers.buildingblocks;
+
+import jadd.ADD;
+import jadd.ADDScope;
+import jadd.JADD;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import paramwrapper.IModelCollector;
+import paramwrapper.StateElimination;
+import expressionsolver.ExpressionSolver;
+import fdtmc.CompactFDTMC;
+import fdtmc.FDTMC;
+
+/**
+ * Model checker which computes the reliability of an FDTMC directly as an
+ * ADD (i.e., as a function of the configuration).
+ *
+ * The reliabilities of the nodes an FDTMC depends on are already ADDs, so
+ * transition probabilities are evaluated as ADDs as well and states are
+ * eliminated by means of ADD arithmetic. This replaces the computation of
+ * a parametric reliability expression followed by its lifting, avoiding
+ * both the (possibly huge) expression string and its parsing.
+ *
+ * @author thiago
+ */
+public class SymbolicModelChecker {
+
+    private final JADD jadd;
+    private final ExpressionSolver expressionSolver;
+    private final IModelCollector modelCollector;
+    private final StateElimination<ADD> stateElimination;
+
+    public SymbolicModelChecker(JADD jadd, ExpressionSolver expressionSolver, IModelCollector modelCollector) {
+        this.jadd = jadd;
+        this.expressionSolver = expressionSolver;
+        this.modelCollector = modelCollector;
+        this.stateElimination = new StateElimination<ADD>(new ADDAlgebra());
+    }
+
+    /**
+     * @return a model checker which shares this one's model collector, but
+     *      makes its ADDs with the given manager (e.g., a replica of this one's).
+     */
+    public SymbolicModelChecker withManager(JADD jadd, ExpressionSolver expressionSolver) {
+        return new SymbolicModelChecker(jadd, expressionSolver, modelCollector);
+    }
+
+    /**
+     * @param fdtmc Model to be checked.
+     * @param values Reliabilities of the nodes on which {@code fdtmc} depends, by id.
+     * @return the probability of eventually reaching success from the initial
+     *      state of {@code fdtmc}. The ADDs made during state elimination (i.e.,
+     *      transition probabilities and partial results) are released before
+     *      returning. Those in {@code values} belong to the caller, and encoded
+     *      presence conditions are cached by the {@link ExpressionSolver}, so
+     *      they are left alone.
+     */
+    public ADD getReliability(FDTMC fdtmc, Map<String, ADD> values) {
+        long startTime = System.nanoTime();
+        CompactFDTMC compact = fdtmc.compact();
+        ADD[] probabilities = new ADD[compact.getNumberOfSymbols()];
+
+        ADD reliability;
+        try (ADDScope scope = ADDScope.open()) {
+            reliability = scope.keep(stateElimination.getReliability(compact,
+                                                                     t -> getProbability(compact, t, probabilities, values)));
+        }
+
+        modelCollector.collectModel(countParametricProbabilities(compact), compact.getNumberOfStates());
+        modelCollector.collectModelCheckingTime(System.nanoTime() - startTime);
+        return reliability;
+    }
+
+    /**
+     * Evaluates each distinct probability only once. Number literals become
+     * constants, other expressions are solved with respect to {@code values}.
+     */
+    private ADD getProbability(CompactFDTMC fdtmc, int transition, ADD[] probabilities, Map<String, ADD> values) {
+        int symbol = fdtmc.getProbabilitySymbol(transition);
+        if (probabilities[symbol] == null) {
+            double numericValue = fdtmc.getNumericProbability(transition);
+            probabilities[symbol] = Double.isNaN(numericValue)
+                    ? expressionSolver.solveExpressionAsFunction(fdtmc.getSymbol(symbol), values)
+                    : jadd.makeConstant(numericValue);
+        }
+        return probabilities[symbol];
+    }
+
+    /**
+     * @return the number of distinct probabilities which are not number literals.
+     */
+    private static int countParametricProbabilities(CompactFDTMC fdtmc) {
+        BitSet parametric = new BitSet(fdtmc.getNumberOfSymbols());
+        for (int t = 0; t < fdtmc.getNumberOfTransitions(); t++) {
+            if (Double.isNaN(fdtmc.getNumericProbability(t))) {
+                parametric.set(fdtmc.getProbabilitySymbol(t));
+            }
+        }
+        return parametric.cardinality();
+    }
+
+    private class ADDAlgebra implements StateElimination.Algebra<ADD> {
+        @Override
+        public ADD zero() {
+            return jadd.makeConstant(0);
+        }
+
+        @Override
+        public ADD one() {
+            return jadd.makeConstant(1);
+        }
+
+        @Override
+        public ADD plus(ADD first, ADD second) {
+            return first.plus(second);
+        }
+
+        @Override
+        public ADD minus(ADD first, ADD second) {
+            return first.minus(second);
+        }
+
+        @Override
+        public ADD times(ADD first, ADD second) {
+            return first.times(second);
+        }
+
+        @Override
+        public ADD dividedBy(ADD first, ADD second) {
+            return first.dividedBy(second);
+        }
+
+        @Override
+        public ADD reciprocal(ADD value) {
+            return one().dividedBy(value);
+        }
+    }
+
+}
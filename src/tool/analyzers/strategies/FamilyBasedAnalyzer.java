@@ -22,6 +22,7 @@ import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
 import expressionsolver.Expression;
 import expressionsolver.ExpressionSolver;
+import expressionsolver.MultilinearReduction;
 
 /**
  * Orchestrator of family-based analyses.
@@ -74,8 +75,13 @@ public class FamilyBasedAnalyzer {
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
         timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        // Variables are presence conditions (i.e., 0/1-valued).
+        MultilinearReduction reduction = MultilinearReduction.reduce(expression);
+        formulaCollector.collectMultilinearReduction(node,
+                                                     reduction.getOriginalOperations(),
+                                                     reduction.getReducedOperations());
         // Lift
-        Expression<ADD> liftedExpression = helper.lift(expression);
+        Expression<ADD> liftedExpression = helper.lift(reduction.getExpression());
 
         List<String> presenceConditions = dependencies.stream()
                 .map(RDGNode::getPresenceCondition)
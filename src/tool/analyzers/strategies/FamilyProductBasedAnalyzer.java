@@ -1,8 +1,8 @@
 package tool.analyzers.strategies;
 
+import jadd.Configuration;
 import jadd.JADD;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -14,13 +14,15 @@ import paramwrapper.ParametricModelChecker;
 import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.analyzers.IReliabilityAnalysisResults;
-import tool.analyzers.MapBasedReliabilityResults;
+import tool.analyzers.PackedReliabilityResults;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
+import tool.analyzers.buildingblocks.ResultsStorage;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
+import expressionsolver.CompiledExpression;
 import expressionsolver.Expression;
 import expressionsolver.ExpressionSolver;
 
@@ -30,17 +32,20 @@ import expressionsolver.ExpressionSolver;
 public class FamilyProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FamilyProductBasedAnalyzer.class.getName());
 
+    private JADD jadd;
     private ExpressionSolver expressionSolver;
 
     private FamilyBasedFirstPhase firstPhase;
 
     private ITimeCollector timeCollector;
+    private ResultsStorage resultsStorage = ResultsStorage.HEAP;
     private IFormulaCollector formulaCollector;
 
     public FamilyProductBasedAnalyzer(JADD jadd,
                                ParametricModelChecker modelChecker,
                                ITimeCollector timeCollector,
                                IFormulaCollector formulaCollector) {
+        this.jadd = jadd;
         this.expressionSolver = new ExpressionSolver(jadd);
 
         this.firstPhase = new FamilyBasedFirstPhase(modelChecker);
@@ -49,6 +54,15 @@ public class FamilyProductBasedAnalyzer {
         this.formulaCollector = formulaCollector;
     }
 
+    /**
+     * Sets where the per-product results are kept. Defaults to the Java heap.
+     *
+     * @param resultsStorage the resultsStorage to set
+     */
+    public void setResultsStorage(ResultsStorage resultsStorage) {
+        this.resultsStorage = resultsStorage;
+    }
+
     /**
      * Evaluates the family-product-based reliability function of an RDG node.
      *
@@ -56,7 +70,7 @@ public class FamilyProductBasedAnalyzer {
      * @return
      * @throws CyclicRdgException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Solving the family-wide expression for each product in parallel.");
         }
@@ -79,28 +93,72 @@ public class FamilyProductBasedAnalyzer {
                                           e -> e.getKey(),
                                           (a, b) -> a));
 
-        Map<Collection<String>, Double> results;
-        if (concurrencyStrategy == ConcurrencyStrategy.SEQUENTIAL) {
-            Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(parsedExpression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
+        PackedReliabilityResults results = new PackedReliabilityResults(jadd, resultsStorage);
+        Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
+        CompiledExpression compiledExpression = (parsedExpression != null) ? parsedExpression.compile() : null;
+        String[] slotPresenceConditions = (compiledExpression != null) ?
+                toSlotPresenceConditions(compiledExpression, eqClassToPC)
+                : null;
+        if (slotPresenceConditions != null) {
+            // Compiled expressions are thread-safe, so they can be shared by all products.
+            ProductIterationHelper.evaluate(configuration -> evaluateSingle(compiledExpression,
+                                                                            configuration,
+                                                                            slotPresenceConditions),
+                                            configurations,
+                                            concurrencyStrategy,
+                                            results);
+        } else if (concurrencyStrategy == ConcurrencyStrategy.SEQUENTIAL) {
+            ProductIterationHelper.evaluate(configuration -> evaluateSingle(parsedExpression,
+                                                                            configuration,
+                                                                            eqClassToPC),
+                                            configurations,
+                                            concurrencyStrategy,
+                                            results);
         } else {
-            results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(expression,
-                                                                                      configuration,
-                                                                                      eqClassToPC),
-                                                      configurations,
-                                                      concurrencyStrategy);
+            ProductIterationHelper.evaluate(configuration -> evaluateSingle(expression,
+                                                                            configuration,
+                                                                            eqClassToPC),
+                                            configurations,
+                                            concurrencyStrategy,
+                                            results);
         }
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
         LOGGER.info("Formulae evaluation ok...");
-        return new MapBasedReliabilityResults(results);
+        return results;
+    }
+
+    /**
+     * Maps each slot of a compiled expression to the presence condition
+     * of the corresponding equivalence class.
+     *
+     * @return the presence conditions indexed by slot, or {@code null} if some
+     *          variable in the expression is not an equivalence class.
+     */
+    private String[] toSlotPresenceConditions(CompiledExpression expression, Map<String, String> eqClassToPC) {
+        String[] variables = expression.getVariables();
+        String[] presenceConditions = new String[variables.length];
+        for (int slot = 0; slot < variables.length; slot++) {
+            presenceConditions[slot] = eqClassToPC.get(variables[slot]);
+            if (presenceConditions[slot] == null) {
+                return null;
+            }
+        }
+        return presenceConditions;
+    }
+
+    private Double evaluateSingle(CompiledExpression expression, Configuration configuration, String[] slotPresenceConditions) {
+        double[] values = new double[slotPresenceConditions.length];
+        for (int slot = 0; slot < values.length; slot++) {
+            boolean present = PresenceConditions.isPresent(slotPresenceConditions[slot],
+                                                           configuration,
+                                                           expressionSolver);
+            values[slot] = present ? 1.0 : 0.0;
+        }
+        return expression.evaluate(values);
     }
 
-    private Double evaluateSingle(Expression<Double> expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
+    private Double evaluateSingle(Expression<Double> expression, Configuration configuration, Map<String, String> eqClassToPC) {
         Function<Map.Entry<String, String>, Boolean> isPresent = e -> PresenceConditions.isPresent(e.getValue(),
                                                                                                    configuration,
                                                                                                    expressionSolver);
@@ -112,7 +170,7 @@ public class FamilyProductBasedAnalyzer {
 
     }
 
-    private Double evaluateSingle(String expression, Collection<String> configuration, Map<String, String> eqClassToPC) {
+    private Double evaluateSingle(String expression, Configuration configuration, Map<String, String> eqClassToPC) {
         Expression<Double> parsedExpression = expressionSolver.parseExpression(expression);
         return evaluateSingle(parsedExpression, configuration, eqClassToPC);
     }
@@ -66,7 +66,7 @@ public class FeatureBasedFirstPhase {
      * @param node
      * @return an algebraic expression on the variables present in the node's model.
      */
-    private String getReliabilityExpression(RDGNode node) {
+    String getReliabilityExpression(RDGNode node) {
         FDTMC model = node.getFDTMC();
         String reliabilityExpression = modelChecker.getReliability(model);
 
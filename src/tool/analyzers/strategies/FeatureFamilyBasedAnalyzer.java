@@ -1,10 +1,29 @@
 package tool.analyzers.strategies;
 
 import jadd.ADD;
+import jadd.ADDScope;
 import jadd.JADD;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import paramwrapper.ParametricModelChecker;
 import tool.CyclicRdgException;
@@ -18,16 +37,28 @@ import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.FamilyBasedHelper;
+import tool.analyzers.buildingblocks.SymbolicModelChecker;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
 import expressionsolver.Expression;
 import expressionsolver.ExpressionSolver;
+import fdtmc.FDTMC;
 
 /**
  * Orchestrator of feature-family-based analyses.
  */
 public class FeatureFamilyBasedAnalyzer {
+    private static final Logger LOGGER = Logger.getLogger(FeatureFamilyBasedAnalyzer.class.getName());
+    /**
+     * Size of the pool which model checks RDG nodes in PARALLEL evaluations.
+     */
+    private static final int MODEL_CHECKING_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * Size of the pool which solves RDG nodes in PARALLEL evaluations.
+     * Each of its threads works on its own replica of the ADD manager.
+     */
+    private static final int SOLVING_THREADS = Runtime.getRuntime().availableProcessors();
 
     private ADD featureModel;
     private JADD jadd;
@@ -36,11 +67,20 @@ public class FeatureFamilyBasedAnalyzer {
 
     private FeatureBasedFirstPhase firstPhase;
     private FamilyBasedHelper helper;
+    private SymbolicModelChecker symbolicModelChecker;
+    /**
+     * Per-node reliabilities kept by incremental analyses.
+     */
+    private NodeReliabilityCache nodeReliabilityCache = new NodeReliabilityCache();
 
     /**
      * Sigma_v
      */
     private DerivationFunction<ADD, Expression<ADD>, ADD> solve;
+    /**
+     * Alpha_v + lift + Sigma_v, computed directly on ADDs.
+     */
+    private DerivationFunction<ADD, FDTMC, ADD> solveSymbolically;
 
 
     private ITimeCollector timeCollector;
@@ -61,14 +101,33 @@ public class FeatureFamilyBasedAnalyzer {
                                                      formulaCollector);
         this.helper = new FamilyBasedHelper(expressionSolver);
 
+        ADD one = jadd.makeConstant(1.0);
+        solve = makeSolve(one, featureModel);
+        solveSymbolically = makeSolveSymbolically(one, featureModel, () -> symbolicModelChecker);
+    }
+
+    private DerivationFunction<ADD, Expression<ADD>, ADD> makeSolve(ADD one, ADD featureModel) {
         AssetProcessor<Expression<ADD>, ADD> evalAndPrune = (expr, values) -> {
             return this.pruningStrategy.pruneInvalidConfigurations(null,
                                                                    expr.solve(values),
                                                                    featureModel);
         };
-        solve = DerivationFunction.abstractDerivation(ADD::ite,
-                                                      evalAndPrune,
-                                                      jadd.makeConstant(1.0));
+        return DerivationFunction.abstractDerivation(ADD::ite,
+                                                     evalAndPrune,
+                                                     one);
+    }
+
+    private DerivationFunction<ADD, FDTMC, ADD> makeSolveSymbolically(ADD one,
+                                                                      ADD featureModel,
+                                                                      Supplier<SymbolicModelChecker> modelChecker) {
+        AssetProcessor<FDTMC, ADD> checkAndPrune = (fdtmc, values) -> {
+            return this.pruningStrategy.pruneInvalidConfigurations(null,
+                                                                   modelChecker.get().getReliability(fdtmc, values),
+                                                                   featureModel);
+        };
+        return DerivationFunction.abstractDerivation(ADD::ite,
+                                                     checkAndPrune,
+                                                     one);
     }
 
     /**
@@ -87,6 +146,116 @@ public class FeatureFamilyBasedAnalyzer {
     public IReliabilityAnalysisResults evaluateReliability(RDGNode node, ConcurrencyStrategy concurrencyStrategy, String dotOutput) throws CyclicRdgException {
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
+        ADD reliability;
+        if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+            timeCollector.startTimer(CollectibleTimers.PIPELINED_ANALYSIS_TIME);
+            if (symbolicModelChecker != null) {
+                reliability = evaluateConcurrently(dependencies,
+                                                   RDGNode::getFDTMC,
+                                                   replica -> replica.solveSymbolically);
+            } else {
+                // Alpha_v
+                reliability = evaluateConcurrently(dependencies,
+                                                   firstPhase::getReliabilityExpression,
+                                                   replica -> replica.liftAndSolve);
+            }
+            timeCollector.stopTimer(CollectibleTimers.PIPELINED_ANALYSIS_TIME);
+        } else {
+            reliability = evaluateSequentially(dependencies, concurrencyStrategy);
+        }
+
+        timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        ADD result = featureModel.times(reliability);
+        reliability.release();
+        timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+
+        if (dotOutput != null) {
+            generateDotFile(result, dotOutput);
+        }
+
+        return new ADDReliabilityResults(result);
+    }
+
+    /**
+     * Evaluates the feature-family-based reliability function of an RDG node,
+     * as {@link #evaluateReliability(RDGNode, ConcurrencyStrategy, String)} does,
+     * but reusing the reliabilities of the nodes which are unchanged since the
+     * previous call to this method (possibly for another RDG of the same SPL,
+     * e.g., rebuilt after an edit to its models).
+     *
+     * Only the nodes whose models changed are model checked again. They and
+     * their ancestors are then solved in topological order, on top of the
+     * cached reliabilities of the remaining nodes. Unlike in the other analyses,
+     * the reliabilities of all nodes are thus kept until the next call.
+     *
+     * @param node RDG node whose reliability is to be evaluated.
+     * @param concurrencyStrategy Whether to model check changed nodes concurrently.
+     * @param dotOutput path at where to dump the resulting ADD as a dot file.
+     * @return
+     * @throws CyclicRdgException
+     */
+    public IReliabilityAnalysisResults evaluateReliabilityIncrementally(RDGNode node, ConcurrencyStrategy concurrencyStrategy, String dotOutput) throws CyclicRdgException {
+        List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
+        NodeReliabilityCache.Diff diff = nodeReliabilityCache.diff(dependencies);
+        List<RDGNode> changedNodes = diff.getChangedNodes();
+
+        int modelChecked = changedNodes.size();
+        try {
+            if (symbolicModelChecker == null) {
+                timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+                // Alpha_v, only for changed models
+                Stream<RDGNode> unchecked = changedNodes.stream()
+                        .filter(n -> diff.getFormula(n) == null);
+                if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
+                    unchecked = unchecked.parallel();
+                }
+                Map<RDGNode, String> formulas = new ConcurrentHashMap<RDGNode, String>();
+                unchecked.forEach(n -> formulas.put(n, firstPhase.getReliabilityExpression(n)));
+                formulas.forEach(diff::putFormula);
+                modelChecked = formulas.size();
+                timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+            }
+
+            timeCollector.startTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+            for (RDGNode changed : changedNodes) {
+                Map<String, ADD> values = new HashMap<String, ADD>();
+                for (RDGNode dependency : changed.getDependencies()) {
+                    values.put(dependency.getId(), diff.getEntry(dependency).getReliability());
+                }
+                ADD reliability;
+                if (symbolicModelChecker != null) {
+                    reliability = solveSingle(changed, changed.getFDTMC(), values, solveSymbolically, expressionSolver);
+                } else {
+                    // Lift + Sigma_v
+                    reliability = solveSingle(changed, helper.lift(diff.getFormula(changed)), values, solve, expressionSolver);
+                }
+                diff.getEntry(changed).setReliability(reliability);
+            }
+            timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        } catch (RuntimeException e) {
+            diff.abandon();
+            throw e;
+        }
+        diff.commit();
+        LOGGER.info("Incremental analysis of " + dependencies.size() + " RDG nodes: "
+                    + changedNodes.size() + " solved, " + modelChecked + " model checked");
+
+        // The root's reliability stays in the cache.
+        ADD result = featureModel.times(diff.getEntry(node).getReliability());
+        if (dotOutput != null) {
+            generateDotFile(result, dotOutput);
+        }
+        return new ADDReliabilityResults(result);
+    }
+
+    private ADD evaluateSequentially(List<RDGNode> dependencies, ConcurrencyStrategy concurrencyStrategy) {
+        if (symbolicModelChecker != null) {
+            timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+            ADD reliability = solveFromMany(RDGNode.toComponentList(dependencies), solveSymbolically);
+            timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
+            return reliability;
+        }
+
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
         // Alpha_v
         List<Component<String>> expressions = firstPhase.getReliabilityExpressions(dependencies, concurrencyStrategy);
@@ -98,15 +267,157 @@ public class FeatureFamilyBasedAnalyzer {
                 .map(helper::lift)
                 .collect(Collectors.toList());
         // Sigma_v
-        ADD reliability = solveFromMany(liftedExpressions);
-        ADD result = featureModel.times(reliability);
+        ADD reliability = solveFromMany(liftedExpressions, solve);
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
+        return reliability;
+    }
 
-        if (dotOutput != null) {
-            generateDotFile(result, dotOutput);
+    /**
+     * Evaluates the RDG as a task graph: each node is model checked as soon
+     * as possible, and its reliability expression is lifted and solved as soon
+     * as the reliabilities of its dependencies are available. Thus, model
+     * checking of some nodes overlaps with ADD operations on others, and
+     * independent subtrees are handled concurrently.
+     *
+     * Nodes are solved by threads which work on their own replicas of the ADD
+     * manager (see {@link JADD#replicate()}), so that they do not contend for
+     * a single manager's lock. The reliabilities of a node's dependencies are
+     * transferred to the replica which solves it, and the root's reliability
+     * is transferred back in the end. The reliability of each node but the
+     * root is released once all of its dependents have been solved.
+     *
+     * @param dependencies RDG nodes in topological order (as given by
+     *          {@link RDGNode#getDependenciesTransitiveClosure()}).
+     * @param analyzeNode Computes the asset of a node which does not depend
+     *          on the reliabilities of other nodes. Assets must not be bound
+     *          to any ADD manager.
+     * @param derive Gives the function which computes the reliability of
+     *          a node from its asset on the given replica.
+     * @return the root's reliability.
+     */
+    private <A> ADD evaluateConcurrently(List<RDGNode> dependencies,
+                                         Function<RDGNode, A> analyzeNode,
+                                         Function<ReplicaSolver, DerivationFunction<ADD, A, ADD>> derive) {
+        Map<RDGNode, AtomicInteger> pendingDependents = new HashMap<RDGNode, AtomicInteger>();
+        for (RDGNode node : dependencies) {
+            pendingDependents.put(node, new AtomicInteger());
+        }
+        for (RDGNode node : dependencies) {
+            node.getDependencies().forEach(d -> pendingDependents.get(d).incrementAndGet());
         }
 
-        return new ADDReliabilityResults(result);
+        ExecutorService modelChecking = Executors.newFixedThreadPool(MODEL_CHECKING_THREADS);
+        ExecutorService solving = Executors.newFixedThreadPool(SOLVING_THREADS);
+        Queue<ReplicaSolver> replicas = new ConcurrentLinkedQueue<ReplicaSolver>();
+        ThreadLocal<ReplicaSolver> replica = ThreadLocal.withInitial(() -> {
+            ReplicaSolver created = new ReplicaSolver();
+            replicas.add(created);
+            return created;
+        });
+        // Set once some node fails, so that pending nodes are not solved in vain.
+        AtomicBoolean failed = new AtomicBoolean(false);
+        List<CompletableFuture<A>> assets = new ArrayList<CompletableFuture<A>>();
+        // Only accessed by this thread. Each stage gets its dependencies' futures beforehand.
+        Map<RDGNode, CompletableFuture<ADD>> reliabilities = new HashMap<RDGNode, CompletableFuture<ADD>>();
+        for (RDGNode node : dependencies) {
+            // Model checking may block on an external process, so it is kept off the common pool.
+            CompletableFuture<A> asset = CompletableFuture.supplyAsync(() -> analyzeNode.apply(node), modelChecking);
+            assets.add(asset);
+
+            Map<RDGNode, CompletableFuture<ADD>> dependencyReliabilities = new HashMap<RDGNode, CompletableFuture<ADD>>();
+            for (RDGNode dependency : node.getDependencies()) {
+                dependencyReliabilities.put(dependency, reliabilities.get(dependency));
+            }
+            CompletableFuture<?>[] dependenciesDone = dependencyReliabilities.values()
+                    .toArray(new CompletableFuture<?>[0]);
+            // Sigma_v
+            CompletableFuture<ADD> reliability = CompletableFuture.allOf(dependenciesDone)
+                    .thenCombineAsync(asset, (done, nodeAsset) -> {
+                        if (failed.get()) {
+                            throw new CancellationException("Evaluation of " + node.getId() + " abandoned");
+                        }
+                        ReplicaSolver solver = replica.get();
+                        Map<String, ADD> values = new HashMap<String, ADD>();
+                        ADD derived;
+                        try {
+                            for (Map.Entry<RDGNode, CompletableFuture<ADD>> entry : dependencyReliabilities.entrySet()) {
+                                values.put(entry.getKey().getId(), solver.jadd.transfer(entry.getValue().join()));
+                            }
+                            derived = solveSingle(node, nodeAsset, values, derive.apply(solver), solver.expressionSolver);
+                        } finally {
+                            values.values().forEach(ADD::release);
+                        }
+                        for (Map.Entry<RDGNode, CompletableFuture<ADD>> entry : dependencyReliabilities.entrySet()) {
+                            if (pendingDependents.get(entry.getKey()).decrementAndGet() == 0) {
+                                entry.getValue().join().release();
+                            }
+                        }
+                        return derived;
+                    }, solving);
+            reliabilities.put(node, reliability);
+        }
+
+        RDGNode root = dependencies.get(dependencies.size() - 1);
+        try {
+            ADD rootReliability = reliabilities.get(root).join();
+            ADD transferred = jadd.transfer(rootReliability);
+            rootReliability.release();
+            return transferred;
+        } catch (CompletionException e) {
+            failed.set(true);
+            releaseAfterFailure(assets, reliabilities.values(), modelChecking);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            modelChecking.shutdown();
+            solving.shutdown();
+            // Every node has been solved (or abandoned) by now.
+            replicas.forEach(r -> r.jadd.close());
+        }
+    }
+
+    /**
+     * Cancels the computations which have not started yet, waits for the
+     * running ones to finish, and then releases the reliabilities which
+     * were computed, but which no dependent has released.
+     */
+    private static <A> void releaseAfterFailure(List<CompletableFuture<A>> assets,
+                                                Collection<CompletableFuture<ADD>> reliabilities,
+                                                ExecutorService modelChecking) {
+        for (CompletableFuture<A> asset : assets) {
+            asset.cancel(true);
+        }
+        modelChecking.shutdownNow();
+        // Running nodes may still be using the reliabilities of their
+        // dependencies, so nothing is released before all of them are done.
+        List<ADD> computed = new ArrayList<ADD>();
+        for (CompletableFuture<ADD> reliability : reliabilities) {
+            try {
+                computed.add(reliability.join());
+            } catch (CompletionException | CancellationException e) {
+                // Nothing was computed.
+            }
+        }
+        for (ADD reliability : computed) {
+            if (!reliability.isReleased()) {
+                reliability.release();
+            }
+        }
+    }
+
+    /**
+     * Makes the reliability of each node be computed directly as an ADD by
+     * {@code symbolicModelChecker}, instead of model checking it into a
+     * parametric expression which is then lifted.
+     *
+     * @param symbolicModelChecker the symbolic model checker to use, or
+     *          {@code null} to go back to the parametric model checker.
+     */
+    public void setSymbolicModelChecker(SymbolicModelChecker symbolicModelChecker) {
+        this.symbolicModelChecker = symbolicModelChecker;
+        nodeReliabilityCache.clear();
     }
 
     /**
@@ -121,6 +432,7 @@ public class FeatureFamilyBasedAnalyzer {
      */
     public void setPruningStrategy(IPruningStrategy pruningStrategy) {
         this.pruningStrategy = pruningStrategy;
+        nodeReliabilityCache.clear();
     }
 
     /**
@@ -135,10 +447,64 @@ public class FeatureFamilyBasedAnalyzer {
         jadd.dumpDot("Family Reliability", familyReliability, outputFile);
     }
 
-    private ADD solveFromMany(List<Component<Expression<ADD>>> dependencies) {
-        return Component.deriveFromMany(dependencies,
-                                        solve,
-                                        c -> expressionSolver.encodeFormula(c.getPresenceCondition()));
+    /**
+     * Solves a single node, given the reliabilities of its dependencies.
+     * Only the resulting reliability outlives this method.
+     *
+     * @param expressionSolver Solver bound to the manager of {@code derive} and {@code values}.
+     */
+    private <A> ADD solveSingle(RDGNode node,
+                                A asset,
+                                Map<String, ADD> values,
+                                DerivationFunction<ADD, A, ADD> derive,
+                                ExpressionSolver expressionSolver) {
+        try (ADDScope scope = ADDScope.open()) {
+            ADD presence = expressionSolver.encodeFormula(node.getPresenceCondition());
+            return scope.keep(derive.apply(presence, asset, values));
+        }
+    }
+
+    /**
+     * Only the reliability of the last component outlives this method.
+     * Presence conditions and the reliabilities of the dependencies are
+     * released as soon as all components have been solved.
+     */
+    private <A> ADD solveFromMany(List<Component<A>> dependencies, DerivationFunction<ADD, A, ADD> derive) {
+        try (ADDScope scope = ADDScope.open()) {
+            return scope.keep(Component.deriveFromMany(dependencies,
+                                                       derive,
+                                                       c -> expressionSolver.encodeFormula(c.getPresenceCondition())));
+        }
+    }
+
+    /**
+     * Replica of the ADD manager on which a single thread solves RDG nodes
+     * during PARALLEL evaluations, along with the objects bound to it.
+     * It must be made outside of any {@link ADDScope}.
+     */
+    private class ReplicaSolver {
+        private final JADD jadd;
+        private final ExpressionSolver expressionSolver;
+        /**
+         * Lift + Sigma_v
+         */
+        private final DerivationFunction<ADD, String, ADD> liftAndSolve;
+        private final DerivationFunction<ADD, FDTMC, ADD> solveSymbolically;
+
+        private ReplicaSolver() {
+            jadd = FeatureFamilyBasedAnalyzer.this.jadd.replicate();
+            expressionSolver = new ExpressionSolver(jadd);
+            FamilyBasedHelper helper = new FamilyBasedHelper(expressionSolver);
+
+            ADD one = jadd.makeConstant(1.0);
+            ADD replicaFeatureModel = jadd.transfer(featureModel);
+            DerivationFunction<ADD, Expression<ADD>, ADD> solve = makeSolve(one, replicaFeatureModel);
+            liftAndSolve = (presence, expression, values) -> solve.apply(presence, helper.lift(expression), values);
+            SymbolicModelChecker modelChecker = (symbolicModelChecker == null)
+                    ? null
+                    : symbolicModelChecker.withManager(jadd, expressionSolver);
+            solveSymbolically = makeSolveSymbolically(one, replicaFeatureModel, () -> modelChecker);
+        }
     }
 
 }
@@ -1,7 +1,6 @@
 package tool.analyzers.strategies;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -18,6 +17,7 @@ import expressionsolver.ExpressionSolver;
 import fdtmc.FDTMC;
 import fdtmc.State;
 import jadd.ADD;
+import jadd.Configuration;
 import jadd.JADD;
 import paramwrapper.ParametricModelChecker;
 import tool.CyclicRdgException;
@@ -94,7 +94,7 @@ public class FeatureFamilyProduct {
         return temp; 
     } 
 
-	public IReliabilityAnalysisResults evaluateReliability(RDGNode node, ConcurrencyStrategy concurrencyStrategy, Stream<Collection<String>> configurations) throws CyclicRdgException, UnknownFeatureException {
+	public IReliabilityAnalysisResults evaluateReliability(RDGNode node, ConcurrencyStrategy concurrencyStrategy, Stream<Configuration> configurations) throws CyclicRdgException, UnknownFeatureException {
 		
 		List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 		List<String> presenceConditions = dependencies.stream()
@@ -164,7 +164,7 @@ public class FeatureFamilyProduct {
 		return null;
 	}
 
-	private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<RDGNode> dependencies) throws UnknownFeatureException {
+	private Double evaluateSingle(RDGNode node, Configuration configuration, List<RDGNode> dependencies) throws UnknownFeatureException {
         List<Component<FDTMC>> models = RDGNode.toComponentList(dependencies);
         
 //        for(Component<FDTMC> model: models) {
@@ -182,7 +182,7 @@ public class FeatureFamilyProduct {
     }
 	
     
-    private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Collection<String> configuration) {
+    private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Configuration configuration) {
         return Component.deriveFromMany(dependencies,
                                         derive,
                                         c -> PresenceConditions.isPresent(c.getPresenceCondition(),
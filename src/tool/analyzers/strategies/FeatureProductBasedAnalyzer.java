@@ -1,10 +1,19 @@
 package tool.analyzers.strategies;
 
+import jadd.ADD;
+import jadd.Configuration;
 import jadd.JADD;
+import jadd.UnrecognizedVariableException;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
@@ -13,13 +22,11 @@ import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
 import tool.analyzers.IReliabilityAnalysisResults;
-import tool.analyzers.MapBasedReliabilityResults;
+import tool.analyzers.PackedReliabilityResults;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
-import tool.analyzers.buildingblocks.DerivationFunction;
-import tool.analyzers.buildingblocks.IfOperator;
-import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
+import tool.analyzers.buildingblocks.ResultsStorage;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
@@ -31,43 +38,50 @@ import expressionsolver.ExpressionSolver;
 public class FeatureProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(FeatureProductBasedAnalyzer.class.getName());
 
+    private JADD jadd;
     private ExpressionSolver expressionSolver;
     private FeatureBasedFirstPhase firstPhase;
 
-    /**
-     * Sigma
-     */
-    private DerivationFunction<Boolean, String, Double> solve;
-
     private ITimeCollector timeCollector;
+    private ResultsStorage resultsStorage = ResultsStorage.HEAP;
 
     public FeatureProductBasedAnalyzer(JADD jadd,
                                        ParametricModelChecker modelChecker,
                                        ITimeCollector timeCollector,
                                        IFormulaCollector formulaCollector) {
+        this.jadd = jadd;
         this.expressionSolver = new ExpressionSolver(jadd);
 
         this.timeCollector = timeCollector;
 
         this.firstPhase = new FeatureBasedFirstPhase(modelChecker,
                                                      formulaCollector);
+    }
 
-
-        solve = DerivationFunction.abstractDerivation(new IfOperator<Double>(),
-                                                      expressionSolver::solveExpression,
-                                                      1.0);
+    /**
+     * Sets where the per-product results are kept. Defaults to the Java heap.
+     *
+     * @param resultsStorage the resultsStorage to set
+     */
+    public void setResultsStorage(ResultsStorage resultsStorage) {
+        this.resultsStorage = resultsStorage;
     }
 
     /**
      * Evaluates the feature-product-based reliability value of an RDG node, based
      * on the reliabilities of the nodes on which it depends.
      *
+     * The value of each node only depends on the features in its own presence
+     * condition and in those of the nodes it depends on (its support). So it is
+     * computed once for each distinct projection of the configurations onto its
+     * support, and shared by all configurations with that projection.
+     *
      * @param node RDG node whose reliability is to be evaluated.
      * @return
      * @throws CyclicRdgException
      * @throws UnknownFeatureException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
         List<RDGNode> dependencies = node.getDependenciesTransitiveClosure();
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
@@ -80,22 +94,129 @@ public class FeatureProductBasedAnalyzer {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Evaluating all expressions for each product in parallel.");
         }
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
-                                                                                                                  configuration,
-                                                                                                                  expressions),
-                                                                                  configurations,
-                                                                                  concurrencyStrategy);
+        LongAdder evaluations = new LongAdder();
+        MemoizedComponent root = memoize(expressions, evaluations);
+        PackedReliabilityResults results = new PackedReliabilityResults(jadd, resultsStorage);
+        ProductIterationHelper.evaluate(root::evaluate,
+                                        configurations,
+                                        concurrencyStrategy,
+                                        results);
+        LOGGER.info("Evaluated " + evaluations.sum() + " expressions for " + results.size() + " products");
 
         timeCollector.stopTimer(CollectibleTimers.EXPRESSION_SOLVING_TIME);
-        return new MapBasedReliabilityResults(results);
+        return results;
+    }
+
+    /**
+     * Sets up the memoized evaluation of the given components.
+     *
+     * @param expressions Components in topological order (dependencies first).
+     * @param evaluations Counter of the expressions actually evaluated.
+     * @return the evaluation of the last component (the root), which is not
+     *          memoized, since each product is evaluated only once.
+     */
+    private MemoizedComponent memoize(List<Component<String>> expressions, LongAdder evaluations) {
+        Map<String, MemoizedComponent> memoized = new HashMap<String, MemoizedComponent>();
+        MemoizedComponent last = null;
+        for (int i = 0; i < expressions.size(); i++) {
+            Component<String> component = expressions.get(i);
+            List<MemoizedComponent> dependencies = new ArrayList<MemoizedComponent>();
+            Set<String> support = new HashSet<String>();
+            ADD presenceCondition = expressionSolver.encodeFormula(component.getPresenceCondition());
+            support.addAll(presenceCondition.getVariables());
+            for (Component<String> dependency : component.getDependencies()) {
+                MemoizedComponent memoizedDependency = memoized.get(dependency.getId());
+                dependencies.add(memoizedDependency);
+                support.addAll(memoizedDependency.support);
+            }
+            boolean isRoot = (i == expressions.size() - 1);
+            last = new MemoizedComponent(component, presenceCondition, dependencies, support, !isRoot, evaluations);
+            memoized.put(component.getId(), last);
+        }
+        return last;
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<Component<String>> expressions) {
-        return Component.deriveFromMany(expressions,
-                                        solve,
-                                        c -> PresenceConditions.isPresent(c.getPresenceCondition(),
-                                                                          configuration,
-                                                                          expressionSolver));
+    /**
+     * Sigma, for a single component, with its values memoized by the
+     * projection of configurations onto its support.
+     */
+    private final class MemoizedComponent {
+        private final String id;
+        private final String expression;
+        private final ADD presenceCondition;
+        private final List<MemoizedComponent> dependencies;
+        private final Set<String> support;
+        // The support as a configuration, i.e., a mask over configurations' bits.
+        private final Configuration supportMask;
+        private final Map<Object, Double> values;
+        private final LongAdder evaluations;
+
+        MemoizedComponent(Component<String> component, ADD presenceCondition, List<MemoizedComponent> dependencies,
+                          Set<String> support, boolean memoized, LongAdder evaluations) {
+            this.id = component.getId();
+            this.expression = component.getAsset();
+            this.presenceCondition = presenceCondition;
+            this.dependencies = dependencies;
+            this.support = support;
+            try {
+                this.supportMask = jadd.makeConfiguration(support);
+            } catch (UnrecognizedVariableException e) {
+                // Variables come from presence conditions' encodings.
+                throw new IllegalStateException(e);
+            }
+            this.values = memoized ? new ConcurrentHashMap<Object, Double>() : null;
+            this.evaluations = evaluations;
+        }
+
+        Double evaluate(Configuration configuration) {
+            if (values == null) {
+                return evaluateUncached(configuration);
+            }
+            Object key = project(configuration);
+            Double value = values.get(key);
+            if (value == null) {
+                value = evaluateUncached(configuration);
+                // Failed evaluations (null) are not remembered.
+                if (value != null) {
+                    values.putIfAbsent(key, value);
+                }
+            }
+            return value;
+        }
+
+        private Double evaluateUncached(Configuration configuration) {
+            double presence;
+            try {
+                presence = presenceCondition.eval(configuration);
+            } catch (UnrecognizedVariableException e) {
+                throw new UnknownFeatureException(e.getVariableName());
+            }
+            if (presence != 1.0) {
+                return 1.0;
+            }
+            Map<String, Double> interpretation = new HashMap<String, Double>();
+            for (MemoizedComponent dependency : dependencies) {
+                interpretation.put(dependency.id, dependency.evaluate(configuration));
+            }
+            evaluations.increment();
+            return expressionSolver.solveExpression(expression, interpretation);
+        }
+
+        /**
+         * @return the bits of a configuration which are in the support,
+         *          as a key for the memoized values.
+         */
+        private Object project(Configuration configuration) {
+            int words = supportMask.getWordCount();
+            if (words <= 1) {
+                return configuration.getWord(0) & supportMask.getWord(0);
+            }
+            long[] projection = new long[words];
+            for (int i = 0; i < words; i++) {
+                projection[i] = configuration.getWord(i) & supportMask.getWord(i);
+            }
+            return BitSet.valueOf(projection);
+        }
     }
 
 }
@@ -0,0 +1,186 @@
+package tool.analyzers.strategies;
+
+import jadd.ADD;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tool.RDGNode;
+
+/**
+ * Reliabilities of the RDG nodes solved by the last incremental
+ * feature-family-based analysis, so that the next one only has to solve
+ * the nodes which changed in the meantime.
+ *
+ * Nodes are identified by their contents, regardless of the RDG they
+ * belong to: their presence condition, their model (by its textual form,
+ * which spells out every transition, unlike {@link fdtmc.FDTMC#equals(Object)}
+ * and fingerprints, which disregard the names of variable probabilities)
+ * and the ids and identities of their dependencies. So a node whose model
+ * changed gets a new identity, and so do all of its ancestors, whereas
+ * the other nodes keep their cached reliabilities. Ancestors whose own
+ * model did not change keep their reliability expressions, too, so they
+ * are solved again without being model checked.
+ *
+ * Only the nodes of the last analyzed RDG are kept, so the cache does
+ * not grow across edits. Cached reliabilities are owned by the cache.
+ *
+ * @author thiago
+ */
+final class NodeReliabilityCache {
+
+    private Map<String, Entry> entries = new HashMap<String, Entry>();
+    private Map<String, String> formulasByModel = new HashMap<String, String>();
+    private int nextSerial = 0;
+
+    /**
+     * A distinct node, as identified by the cache.
+     */
+    static final class Entry {
+        private final int serial;
+        private final String identity;
+        private final String model;
+        private ADD reliability;
+
+        private Entry(int serial, String identity, String model) {
+            this.serial = serial;
+            this.identity = identity;
+            this.model = model;
+        }
+
+        String getModel() {
+            return model;
+        }
+
+        ADD getReliability() {
+            return reliability;
+        }
+
+        void setReliability(ADD reliability) {
+            this.reliability = reliability;
+        }
+    }
+
+    /**
+     * Matches an RDG against the cached nodes.
+     */
+    final class Diff {
+        private final Map<RDGNode, Entry> entriesByNode = new HashMap<RDGNode, Entry>();
+        private final Map<String, Entry> entriesByIdentity = new HashMap<String, Entry>();
+        private final List<RDGNode> changedNodes = new ArrayList<RDGNode>();
+        private final List<String> checkedModels = new ArrayList<String>();
+
+        /**
+         * @return a single node for each identity missing from the cache,
+         *          in topological order.
+         */
+        List<RDGNode> getChangedNodes() {
+            return changedNodes;
+        }
+
+        Entry getEntry(RDGNode node) {
+            return entriesByNode.get(node);
+        }
+
+        /**
+         * @return the cached reliability expression of a node's model, or null.
+         */
+        String getFormula(RDGNode node) {
+            return formulasByModel.get(getEntry(node).getModel());
+        }
+
+        void putFormula(RDGNode node, String formula) {
+            formulasByModel.put(getEntry(node).getModel(), formula);
+            checkedModels.add(getEntry(node).getModel());
+        }
+
+        /**
+         * Replaces the cached nodes by those of this diff's RDG, releasing
+         * the reliabilities of the nodes which are not in it.
+         */
+        void commit() {
+            for (Entry entry : entries.values()) {
+                if (entriesByIdentity.get(entry.identity) != entry && entry.reliability != null) {
+                    entry.reliability.release();
+                }
+            }
+            Map<String, String> formulas = new HashMap<String, String>();
+            for (Entry entry : entriesByIdentity.values()) {
+                String formula = formulasByModel.get(entry.model);
+                if (formula != null) {
+                    formulas.put(entry.model, formula);
+                }
+            }
+            entries = entriesByIdentity;
+            formulasByModel = formulas;
+        }
+
+        /**
+         * Leaves the cache as it was, releasing the reliabilities computed
+         * for the changed nodes so far. Formulas computed so far are dropped,
+         * too, since they may be the reason why solving failed.
+         */
+        void abandon() {
+            for (String model : checkedModels) {
+                formulasByModel.remove(model);
+            }
+            for (RDGNode node : changedNodes) {
+                Entry entry = getEntry(node);
+                if (entry.reliability != null) {
+                    entry.reliability.release();
+                    entry.reliability = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param nodes RDG nodes in topological order (as given by
+     *          {@link RDGNode#getDependenciesTransitiveClosure()}).
+     */
+    Diff diff(List<RDGNode> nodes) {
+        Diff diff = new Diff();
+        for (RDGNode node : nodes) {
+            String model = node.getFDTMC().toString();
+            StringBuilder identity = new StringBuilder();
+            identity.append(node.getPresenceCondition()).append('\n').append(model);
+            List<RDGNode> dependencies = new ArrayList<RDGNode>(node.getDependencies());
+            Collections.sort(dependencies, Comparator.comparing(RDGNode::getId));
+            for (RDGNode dependency : dependencies) {
+                identity.append('\n').append(dependency.getId())
+                        .append('=').append(diff.getEntry(dependency).serial);
+            }
+            String key = identity.toString();
+
+            Entry entry = diff.entriesByIdentity.get(key);
+            if (entry == null) {
+                entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(nextSerial++, key, model);
+                    diff.changedNodes.add(node);
+                }
+                diff.entriesByIdentity.put(key, entry);
+            }
+            diff.entriesByNode.put(node, entry);
+        }
+        return diff;
+    }
+
+    /**
+     * Releases all cached reliabilities.
+     */
+    void clear() {
+        for (Entry entry : entries.values()) {
+            if (entry.reliability != null) {
+                entry.reliability.release();
+            }
+        }
+        entries = new HashMap<String, Entry>();
+        formulasByModel = new HashMap<String, String>();
+    }
+
+}
@@ -1,10 +1,11 @@
 package tool.analyzers.strategies;
 
+import jadd.Configuration;
 import jadd.JADD;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
@@ -13,13 +14,14 @@ import tool.CyclicRdgException;
 import tool.RDGNode;
 import tool.UnknownFeatureException;
 import tool.analyzers.IReliabilityAnalysisResults;
-import tool.analyzers.MapBasedReliabilityResults;
+import tool.analyzers.PackedReliabilityResults;
 import tool.analyzers.buildingblocks.Component;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
 import tool.analyzers.buildingblocks.DerivationFunction;
 import tool.analyzers.buildingblocks.IfOperator;
 import tool.analyzers.buildingblocks.PresenceConditions;
 import tool.analyzers.buildingblocks.ProductIterationHelper;
+import tool.analyzers.buildingblocks.ResultsStorage;
 import tool.stats.CollectibleTimers;
 import tool.stats.IFormulaCollector;
 import tool.stats.ITimeCollector;
@@ -33,6 +35,7 @@ import fdtmc.State;
 public class ProductBasedAnalyzer {
     private static final Logger LOGGER = Logger.getLogger(ProductBasedAnalyzer.class.getName());
 
+    private JADD jadd;
     private ExpressionSolver expressionSolver;
     ParametricModelChecker modelChecker;
     /**
@@ -42,12 +45,14 @@ public class ProductBasedAnalyzer {
 
 
     private ITimeCollector timeCollector;
+    private ResultsStorage resultsStorage = ResultsStorage.HEAP;
     private IFormulaCollector formulaCollector;
 
     public ProductBasedAnalyzer(JADD jadd,
                                 ParametricModelChecker modelChecker,
                                 ITimeCollector timeCollector,
                                 IFormulaCollector formulaCollector) {
+        this.jadd = jadd;
         this.expressionSolver = new ExpressionSolver(jadd);
         this.modelChecker = modelChecker;
 
@@ -59,6 +64,15 @@ public class ProductBasedAnalyzer {
                                                        trivialFdtmc());
     }
 
+    /**
+     * Sets where the per-product results are kept. Defaults to the Java heap.
+     *
+     * @param resultsStorage the resultsStorage to set
+     */
+    public void setResultsStorage(ResultsStorage resultsStorage) {
+        this.resultsStorage = resultsStorage;
+    }
+
     /**
      * Evaluates the product-based reliability values of an RDG node.
      *
@@ -67,7 +81,7 @@ public class ProductBasedAnalyzer {
      * @return
      * @throws CyclicRdgException
      */
-    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Collection<String>> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
+    public IReliabilityAnalysisResults evaluateReliability(RDGNode node, Stream<Configuration> configurations, ConcurrencyStrategy concurrencyStrategy) throws CyclicRdgException, UnknownFeatureException {
         if (concurrencyStrategy == ConcurrencyStrategy.PARALLEL) {
             LOGGER.info("Running the whole analysis of each product in parallel.");
         }
@@ -75,20 +89,37 @@ public class ProductBasedAnalyzer {
 
         timeCollector.startTimer(CollectibleTimers.MODEL_CHECKING_TIME);
 
-        Map<Collection<String>, Double> results = ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
-                                                                                                                  configuration,
-                                                                                                                  dependencies),
-                                                                                  configurations,
-                                                                                  concurrencyStrategy);
+        PackedReliabilityResults results = new PackedReliabilityResults(jadd, resultsStorage);
+        // In parallel, each thread encodes presence conditions on its own
+        // replica of the ADD manager, so that threads do not contend for its lock.
+        Queue<JADD> replicas = new ConcurrentLinkedQueue<JADD>();
+        ThreadLocal<ExpressionSolver> replicaSolver = ThreadLocal.withInitial(() -> {
+            JADD replica = jadd.replicate();
+            replicas.add(replica);
+            return new ExpressionSolver(replica);
+        });
+        try {
+            ProductIterationHelper.evaluate(configuration -> evaluateSingle(node,
+                                                                            configuration,
+                                                                            dependencies,
+                                                                            (concurrencyStrategy == ConcurrencyStrategy.PARALLEL)
+                                                                                    ? replicaSolver.get()
+                                                                                    : expressionSolver),
+                                            configurations,
+                                            concurrencyStrategy,
+                                            results);
+        } finally {
+            replicas.forEach(JADD::close);
+        }
 
         timeCollector.stopTimer(CollectibleTimers.MODEL_CHECKING_TIME);
-        return new MapBasedReliabilityResults(results);
+        return results;
     }
 
-    private Double evaluateSingle(RDGNode node, Collection<String> configuration, List<RDGNode> dependencies) throws UnknownFeatureException {
+    private Double evaluateSingle(RDGNode node, Configuration configuration, List<RDGNode> dependencies, ExpressionSolver expressionSolver) throws UnknownFeatureException {
         List<Component<FDTMC>> models = RDGNode.toComponentList(dependencies);
         // Lambda folding
-        FDTMC rootModel = deriveFromMany(models, configuration);
+        FDTMC rootModel = deriveFromMany(models, configuration, expressionSolver);
         // Alpha
         String reliabilityExpression = modelChecker.getReliability(rootModel);
         formulaCollector.collectFormula(node, reliabilityExpression);
@@ -96,7 +127,7 @@ public class ProductBasedAnalyzer {
         return expressionSolver.solveExpression(reliabilityExpression);
     }
 
-    private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Collection<String> configuration) {
+    private FDTMC deriveFromMany(List<Component<FDTMC>> dependencies, Configuration configuration, ExpressionSolver expressionSolver) {
         return Component.deriveFromMany(dependencies,
                                         derive,
                                         c -> PresenceConditions.isPresent(c.getPresenceCondition(),
@@ -5,5 +5,9 @@ public interface CollectibleTimers {
     public static final String PARSING_TIME = "Parsing time";
     public static final String MODEL_CHECKING_TIME = "Model checking time";
     public static final String EXPRESSION_SOLVING_TIME = "Expression solving time";
+    /**
+     * Model checking and expression solving, when they are run concurrently.
+     */
+    public static final String PIPELINED_ANALYSIS_TIME = "Model checking and expression solving time (pipelined)";
 
 }
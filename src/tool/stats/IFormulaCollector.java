@@ -13,6 +13,12 @@ public interface IFormulaCollector {
 
     public void collectFormula(RDGNode node, String formula);
 
+    /**
+     * Collects the number of arithmetic operations needed to solve a node's
+     * formula before and after its multilinear reduction.
+     */
+    public void collectMultilinearReduction(RDGNode node, long originalOperations, long reducedOperations);
+
     public void printStats(PrintStream out);
 
 }
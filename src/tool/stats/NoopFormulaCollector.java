@@ -11,6 +11,11 @@ public class NoopFormulaCollector implements IFormulaCollector {
         // No-op
     }
 
+    @Override
+    public void collectMultilinearReduction(RDGNode node, long originalOperations, long reducedOperations) {
+        // No-op
+    }
+
     @Override
     public void printStats(PrintStream out) {
         // No-op
@@ -0,0 +1,146 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+
+/**
+ * Long-running analysis server, which keeps SPLs loaded (see {@link AnalysisService})
+ * so that their configurations can be queried again and again without
+ * paying for the JVM start-up, the parsing and the model checking each time.
+ *
+ * It only listens on the loopback interface. Each connection carries
+ * newline-delimited JSON: one request per line, each one answered by a
+ * response line, in order.
+ *
+ * @author thiago
+ */
+public class AnalysisServer {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisServer.class.getName());
+
+    private final AnalysisService service = new AnalysisService();
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+
+    /**
+     * Binds the server to a loopback port.
+     *
+     * @param port Port to listen on, or 0 for any free one.
+     * @param threads Maximum number of connections served at once.
+     */
+    public AnalysisServer(int port, int threads) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connections = Executors.newFixedThreadPool(threads);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until a shutdown request or a call to {@link #stop()},
+     * then frees all loaded SPLs.
+     */
+    public void serve() {
+        try {
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    // Closed by stop().
+                    break;
+                }
+                connections.execute(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, e.toString(), e);
+        } finally {
+            stop();
+            connections.shutdown();
+            service.close();
+        }
+    }
+
+    /**
+     * Stops accepting connections. Those already open are served until
+     * their clients close them.
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e.toString(), e);
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket client = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                                                                          StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(),
+                                                                    StandardCharsets.UTF_8))) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.trim().isEmpty()) {
+                    continue;
+                }
+                out.write(service.handle(request));
+                out.write('\n');
+                out.flush();
+                if (service.isShutdownRequested()) {
+                    stop();
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Connection dropped", e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        OptionParser optionParser = new OptionParser();
+        OptionSpec<Integer> portOption = optionParser
+                .accepts("port")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(8765);
+        OptionSpec<Integer> threadsOption = optionParser
+                .accepts("threads",
+                         "Maximum number of connections served at once")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(Runtime.getRuntime().availableProcessors());
+        OptionSet options = optionParser.parse(args);
+
+        try {
+            LogManager.getLogManager().readConfiguration(new FileInputStream("logging.properties"));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+        AnalysisServer server = new AnalysisServer(options.valueOf(portOption), options.valueOf(threadsOption));
+        System.out.println("Analysis server listening on "
+                + server.serverSocket.getInetAddress().getHostAddress() + ":" + server.getPort());
+        server.serve();
+    }
+
+}
@@ -0,0 +1,246 @@
+package ui;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tool.CyclicRdgException;
+import tool.ModelCheckerStrategy;
+import tool.UnknownFeatureException;
+
+/**
+ * Answers the requests of the analysis server (see {@link AnalysisServer})
+ * against the SPLs it keeps loaded, independently of any transport.
+ *
+ * Each request is a JSON object whose "command" member is one of:
+ * <ul>
+ * <li>load: analyzes an SPL (members "name", "featureModel", "umlModels" and,
+ *      optionally, "modelChecker", "paramPath", "featureTree" and
+ *      "familyReliability", as in the command-line options) and keeps it
+ *      under the given name, replacing any SPL already there;</li>
+ * <li>reload: loads the SPL "name" again from the same files;</li>
+ * <li>evict: frees the SPL "name";</li>
+ * <li>list: lists the loaded SPLs;</li>
+ * <li>query: evaluates a "configuration" (an array of feature names) of the SPL "name";</li>
+ * <li>batch: evaluates many "configurations" of the SPL "name" at once;</li>
+ * <li>aggregate: summarizes the reliabilities of all valid configurations of the SPL "name";</li>
+ * <li>shutdown: asks the server to stop.</li>
+ * </ul>
+ * The response is a JSON object whose "ok" member tells whether the request
+ * succeeded and, if not, whose "error" member tells why.
+ *
+ * Requests can be handled concurrently.
+ *
+ * @author thiago
+ */
+class AnalysisService {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisService.class.getName());
+
+    private static final String DEFAULT_PARAM_PATH = "/opt/param-2-3-64";
+
+    private final Map<String, ResidentSpl> spls = new ConcurrentHashMap<String, ResidentSpl>();
+    private volatile boolean shutdownRequested = false;
+
+    /**
+     * @param request A JSON object.
+     * @return the JSON response.
+     */
+    String handle(String request) {
+        Map<String, Object> response;
+        try {
+            Object parsed = Json.parse(request);
+            if (!(parsed instanceof Map)) {
+                throw new IllegalArgumentException("Requests must be JSON objects");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> members = (Map<String, Object>) parsed;
+            response = new LinkedHashMap<String, Object>();
+            response.put("ok", true);
+            response.putAll(handle(members));
+        } catch (UnknownFeatureException e) {
+            response = error("Unknown feature: " + e.getFeatureName());
+        } catch (CyclicRdgException e) {
+            response = error("Cyclic dependency detected in RDG");
+        } catch (IOException e) {
+            response = error("I/O error: " + e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response = error(e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed request: " + request, e);
+            response = error(e.toString());
+        }
+        return Json.write(response);
+    }
+
+    /**
+     * @return whether a shutdown command has been handled.
+     */
+    boolean isShutdownRequested() {
+        return shutdownRequested;
+    }
+
+    /**
+     * Frees all loaded SPLs.
+     */
+    void close() {
+        for (String name : new ArrayList<String>(spls.keySet())) {
+            evict(name);
+        }
+    }
+
+    private Map<String, Object> handle(Map<String, Object> request) throws IOException {
+        String command = getString(request, "command");
+        switch (command) {
+        case "load":
+            return load(request);
+        case "reload":
+            return put(getSpl(request).reload());
+        case "evict":
+            if (!evict(getString(request, "name"))) {
+                throw new IllegalArgumentException("No such SPL: " + getString(request, "name"));
+            }
+            return new LinkedHashMap<String, Object>();
+        case "list":
+            return list();
+        case "query":
+            return query(request);
+        case "batch":
+            return batch(request);
+        case "aggregate":
+            return new LinkedHashMap<String, Object>(getSpl(request).getAggregates());
+        case "shutdown":
+            shutdownRequested = true;
+            return new LinkedHashMap<String, Object>();
+        default:
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private Map<String, Object> load(Map<String, Object> request) throws IOException {
+        String modelChecker = getOptionalString(request, "modelChecker");
+        String paramPath = getOptionalString(request, "paramPath");
+        ResidentSpl.Source source = new ResidentSpl.Source(
+                getString(request, "featureModel"),
+                getString(request, "umlModels"),
+                (paramPath != null) ? paramPath : DEFAULT_PARAM_PATH,
+                (modelChecker != null) ? ModelCheckerStrategy.valueOf(modelChecker) : ModelCheckerStrategy.STATE_ELIMINATION,
+                getOptionalString(request, "featureTree"),
+                getOptionalString(request, "familyReliability"));
+        return put(ResidentSpl.load(getString(request, "name"), source));
+    }
+
+    /**
+     * Makes a freshly loaded SPL available, freeing the one it replaces.
+     */
+    private Map<String, Object> put(ResidentSpl spl) {
+        ResidentSpl previous = spls.put(spl.getName(), spl);
+        if (previous != null && previous != spl) {
+            previous.close();
+        }
+        return describe(spl);
+    }
+
+    private boolean evict(String name) {
+        ResidentSpl spl = spls.remove(name);
+        if (spl == null) {
+            return false;
+        }
+        spl.close();
+        return true;
+    }
+
+    private Map<String, Object> list() {
+        List<Object> loaded = new ArrayList<Object>();
+        for (ResidentSpl spl : spls.values()) {
+            loaded.add(describe(spl));
+        }
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("spls", loaded);
+        return response;
+    }
+
+    private Map<String, Object> query(Map<String, Object> request) {
+        ResidentSpl spl = getSpl(request);
+        List<String> configuration = getFeatures(request.get("configuration"));
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("reliability", spl.getReliability(configuration));
+        response.put("valid", spl.isValidConfiguration(configuration));
+        return response;
+    }
+
+    private Map<String, Object> batch(Map<String, Object> request) {
+        ResidentSpl spl = getSpl(request);
+        Object configurations = request.get("configurations");
+        if (!(configurations instanceof List)) {
+            throw new IllegalArgumentException("Expected an array of configurations");
+        }
+        List<List<String>> features = new ArrayList<List<String>>();
+        for (Object configuration : (List<?>) configurations) {
+            features.add(getFeatures(configuration));
+        }
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("reliabilities", spl.getReliabilities(features));
+        return response;
+    }
+
+    private static Map<String, Object> describe(ResidentSpl spl) {
+        Map<String, Object> description = new LinkedHashMap<String, Object>();
+        description.put("name", spl.getName());
+        description.put("rdgNodes", spl.getRdgSize());
+        description.put("loadTimeMs", spl.getLoadTime());
+        return description;
+    }
+
+    private ResidentSpl getSpl(Map<String, Object> request) {
+        String name = getString(request, "name");
+        ResidentSpl spl = spls.get(name);
+        if (spl == null) {
+            throw new IllegalArgumentException("No such SPL: " + name);
+        }
+        return spl;
+    }
+
+    private static List<String> getFeatures(Object configuration) {
+        if (!(configuration instanceof Collection)) {
+            throw new IllegalArgumentException("Expected a configuration as an array of feature names");
+        }
+        List<String> features = new ArrayList<String>();
+        for (Object feature : (Collection<?>) configuration) {
+            if (!(feature instanceof String)) {
+                throw new IllegalArgumentException("Expected a feature name, but got " + Json.write(feature));
+            }
+            features.add((String) feature);
+        }
+        return features;
+    }
+
+    private static String getString(Map<String, Object> request, String member) {
+        String value = getOptionalString(request, member);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing member: " + member);
+        }
+        return value;
+    }
+
+    private static String getOptionalString(Map<String, Object> request, String member) {
+        Object value = request.get(member);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Expected a string as " + member);
+        }
+        return (String) value;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("ok", false);
+        response.put("error", message);
+        return response;
+    }
+
+}
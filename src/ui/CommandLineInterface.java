@@ -13,7 +13,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -26,20 +25,16 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
+import jadd.Configuration;
 import modeling.DiagramAPI;
 import modeling.IModelerAPI;
 
 import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
+import paramwrapper.FormulaCache;
 import paramwrapper.IModelCollector;
+import parsing.XMIDocument;
+import parsing.SplGeneratorModels.Feature;
 import parsing.SplGeneratorModels.SplGeneratorModelingAPI;
 import parsing.exceptions.InvalidNodeClassException;
 import parsing.exceptions.InvalidNodeType;
@@ -50,7 +45,10 @@ import tool.Analyzer;
 import tool.CyclicRdgException;
 import tool.PruningStrategyFactory;
 import tool.RDGNode;
+import tool.RdgContext;
 import tool.UnknownFeatureException;
+import tool.VariableOrdering;
+import tool.analyzers.ADDReliabilityResults;
 import tool.analyzers.IReliabilityAnalysisResults;
 import tool.analyzers.strategies.FeatureFamilyProduct;
 import tool.stats.CollectibleTimers;
@@ -95,17 +93,17 @@ public class CommandLineInterface {
 		memoryCollector.takeSnapshot("after model parsing");
 
 		Analyzer analyzer = makeAnalyzer(options);
-		Stream<Collection<String>> targetConfigurations = getTargetConfigurations(options, analyzer);
+		Stream<Configuration> targetConfigurations = getTargetConfigurations(options, analyzer);
 
 		memoryCollector.takeSnapshot("before evaluation");
 		long analysisStartTime = System.currentTimeMillis();
-		Stream<Collection<String>> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
+		Stream<Configuration> validConfigs = targetConfigurations.filter(analyzer::isValidConfiguration);
 		IReliabilityAnalysisResults familyReliability = evaluateReliability(analyzer, rdgRoot, validConfigs, options);
 		long totalAnalysisTime = System.currentTimeMillis() - analysisStartTime;
 		memoryCollector.takeSnapshot("after evaluation");
 
 		if (!options.hasSuppressReport()) {
-			Map<Boolean, List<Collection<String>>> splitConfigs = getTargetConfigurations(options, analyzer)
+			Map<Boolean, List<Configuration>> splitConfigs = getTargetConfigurations(options, analyzer)
 					.collect(Collectors.partitioningBy(analyzer::isValidConfiguration));
 			printAnalysisResults(splitConfigs, familyReliability);
 		}
@@ -125,7 +123,7 @@ public class CommandLineInterface {
 	 * @return
 	 */
 	private static IReliabilityAnalysisResults evaluateReliability(Analyzer analyzer, RDGNode rdgRoot,
-			Stream<Collection<String>> validConfigs, Options options) {
+			Stream<Configuration> validConfigs, Options options) {
 		IReliabilityAnalysisResults results = null;
 		System.out.println(options.getPruningStrategy());
 		switch (options.getAnalysisStrategy()) {
@@ -157,6 +155,15 @@ public class CommandLineInterface {
 			Options options) {
 		IReliabilityAnalysisResults results = null;
 		String dotOutput = "family-reliability.dot";
+		if (options.getLoadReliabilityFilePath() != null) {
+			try {
+				return analyzer.loadFeatureFamilyBasedReliability(options.getLoadReliabilityFilePath());
+			} catch (IOException e) {
+				LOGGER.severe("Could not load family reliability from " + options.getLoadReliabilityFilePath());
+				LOGGER.log(Level.SEVERE, e.toString(), e);
+				System.exit(3);
+			}
+		}
 		try {
 			analyzer.setPruningStrategy(PruningStrategyFactory.createPruningStrategy(options.getPruningStrategy()));
 			results = analyzer.evaluateFeatureFamilyBasedReliability(rdgRoot, null);
@@ -166,12 +173,22 @@ public class CommandLineInterface {
 			System.exit(2);
 		}
 		OUTPUT.println("Family-wide reliability decision diagram dumped at " + dotOutput);
+		if (options.getSaveReliabilityFilePath() != null && results instanceof ADDReliabilityResults) {
+			try {
+				analyzer.saveFeatureFamilyBasedReliability((ADDReliabilityResults) results,
+						options.getSaveReliabilityFilePath());
+				OUTPUT.println("Family-wide reliability function saved at " + options.getSaveReliabilityFilePath());
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Could not save family reliability to "
+						+ options.getSaveReliabilityFilePath(), e);
+			}
+		}
 		return results;
 	}
 
 	private static IReliabilityAnalysisResults evaluateReliability(
-			BiFunction<RDGNode, Stream<Collection<String>>, IReliabilityAnalysisResults> analyzer, RDGNode rdgRoot,
-			Stream<Collection<String>> validConfigs) {
+			BiFunction<RDGNode, Stream<Configuration>, IReliabilityAnalysisResults> analyzer, RDGNode rdgRoot,
+			Stream<Configuration> validConfigs) {
 		System.out.println(analyzer);
 		IReliabilityAnalysisResults results = null;
 		try {
@@ -196,11 +213,61 @@ public class CommandLineInterface {
 		String featureModel = readFeatureModel(featureModelFile);
 
 		String paramPath = options.getParamPath();
-		Analyzer analyzer = new Analyzer(featureModel, paramPath, timeCollector, formulaCollector, modelCollector);
+		Analyzer analyzer = new Analyzer(featureModel, paramPath, options.getModelCheckerStrategy(),
+				makeFormulaCache(options), timeCollector, formulaCollector, modelCollector);
 		analyzer.setConcurrencyStrategy(options.getConcurrencyStrategy());
+		analyzer.setResultsStorage(options.getResultsStorage());
+		analyzer.setDynamicReordering(options.hasDynamicReordering());
+		if (options.getFeatureTreeFilePath() != null) {
+			orderVariables(analyzer, options);
+		}
 		return analyzer;
 	}
 
+	/**
+	 * Orders variables according to the feature tree given in the options.
+	 * @param analyzer
+	 * @param options
+	 */
+	private static void orderVariables(Analyzer analyzer, Options options) {
+		Feature root;
+		try {
+			root = Feature.importXml(new File(options.getFeatureTreeFilePath()));
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Feature-tree ordering disabled: could not read "
+					+ options.getFeatureTreeFilePath(), e);
+			return;
+		}
+		int nodesBefore = analyzer.getFeatureModelNodeCount();
+		analyzer.orderVariables(VariableOrdering.fromFeatureTree(root));
+		int nodesAfter = analyzer.getFeatureModelNodeCount();
+
+		String message = "Feature model nodes: " + nodesBefore + " (default order) -> "
+				+ nodesAfter + " (feature-tree order)";
+		LOGGER.info(message);
+		if (options.hasStatsEnabled()) {
+			OUTPUT.println(message);
+		}
+	}
+
+	/**
+	 * @param options
+	 * @return the formula cache selected in the options, or null if there is none
+	 *          (or if it could not be created).
+	 */
+	private static FormulaCache makeFormulaCache(Options options) {
+		String directory = options.getFormulaCacheDirectory();
+		if (directory == null) {
+			return null;
+		}
+		try {
+			return new FormulaCache(Paths.get(directory), options.getFormulaCacheSize());
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Formula cache disabled: could not create " + directory, e);
+			return null;
+		}
+	}
+
 	/**
 	 * @param options
 	 */
@@ -212,11 +279,11 @@ public class CommandLineInterface {
 		modelCollector = statsCollectorFactory.createModelCollector();
 	}
 
-	private static Stream<Collection<String>> getTargetConfigurations(Options options, Analyzer analyzer) {
+	private static Stream<Configuration> getTargetConfigurations(Options options, Analyzer analyzer) {
 		if (options.hasPrintAllConfigurations()) {
 			return analyzer.getValidConfigurations();
 		} else {
-			Set<Collection<String>> configurations = new HashSet<Collection<String>>();
+			Set<Configuration> configurations = new HashSet<Configuration>();
 
 			List<String> rawConfigurations = new LinkedList<String>();
 			if (options.getConfiguration() != null) {
@@ -233,32 +300,43 @@ public class CommandLineInterface {
 
 			for (String rawConfiguration : rawConfigurations) {
 				String[] variables = rawConfiguration.split(",");
-				configurations.add(Arrays.asList(variables));
+				configurations.add(analyzer.makeConfiguration(Arrays.asList(variables)));
 			}
 
 			return configurations.stream();
 		}
 	}
 
-	private static void printAnalysisResults(Map<Boolean, List<Collection<String>>> splitConfigs,
+	private static void printAnalysisResults(Map<Boolean, List<Configuration>> splitConfigs,
 			IReliabilityAnalysisResults familyReliability) {
 		OUTPUT.println("Configurations:");
 		OUTPUT.println("=========================================");
 
-		List<Collection<String>> validConfigs = splitConfigs.get(true);
+		List<Configuration> validConfigs = splitConfigs.get(true);
 		// Ordered report
 		validConfigs.sort((c1, c2) -> c1.toString().compareTo(c2.toString()));
-		for (Collection<String> validConfig : validConfigs) {
+		double[] reliabilities = null;
+		try {
+			reliabilities = familyReliability.getResults(validConfigs);
+		} catch (UnknownFeatureException e) {
+			// Fall back to evaluating one configuration at a time, so that
+			// only those with unknown features are left out.
+		}
+		int i = 0;
+		for (Configuration validConfig : validConfigs) {
 			try {
-				String[] configurationAsArray = validConfig.toArray(new String[validConfig.size()]);
-				printSingleConfiguration(validConfig.toString(), familyReliability.getResult(configurationAsArray));
+				if (reliabilities != null) {
+					printSingleConfiguration(validConfig.toString(), reliabilities[i++]);
+				} else {
+					printSingleConfiguration(validConfig.toString(), familyReliability.getResult(validConfig));
+				}
 			} catch (UnknownFeatureException e) {
 				LOGGER.severe("Unrecognized feature: " + e.getFeatureName());
 				LOGGER.log(Level.SEVERE, e.toString(), e);
 			}
 		}
 
-		for (Collection<String> invalidConfig : splitConfigs.get(false)) {
+		for (Configuration invalidConfig : splitConfigs.get(false)) {
 			printSingleConfiguration(invalidConfig.toString(), 0);
 		}
 
@@ -353,7 +431,7 @@ public class CommandLineInterface {
 	 * @throws InvalidNodeClassException
 	 * @throws InvalidNumberOfOperandsException
 	 */
-	private static RDGNode model(File umlModels, ITimeCollector timeCollector) throws UnsupportedFragmentTypeException,
+	static RDGNode model(File umlModels, ITimeCollector timeCollector) throws UnsupportedFragmentTypeException,
 			InvalidTagException, InvalidNumberOfOperandsException, InvalidNodeClassException, InvalidNodeType {
 		String exporter = identifyExporter(umlModels);
 		IModelerAPI modeler = null;
@@ -374,7 +452,7 @@ public class CommandLineInterface {
 			break;
 		}
 
-		RDGNode result = modeler.transform();
+		RDGNode result = modeler.transform(new RdgContext());
 		timeCollector.stopTimer(CollectibleTimers.PARSING_TIME);
 
 		return result;
@@ -389,21 +467,16 @@ public class CommandLineInterface {
 	 */
 	private static String identifyExporter(File umlModels) {
 		String answer = null;
-		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-
-		DocumentBuilder builder;
-		Document doc = null;
+		String exporter;
 		try {
-			builder = factory.newDocumentBuilder();
-			doc = builder.parse(umlModels);
-		} catch (ParserConfigurationException | SAXException | IOException e) {
-			e.printStackTrace();
+			exporter = XMIDocument.readExporter(umlModels);
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, e.toString(), e);
+			return answer;
 		}
 
-		NodeList nodes = doc.getElementsByTagName("xmi:exporter");
-		if (nodes.getLength() > 0) {
-			Element e = (Element) nodes.item(0);
-			if (e.getTextContent().equals("MagicDraw UML")) {
+		if (exporter != null) {
+			if (exporter.equals("MagicDraw UML")) {
 				answer = "MagicDraw";
 			}
 		} else {
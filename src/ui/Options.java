@@ -5,9 +5,11 @@ import java.io.IOException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import tool.ModelCheckerStrategy;
 import tool.PruningStrategy;
 import tool.analyzers.AnalysisStrategy;
 import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ResultsStorage;
 
 
 /**
@@ -25,8 +27,16 @@ class Options {
     private boolean suppressReport;
     private boolean statsEnabled;
     private ConcurrencyStrategy concurrencyStrategy;
+    private ResultsStorage resultsStorage;
     private PruningStrategy pruningStrategy;
     private AnalysisStrategy analysisStrategy;
+    private ModelCheckerStrategy modelCheckerStrategy;
+    private String formulaCacheDirectory;
+    private int formulaCacheSize;
+    private String featureTreeFilePath;
+    private boolean dynamicReordering;
+    private String saveReliabilityFilePath;
+    private String loadReliabilityFilePath;
 
     static Options parseOptions(String[] args) throws IOException {
         OptionParser optionParser = new OptionParser();
@@ -72,6 +82,13 @@ class Options {
                         .ofType(ConcurrencyStrategy.class)
                         .defaultsTo(ConcurrencyStrategy.PARALLEL)
                         .describedAs("PARALLEL | SEQUENTIAL");
+        OptionSpec<ResultsStorage> resultsStorageOption = optionParser
+                .accepts("results-storage",
+                         "Where product-oriented strategies keep per-product results: in the Java heap (HEAP), in native memory (OFF_HEAP) or in a memory-mapped temporary file (MAPPED)")
+                .withRequiredArg()
+                .ofType(ResultsStorage.class)
+                .defaultsTo(ResultsStorage.HEAP)
+                .describedAs("HEAP | OFF_HEAP | MAPPED");
         OptionSpec<PruningStrategy> pruningStrategyOption = optionParser
                 .accepts("pruning-strategy",
                          "The strategy that should be used for pruning invalid configurations. Can be one of: FM (whole feature model); NONE (no pruning)")
@@ -93,6 +110,51 @@ class Options {
                 .defaultsTo(AnalysisStrategy.FEATURE_FAMILY)
                 .describedAs("FEATURE_FAMILY | FEATURE_PRODUCT | FAMILY | FAMILY_PRODUCT | PRODUCT | FEATURE_FAMILY_PRODUCT ");
 
+        OptionSpec<ModelCheckerStrategy> modelCheckerStrategyOption = optionParser
+                .accepts("model-checker",
+                         "The parametric model checker to be used. Can be one of: "
+                                 + "PARAM (external PARAM or Prism process at --param-path); "
+                                 + "STATE_ELIMINATION (in-process state elimination); "
+                                 + "SYMBOLIC (in-process state elimination on ADDs, for FEATURE_FAMILY).")
+                .withRequiredArg()
+                .ofType(ModelCheckerStrategy.class)
+                .defaultsTo(ModelCheckerStrategy.PARAM)
+                .describedAs("PARAM | STATE_ELIMINATION | SYMBOLIC");
+
+        OptionSpec<String> formulaCacheOption = optionParser
+                .accepts("formula-cache",
+                         "Directory in which to cache model checking results across runs (disabled by default)")
+                .withRequiredArg()
+                .describedAs("Directory");
+        OptionSpec<Integer> formulaCacheSizeOption = optionParser
+                .accepts("formula-cache-size",
+                         "Maximum number of formulas kept in the --formula-cache directory")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(10000)
+                .describedAs("Entries");
+
+        OptionSpec<String> featureTreeOption = optionParser
+                .accepts("feature-tree",
+                         "FeatureIDE model (XML) from which to derive the initial variable ordering")
+                .withRequiredArg()
+                .describedAs("File");
+        OptionSpec<Void> dynamicReorderingOption = optionParser
+                .accepts("dynamic-reordering",
+                         "Dynamically reorder variables (by group sifting) during FEATURE_FAMILY lifting");
+
+        OptionSpec<String> saveReliabilityOption = optionParser
+                .accepts("save-family-reliability",
+                         "File in which to save the FEATURE_FAMILY reliability function for later runs")
+                .withRequiredArg()
+                .describedAs("File");
+        OptionSpec<String> loadReliabilityOption = optionParser
+                .accepts("load-family-reliability",
+                         "Answer queries from a reliability function saved by --save-family-reliability, "
+                                 + "instead of analyzing the models (FEATURE_FAMILY only)")
+                .withRequiredArg()
+                .describedAs("File");
+
         OptionSpec<Void> helpOption = optionParser
                 .accepts("help")
                 .forHelp();
@@ -113,8 +175,16 @@ class Options {
         result.suppressReport = options.has(suppressReportOption);
         result.statsEnabled = options.has(statsEnabledOption);
         result.concurrencyStrategy = options.valueOf(concurrencyStrategyOption);
+        result.resultsStorage = options.valueOf(resultsStorageOption);
         result.pruningStrategy = options.valueOf(pruningStrategyOption);
         result.analysisStrategy = options.valueOf(analysisStrategyOption);
+        result.modelCheckerStrategy = options.valueOf(modelCheckerStrategyOption);
+        result.formulaCacheDirectory = options.valueOf(formulaCacheOption);
+        result.formulaCacheSize = options.valueOf(formulaCacheSizeOption);
+        result.featureTreeFilePath = options.valueOf(featureTreeOption);
+        result.dynamicReordering = options.has(dynamicReorderingOption);
+        result.saveReliabilityFilePath = options.valueOf(saveReliabilityOption);
+        result.loadReliabilityFilePath = options.valueOf(loadReliabilityOption);
 
         return result;
     }
@@ -155,6 +225,10 @@ class Options {
         return concurrencyStrategy;
     }
 
+    public ResultsStorage getResultsStorage() {
+        return resultsStorage;
+    }
+
     public PruningStrategy getPruningStrategy() {
         return pruningStrategy;
     }
@@ -163,4 +237,46 @@ class Options {
         return analysisStrategy;
     }
 
+    public ModelCheckerStrategy getModelCheckerStrategy() {
+        return modelCheckerStrategy;
+    }
+
+    /**
+     * @return the formula cache directory, or null if caching is disabled.
+     */
+    public String getFormulaCacheDirectory() {
+        return formulaCacheDirectory;
+    }
+
+    public int getFormulaCacheSize() {
+        return formulaCacheSize;
+    }
+
+    /**
+     * @return the FeatureIDE model file, or null if none was given.
+     */
+    public String getFeatureTreeFilePath() {
+        return featureTreeFilePath;
+    }
+
+    public boolean hasDynamicReordering() {
+        return dynamicReordering;
+    }
+
+    /**
+     * @return the file in which to save the family reliability function,
+     *          or null if it is not to be saved.
+     */
+    public String getSaveReliabilityFilePath() {
+        return saveReliabilityFilePath;
+    }
+
+    /**
+     * @return the file from which to load a previously saved family reliability
+     *          function, or null if it is to be computed.
+     */
+    public String getLoadReliabilityFilePath() {
+        return loadReliabilityFilePath;
+    }
+
 }
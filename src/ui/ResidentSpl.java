@@ -0,0 +1,330 @@
+package ui;
+
+import jadd.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.w3c.dom.DOMException;
+
+import parsing.SplGeneratorModels.Feature;
+import parsing.exceptions.InvalidNodeClassException;
+import parsing.exceptions.InvalidNodeType;
+import parsing.exceptions.InvalidNumberOfOperandsException;
+import parsing.exceptions.InvalidTagException;
+import parsing.exceptions.UnsupportedFragmentTypeException;
+import paramwrapper.NoopModelCollector;
+import tool.Analyzer;
+import tool.ModelCheckerStrategy;
+import tool.PruningStrategy;
+import tool.PruningStrategyFactory;
+import tool.RDGNode;
+import tool.VariableOrdering;
+import tool.analyzers.ADDReliabilityResults;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+
+/**
+ * An SPL analyzed once and kept in memory, along with its RDG and its
+ * family-wide reliability ADD, so that configurations can be queried
+ * without parsing or model checking anything again.
+ *
+ * Queries can run concurrently. Closing an SPL waits for the ongoing
+ * ones, frees its decision diagrams and makes later queries fail.
+ *
+ * @author thiago
+ */
+class ResidentSpl {
+    private static final int AGGREGATE_CHUNK_SIZE = 4096;
+
+    private final String name;
+    private final Source source;
+    private final String featureModel;
+    private final Analyzer analyzer;
+    // Replaced by incremental reloads, which hold the write lock to do so.
+    private volatile RDGNode rdgRoot;
+    private IReliabilityAnalysisResults familyReliability;
+    private volatile long loadTime;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadLock = new Object();
+    // Guarded by the lock.
+    private boolean closed = false;
+    // Guarded by this object's monitor.
+    private Map<String, Object> aggregates = null;
+
+    /**
+     * Files and settings an SPL is loaded from, kept so that it can be
+     * loaded again from scratch.
+     */
+    static final class Source {
+        final String featureModelFilePath;
+        final String umlModelsFilePath;
+        final String paramPath;
+        final ModelCheckerStrategy modelCheckerStrategy;
+        final String featureTreeFilePath;
+        final String loadReliabilityFilePath;
+
+        /**
+         * @param featureTreeFilePath Feature tree to order variables by, possibly null.
+         * @param loadReliabilityFilePath Saved family reliability to load instead of
+         *          analyzing the models, possibly null.
+         */
+        Source(String featureModelFilePath, String umlModelsFilePath, String paramPath,
+               ModelCheckerStrategy modelCheckerStrategy, String featureTreeFilePath,
+               String loadReliabilityFilePath) {
+            this.featureModelFilePath = featureModelFilePath;
+            this.umlModelsFilePath = umlModelsFilePath;
+            this.paramPath = paramPath;
+            this.modelCheckerStrategy = modelCheckerStrategy;
+            this.featureTreeFilePath = featureTreeFilePath;
+            this.loadReliabilityFilePath = loadReliabilityFilePath;
+        }
+    }
+
+    private ResidentSpl(String name, Source source, String featureModel, Analyzer analyzer, RDGNode rdgRoot,
+                        IReliabilityAnalysisResults familyReliability, long loadTime) {
+        this.name = name;
+        this.source = source;
+        this.featureModel = featureModel;
+        this.analyzer = analyzer;
+        this.rdgRoot = rdgRoot;
+        this.familyReliability = familyReliability;
+        this.loadTime = loadTime;
+    }
+
+    /**
+     * Parses the models and computes the family-wide reliability (or loads it,
+     * if the source says so), as the feature-family-based strategy does.
+     *
+     * @throws IOException if some file cannot be read.
+     * @throws IllegalArgumentException if the models cannot be transformed.
+     */
+    static ResidentSpl load(String name, Source source) throws IOException {
+        long startTime = System.currentTimeMillis();
+        RDGNode rdgRoot = buildRdg(source);
+        String featureModel = readFeatureModel(source);
+        Analyzer analyzer = new Analyzer(featureModel, source.paramPath, source.modelCheckerStrategy, null,
+                                         new NoopTimeCollector(), new NoopFormulaCollector(),
+                                         new NoopModelCollector());
+        IReliabilityAnalysisResults familyReliability;
+        try {
+            if (source.featureTreeFilePath != null) {
+                Feature root = Feature.importXml(new File(source.featureTreeFilePath));
+                analyzer.orderVariables(VariableOrdering.fromFeatureTree(root));
+            }
+            if (source.loadReliabilityFilePath != null) {
+                familyReliability = analyzer.loadFeatureFamilyBasedReliability(source.loadReliabilityFilePath);
+            } else {
+                analyzer.setPruningStrategy(PruningStrategyFactory.createPruningStrategy(PruningStrategy.FM));
+                familyReliability = analyzer.evaluateFeatureFamilyBasedReliabilityIncrementally(rdgRoot);
+            }
+        } catch (IOException | RuntimeException e) {
+            analyzer.close();
+            throw e;
+        }
+        return new ResidentSpl(name, source, featureModel, analyzer, rdgRoot, familyReliability,
+                               System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Loads this SPL again from its source, e.g., after its files changed.
+     *
+     * If only the UML models changed, this SPL is updated in place: the new
+     * RDG is analyzed incrementally, so that only the nodes affected by the
+     * changes are model checked and solved again. Queries keep being answered
+     * from the previous results in the meantime.
+     *
+     * Otherwise (or if the family reliability is loaded from a file), a new
+     * SPL is loaded from scratch and this one is left untouched.
+     *
+     * @return this SPL, or the one which replaces it.
+     */
+    ResidentSpl reload() throws IOException {
+        if (source.loadReliabilityFilePath != null || !featureModel.equals(readFeatureModel(source))) {
+            return load(name, source);
+        }
+        synchronized (reloadLock) {
+            long startTime = System.currentTimeMillis();
+            RDGNode newRdgRoot = buildRdg(source);
+            IReliabilityAnalysisResults newReliability = withReadLock(
+                    () -> analyzer.evaluateFeatureFamilyBasedReliabilityIncrementally(newRdgRoot));
+
+            Lock writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                releaseFamilyReliability();
+                familyReliability = newReliability;
+                rdgRoot = newRdgRoot;
+                synchronized (this) {
+                    aggregates = null;
+                }
+                loadTime = System.currentTimeMillis() - startTime;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return how long it took to load this SPL, in milliseconds.
+     */
+    long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * @return the number of nodes in this SPL's RDG.
+     */
+    int getRdgSize() {
+        return rdgRoot.getContext().getNodes().size();
+    }
+
+    /**
+     * @return the reliability of a configuration, which is 0 if it is invalid.
+     * @throws tool.UnknownFeatureException if some feature is not in the feature model.
+     */
+    double getReliability(Collection<String> features) {
+        return withReadLock(() -> familyReliability.getResult(analyzer.makeConfiguration(features)));
+    }
+
+    boolean isValidConfiguration(Collection<String> features) {
+        return withReadLock(() -> analyzer.isValidConfiguration(analyzer.makeConfiguration(features)));
+    }
+
+    /**
+     * @return the reliabilities of many configurations, evaluated at once.
+     * @throws tool.UnknownFeatureException if some feature is not in the feature model.
+     */
+    double[] getReliabilities(List<? extends Collection<String>> configurations) {
+        return withReadLock(() -> {
+            List<Configuration> own = new ArrayList<Configuration>(configurations.size());
+            for (Collection<String> features : configurations) {
+                own.add(analyzer.makeConfiguration(features));
+            }
+            return familyReliability.getResults(own);
+        });
+    }
+
+    /**
+     * Summarizes the reliabilities of all valid configurations. They are only
+     * enumerated the first time, since the results never change afterwards.
+     *
+     * @return the number of valid configurations and their minimum, maximum
+     *          and mean reliabilities.
+     */
+    Map<String, Object> getAggregates() {
+        return withReadLock(() -> {
+            synchronized (this) {
+                if (aggregates == null) {
+                    aggregates = computeAggregates();
+                }
+                return aggregates;
+            }
+        });
+    }
+
+    /**
+     * Frees this SPL's decision diagrams, once all ongoing queries are done.
+     * Calling it more than once has no effect.
+     */
+    void close() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                releaseFamilyReliability();
+                analyzer.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Map<String, Object> computeAggregates() {
+        long count = 0;
+        double sum = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        try (Stream<Configuration> configurations = analyzer.getValidConfigurations()) {
+            Iterator<Configuration> iterator = configurations.iterator();
+            List<Configuration> chunk = new ArrayList<Configuration>(AGGREGATE_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.clear();
+                while (iterator.hasNext() && chunk.size() < AGGREGATE_CHUNK_SIZE) {
+                    chunk.add(iterator.next());
+                }
+                for (double reliability : familyReliability.getResults(chunk)) {
+                    count++;
+                    sum += reliability;
+                    min = (count == 1) ? reliability : Math.min(min, reliability);
+                    max = (count == 1) ? reliability : Math.max(max, reliability);
+                }
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("count", count);
+        result.put("min", min);
+        result.put("max", max);
+        result.put("mean", (count == 0) ? Double.NaN : sum / count);
+        return result;
+    }
+
+    private void releaseFamilyReliability() {
+        if (familyReliability instanceof ADDReliabilityResults) {
+            ((ADDReliabilityResults) familyReliability).getReliabilityFunction().release();
+        }
+    }
+
+    private static RDGNode buildRdg(Source source) throws IOException {
+        File umlModels = new File(source.umlModelsFilePath);
+        if (!umlModels.isFile()) {
+            throw new IOException("No such file: " + source.umlModelsFilePath);
+        }
+        try {
+            return CommandLineInterface.model(umlModels, new NoopTimeCollector());
+        } catch (DOMException | UnsupportedFragmentTypeException | InvalidTagException
+                | InvalidNumberOfOperandsException | InvalidNodeClassException | InvalidNodeType e) {
+            throw new IllegalArgumentException("Invalid UML models: " + e, e);
+        }
+    }
+
+    private static String readFeatureModel(Source source) throws IOException {
+        return new String(Files.readAllBytes(new File(source.featureModelFilePath).toPath()),
+                          Charset.forName("UTF-8"));
+    }
+
+    private <T> T withReadLock(Supplier<T> query) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("SPL " + name + " has been evicted");
+            }
+            return query.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+}
@@ -12,12 +12,20 @@ import tool.stats.IFormulaCollector;
 public class FormulaCollector implements IFormulaCollector {
 
     private Map<RDGNode, String> formulae = new HashMap<RDGNode, String>();
+    private long originalOperations = 0;
+    private long reducedOperations = 0;
 
     @Override
     public synchronized void collectFormula(RDGNode node, String formula) {
         formulae.put(node, formula);
     }
 
+    @Override
+    public synchronized void collectMultilinearReduction(RDGNode node, long originalOperations, long reducedOperations) {
+        this.originalOperations += originalOperations;
+        this.reducedOperations += reducedOperations;
+    }
+
     @Override
     public void printStats(PrintStream out) {
         long count = 0;
@@ -51,6 +59,10 @@ public class FormulaCollector implements IFormulaCollector {
         out.println("Sum of formulae sizes: " + sizesSum);
         out.println("Number of formulae: " + count);
         out.println("All formulae sizes: " + allFormulaeSizes);
+        if (originalOperations > 0) {
+            out.println("Multilinear reduction: " + originalOperations + " -> " + reducedOperations
+                        + " operations (ratio " + ((double) reducedOperations / originalOperations) + ")");
+        }
     }
 
 }
@@ -1,15 +1,32 @@
 
+import jadd.ADDBatchEvaluationTest;
 import jadd.ADDConfigurationsTest;
+import jadd.ADDSerializationTest;
+import jadd.ApplyOperatorTest;
+import jadd.ConfigurationTest;
+import jadd.JADDConcurrencyTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import paramwrapper.FDTMCToParamTest;
+import paramwrapper.FormulaCacheTest;
 import paramwrapper.ReliabilityFormulaTest;
+import paramwrapper.StateEliminationModelCheckerTest;
+import parsing.XMIDocumentTest;
 import tool.AnalyzerTest;
 import tool.RDGNodeTest;
+import tool.VariableOrderingTest;
+import tool.analyzers.PackedReliabilityResultsTest;
+import tool.analyzers.strategies.FeatureFamilyBasedAnalyzerTest;
+import tool.analyzers.strategies.FeatureProductBasedAnalyzerTest;
+import tool.analyzers.strategies.IncrementalAnalysisTest;
+import tool.analyzers.strategies.ProductBasedAnalyzerTest;
+import ui.AnalysisServiceTest;
+import expressionsolver.CompiledExpressionTest;
 import expressionsolver.ExpressionSolverTest;
+import expressionsolver.MultilinearReductionTest;
 import fdtmc.FDTMCTest;
 
 @RunWith(Suite.class)
@@ -17,10 +34,27 @@ import fdtmc.FDTMCTest;
     FDTMCTest.class,
     FDTMCToParamTest.class,
     ReliabilityFormulaTest.class,
+    StateEliminationModelCheckerTest.class,
+    FormulaCacheTest.class,
+    XMIDocumentTest.class,
     ExpressionSolverTest.class,
+    CompiledExpressionTest.class,
+    MultilinearReductionTest.class,
     AnalyzerTest.class,
     RDGNodeTest.class,
-    ADDConfigurationsTest.class
+    VariableOrderingTest.class,
+    PackedReliabilityResultsTest.class,
+    IncrementalAnalysisTest.class,
+    ProductBasedAnalyzerTest.class,
+    FeatureFamilyBasedAnalyzerTest.class,
+    FeatureProductBasedAnalyzerTest.class,
+    ADDConfigurationsTest.class,
+    ADDBatchEvaluationTest.class,
+    ADDSerializationTest.class,
+    ApplyOperatorTest.class,
+    ConfigurationTest.class,
+    JADDConcurrencyTest.class,
+    AnalysisServiceTest.class
 })
 public class AllTests {
 
@@ -0,0 +1,89 @@
+package expressionsolver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+
+import jadd.JADD;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+    private static final double EPSILON = 1E-12;
+
+    private ExpressionSolver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new ExpressionSolver(new JADD());
+    }
+
+    @Test
+    public void testConstantExpression() {
+        CompiledExpression expression = CompiledExpression.compile("0.42 + 0.53 * 2 - 1e-2");
+        assertEquals(0, expression.getNumberOfVariables());
+        assertEquals(1.47, expression.evaluate(new double[0]), EPSILON);
+    }
+
+    @Test
+    public void testVariablesAreBoundToSlots() {
+        CompiledExpression expression = CompiledExpression.compile("0.99*rSqlite - 0.5*rMemory + rSqlite");
+        assertArrayEquals(new String[]{"rSqlite", "rMemory"}, expression.getVariables());
+        assertEquals(1, expression.getSlot("rMemory"));
+        assertEquals(-1, expression.getSlot("rOther"));
+
+        double[] values = new double[expression.getNumberOfVariables()];
+        values[expression.getSlot("rSqlite")] = 0.5;
+        values[expression.getSlot("rMemory")] = 0.2;
+        assertEquals(0.895, expression.evaluate(values), EPSILON);
+
+        values[expression.getSlot("rSqlite")] = 1.0;
+        assertEquals(1.89, expression.evaluate(values), EPSILON);
+    }
+
+    @Test
+    public void testPrecedenceFollowsJep() {
+        assertEquals(-4, CompiledExpression.compile("-2^2").evaluate(new double[0]), EPSILON);
+        assertEquals(512, CompiledExpression.compile("2^3^2").evaluate(new double[0]), EPSILON);
+        assertEquals(0.5, CompiledExpression.compile("2^-1").evaluate(new double[0]), EPSILON);
+        assertEquals(0.25, CompiledExpression.compile("x/y/2").evaluate(new double[]{1, 2}), EPSILON);
+        assertEquals(3.3, CompiledExpression.compile("3 - -x").evaluate(new double[]{0.3}), EPSILON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedExpression() {
+        CompiledExpression.compile("(a + b");
+    }
+
+    @Test
+    public void testParsedExpressionsAreCompiled() {
+        Expression<Double> expression = solver.parseExpression("a + b * c");
+        assertNotNull(expression.compile());
+
+        HashMap<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("a", 3.0);
+        interpretation.put("b", 4.0);
+        interpretation.put("c", 4.0);
+        assertEquals(19.0, expression.solve(interpretation), EPSILON);
+
+        interpretation.remove("c");
+        assertNull("Expressions with variables must have interpretations for them",
+                   expression.solve(interpretation));
+    }
+
+    @Test
+    public void testUnsupportedConstructsFallBackToJep() {
+        // Implicit multiplication is only supported by JEP.
+        Expression<Double> expression = solver.parseExpression("2x");
+        assertNull(expression.compile());
+
+        HashMap<String, Double> interpretation = new HashMap<String, Double>();
+        interpretation.put("x", 3.0);
+        assertEquals(6.0, expression.solve(interpretation), EPSILON);
+    }
+
+}
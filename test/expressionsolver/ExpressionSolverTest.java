@@ -2,6 +2,7 @@ package expressionsolver;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import jadd.ADD;
 import jadd.JADD;
 
@@ -227,4 +228,66 @@ public class ExpressionSolverTest {
         assertEquals(24.0, result, 1E+10);
     }
 
+    @Test
+    public void testFormulaEncodingIsMemoized() {
+        ADD encoded = solver.encodeFormula("(sqlite && !memory) || (!sqlite && memory)");
+        ADD respaced = solver.encodeFormula(" (sqlite&&!memory)||( !sqlite &&  memory)");
+
+        assertSame("Formulas differing only in white space should share their encoding",
+                   encoded, respaced);
+    }
+
+    @Test
+    public void testCNFEncodingMatchesFormulaEncoding() {
+        String cnf = "Root  &&  (!Root  ||  A)  &&  (!B  ||  Root)  &&  (!A  ||  !B  ||  C)  &&  True  &&  !False  &&  (!!C || False)";
+        ADD encoded = solver.encodeCNF(cnf);
+        ADD expected = new ExpressionSolver(jadd).encodeFormula(cnf);
+
+        assertEquals("CNF encoding should be equivalent to plain formula encoding",
+                     expected, encoded);
+        assertSame("CNF encodings should be memoized",
+                   encoded, solver.encodeCNF(cnf));
+
+        assertEquals("Unsatisfiable clauses should yield the false constant",
+                     jadd.makeConstant(0), solver.encodeCNF("A && (false || !true)"));
+    }
+
+    @Test
+    public void testNonCNFIsEncodedAsFormula() {
+        String formula = "(sqlite && !memory) || (!sqlite && memory)";
+        assertEquals(new ExpressionSolver(jadd).encodeFormula(formula),
+                     solver.encodeCNF(formula));
+    }
+
+    @Test
+    public void testUnparenthesizedDisjunctionIsNotAClause() {
+        String formula = "a||b&&c";
+        ADD expected = new ExpressionSolver(jadd).encodeFormula("a || (b && c)");
+
+        assertEquals("&& should bind tighter than || in CNF encoding",
+                     expected, solver.encodeCNF(formula));
+        assertEquals("A single unparenthesized clause is still CNF",
+                     new ExpressionSolver(jadd).encodeFormula("a || !b"),
+                     solver.encodeCNF("a||!b"));
+    }
+
+    @Test
+    public void testFormulaEncodingAfterCNFEncoding() {
+        String formula = "a||b&&c";
+        solver.encodeCNF(formula);
+
+        assertEquals("Formula encoding should not be affected by previous CNF encodings",
+                     new ExpressionSolver(jadd).encodeFormula("a || (b && c)"),
+                     solver.encodeFormula(formula));
+    }
+
+    @Test
+    public void testFormulaNormalization() {
+        assertEquals("(a&&!b)||c",
+                     ExpressionSolver.normalizeFormula(" ( a && ! b )  ||c "));
+        assertEquals("Spaces between identifiers are significant",
+                     "a b",
+                     ExpressionSolver.normalizeFormula("a   b"));
+    }
+
 }
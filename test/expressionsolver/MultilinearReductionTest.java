@@ -0,0 +1,62 @@
+package expressionsolver;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MultilinearReductionTest {
+    private static final double EPSILON = 1E-12;
+
+    @Test
+    public void testPowersCollapse() {
+        MultilinearReduction reduction = MultilinearReduction.reduce("0.5*x^3*y^2");
+        assertEquals("0.5*x*y", reduction.getExpression());
+        assertEquals(5, reduction.getOriginalOperations());
+        assertEquals(2, reduction.getReducedOperations());
+    }
+
+    @Test
+    public void testComplementaryFactorsCancelOut() {
+        assertEquals("0", MultilinearReduction.reduce("x*(1-x)").getExpression());
+        assertEquals("y", MultilinearReduction.reduce("x*y + (1-x)*y").getExpression());
+    }
+
+    @Test
+    public void testZeroExponentMimicsTheSolver() {
+        // The solver yields 1 wherever the base is nonzero.
+        assertEquals("x*y", MultilinearReduction.reduce("(0.3*x*y)^0 + 0*z").getExpression());
+    }
+
+    @Test
+    public void testValuesArePreservedForBooleanVariables() {
+        String expression = "0.9*a^2*b - 0.25*(a - b)^3 + (1 - a)*(2*b)^2/4 - -c^5";
+        MultilinearReduction reduction = MultilinearReduction.reduce(expression);
+        CompiledExpression original = CompiledExpression.compile(expression);
+        CompiledExpression reduced = CompiledExpression.compile(reduction.getExpression());
+
+        String[] variables = original.getVariables();
+        for (int assignment = 0; assignment < (1 << variables.length); assignment++) {
+            double[] originalValues = new double[variables.length];
+            double[] reducedValues = new double[reduced.getNumberOfVariables()];
+            for (int i = 0; i < variables.length; i++) {
+                double value = (assignment >> i) & 1;
+                originalValues[i] = value;
+                int slot = reduced.getSlot(variables[i]);
+                if (slot >= 0) {
+                    reducedValues[slot] = value;
+                }
+            }
+            assertEquals(original.evaluate(originalValues), reduced.evaluate(reducedValues), EPSILON);
+        }
+        assertEquals(true, reduction.getReducedOperations() < reduction.getOriginalOperations());
+    }
+
+    @Test
+    public void testNonConstantDivisorsAreKept() {
+        String expression = "x^2/(1 - 0.5*y)";
+        MultilinearReduction reduction = MultilinearReduction.reduce(expression);
+        assertEquals(expression, reduction.getExpression());
+        assertEquals(reduction.getOriginalOperations(), reduction.getReducedOperations());
+    }
+
+}
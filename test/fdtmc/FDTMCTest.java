@@ -1,5 +1,8 @@
 package fdtmc;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -286,4 +289,153 @@ public class FDTMCTest {
                 fdtmc1, fdtmc2);
 	}
 
+	@Test
+	public void testCompactRepresentation() {
+	    FDTMC fdtmc = makeFDTMCWithInterface("F");
+	    CompactFDTMC compact = fdtmc.compact();
+
+	    Assert.assertEquals(6, compact.getNumberOfStates());
+	    Assert.assertEquals(0, compact.getInitialState());
+	    Assert.assertEquals(FDTMC.SUCCESS_LABEL, compact.getLabel(compact.getSuccessState()));
+	    Assert.assertEquals(1, compact.getNumberOfInterfaces());
+	    Assert.assertEquals("F", compact.getInterfaceId(0));
+
+	    int begin = compact.getTransitionsBegin(0);
+	    Assert.assertEquals(2, compact.getTransitionsEnd(0) - begin);
+	    Assert.assertEquals(3, compact.getTarget(begin));
+	    Assert.assertEquals("0.999", compact.getProbability(begin));
+	    Assert.assertEquals(0.999, compact.getNumericProbability(begin), 0);
+	    Assert.assertTrue(Double.isNaN(compact.getNumericProbability(compact.getInterfaceSuccessTransition(0))));
+	    Assert.assertEquals("Equal probabilities should be interned",
+	            compact.getProbabilitySymbol(begin + 1),
+	            compact.getProbabilitySymbol(compact.getTransitionsBegin(4) + 1));
+
+	    FDTMC restored = new FDTMC(compact);
+	    Assert.assertEquals(fdtmc.toString(), restored.toString());
+	    Assert.assertEquals(fdtmc, restored);
+	    Assert.assertEquals(fdtmc.hashCode(), restored.hashCode());
+	    // Expanding the compact representation into objects must not change it.
+	    Assert.assertEquals(fdtmc.getStates(), restored.getStates());
+	    Assert.assertEquals(fdtmc.toString(), restored.toString());
+	    Assert.assertEquals(fdtmc.hashCode(), restored.hashCode());
+	}
+
+	@Test
+	public void testCompactRepresentationIsCachedUntilChanged() {
+	    FDTMC fdtmc = makeFDTMCWithInterface("F");
+	    CompactFDTMC compact = fdtmc.compact();
+	    Assert.assertSame("The compact form should be reused while the FDTMC is unchanged",
+	            compact, fdtmc.compact());
+
+	    fdtmc.createState();
+	    CompactFDTMC changed = fdtmc.compact();
+	    Assert.assertNotSame(compact, changed);
+	    Assert.assertEquals(compact.getNumberOfStates() + 1, changed.getNumberOfStates());
+
+	    FDTMC restored = new FDTMC(changed);
+	    restored.getStates();
+	    Assert.assertSame("Expanding into objects should not discard the compact form",
+	            changed, restored.compact());
+	}
+
+	@Test
+	public void testInlining() {
+	    FDTMC fdtmc = makeFDTMCWithInterface("F");
+	    FDTMC fragment = new FDTMC();
+	    fragment.setVariableName("f");
+	    State init = fragment.createInitialState(),
+	          success = fragment.createSuccessState(),
+	          error = fragment.createErrorState();
+	    fragment.createTransition(init, success, "op", "rOp");
+	    fragment.createTransition(init, error, "!op", "1-rOp");
+
+	    Map<String, FDTMC> models = new HashMap<String, FDTMC>();
+	    models.put("F", fragment);
+	    FDTMC inlined = fdtmc.inline(models);
+
+	    String expectedAnswer = "s=0(initial) --- persist / 0.999 ---> s=3" + '\n'
+	            + "s=0(initial) --- !persist / 0.001 ---> s=2(error)" + '\n'
+	            + "s=3 ---  / 1 ---> s=6" + '\n'
+	            + "s=4 --- persist_return / 0.999 ---> s=1(success)" + '\n'
+	            + "s=4 --- !persist_return / 0.001 ---> s=2(error)" + '\n'
+	            + "s=5 --- error_ground / 1 ---> s=2(error)" + '\n'
+	            + "s=6 --- op / rOp ---> s=7" + '\n'
+	            + "s=6 --- !op / 1-rOp ---> s=8" + '\n'
+	            + "s=7 ---  / 1 ---> s=4" + '\n'
+	            + "s=8 ---  / 1 ---> s=5" + '\n';
+	    Assert.assertEquals(expectedAnswer, inlined.toString());
+	    Assert.assertEquals(9, inlined.getVariableIndex());
+	    Assert.assertEquals(0, inlined.getInitialState().getIndex());
+	}
+
+	@Test
+	public void testDecoratedWithPresence() {
+	    FDTMC fdtmc = makeFDTMCWithInterface("F");
+	    FDTMC decorated = fdtmc.decoratedWithPresence("x");
+
+	    Assert.assertEquals(6, decorated.getInitialState().getIndex());
+	    Assert.assertNull("The old initial state should be unlabeled",
+	            decorated.getStates().iterator().next().getLabel());
+	    Assert.assertEquals("s=6(initial) ---  / x ---> s=0" + '\n'
+	            + "s=6(initial) ---  / 1-x ---> s=1(success)" + '\n',
+	            decorated.toString().substring(decorated.toString().indexOf("s=6(initial)")));
+	    Assert.assertEquals("Interfaces should be kept", fdtmc.compact().getNumberOfInterfaces(),
+	            decorated.compact().getNumberOfInterfaces());
+	}
+
+	@Test
+	public void testIsomorphicFDTMCs() {
+	    FDTMC fdtmc = makeFDTMCWithInterface("a");
+	    // Same model, but with states and transitions created in another order.
+	    FDTMC renumbered = new FDTMC();
+	    renumbered.setVariableName("s");
+	    State init = renumbered.createInitialState(),
+	          interfaceError = renumbered.createState(),
+	          target = renumbered.createState(),
+	          error = renumbered.createErrorState(),
+	          source = renumbered.createState(),
+	          success = renumbered.createSuccessState();
+	    renumbered.createTransition(target, error, "!persist_return", "0.001");
+	    renumbered.createTransition(target, success, "persist_return", "0.999");
+	    renumbered.createInterface("b", source, target, interfaceError);
+	    renumbered.createTransition(interfaceError, error, "error_ground", "1");
+	    renumbered.createTransition(init, error, "!persist", "0.001");
+	    renumbered.createTransition(init, source, "persist", "0.999");
+
+	    Assert.assertNotEquals(fdtmc, renumbered);
+	    Assert.assertTrue(fdtmc.isIsomorphicTo(renumbered));
+	    Assert.assertTrue(renumbered.isIsomorphicTo(fdtmc));
+	    Assert.assertEquals(fdtmc.getFingerprint(), renumbered.getFingerprint());
+	    Assert.assertEquals("Canonical forms should be canonical",
+	            renumbered.compact().canonical(), renumbered.compact().canonical().canonical());
+
+	    renumbered.createTransition(success, success, "", "1");
+	    Assert.assertFalse("Changes should be taken into account",
+	            fdtmc.isIsomorphicTo(renumbered));
+	    fdtmc.createTransition(fdtmc.getSuccessState(), fdtmc.getSuccessState(), "", "1.0");
+	    Assert.assertTrue(fdtmc.isIsomorphicTo(renumbered));
+
+	    FDTMC other = makeFDTMCWithInterface("a");
+	    other.createTransition(other.getSuccessState(), other.getSuccessState(), "", "0.5");
+	    Assert.assertFalse("Probabilities should matter", fdtmc.isIsomorphicTo(other));
+	}
+
+	private static FDTMC makeFDTMCWithInterface(String dependencyId) {
+	    FDTMC fdtmc = new FDTMC();
+	    fdtmc.setVariableName("s");
+	    State init = fdtmc.createInitialState(),
+	          success = fdtmc.createSuccessState(),
+	          error = fdtmc.createErrorState(),
+	          source = fdtmc.createState(),
+	          target = fdtmc.createState(),
+	          interfaceError = fdtmc.createState();
+	    fdtmc.createTransition(init, source, "persist", "0.999");
+	    fdtmc.createTransition(init, error, "!persist", "0.001");
+	    fdtmc.createInterface(dependencyId, source, target, interfaceError);
+	    fdtmc.createTransition(interfaceError, error, "error_ground", "1");
+	    fdtmc.createTransition(target, success, "persist_return", "0.999");
+	    fdtmc.createTransition(target, error, "!persist_return", "0.001");
+	    return fdtmc;
+	}
+
 }
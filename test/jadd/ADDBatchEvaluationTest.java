@@ -0,0 +1,71 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ADDBatchEvaluationTest {
+    private JADD jadd;
+    private List<String> variables;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+        variables = new ArrayList<String>();
+        // More than 64 variables, so that configurations span several words.
+        for (int i = 0; i < 70; i++) {
+            variables.add("v" + i);
+            jadd.getVariable("v" + i);
+        }
+    }
+
+    @Test
+    public void testBatchEvaluationMatchesSingleEvaluation() throws UnrecognizedVariableException {
+        ADD v0 = jadd.getVariable("v0");
+        ADD v1 = jadd.getVariable("v1");
+        ADD v69 = jadd.getVariable("v69");
+        ADD function = v0.ifThenElse(v69.times(jadd.makeConstant(0.5)),
+                                     v1.plus(jadd.makeConstant(0.25)));
+        jadd.setVariableOrder(variables.stream()
+                .sorted(Collections.reverseOrder())
+                .toArray(String[]::new));
+
+        List<Collection<String>> configurations = new ArrayList<Collection<String>>();
+        configurations.add(Collections.<String>emptyList());
+        configurations.add(Arrays.asList("v0"));
+        configurations.add(Arrays.asList("v0", "v69"));
+        configurations.add(Arrays.asList("v1", "v69"));
+        configurations.add(Arrays.asList("v1", "v2", "v68"));
+
+        double[] values = function.evalAll(configurations);
+
+        Assert.assertEquals(configurations.size(), values.length);
+        for (int i = 0; i < values.length; i++) {
+            Collection<String> configuration = configurations.get(i);
+            Assert.assertEquals(configuration.toString(),
+                                function.eval(configuration.toArray(new String[configuration.size()])),
+                                values[i],
+                                0);
+        }
+    }
+
+    @Test
+    public void testConstantEvaluatesToItself() throws UnrecognizedVariableException {
+        double[] values = jadd.makeConstant(0.42).evalAll(Arrays.asList(Arrays.asList("v3"),
+                                                                        Arrays.asList("v4")));
+        Assert.assertEquals(0.42, values[0], 0);
+        Assert.assertEquals(0.42, values[1], 0);
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownVariablesAreRejected() throws UnrecognizedVariableException {
+        jadd.getVariable("v0").evalAll(Arrays.asList(Arrays.asList("v0", "unknown")));
+    }
+
+}
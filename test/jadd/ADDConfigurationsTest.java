@@ -1,8 +1,13 @@
 package jadd;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,47 +21,143 @@ public class ADDConfigurationsTest {
 
     @Test
     public void testConfigurationsWithoutDontCares() {
-        String[] configArray = {"A", "B", "C"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+        JADD jadd = new JADD();
+        ADD function = jadd.getVariable("A")
+                .and(jadd.getVariable("B"))
+                .and(jadd.getVariable("C"));
 
+        Set<List<String>> expanded = expandedConfigurations(function);
         Assert.assertEquals(1, expanded.size());
-        Assert.assertTrue(expanded.contains(config));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
     }
 
     @Test
     public void testConfigurationsWithDontCareAtStart() {
-        String[] configArray = {"(A)", "B", "C"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+        JADD jadd = new JADD();
+        jadd.getVariable("A");
+        ADD function = jadd.getVariable("B").and(jadd.getVariable("C"));
 
+        Set<List<String>> expanded = expandedConfigurations(function);
         Assert.assertEquals(2, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"B", "C"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("B", "C")));
     }
 
     @Test
     public void testConfigurationsWithDontCareAtEnd() {
-        String[] configArray = {"A", "B", "(C)"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+        JADD jadd = new JADD();
+        ADD function = jadd.getVariable("A").and(jadd.getVariable("B"));
+        jadd.getVariable("C");
 
+        Set<List<String>> expanded = expandedConfigurations(function);
         Assert.assertEquals(2, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B")));
     }
 
     @Test
     public void testConfigurationsWithDontCares() {
-        String[] configArray = {"A", "(B)", "C", "(D)"};
-        List<String> config = Arrays.asList(configArray);
-        Collection<List<String>> expanded = ADD.expandDontCares(config);
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("A");
+        jadd.getVariable("B");
+        ADD c = jadd.getVariable("C");
+        jadd.getVariable("D");
+        ADD function = a.and(c);
 
+        Set<List<String>> expanded = expandedConfigurations(function);
         Assert.assertEquals(4, expanded.size());
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C", "D"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "B", "C"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "C", "D"})));
-        Assert.assertTrue(expanded.contains(Arrays.asList(new String[]{"A", "C"})));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C", "D")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "C", "D")));
+        Assert.assertTrue(expanded.contains(Arrays.asList("A", "C")));
+    }
+
+    @Test
+    public void testExpandedConfigurationsOfFunction() {
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("A");
+        ADD b = jadd.getVariable("B");
+        jadd.getVariable("C");
+        ADD function = a.or(b.complement());
+
+        Set<List<String>> configurations = expandedConfigurations(function);
+
+        Assert.assertEquals(6, configurations.size());
+        Assert.assertTrue(configurations.contains(Arrays.asList("A", "B", "C")));
+        Assert.assertTrue(configurations.contains(Arrays.asList("A", "B")));
+        Assert.assertTrue(configurations.contains(Arrays.asList("A", "C")));
+        Assert.assertTrue(configurations.contains(Arrays.asList("A")));
+        Assert.assertTrue(configurations.contains(Arrays.asList("C")));
+        Assert.assertTrue(configurations.contains(Arrays.<String>asList()));
+        Assert.assertEquals(6, function.getExpandedConfigurations().count());
+        Assert.assertEquals(0, jadd.makeConstant(0).getExpandedConfigurations().count());
+    }
+
+    @Test
+    public void testSplitsPartitionConfigurations() {
+        ADD function = makeFunctionWithDontCares(new JADD());
+        Set<String> expected = function.getPackedConfigurations()
+                .sequential()
+                .map(Arrays::toString)
+                .collect(Collectors.toSet());
+
+        // Split as much as possible, including the don't cares of single paths.
+        List<Spliterator<long[]>> parts = new ArrayList<Spliterator<long[]>>();
+        parts.add(function.getPackedConfigurations().spliterator());
+        for (int i = 0; i < parts.size(); i++) {
+            Spliterator<long[]> split;
+            while ((split = parts.get(i).trySplit()) != null) {
+                parts.add(split);
+            }
+        }
+
+        Set<String> union = new HashSet<String>();
+        long total = 0;
+        for (Spliterator<long[]> part : parts) {
+            List<String> configurations = StreamSupport.stream(part, false)
+                    .map(Arrays::toString)
+                    .collect(Collectors.toList());
+            total += configurations.size();
+            union.addAll(configurations);
+        }
+        Assert.assertTrue(parts.size() > 1);
+        Assert.assertEquals("Parts must not overlap", expected.size(), total);
+        Assert.assertEquals(expected, union);
+    }
+
+    @Test
+    public void testSizeEstimateAccountsForPendingDontCares() {
+        ADD function = makeFunctionWithDontCares(new JADD());
+        long remaining = function.getPackedConfigurations().count();
+
+        Spliterator<long[]> configurations = function.getPackedConfigurations().spliterator();
+        Assert.assertEquals(remaining, configurations.estimateSize());
+        while (configurations.tryAdvance(c -> {})) {
+            remaining--;
+            Assert.assertEquals("Estimate should count the don't cares of pending paths",
+                    remaining, configurations.estimateSize());
+        }
+        Assert.assertEquals(0, remaining);
+    }
+
+    /**
+     * (V0 || V1) && (V3 || V4) && ..., so that V2, V5, ... are don't cares.
+     */
+    private static ADD makeFunctionWithDontCares(JADD jadd) {
+        ADD function = jadd.makeConstant(1);
+        for (int i = 0; i < 12; i++) {
+            ADD variable = jadd.getVariable("V" + i);
+            if (i % 3 == 0) {
+                function = function.and(variable.or(jadd.getVariable("V" + (i + 1))));
+            }
+        }
+        return function;
+    }
+
+    private static Set<List<String>> expandedConfigurations(ADD function) {
+        return function.getExpandedConfigurations()
+                .map(c -> new ArrayList<String>(c))
+                .collect(Collectors.toSet());
     }
 
 }
@@ -0,0 +1,86 @@
+package jadd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ADDSerializationTest {
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("jadd", ".add");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTripInSameManager() throws IOException {
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("a");
+        ADD b = jadd.getVariable("b");
+        ADD c = jadd.getVariable("c");
+        ADD function = a.ifThenElse(b.times(jadd.makeConstant(0.9)),
+                                    c.times(jadd.makeConstant(0.25)).plus(jadd.makeConstant(0.5)));
+
+        jadd.saveADD(function, file.getPath());
+        ADD loaded = jadd.loadADD(file.getPath());
+
+        Assert.assertEquals(function, loaded);
+    }
+
+    @Test
+    public void testRoundTripInFreshManager() throws IOException, UnrecognizedVariableException {
+        JADD jadd = new JADD();
+        ADD a = jadd.getVariable("a");
+        ADD b = jadd.getVariable("b");
+        ADD c = jadd.getVariable("c");
+        jadd.setVariableOrder(new String[]{"c", "a", "b"});
+        ADD function = a.and(b).times(jadd.makeConstant(0.75))
+                .plus(c.times(jadd.makeConstant(0.125)));
+        jadd.saveADD(function, file.getPath());
+
+        JADD other = new JADD();
+        // Existing variables are matched by name, regardless of their indices.
+        other.getVariable("b");
+        ADD loaded = other.loadADD(file.getPath());
+
+        Assert.assertEquals(function.getNodeCount(), loaded.getNodeCount());
+        for (int assignment = 0; assignment < 8; assignment++) {
+            String[] configuration = new String[Integer.bitCount(assignment)];
+            int next = 0;
+            for (int i = 0; i < 3; i++) {
+                if ((assignment & (1 << i)) != 0) {
+                    configuration[next++] = new String[]{"a", "b", "c"}[i];
+                }
+            }
+            Assert.assertEquals(Arrays.toString(configuration),
+                                function.eval(configuration),
+                                loaded.eval(configuration),
+                                0);
+        }
+    }
+
+    @Test
+    public void testConstantRoundTrip() throws IOException {
+        JADD jadd = new JADD();
+        jadd.saveADD(jadd.makeConstant(0.42), file.getPath());
+        Assert.assertEquals(jadd.makeConstant(0.42), jadd.loadADD(file.getPath()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFileIsRejected() throws IOException {
+        Files.write(file.toPath(), "digraph \"DD\" {}".getBytes("UTF-8"));
+        new JADD().loadADD(file.getPath());
+    }
+
+}
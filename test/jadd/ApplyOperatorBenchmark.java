@@ -0,0 +1,84 @@
+package jadd;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the feature-family-based analysis of the 30-feature model (or
+ * any other of the generated models) when
+ * {@code Cudd_addApply} is given native CUDD operators versus Java callbacks.
+ *
+ * Since the binding of a manager is fixed when it is made, each run is a
+ * separate JVM, with the {@code jadd.nativeOperators} system property set
+ * accordingly. The reported times are the analysis times printed by
+ * {@link ui.CommandLineInterface}, so JVM start-up is not taken into account.
+ *
+ * This is not part of the test suite. Run it from the project root, so that
+ * the model files can be found:
+ *
+ *     java -cp ... jadd.ApplyOperatorBenchmark [runs] [number of features]
+ *
+ * @author thiago
+ */
+public class ApplyOperatorBenchmark {
+
+    private static final String[] FAMILY_RUN_ARGS = {
+        "--analysis-strategy=FEATURE_FAMILY",
+        "--feature-model=cnf_%d.txt",
+        "--uml-models=model_%d_behavioral_model.xml",
+        "--model-checker=STATE_ELIMINATION",
+        // Only the family-wide reliability is of interest.
+        "--configuration=R",
+        "--suppress-report"
+    };
+
+    private static final String ANALYSIS_TIME = "Total analysis time: ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int numberOfFeatures = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        long nativeTime = 0;
+        long callbackTime = 0;
+        for (int i = 0; i < runs; i++) {
+            nativeTime += run(true, numberOfFeatures);
+            callbackTime += run(false, numberOfFeatures);
+        }
+
+        System.out.println("=========================================");
+        System.out.println("Native operators: " + nativeTime / runs + " ms (mean of " + runs + " runs)");
+        System.out.println("Java callbacks:   " + callbackTime / runs + " ms (mean of " + runs + " runs)");
+    }
+
+    private static long run(boolean nativeOperators, int numberOfFeatures) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Djadd.nativeOperators=" + nativeOperators);
+        command.add("ui.CommandLineInterface");
+        for (String arg : FAMILY_RUN_ARGS) {
+            command.add(String.format(arg, numberOfFeatures));
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        Long analysisTime = null;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(ANALYSIS_TIME)) {
+                    analysisTime = Long.parseLong(line.substring(ANALYSIS_TIME.length()).replace(" ms", "").trim());
+                }
+            }
+        }
+        if (process.waitFor() != 0 || analysisTime == null) {
+            throw new IllegalStateException("Analysis run failed (nativeOperators=" + nativeOperators + ")");
+        }
+        return analysisTime;
+    }
+
+}
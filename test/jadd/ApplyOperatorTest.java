@@ -0,0 +1,78 @@
+package jadd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApplyOperatorTest {
+    private static final String[] VARIABLES = {"x", "y", "z"};
+
+    private JADD nativeJadd;
+    private JADD callbackJadd;
+
+    @Before
+    public void setUp() throws Exception {
+        nativeJadd = new JADD(true);
+        callbackJadd = new JADD(false);
+    }
+
+    @Test
+    public void testNativeOperatorsAreResolved() {
+        for (ApplyOperator operator : ApplyOperator.values()) {
+            assertTrue(operator + " should be bound to its native function",
+                       operator.hasNativeFunction());
+        }
+    }
+
+    @Test
+    public void testNativeOperatorsMatchJavaCallbacks() throws UnrecognizedVariableException {
+        for (ApplyOperator operator : ApplyOperator.values()) {
+            ADD nativeResult = applyOperator(nativeJadd, operator);
+            ADD callbackResult = applyOperator(callbackJadd, operator);
+
+            for (String[] configuration : allConfigurations()) {
+                assertEquals(operator + " should not depend on the operator binding",
+                             callbackResult.eval(configuration),
+                             nativeResult.eval(configuration),
+                             1E-14);
+            }
+        }
+    }
+
+    /**
+     * Applies the operator to two functions of x, y and z. Neither of them
+     * is ever 0, so that division is defined, except for logical operators,
+     * which get 0,1-ADDs.
+     */
+    private ADD applyOperator(JADD jadd, ApplyOperator operator) {
+        ADD x = jadd.getVariable("x");
+        ADD y = jadd.getVariable("y");
+        ADD z = jadd.getVariable("z");
+        if (operator == ApplyOperator.LOGICAL_OR) {
+            return x.and(y).apply(z.complement(), operator);
+        }
+        ADD left = x.ifThenElse(jadd.makeConstant(0.3), y.ifThenElse(jadd.makeConstant(0.7), 2));
+        ADD right = y.ifThenElse(jadd.makeConstant(0.2), z.ifThenElse(jadd.makeConstant(0.5), 4));
+        return left.apply(right, operator);
+    }
+
+    private static List<String[]> allConfigurations() {
+        List<String[]> configurations = new ArrayList<String[]>();
+        for (int mask = 0; mask < (1 << VARIABLES.length); mask++) {
+            List<String> present = new ArrayList<String>();
+            for (int i = 0; i < VARIABLES.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    present.add(VARIABLES[i]);
+                }
+            }
+            configurations.add(present.toArray(new String[present.size()]));
+        }
+        return configurations;
+    }
+
+}
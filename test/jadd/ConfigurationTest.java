@@ -0,0 +1,98 @@
+package jadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigurationTest {
+    private JADD jadd;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+        // More than 64 variables, so that configurations span several words.
+        for (int i = 0; i < 70; i++) {
+            jadd.getVariable("v" + i);
+        }
+    }
+
+    @Test
+    public void testConfigurationsWithSameVariablesAreEqual() throws UnrecognizedVariableException {
+        Configuration config = jadd.makeConfiguration(Arrays.asList("v69", "v0", "v3"));
+        Configuration sameConfig = jadd.makeConfiguration(Arrays.asList("v3", "v69", "v0", "v3"));
+        Configuration otherConfig = jadd.makeConfiguration(Arrays.asList("v0", "v3"));
+
+        Assert.assertEquals(config, sameConfig);
+        Assert.assertEquals(config.hashCode(), sameConfig.hashCode());
+        Assert.assertNotEquals(config, otherConfig);
+
+        Map<Configuration, Double> results = new HashMap<Configuration, Double>();
+        results.put(config, 0.5);
+        Assert.assertEquals(0.5, results.get(sameConfig), 0);
+        Assert.assertNull(results.get(otherConfig));
+    }
+
+    @Test
+    public void testConfigurationsStayEqualAfterNewVariables() throws UnrecognizedVariableException {
+        Configuration config = jadd.makeConfiguration(Arrays.asList("v1"));
+        for (int i = 70; i < 140; i++) {
+            jadd.getVariable("v" + i);
+        }
+        Assert.assertEquals(config, jadd.makeConfiguration(Arrays.asList("v1")));
+        Assert.assertEquals(jadd.makeConfiguration(Collections.<String>emptyList()),
+                            jadd.makeConfiguration(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testConfigurationIsCollectionOfNames() throws UnrecognizedVariableException {
+        Configuration config = jadd.makeConfiguration(Arrays.asList("v69", "v0", "v3"));
+
+        Assert.assertEquals(3, config.size());
+        Assert.assertEquals(Arrays.asList("v0", "v3", "v69"), new ArrayList<String>(config));
+        Assert.assertEquals("[v0, v3, v69]", config.toString());
+        Assert.assertTrue(config.contains("v69"));
+        Assert.assertFalse(config.contains("v1"));
+        Assert.assertFalse(config.contains("unknown"));
+        Assert.assertTrue(jadd.makeConfiguration(Collections.<String>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testEvaluationMatchesEvaluationByName() throws UnrecognizedVariableException {
+        ADD v0 = jadd.getVariable("v0");
+        ADD v69 = jadd.getVariable("v69");
+        ADD function = v0.ifThenElse(v69.times(jadd.makeConstant(0.5)),
+                                     jadd.makeConstant(0.25));
+
+        for (String[] variables : new String[][]{{}, {"v0"}, {"v69"}, {"v0", "v69"}}) {
+            Configuration config = jadd.makeConfiguration(Arrays.asList(variables));
+            Assert.assertEquals(Arrays.toString(variables),
+                                function.eval(variables),
+                                function.eval(config),
+                                0);
+        }
+    }
+
+    @Test
+    public void testConfigurationsFromOtherManagersAreMatchedByName() throws UnrecognizedVariableException {
+        JADD other = new JADD();
+        other.getVariable("v69");
+        other.getVariable("v0");
+        Configuration foreignConfig = other.makeConfiguration(Arrays.asList("v0"));
+
+        ADD v0 = jadd.getVariable("v0");
+        Assert.assertNotEquals(jadd.makeConfiguration(Arrays.asList("v0")), foreignConfig);
+        Assert.assertEquals(1.0, v0.eval(foreignConfig), 0);
+    }
+
+    @Test(expected = UnrecognizedVariableException.class)
+    public void testUnknownVariablesAreRejected() throws UnrecognizedVariableException {
+        jadd.makeConfiguration(Arrays.asList("v0", "unknown"));
+    }
+
+}
@@ -0,0 +1,150 @@
+package jadd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JADDConcurrencyTest {
+    private static final int NUM_VARIABLES = 8;
+
+    private JADD jadd;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+    }
+
+    @Test
+    public void testConcurrentOperationsYieldSequentialResults() {
+        List<ADD> sequential = IntStream.range(0, 200)
+                .mapToObj(this::buildFunction)
+                .collect(Collectors.toList());
+        List<ADD> parallel = IntStream.range(0, 200)
+                .parallel()
+                .mapToObj(this::buildFunction)
+                .collect(Collectors.toList());
+
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws UnrecognizedVariableException {
+        ADD function = buildFunction(42);
+        String[] configuration = {"v0", "v2", "v5"};
+        double expected = function.eval(configuration);
+
+        long mismatches = IntStream.range(0, 10000)
+                .parallel()
+                .mapToDouble(i -> {
+                    try {
+                        return function.eval(configuration);
+                    } catch (UnrecognizedVariableException e) {
+                        return Double.NaN;
+                    }
+                })
+                .filter(value -> Double.compare(value, expected) != 0)
+                .count();
+        assertEquals(0, mismatches);
+    }
+
+    @Test
+    public void testReplicaHasSameVariableOrder() throws UnrecognizedVariableException {
+        buildFunction(0);
+        jadd.setVariableOrder(new String[] {"v3", "v1", "v7", "v0", "v2", "v6", "v4", "v5"});
+
+        JADD replica = jadd.replicate();
+        assertEquals(jadd.getVariableOrder(), replica.getVariableOrder());
+        replica.close();
+    }
+
+    @Test
+    public void testTransferToReplicaAndBack() throws UnrecognizedVariableException {
+        ADD function = buildFunction(3);
+        JADD replica = jadd.replicate();
+
+        ADD transferred = replica.transfer(function);
+        // A variable which only the replica knows about.
+        ADD extended = transferred.times(replica.getVariable("w"));
+        assertEqualValues(function, transferred);
+
+        ADD back = jadd.transfer(transferred);
+        assertEquals(function, back);
+        ADD extendedBack = jadd.transfer(extended);
+        assertEquals(function.times(jadd.getVariable("w")), extendedBack);
+        replica.close();
+    }
+
+    @Test
+    public void testTransferWithinManagerMakesIndependentHandle() {
+        ADD function = buildFunction(5);
+        ADD copy = jadd.transfer(function);
+        assertNotSame(function, copy);
+        assertEquals(function, copy);
+
+        function.release();
+        assertTrue(!copy.isReleased());
+        assertEquals(buildFunction(5), copy);
+    }
+
+    @Test
+    public void testReplicasYieldSequentialResults() {
+        List<ADD> sequential = IntStream.range(0, 200)
+                .mapToObj(this::buildFunction)
+                .collect(Collectors.toList());
+
+        Queue<JADD> replicas = new ConcurrentLinkedQueue<JADD>();
+        ThreadLocal<JADD> replica = ThreadLocal.withInitial(() -> {
+            JADD created = jadd.replicate();
+            replicas.add(created);
+            return created;
+        });
+        List<ADD> parallel = IntStream.range(0, 200)
+                .parallel()
+                .mapToObj(seed -> jadd.transfer(buildFunction(replica.get(), seed)))
+                .collect(Collectors.toList());
+        replicas.forEach(JADD::close);
+
+        assertEquals(sequential, parallel);
+    }
+
+    private void assertEqualValues(ADD expected, ADD actual) throws UnrecognizedVariableException {
+        for (int assignment = 0; assignment < (1 << NUM_VARIABLES); assignment++) {
+            List<String> configuration = new ArrayList<String>();
+            for (int i = 0; i < NUM_VARIABLES; i++) {
+                if ((assignment & (1 << i)) != 0) {
+                    configuration.add("v" + i);
+                }
+            }
+            assertEquals(expected.eval(configuration), actual.eval(configuration), 0);
+        }
+    }
+
+    private ADD buildFunction(int seed) {
+        return buildFunction(jadd, seed);
+    }
+
+    /**
+     * Builds a weighted sum of variables, creating (and dropping) a number
+     * of intermediate ADDs along the way.
+     */
+    private static ADD buildFunction(JADD jadd, int seed) {
+        ADD result = jadd.makeConstant(0);
+        for (int i = 0; i < NUM_VARIABLES; i++) {
+            ADD variable = jadd.getVariable("v" + ((seed + i) % NUM_VARIABLES));
+            ADD weighted = variable.times(jadd.makeConstant(i + 1));
+            result = result.plus(weighted);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,99 @@
+package jadd;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how the feature-family-based analysis of the 30-feature model (or
+ * any other of the generated models) scales with the number of worker threads,
+ * each of which solves RDG nodes on its own replica of the ADD manager.
+ *
+ * The SEQUENTIAL run is compared to PARALLEL runs whose JVMs are limited to
+ * 2, 4, ... processors (and thus to as many worker threads in each pool), up
+ * to the number of available processors. Each run is a separate JVM, and the
+ * reported times are the analysis times printed by {@link ui.CommandLineInterface}.
+ *
+ * This is not part of the test suite, and it is only meaningful on a
+ * multi-core machine. Run it from the project root, so that the model files
+ * can be found:
+ *
+ *     java -cp ... jadd.ManagerLockBenchmark [runs] [number of features] [model checker]
+ *
+ * @author thiago
+ */
+public class ManagerLockBenchmark {
+
+    private static final String[] FAMILY_RUN_ARGS = {
+        "--analysis-strategy=FEATURE_FAMILY",
+        "--feature-model=cnf_%1$d.txt",
+        "--uml-models=model_%1$d_behavioral_model.xml",
+        "--model-checker=%2$s",
+        // Only the family-wide reliability is of interest.
+        "--configuration=R",
+        "--suppress-report"
+    };
+
+    private static final String ANALYSIS_TIME = "Total analysis time: ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int numberOfFeatures = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String modelChecker = args.length > 2 ? args[2] : "STATE_ELIMINATION";
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        long sequentialTime = 0;
+        for (int i = 0; i < runs; i++) {
+            sequentialTime += run("SEQUENTIAL", 1, numberOfFeatures, modelChecker);
+        }
+        sequentialTime /= runs;
+
+        System.out.println("=========================================");
+        System.out.println("Available processors: " + processors);
+        System.out.println("SEQUENTIAL:           " + sequentialTime + " ms (mean of " + runs + " runs)");
+        for (int threads = 2; threads <= Math.max(2, processors); threads *= 2) {
+            long parallelTime = 0;
+            for (int i = 0; i < runs; i++) {
+                parallelTime += run("PARALLEL", threads, numberOfFeatures, modelChecker);
+            }
+            parallelTime /= runs;
+            System.out.println(String.format("PARALLEL (%2d threads): %d ms (mean of %d runs), speed-up %.2f",
+                                             threads,
+                                             parallelTime,
+                                             runs,
+                                             (double) sequentialTime / Math.max(1, parallelTime)));
+        }
+    }
+
+    private static long run(String concurrencyStrategy, int threads, int numberOfFeatures, String modelChecker) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-XX:ActiveProcessorCount=" + threads);
+        command.add("ui.CommandLineInterface");
+        for (String arg : FAMILY_RUN_ARGS) {
+            command.add(String.format(arg, numberOfFeatures, modelChecker));
+        }
+        command.add("--concurrency-strategy=" + concurrencyStrategy);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        Long analysisTime = null;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(ANALYSIS_TIME)) {
+                    analysisTime = Long.parseLong(line.substring(ANALYSIS_TIME.length()).replace(" ms", "").trim());
+                }
+            }
+        }
+        if (process.waitFor() != 0 || analysisTime == null) {
+            throw new IllegalStateException("Analysis run failed (" + concurrencyStrategy + ", " + threads + " threads)");
+        }
+        return analysisTime;
+    }
+
+}
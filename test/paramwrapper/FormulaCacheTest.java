@@ -0,0 +1,120 @@
+package paramwrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class FormulaCacheTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("formulas");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCachedFormulasSurviveAcrossInstances() throws IOException {
+        new FormulaCache(directory, 10).put("checker", "model", "r0*r1");
+
+        FormulaCache cache = new FormulaCache(directory, 10);
+        assertEquals("r0*r1", cache.get("checker", "model"));
+        assertNull(cache.get("other checker", "model"));
+        assertNull(cache.get("checker", "other model"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+        FormulaCache cache = new FormulaCache(directory, 1);
+        cache.put("checker", "old model", "r0");
+        cache.put("checker", "new model", "r1");
+
+        assertNull(cache.get("checker", "old model"));
+        assertEquals("r1", cache.get("checker", "new model"));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws IOException {
+        FormulaCache cache = new FormulaCache(directory, 1000);
+        IntStream.range(0, 400)
+            .parallel()
+            .forEach(i -> cache.put("checker", "model" + (i % 20), "r" + (i % 20)));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("r" + i, cache.get("checker", "model" + i));
+        }
+    }
+
+    @Test
+    public void testFailedWritesLeaveNoTemporaryFiles() throws IOException {
+        FormulaCache cache = new FormulaCache(directory, 10);
+        cache.put("checker", "model", "r0");
+        Path entry;
+        try (Stream<Path> files = Files.list(directory)) {
+            entry = files.findFirst().get();
+        }
+        // A non-empty directory in the entry's place makes the move fail.
+        Files.delete(entry);
+        Files.createDirectories(entry.resolve("blocker"));
+
+        cache.put("checker", "model", "r1");
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.filter(path -> path.toString().endsWith(".tmp")).count());
+        }
+        assertNull(cache.get("checker", "model"));
+    }
+
+    @Test
+    public void testUnchangedModelsAreNotCheckedAgain() throws IOException {
+        List<FDTMC> checked = new ArrayList<FDTMC>();
+        ParametricModelChecker counting = fdtmc -> {
+            checked.add(fdtmc);
+            return "r0";
+        };
+        CachingModelChecker modelChecker = new CachingModelChecker(counting,
+                                                                   "counting",
+                                                                   new FormulaCache(directory, 10),
+                                                                   new NoopModelCollector());
+
+        assertEquals("r0", modelChecker.getReliability(makeFDTMC()));
+        assertEquals("r0", modelChecker.getReliability(makeFDTMC()));
+        assertEquals(1, checked.size());
+    }
+
+    private static FDTMC makeFDTMC() {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("s");
+        State s0 = fdtmc.createInitialState();
+        State s1 = fdtmc.createState("success");
+        State s2 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s1, null, "r0");
+        fdtmc.createTransition(s0, s2, null, "1-r0");
+        fdtmc.createTransition(s1, s1, null, "1");
+        fdtmc.createTransition(s2, s2, null, "1");
+        return fdtmc;
+    }
+
+}
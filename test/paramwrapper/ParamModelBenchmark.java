@@ -0,0 +1,79 @@
+package paramwrapper;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+/**
+ * Measures the serialization of a synthetic FDTMC with 100k states
+ * (a chain of parametric transitions, each of which may fail) into
+ * PARAM's input language, both in memory and streamed to a file.
+ *
+ * This is not part of the test suite:
+ *
+ *     java -cp ... paramwrapper.ParamModelBenchmark [states] [runs]
+ *
+ * @author thiago
+ */
+public class ParamModelBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int numberOfStates = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        long startTime = System.currentTimeMillis();
+        ParamModel model = new ParamModel(makeChain(numberOfStates));
+        System.out.println("Model building: " + (System.currentTimeMillis() - startTime) + " ms");
+
+        File modelFile = File.createTempFile("model", "param");
+        modelFile.deleteOnExit();
+        // Warm-up
+        String serialized = model.toString();
+        writeToFile(model, modelFile);
+
+        long inMemoryTime = 0;
+        long streamingTime = 0;
+        for (int i = 0; i < runs; i++) {
+            startTime = System.currentTimeMillis();
+            serialized = model.toString();
+            inMemoryTime += System.currentTimeMillis() - startTime;
+
+            startTime = System.currentTimeMillis();
+            writeToFile(model, modelFile);
+            streamingTime += System.currentTimeMillis() - startTime;
+        }
+
+        System.out.println("=========================================");
+        System.out.println("Model size: " + serialized.length() + " characters");
+        System.out.println("In memory (toString): " + inMemoryTime / runs + " ms (mean of " + runs + " runs)");
+        System.out.println("Streamed to file:     " + streamingTime / runs + " ms (mean of " + runs + " runs)");
+    }
+
+    private static void writeToFile(ParamModel model, File modelFile) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(modelFile))) {
+            model.writeTo(writer);
+        }
+    }
+
+    private static FDTMC makeChain(int numberOfStates) {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("s");
+        State error = fdtmc.createErrorState();
+        State current = fdtmc.createInitialState();
+        for (int i = 1; i < numberOfStates - 1; i++) {
+            State next = (i == numberOfStates - 2) ? fdtmc.createSuccessState() : fdtmc.createState();
+            fdtmc.createTransition(current, next, "a" + i, "r" + i);
+            fdtmc.createTransition(current, error, "f" + i, "1-r" + i);
+            current = next;
+        }
+        fdtmc.createTransition(current, current, null, "1");
+        fdtmc.createTransition(error, error, null, "1");
+        return fdtmc;
+    }
+
+}
@@ -0,0 +1,146 @@
+package paramwrapper;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import expressionsolver.ExpressionSolver;
+import fdtmc.FDTMC;
+import fdtmc.State;
+import jadd.JADD;
+
+public class StateEliminationModelCheckerTest {
+
+    StateEliminationModelChecker modelChecker;
+    ExpressionSolver solver;
+    FDTMC fdtmc;
+
+    @Before
+    public void setUp() throws Exception {
+        modelChecker = new StateEliminationModelChecker();
+        solver = new ExpressionSolver(new JADD());
+        fdtmc = new FDTMC();
+        fdtmc.setVariableName("s");
+    }
+
+    @Test
+    public void testReliabilityWithOneSuccessState() {
+        State s0 = fdtmc.createState();
+        State s1 = fdtmc.createState();
+        State s2 = fdtmc.createState("success");
+        State s3 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s3, null, "1-r0");
+        fdtmc.createTransition(s0, s1, null, "r0");
+        fdtmc.createTransition(s1, s2, null, "1-rFail");
+        fdtmc.createTransition(s1, s3, null, "rFail");
+        fdtmc.createTransition(s2, s2, null, "1");
+        fdtmc.createTransition(s3, s3, null, "1");
+
+        String formula = modelChecker.getReliability(fdtmc);
+        assertEquals("-r0*rFail+r0", formula);
+    }
+
+    @Test
+    public void testReliabilityWithTwoSuccessStates() {
+        State s0 = fdtmc.createState();
+        State s1 = fdtmc.createState("success");
+        State s2 = fdtmc.createState("success");
+        State s3 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s3, null, "1-r0");
+        fdtmc.createTransition(s0, s1, null, "r0");
+        fdtmc.createTransition(s1, s2, null, "1-rFail");
+        fdtmc.createTransition(s1, s3, null, "rFail");
+        fdtmc.createTransition(s2, s2, null, "1");
+        fdtmc.createTransition(s3, s3, null, "1");
+
+        String formula = modelChecker.getReliability(fdtmc);
+        assertEquals("r0", formula);
+    }
+
+    @Test
+    public void testReliabilityWithNoSuccessState() {
+        State s0 = fdtmc.createState();
+        State s1 = fdtmc.createState();
+        State s2 = fdtmc.createState();
+        State s3 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s3, null, "1-r0");
+        fdtmc.createTransition(s0, s1, null, "r0");
+        fdtmc.createTransition(s1, s2, null, "1-rFail");
+        fdtmc.createTransition(s1, s3, null, "rFail");
+        fdtmc.createTransition(s2, s2, null, "1");
+        fdtmc.createTransition(s3, s3, null, "1");
+
+        String formula = modelChecker.getReliability(fdtmc);
+        assertEquals("0", formula);
+    }
+
+    @Test
+    public void testReliabilityWithNoParameters() {
+        State s0 = fdtmc.createState();
+        State s1 = fdtmc.createState();
+        State s2 = fdtmc.createState("success");
+        State s3 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s3, null, "0.01");
+        fdtmc.createTransition(s0, s1, null, "0.99");
+        fdtmc.createTransition(s1, s2, null, "0.99");
+        fdtmc.createTransition(s1, s3, null, "0.01");
+        fdtmc.createTransition(s2, s2, null, "1");
+        fdtmc.createTransition(s3, s3, null, "1");
+
+        String formula = modelChecker.getReliability(fdtmc);
+        assertEquals(0.9801, solver.solveExpression(formula), 1E-14);
+    }
+
+    /**
+     * Loops are resolved by state elimination, so the result must match
+     * the closed form of the geometric series.
+     */
+    @Test
+    public void testReliabilityWithLoop() {
+        State s0 = fdtmc.createState();
+        State s1 = fdtmc.createState();
+        State s2 = fdtmc.createState("success");
+        State s3 = fdtmc.createState("error");
+        fdtmc.createTransition(s0, s1, null, "rA");
+        fdtmc.createTransition(s0, s3, null, "1-rA");
+        fdtmc.createTransition(s1, s0, null, "rLoop");
+        fdtmc.createTransition(s1, s2, null, "1-rLoop");
+        fdtmc.createTransition(s2, s2, null, "1");
+        fdtmc.createTransition(s3, s3, null, "1");
+
+        String formula = modelChecker.getReliability(fdtmc);
+
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("rA", 0.9);
+        values.put("rLoop", 0.3);
+        double expected = 0.9 * 0.7 / (1 - 0.9 * 0.3);
+        assertEquals(expected, solver.solveExpression(formula, values), 1E-14);
+    }
+
+    /**
+     * Interface transitions (e.g., "1 - id") and presence transitions
+     * (e.g., "1-id") must be understood.
+     */
+    @Test
+    public void testReliabilityWithInterface() {
+        State initial = fdtmc.createInitialState();
+        State success = fdtmc.createSuccessState();
+        State error = fdtmc.createErrorState();
+        fdtmc.createInterface("n1", initial, success, error);
+        FDTMC decorated = fdtmc.decoratedWithPresence("s0");
+
+        String formula = modelChecker.getReliability(decorated);
+
+        Map<String, Double> values = new HashMap<String, Double>();
+        values.put("n1", 0.8);
+        values.put("s0", 1.0);
+        assertEquals(0.8, solver.solveExpression(formula, values), 1E-14);
+        values.put("s0", 0.0);
+        assertEquals(1.0, solver.solveExpression(formula, values), 1E-14);
+    }
+
+}
@@ -0,0 +1,78 @@
+package parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import parsing.exceptions.InvalidTagException;
+
+public class XMIDocumentTest {
+
+    private static final String MODEL =
+            "<?xml version='1.0' encoding='UTF-8'?>\n"
+            + "<xmi:XMI xmlns:xmi='http://www.omg.org/spec/XMI/20131001' xmlns:GQAM='http://www.omg.org/GQAM'>\n"
+            + "\t<xmi:Documentation>\n"
+            + "\t\t<xmi:exporter>MagicDraw UML</xmi:exporter>\n"
+            + "\t</xmi:Documentation>\n"
+            + "\t<packagedElement xmi:type='uml:Activity' xmi:id='ad' name='AD'>\n"
+            + "\t\t<node xmi:type='uml:InitialNode' xmi:id='n0'/>\n"
+            + "\t</packagedElement>\n"
+            + "\t<ownedBehavior xmi:type='uml:Interaction' xmi:id='sd' name='SD'>\n"
+            + "\t\t<xmi:Extension extender='MagicDraw UML'><modelExtension/></xmi:Extension>\n"
+            + "\t\t<fragment xmi:type='uml:MessageOccurrenceSpecification' xmi:id='f0' message='m0'/>\n"
+            + "\t\t<message xmi:id='m0' name='call'/>\n"
+            + "\t</ownedBehavior>\n"
+            + "\t<GQAM:GaStep xmi:id='s0' base_NamedElement='m0' prob='0.9'>\n"
+            + "\t\t<execTime>2.5</execTime>\n"
+            + "\t</GQAM:GaStep>\n"
+            + "\t<GQAM:GaStep xmi:id='s1' base_NamedElement='m0' prob='0.1'/>\n"
+            + "</xmi:XMI>\n";
+
+    @Test
+    public void testExporterIsReadFromTheHeader() throws IOException {
+        assertEquals("MagicDraw UML", XMIDocument.readExporter(write(MODEL)));
+        assertNull(XMIDocument.readExporter(write("<SPL><ActivityDiagram/></SPL>")));
+    }
+
+    @Test
+    public void testDiagramsKeepTheirDocumentStructure() throws IOException {
+        XMIDocument document = XMIDocument.read(write(MODEL));
+
+        assertEquals(1, document.getActivityDiagrams().size());
+        assertEquals("AD", document.getActivityDiagrams().get(0).getAttribute("name"));
+
+        List<XMINode> sdChildren = document.getSequenceDiagrams().get(0).getChildNodes();
+        // Whitespace between elements is kept, as in the DOM.
+        assertTrue(sdChildren.get(0).isText());
+        assertEquals("xmi:Extension", sdChildren.get(1).getNodeName());
+        assertTrue(sdChildren.get(1).getChildNodes().isEmpty());
+        assertEquals("fragment", sdChildren.get(3).getNodeName());
+        assertEquals("m0", sdChildren.get(3).getAttribute("message"));
+    }
+
+    @Test
+    public void testFirstStereotypeOfEachElementIsUsed() throws IOException, InvalidTagException {
+        XMIDocument document = XMIDocument.read(write(MODEL));
+
+        ProbabilityEnergyTimeProfile profile = ProbabilityEnergyTimeProfileReader.retrieveProbEnergyTime("m0", document);
+        assertEquals(0.9, profile.getProbability(), 1e-6);
+        assertEquals(2.5, profile.getExecTime(), 1e-6);
+        assertTrue(!profile.hasEnergy());
+    }
+
+    private static File write(String contents) throws IOException {
+        File file = File.createTempFile("model", ".xml");
+        file.deleteOnExit();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
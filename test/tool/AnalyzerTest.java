@@ -102,6 +102,48 @@ public class AnalyzerTest {
     }
 
 
+    @Test
+    public void testEvaluateReliabilityOxygenationSymbolically() throws UnrecognizedVariableException, CyclicRdgException, UnknownFeatureException {
+        Analyzer symbolicAnalyzer = new Analyzer(fmBSN, PARAM_PATH, ModelCheckerStrategy.SYMBOLIC, null, null, null);
+        RDGNode node = BSNNodes.getOxygenationRDGNode();
+        IReliabilityAnalysisResults reliability = symbolicAnalyzer.evaluateFeatureFamilyBasedReliability(node);
+
+        String[] sqliteConfig = new String[]{
+                "Root",
+                "Monitoring",
+                "Storage",
+                "SensorInformation",
+                "Sensor",
+                "Oxygenation",
+                "SPO2",
+                "SQLite"};
+        Assert.assertEquals("Configuration with SQLite",
+                0.9920279440699441, reliability.getResult(sqliteConfig), 1E-14);
+
+        String[] fileConfig = new String[]{
+                "Root",
+                "Monitoring",
+                "Storage",
+                "SensorInformation",
+                "Sensor",
+                "Oxygenation",
+                "SPO2",
+                "File"};
+        Assert.assertEquals("Configuration without SQLite or Memory",
+                0.994014980014994001, reliability.getResult(fileConfig), 1E-14);
+
+        String[] noneConfig = new String[]{
+                "Root",
+                "Monitoring",
+                "Storage",
+                "SensorInformation",
+                "Sensor",
+                "Oxygenation",
+                "SPO2"};
+        Assert.assertEquals("Invalid configuration",
+                0, reliability.getResult(noneConfig), 1E-14);
+    }
+
     @Test
     public void testEvaluateFeatureProductReliabilityOxygenation() throws UnrecognizedVariableException, CyclicRdgException, UnknownFeatureException {
         RDGNode node = BSNNodes.getOxygenationRDGNode();
@@ -151,7 +193,7 @@ public class AnalyzerTest {
                 "SPO2"};
         configurations.add(Arrays.asList(noneConfig));
 
-        IReliabilityAnalysisResults reliability = analyzer.evaluateFeatureProductBasedReliability(node, configurations.stream());
+        IReliabilityAnalysisResults reliability = analyzer.evaluateFeatureProductBasedReliability(node, configurations.stream().map(analyzer::makeConfiguration));
         Assert.assertEquals("Configuration with SQLite",
                 0.9920279440699441, reliability.getResult(sqliteConfig), 1E-14);
         Assert.assertEquals("Configuration with Memory",
@@ -8,11 +8,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import fdtmc.FDTMC;
+import fdtmc.State;
 
 public class RDGNodeTest {
+    private RdgContext context;
 
     @Before
     public void setUp() throws Exception {
+        context = new RdgContext();
     }
 
     @Test
@@ -70,8 +73,8 @@ public class RDGNodeTest {
     public void testNodesWithSameFDTMC() {
         FDTMC sqliteFDTMC = FDTMCStub.createSqliteFDTMC();
         String presenceCondition = "SQLite";
-        RDGNode firstSqlite = new RDGNode(RDGNode.getNextId(), presenceCondition, sqliteFDTMC);
-        RDGNode secondSqlite = new RDGNode(RDGNode.getNextId(), presenceCondition, sqliteFDTMC);
+        RDGNode firstSqlite = new RDGNode(context, context.getNextId(), presenceCondition, sqliteFDTMC);
+        RDGNode secondSqlite = new RDGNode(context, context.getNextId(), presenceCondition, sqliteFDTMC);
 
         Assert.assertEquals("Nodes with same FDTMC and presence condition and no dependencies should be equal",
                 firstSqlite, secondSqlite);
@@ -81,9 +84,9 @@ public class RDGNodeTest {
     public void testNodesWithSameFDTMCAndDifferentDependencies() {
         FDTMC pulseRateFDTMC = FDTMCStub.createPulseRateFDTMC();
         String presenceCondition = "SQLite";
-        RDGNode first = new RDGNode(RDGNode.getNextId(), presenceCondition, pulseRateFDTMC);
+        RDGNode first = new RDGNode(context, context.getNextId(), presenceCondition, pulseRateFDTMC);
         first.addDependency(BSNNodes.getMemoryRDGNode());
-        RDGNode second = new RDGNode(RDGNode.getNextId(), presenceCondition, pulseRateFDTMC);
+        RDGNode second = new RDGNode(context, context.getNextId(), presenceCondition, pulseRateFDTMC);
         second.addDependency(BSNNodes.getSQLiteRDGNode());
 
         Assert.assertNotEquals("Nodes with same FDTMC and presence condition and different dependencies should NOT be equal",
@@ -99,21 +102,96 @@ public class RDGNodeTest {
     public void testSimilarNodes() {
         FDTMC pulseRateFDTMC = FDTMCStub.createPulseRateFDTMC();
         String presenceCondition = "SQLite";
-        RDGNode first = new RDGNode(RDGNode.getNextId(), presenceCondition, pulseRateFDTMC);
+        RDGNode first = new RDGNode(context, context.getNextId(), presenceCondition, pulseRateFDTMC);
         first.addDependency(BSNNodes.getMemoryRDGNode());
-        RDGNode second = new RDGNode(RDGNode.getNextId(), presenceCondition, pulseRateFDTMC);
+        RDGNode second = new RDGNode(context, context.getNextId(), presenceCondition, pulseRateFDTMC);
         second.addDependency(BSNNodes.getSQLiteRDGNode());
 
-        RDGNode similarCandidate = RDGNode.getSimilarNode(second);
+        RDGNode similarCandidate = context.getSimilarNode(second);
         Assert.assertNull("Nodes with same FDTMC and presence condition and different dependencies should NOT be equal",
                 similarCandidate);
 
         second.addDependency(BSNNodes.getMemoryRDGNode());
         first.addDependency(BSNNodes.getSQLiteRDGNode());
 
-        similarCandidate = RDGNode.getSimilarNode(second);
+        similarCandidate = context.getSimilarNode(second);
         Assert.assertEquals("Nodes with same FDTMC, presence condition and dependencies should be equal",
                 first, similarCandidate);
     }
 
+    @Test
+    public void testSimilarNodesUpToStateNumbering() {
+        String presenceCondition = "Oxygenation";
+        RDGNode first = new RDGNode(context, context.getNextId(), presenceCondition, makeChain(false));
+        first.addDependency(BSNNodes.getFileRDGNode());
+        RDGNode second = new RDGNode(context, context.getNextId(), presenceCondition, makeChain(true));
+        second.addDependency(BSNNodes.getFileRDGNode());
+
+        Assert.assertNotEquals(first, second);
+        Assert.assertEquals("Nodes with FDTMCs equal up to state numbering should be similar",
+                first, context.getSimilarNode(second));
+        Assert.assertEquals(second, context.getSimilarNode(first));
+
+        second.getFDTMC().createTransition(second.getFDTMC().getErrorState(),
+                                           second.getFDTMC().getErrorState(),
+                                           "",
+                                           "1");
+        Assert.assertNull("Changes to FDTMCs should be taken into account",
+                context.getSimilarNode(second));
+    }
+
+    @Test
+    public void testStaleCandidatesAreRefiled() {
+        String presenceCondition = "Oxygenation";
+        RDGNode first = new RDGNode(context, context.getNextId(), presenceCondition, makeChain(false));
+        RDGNode second = new RDGNode(context, context.getNextId(), presenceCondition, makeChain(false));
+        Assert.assertEquals(first, context.getSimilarNode(second));
+
+        first.getFDTMC().createTransition(first.getFDTMC().getErrorState(),
+                                          first.getFDTMC().getErrorState(),
+                                          "",
+                                          "1");
+        Assert.assertNull("Candidates whose FDTMCs changed since they were filed should not be returned",
+                context.getSimilarNode(second));
+        Assert.assertNull(context.getSimilarNode(first));
+    }
+
+    @Test
+    public void testContextsAreIndependent() {
+        RdgContext otherContext = new RdgContext();
+        Assert.assertEquals(context.getNextId(), otherContext.getNextId());
+
+        RDGNode node = new RDGNode(context, "sqlite", "SQLite", FDTMCStub.createSqliteFDTMC());
+        RDGNode otherNode = new RDGNode(otherContext, "sqlite", "SQLite", FDTMCStub.createSqliteFDTMC());
+
+        Assert.assertSame(node, context.getById("sqlite"));
+        Assert.assertSame(otherNode, otherContext.getById("sqlite"));
+        Assert.assertSame(context, node.getContext());
+        Assert.assertEquals(1, context.getNodes().size());
+        Assert.assertNull("Similar nodes should only be looked up within the same context",
+                context.getSimilarNode(node));
+        Assert.assertNull(otherContext.getSimilarNode(otherNode));
+    }
+
+    private static FDTMC makeChain(boolean backwards) {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("sChain");
+        State init = fdtmc.createInitialState();
+        State middle, error, success;
+        if (backwards) {
+            success = fdtmc.createSuccessState();
+            error = fdtmc.createErrorState();
+            middle = fdtmc.createState();
+        } else {
+            middle = fdtmc.createState();
+            error = fdtmc.createErrorState();
+            success = fdtmc.createSuccessState();
+        }
+        fdtmc.createTransition(init, middle, "first", "0.9");
+        fdtmc.createTransition(init, error, "!first", "0.1");
+        fdtmc.createTransition(middle, success, "second", "0.8");
+        fdtmc.createTransition(middle, error, "!second", "0.2");
+        return fdtmc;
+    }
+
 }
@@ -0,0 +1,84 @@
+package tool;
+
+import static org.junit.Assert.assertEquals;
+import jadd.ADD;
+import jadd.JADD;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import parsing.SplGeneratorModels.Feature;
+import expressionsolver.ExpressionSolver;
+
+public class VariableOrderingTest {
+    private Feature root;
+
+    /**
+     * Root
+     *  +- Storage (alternative)
+     *  |   +- Sqlite
+     *  |   +- Memory
+     *  |       +- Compression
+     *  +- Sensors (or)
+     *      +- Temperature
+     *      +- Pulse
+     */
+    @Before
+    public void setUp() {
+        root = new Feature("Root");
+        root.setType(Feature.AND);
+        Feature storage = root.addChild("Storage", Feature.ALTERNATIVE, Feature.MANDATORY, Feature.ABSTRACT, !Feature.HIDDEN);
+        storage.addChild("Sqlite", Feature.LEAF, !Feature.MANDATORY, !Feature.ABSTRACT, !Feature.HIDDEN);
+        Feature memory = storage.addChild("Memory", Feature.AND, !Feature.MANDATORY, !Feature.ABSTRACT, !Feature.HIDDEN);
+        memory.addChild("Compression", Feature.LEAF, !Feature.MANDATORY, !Feature.ABSTRACT, !Feature.HIDDEN);
+        Feature sensors = root.addChild("Sensors", Feature.OR, Feature.MANDATORY, Feature.ABSTRACT, !Feature.HIDDEN);
+        sensors.addChild("Temperature", Feature.LEAF, !Feature.MANDATORY, !Feature.ABSTRACT, !Feature.HIDDEN);
+        sensors.addChild("Pulse", Feature.LEAF, !Feature.MANDATORY, !Feature.ABSTRACT, !Feature.HIDDEN);
+    }
+
+    @Test
+    public void testSiblingGroupsAreAdjacentInDepthFirstOrder() {
+        VariableOrdering ordering = VariableOrdering.fromFeatureTree(root);
+
+        assertEquals(Arrays.asList("Root",
+                                   "Storage", "Sqlite", "Memory", "Compression",
+                                   "Sensors", "Temperature", "Pulse"),
+                     ordering.getOrder());
+        assertEquals(Arrays.asList(Arrays.asList("Sqlite", "Memory"),
+                                   Arrays.asList("Temperature", "Pulse")),
+                     ordering.getGroups());
+    }
+
+    @Test
+    public void testOrderingIsAppliedToKnownVariables() {
+        JADD jadd = new JADD();
+        ExpressionSolver solver = new ExpressionSolver(jadd);
+        ADD featureModel = solver.encodeCNF("Root && (!Pulse || Sensors) && (!Temperature || Sensors)"
+                + " && (!Sensors || Temperature || Pulse) && (!Compression || Memory)"
+                + " && (!Memory || !Sqlite) && extra");
+        ADD before = featureModel.times(jadd.makeConstant(1));
+
+        VariableOrdering.fromFeatureTree(root).applyTo(jadd);
+
+        List<String> order = jadd.getVariableOrder();
+        assertEquals("Features should come first, in tree order, and other variables last",
+                     Arrays.asList("Root",
+                                   "Sqlite", "Memory", "Compression",
+                                   "Sensors", "Temperature", "Pulse",
+                                   "extra"),
+                     order);
+        assertEquals("Reordering must not change the encoded function",
+                     before, featureModel);
+
+        jadd.reorderVariables();
+        List<String> reordered = jadd.getVariableOrder();
+        assertEquals("Sibling groups should stay together after sifting",
+                     1, Math.abs(reordered.indexOf("Sqlite") - reordered.indexOf("Memory")));
+        assertEquals("Sibling groups should stay together after sifting",
+                     1, Math.abs(reordered.indexOf("Temperature") - reordered.indexOf("Pulse")));
+    }
+
+}
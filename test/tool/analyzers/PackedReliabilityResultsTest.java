@@ -0,0 +1,111 @@
+package tool.analyzers;
+
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import tool.UnknownFeatureException;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.ProductIterationHelper;
+import tool.analyzers.buildingblocks.ResultsStorage;
+
+public class PackedReliabilityResultsTest {
+    private JADD jadd;
+
+    @Before
+    public void setUp() throws Exception {
+        jadd = new JADD();
+        for (int i = 0; i < 12; i++) {
+            jadd.getVariable("f" + i);
+        }
+    }
+
+    @Test
+    public void testResultsAreFoundByConfigurationOrByName() throws UnrecognizedVariableException {
+        PackedReliabilityResults results = new PackedReliabilityResults(jadd, ResultsStorage.HEAP);
+        results.put(jadd.makeConfiguration(Arrays.asList("f0", "f3")), 0.9);
+        results.put(jadd.makeConfiguration(Arrays.asList("f3")), 0.8);
+        results.put(jadd.makeConfiguration(Arrays.asList("f3", "f0")), 0.7);
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(0.7, results.getResult(jadd.makeConfiguration(Arrays.asList("f0", "f3"))), 0);
+        Assert.assertEquals(0.7, results.getResult(new String[]{"f3", "f0"}), 0);
+        Assert.assertEquals(0.8, results.getResult(new String[]{"f3"}), 0);
+        Assert.assertEquals("Configurations without results are worth 0",
+                            0.0, results.getResult(new String[]{"f1"}), 0);
+    }
+
+    @Test(expected = UnknownFeatureException.class)
+    public void testUnknownFeaturesAreRejected() {
+        new PackedReliabilityResults(jadd, ResultsStorage.HEAP).getResult(new String[]{"f0", "unknown"});
+    }
+
+    @Test
+    public void testTableGrowsWithConfigurationsAndFeatures() throws UnrecognizedVariableException {
+        PackedReliabilityResults results = new PackedReliabilityResults(jadd, ResultsStorage.OFF_HEAP);
+        List<Configuration> configurations = allConfigurations(12);
+        for (int i = 0; i < configurations.size(); i++) {
+            results.put(configurations.get(i), i);
+        }
+        // Configurations which span more than a single word.
+        for (int i = 12; i < 130; i++) {
+            jadd.getVariable("f" + i);
+        }
+        Configuration wide = jadd.makeConfiguration(Arrays.asList("f1", "f129"));
+        results.put(wide, 0.5);
+
+        Assert.assertEquals(configurations.size() + 1, results.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            Assert.assertEquals(configurations.get(i).toString(),
+                                i, results.getResult(configurations.get(i)), 0);
+        }
+        Assert.assertEquals(0.5, results.getResult(wide), 0);
+        Assert.assertEquals(0.0, results.getResult(jadd.makeConfiguration(Arrays.asList("f129"))), 0);
+    }
+
+    @Test
+    public void testConcurrentInsertions() {
+        for (ResultsStorage storage : ResultsStorage.values()) {
+            List<Configuration> configurations = allConfigurations(12);
+            PackedReliabilityResults results = ProductIterationHelper.evaluate(c -> (double) c.size(),
+                                                                               Stream.concat(configurations.stream(),
+                                                                                             configurations.stream()),
+                                                                               ConcurrencyStrategy.PARALLEL,
+                                                                               new PackedReliabilityResults(jadd, storage));
+
+            Assert.assertEquals(storage.toString(), configurations.size(), results.size());
+            for (Configuration configuration : configurations) {
+                Assert.assertEquals(storage.toString(),
+                                    configuration.size(), results.getResult(configuration), 0);
+            }
+        }
+    }
+
+    private List<Configuration> allConfigurations(int numFeatures) {
+        List<Configuration> configurations = new ArrayList<Configuration>();
+        for (int assignment = 0; assignment < (1 << numFeatures); assignment++) {
+            List<String> features = new ArrayList<String>();
+            for (int i = 0; i < numFeatures; i++) {
+                if ((assignment & (1 << i)) != 0) {
+                    features.add("f" + i);
+                }
+            }
+            try {
+                configurations.add(jadd.makeConfiguration(features));
+            } catch (UnrecognizedVariableException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return configurations;
+    }
+
+}
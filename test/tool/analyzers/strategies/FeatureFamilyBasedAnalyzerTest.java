@@ -0,0 +1,113 @@
+package tool.analyzers.strategies;
+
+import jadd.JADD;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import paramwrapper.NoopModelCollector;
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+import tool.FDTMCStub;
+import tool.RDGNode;
+import tool.RdgContext;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.analyzers.buildingblocks.SymbolicModelChecker;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+import expressionsolver.ExpressionSolver;
+
+public class FeatureFamilyBasedAnalyzerTest {
+    private static final String[][] CONFIGURATIONS = {
+        {"Oxygenation", "SQLite"},
+        {"Oxygenation", "File"},
+        {"Oxygenation", "Memory"},
+        {"SQLite", "File"}
+    };
+    // Enough nodes for the evaluation's bookkeeping to outgrow its initial capacity.
+    private static final int NUMBER_OF_REPLICAS = 100;
+
+    private JADD jadd;
+    private volatile boolean memoryFails;
+    private FeatureFamilyBasedAnalyzer analyzer;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD();
+        memoryFails = false;
+        ParametricModelChecker stateElimination = new StateEliminationModelChecker();
+        ParametricModelChecker failingModelChecker = fdtmc -> {
+            if (memoryFails && fdtmc.getVariableName().equals("sMemory")) {
+                throw new IllegalStateException("Model checking failed");
+            }
+            return stateElimination.getReliability(fdtmc);
+        };
+        analyzer = new FeatureFamilyBasedAnalyzer(jadd,
+                                                  jadd.makeConstant(1.0),
+                                                  failingModelChecker,
+                                                  new NoopTimeCollector(),
+                                                  new NoopFormulaCollector());
+    }
+
+    @Test
+    public void testParallelEvaluationMatchesSequential() {
+        RDGNode root = buildWideBSN();
+        IReliabilityAnalysisResults expected = analyzer.evaluateReliability(root, ConcurrencyStrategy.SEQUENTIAL, null);
+        for (int i = 0; i < 10; i++) {
+            assertSameResults(expected, analyzer.evaluateReliability(root, ConcurrencyStrategy.PARALLEL, null));
+        }
+    }
+
+    @Test
+    public void testParallelSymbolicEvaluationMatchesSequential() {
+        analyzer.setSymbolicModelChecker(new SymbolicModelChecker(jadd,
+                                                                  new ExpressionSolver(jadd),
+                                                                  new NoopModelCollector()));
+        RDGNode root = buildWideBSN();
+        IReliabilityAnalysisResults expected = analyzer.evaluateReliability(root, ConcurrencyStrategy.SEQUENTIAL, null);
+        for (int i = 0; i < 10; i++) {
+            assertSameResults(expected, analyzer.evaluateReliability(root, ConcurrencyStrategy.PARALLEL, null));
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedAndLeaveTheAnalyzerUsable() {
+        RDGNode root = buildWideBSN();
+        memoryFails = true;
+        try {
+            analyzer.evaluateReliability(root, ConcurrencyStrategy.PARALLEL, null);
+            Assert.fail("The model checker's failure should be reported");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Model checking failed", e.getMessage());
+        }
+
+        memoryFails = false;
+        assertSameResults(analyzer.evaluateReliability(root, ConcurrencyStrategy.SEQUENTIAL, null),
+                          analyzer.evaluateReliability(root, ConcurrencyStrategy.PARALLEL, null));
+    }
+
+    private static void assertSameResults(IReliabilityAnalysisResults expected, IReliabilityAnalysisResults actual) {
+        for (String[] configuration : CONFIGURATIONS) {
+            Assert.assertEquals(expected.getResult(configuration), actual.getResult(configuration), 1E-14);
+        }
+    }
+
+    /**
+     * Builds the RDG of the BSN's oxygenation, whose root also depends on
+     * replicas of the SQLite persistence (which it does not reference).
+     */
+    private static RDGNode buildWideBSN() {
+        RdgContext context = new RdgContext();
+        RDGNode oxygenation = new RDGNode(context, "oxygenation", "Oxygenation", FDTMCStub.createOxygenationFDTMC());
+        oxygenation.addDependency(new RDGNode(context, "sqlite", "SQLite", FDTMCStub.createSqliteFDTMC()));
+        oxygenation.addDependency(new RDGNode(context, "file", "File", FDTMCStub.createFileFDTMC()));
+        oxygenation.addDependency(new RDGNode(context, "memory", "Memory", FDTMCStub.createMemoryFDTMC()));
+        for (int i = 0; i < NUMBER_OF_REPLICAS; i++) {
+            oxygenation.addDependency(new RDGNode(context, "sqlite" + i, "SQLite", FDTMCStub.createSqliteFDTMC()));
+        }
+        return oxygenation;
+    }
+
+}
@@ -0,0 +1,94 @@
+package tool.analyzers.strategies;
+
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+import tool.FDTMCStub;
+import tool.RDGNode;
+import tool.RdgContext;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+
+public class FeatureProductBasedAnalyzerTest {
+    private static final String[] FEATURES = {"Oxygenation", "SQLite", "File", "Memory"};
+
+    private JADD jadd;
+    private ParametricModelChecker modelChecker;
+    private RDGNode oxygenation;
+
+    @Before
+    public void setUp() {
+        jadd = new JADD();
+        modelChecker = new StateEliminationModelChecker();
+
+        RdgContext context = new RdgContext();
+        RDGNode sqlite = new RDGNode(context, "sqlite", "SQLite", FDTMCStub.createSqliteFDTMC());
+        RDGNode file = new RDGNode(context, "file", "File", FDTMCStub.createFileFDTMC());
+        RDGNode memory = new RDGNode(context, "memory", "Memory", FDTMCStub.createMemoryFDTMC());
+        oxygenation = new RDGNode(context, "oxygenation", "Oxygenation", FDTMCStub.createOxygenationFDTMC());
+        oxygenation.addDependency(sqlite);
+        oxygenation.addDependency(file);
+        oxygenation.addDependency(memory);
+    }
+
+    /**
+     * Memoized node values are shared among configurations which agree on
+     * the nodes' features, so they must not leak into configurations which
+     * do not.
+     */
+    @Test
+    public void testMemoizedResultsMatchFeatureFamilyBasedResults() throws UnrecognizedVariableException {
+        FeatureFamilyBasedAnalyzer familyAnalyzer = new FeatureFamilyBasedAnalyzer(jadd,
+                                                                                   jadd.makeConstant(1.0),
+                                                                                   modelChecker,
+                                                                                   new NoopTimeCollector(),
+                                                                                   new NoopFormulaCollector());
+        IReliabilityAnalysisResults expected = familyAnalyzer.evaluateReliability(oxygenation,
+                                                                                  ConcurrencyStrategy.SEQUENTIAL,
+                                                                                  null);
+
+        List<Configuration> configurations = allConfigurations();
+        FeatureProductBasedAnalyzer productAnalyzer = new FeatureProductBasedAnalyzer(jadd,
+                                                                                      modelChecker,
+                                                                                      new NoopTimeCollector(),
+                                                                                      new NoopFormulaCollector());
+        for (ConcurrencyStrategy strategy : ConcurrencyStrategy.values()) {
+            IReliabilityAnalysisResults actual = productAnalyzer.evaluateReliability(oxygenation,
+                                                                                     configurations.stream(),
+                                                                                     strategy);
+            for (Configuration configuration : configurations) {
+                Assert.assertEquals(configuration.toString(),
+                                    expected.getResult(configuration),
+                                    actual.getResult(configuration),
+                                    1E-14);
+            }
+        }
+    }
+
+    private List<Configuration> allConfigurations() throws UnrecognizedVariableException {
+        List<Configuration> configurations = new ArrayList<Configuration>();
+        for (int subset = 0; subset < (1 << FEATURES.length); subset++) {
+            List<String> features = new ArrayList<String>();
+            for (int i = 0; i < FEATURES.length; i++) {
+                if ((subset & (1 << i)) != 0) {
+                    features.add(FEATURES[i]);
+                }
+            }
+            configurations.add(jadd.makeConfiguration(features));
+        }
+        return configurations;
+    }
+
+}
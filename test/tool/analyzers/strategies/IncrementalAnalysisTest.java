@@ -0,0 +1,117 @@
+package tool.analyzers.strategies;
+
+import jadd.JADD;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import paramwrapper.ParametricModelChecker;
+import paramwrapper.StateEliminationModelChecker;
+import tool.FDTMCStub;
+import tool.RDGNode;
+import tool.RdgContext;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class IncrementalAnalysisTest {
+    private static final String[][] CONFIGURATIONS = {
+        {"Oxygenation", "SQLite"},
+        {"Oxygenation", "File"},
+        {"Oxygenation", "Memory"},
+        {"SQLite", "File"}
+    };
+
+    private AtomicInteger modelCheckerRuns;
+    private FeatureFamilyBasedAnalyzer analyzer;
+
+    @Before
+    public void setUp() {
+        JADD jadd = new JADD();
+        modelCheckerRuns = new AtomicInteger();
+        ParametricModelChecker stateElimination = new StateEliminationModelChecker();
+        ParametricModelChecker countingModelChecker = fdtmc -> {
+            modelCheckerRuns.incrementAndGet();
+            return stateElimination.getReliability(fdtmc);
+        };
+        analyzer = new FeatureFamilyBasedAnalyzer(jadd,
+                                                  jadd.makeConstant(1.0),
+                                                  countingModelChecker,
+                                                  new NoopTimeCollector(),
+                                                  new NoopFormulaCollector());
+    }
+
+    @Test
+    public void testOnlyChangedNodesAreModelChecked() {
+        IReliabilityAnalysisResults first = analyzer.evaluateReliabilityIncrementally(buildBSN(false),
+                                                                                     ConcurrencyStrategy.PARALLEL,
+                                                                                     null);
+        Assert.assertEquals(4, modelCheckerRuns.getAndSet(0));
+
+        IReliabilityAnalysisResults rebuilt = analyzer.evaluateReliabilityIncrementally(buildBSN(false),
+                                                                                       ConcurrencyStrategy.PARALLEL,
+                                                                                       null);
+        Assert.assertEquals("An equal RDG should be entirely reused", 0, modelCheckerRuns.getAndSet(0));
+        assertSameResults(first, rebuilt);
+
+        RDGNode edited = buildBSN(true);
+        IReliabilityAnalysisResults incremental = analyzer.evaluateReliabilityIncrementally(edited,
+                                                                                           ConcurrencyStrategy.SEQUENTIAL,
+                                                                                           null);
+        Assert.assertEquals("Only the edited node should be model checked again",
+                            1, modelCheckerRuns.getAndSet(0));
+        assertSameResults(analyzer.evaluateReliability(edited, ConcurrencyStrategy.SEQUENTIAL, null), incremental);
+        Assert.assertNotEquals(first.getResult(CONFIGURATIONS[2]), incremental.getResult(CONFIGURATIONS[2]));
+        Assert.assertEquals("Configurations without the edited feature are unaffected",
+                            first.getResult(CONFIGURATIONS[0]), incremental.getResult(CONFIGURATIONS[0]));
+    }
+
+    private static void assertSameResults(IReliabilityAnalysisResults expected, IReliabilityAnalysisResults actual) {
+        for (String[] configuration : CONFIGURATIONS) {
+            Assert.assertEquals(expected.getResult(configuration), actual.getResult(configuration), 1E-14);
+        }
+    }
+
+    /**
+     * Builds the RDG of the BSN's oxygenation from scratch, as if its models were parsed again.
+     *
+     * @param editMemory Whether the model of the Memory persistence is to be
+     *          changed (i.e., its first message made less reliable).
+     */
+    private static RDGNode buildBSN(boolean editMemory) {
+        RdgContext context = new RdgContext();
+        RDGNode sqlite = new RDGNode(context, "sqlite", "SQLite", FDTMCStub.createSqliteFDTMC());
+        RDGNode file = new RDGNode(context, "file", "File", FDTMCStub.createFileFDTMC());
+        RDGNode memory = new RDGNode(context, "memory", "Memory", editMemory ? createEditedMemoryFDTMC()
+                                                                        : FDTMCStub.createMemoryFDTMC());
+
+        RDGNode oxygenation = new RDGNode(context, "oxygenation", "Oxygenation", FDTMCStub.createOxygenationFDTMC());
+        oxygenation.addDependency(sqlite);
+        oxygenation.addDependency(file);
+        oxygenation.addDependency(memory);
+        return oxygenation;
+    }
+
+    private static FDTMC createEditedMemoryFDTMC() {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("sMemory");
+        State init = fdtmc.createInitialState(),
+              fail = fdtmc.createErrorState(),
+              success = fdtmc.createSuccessState(),
+              persisted = fdtmc.createState();
+        fdtmc.createTransition(init, persisted, "persist", "0.9");
+        fdtmc.createTransition(init, fail, "persist", "0.1");
+        fdtmc.createTransition(persisted, success, "persistReturn", "0.999");
+        fdtmc.createTransition(persisted, fail, "persistReturn", "0.001");
+        fdtmc.createTransition(success, success, "", "1.0");
+        fdtmc.createTransition(fail, fail, "", "1.0");
+        return fdtmc;
+    }
+
+}
@@ -0,0 +1,109 @@
+package tool.analyzers.strategies;
+
+import jadd.Configuration;
+import jadd.JADD;
+import jadd.UnrecognizedVariableException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import paramwrapper.StateEliminationModelChecker;
+import tool.RDGNode;
+import tool.RdgContext;
+import tool.analyzers.IReliabilityAnalysisResults;
+import tool.analyzers.buildingblocks.ConcurrencyStrategy;
+import tool.stats.NoopFormulaCollector;
+import tool.stats.NoopTimeCollector;
+import fdtmc.FDTMC;
+import fdtmc.State;
+
+public class ProductBasedAnalyzerTest {
+    private static final String[] FEATURES = {"Oxygenation", "SQLite", "File", "Memory"};
+
+    private JADD jadd;
+    private ProductBasedAnalyzer analyzer;
+    private List<Configuration> configurations;
+
+    @Before
+    public void setUp() throws UnrecognizedVariableException {
+        jadd = new JADD();
+        analyzer = new ProductBasedAnalyzer(jadd,
+                                            new StateEliminationModelChecker(),
+                                            new NoopTimeCollector(),
+                                            new NoopFormulaCollector());
+        for (String feature : FEATURES) {
+            jadd.getVariable(feature);
+        }
+        configurations = new ArrayList<Configuration>();
+        for (int subset = 0; subset < (1 << FEATURES.length); subset++) {
+            configurations.add(jadd.makeConfiguration(toFeatures(subset)));
+        }
+    }
+
+    @Test
+    public void testParallelEvaluationMatchesSequential() {
+        RDGNode root = buildBSN();
+        IReliabilityAnalysisResults expected = analyzer.evaluateReliability(root,
+                                                                            configurations.stream(),
+                                                                            ConcurrencyStrategy.SEQUENTIAL);
+        for (int i = 0; i < 10; i++) {
+            IReliabilityAnalysisResults parallel = analyzer.evaluateReliability(root,
+                                                                                configurations.stream(),
+                                                                                ConcurrencyStrategy.PARALLEL);
+            for (int subset = 0; subset < (1 << FEATURES.length); subset++) {
+                String[] configuration = toFeatures(subset).toArray(new String[0]);
+                Assert.assertEquals(expected.getResult(configuration), parallel.getResult(configuration), 1E-14);
+            }
+        }
+    }
+
+    private static List<String> toFeatures(int subset) {
+        List<String> features = new ArrayList<String>();
+        for (int i = 0; i < FEATURES.length; i++) {
+            if ((subset & (1 << i)) != 0) {
+                features.add(FEATURES[i]);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Builds an RDG whose root reaches two persistences through interfaces,
+     * so that products can be derived by inlining.
+     */
+    private static RDGNode buildBSN() {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName("sOxygenation");
+        State init = fdtmc.createInitialState(),
+              success = fdtmc.createSuccessState(),
+              fail = fdtmc.createErrorState(),
+              registered = fdtmc.createState(),
+              persisted = fdtmc.createState();
+        fdtmc.createTransition(init, registered, "register", "0.999");
+        fdtmc.createTransition(init, fail, "register", "0.001");
+        fdtmc.createInterface("sqlite", registered, persisted, fail);
+        fdtmc.createInterface("memory", persisted, success, fail);
+
+        RdgContext context = new RdgContext();
+        RDGNode oxygenation = new RDGNode(context, "oxygenation", "Oxygenation", fdtmc);
+        oxygenation.addDependency(new RDGNode(context, "sqlite", "SQLite", createPersistenceFDTMC("sSqlite", "0.99")));
+        oxygenation.addDependency(new RDGNode(context, "memory", "Memory && !File", createPersistenceFDTMC("sMemory", "0.9")));
+        return oxygenation;
+    }
+
+    private static FDTMC createPersistenceFDTMC(String variableName, String reliability) {
+        FDTMC fdtmc = new FDTMC();
+        fdtmc.setVariableName(variableName);
+        State init = fdtmc.createInitialState(),
+              success = fdtmc.createSuccessState(),
+              fail = fdtmc.createErrorState();
+        fdtmc.createTransition(init, success, "persist", reliability);
+        fdtmc.createTransition(init, fail, "persist", "1 - " + reliability);
+        return fdtmc;
+    }
+
+}
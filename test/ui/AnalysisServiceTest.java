@@ -0,0 +1,99 @@
+package ui;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnalysisServiceTest {
+    private static final String LOAD_LIFT_SYSTEM = "{\"command\": \"load\", \"name\": \"lift\","
+            + " \"featureModel\": \"CNF_LiftSystem.txt\", \"umlModels\": \"LiftSystem.xml\","
+            + " \"modelChecker\": \"STATE_ELIMINATION\"}";
+
+    private AnalysisService service;
+
+    @Before
+    public void setUp() {
+        service = new AnalysisService();
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+    }
+
+    @Test
+    public void testQueriesAgreeWithEachOther() {
+        Map<String, Object> loaded = request(LOAD_LIFT_SYSTEM);
+        Assert.assertEquals(true, loaded.get("ok"));
+        Assert.assertEquals("lift", loaded.get("name"));
+
+        Map<String, Object> query = request("{\"command\": \"query\", \"name\": \"lift\","
+                + " \"configuration\": [\"LiftSystem\", \"Park\"]}");
+        Assert.assertEquals(true, query.get("valid"));
+        double reliability = (Double) query.get("reliability");
+        Assert.assertTrue(reliability > 0 && reliability < 1);
+
+        Map<String, Object> batch = request("{\"command\": \"batch\", \"name\": \"lift\","
+                + " \"configurations\": [[\"Park\", \"LiftSystem\"], [\"Park\"]]}");
+        List<?> reliabilities = (List<?>) batch.get("reliabilities");
+        Assert.assertEquals(reliability, (Double) reliabilities.get(0), 0);
+        Assert.assertEquals("Invalid configurations are worth 0",
+                            0.0, (Double) reliabilities.get(1), 0);
+
+        Map<String, Object> aggregate = request("{\"command\": \"aggregate\", \"name\": \"lift\"}");
+        Assert.assertEquals(512.0, aggregate.get("count"));
+        Assert.assertTrue((Double) aggregate.get("min") <= reliability);
+        Assert.assertTrue((Double) aggregate.get("max") >= reliability);
+        Assert.assertEquals(aggregate, request("{\"command\": \"aggregate\", \"name\": \"lift\"}"));
+    }
+
+    @Test
+    public void testReloadAndEvict() {
+        request(LOAD_LIFT_SYSTEM);
+        String query = "{\"command\": \"query\", \"name\": \"lift\", \"configuration\": [\"LiftSystem\"]}";
+        Object before = request(query).get("reliability");
+
+        Assert.assertEquals(true, request("{\"command\": \"reload\", \"name\": \"lift\"}").get("ok"));
+        Assert.assertEquals(before, request(query).get("reliability"));
+        Assert.assertEquals(1, ((List<?>) request("{\"command\": \"list\"}").get("spls")).size());
+
+        Assert.assertEquals(true, request("{\"command\": \"evict\", \"name\": \"lift\"}").get("ok"));
+        Map<String, Object> evicted = request(query);
+        Assert.assertEquals(false, evicted.get("ok"));
+        Assert.assertEquals("No such SPL: lift", evicted.get("error"));
+        Assert.assertTrue(((List<?>) request("{\"command\": \"list\"}").get("spls")).isEmpty());
+    }
+
+    @Test
+    public void testErrorsAreReported() {
+        request(LOAD_LIFT_SYSTEM);
+        Map<String, Object> unknownFeature = request("{\"command\": \"query\", \"name\": \"lift\","
+                + " \"configuration\": [\"LiftSystem\", \"Escalator\"]}");
+        Assert.assertEquals(false, unknownFeature.get("ok"));
+        Assert.assertEquals("Unknown feature: Escalator", unknownFeature.get("error"));
+
+        Assert.assertEquals(false, request("{\"command\": \"fly\"}").get("ok"));
+        Assert.assertEquals(false, request("{\"command\": \"load\", \"name\": \"none\","
+                + " \"featureModel\": \"missing.txt\", \"umlModels\": \"missing.xml\"}").get("ok"));
+        Assert.assertEquals(false, request("{\"command\": ").get("ok"));
+        Assert.assertEquals(false, request("[\"query\"]").get("ok"));
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        Object value = Json.parse("{\"a\": [1, -2.5e1, true, null], \"b\\\"\": \"x\\ny\\u0041\", \"c\": {}}");
+        Assert.assertEquals("{\"a\":[1.0,-25.0,true,null],\"b\\\"\":\"x\\nyA\",\"c\":{}}", Json.write(value));
+        Assert.assertEquals("[0.5,null]", Json.write(new double[]{0.5, Double.NaN}));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> request(String request) {
+        return (Map<String, Object>) Json.parse(service.handle(request));
+    }
+
+}